@@ -27,6 +27,7 @@ import taxisty.pingtower.backend.api.dto.NotificationChannelRequest;
 import taxisty.pingtower.backend.api.dto.NotificationChannelResponse;
 import taxisty.pingtower.backend.monitoring.repository.AlertRepository;
 import taxisty.pingtower.backend.monitoring.repository.NotificationChannelRepository;
+import taxisty.pingtower.backend.notifications.repo.NotificationChannelStore;
 import taxisty.pingtower.backend.notifications.service.NotificationService;
 import taxisty.pingtower.backend.storage.model.Alert;
 import taxisty.pingtower.backend.storage.model.NotificationChannel;
@@ -40,14 +41,17 @@ public class AlertController {
 
     private final AlertRepository alertRepository;
     private final NotificationChannelRepository notificationChannelRepository;
+    private final NotificationChannelStore notificationChannelStore;
     private final NotificationService notificationService;
 
     public AlertController(
             AlertRepository alertRepository,
             NotificationChannelRepository notificationChannelRepository,
+            NotificationChannelStore notificationChannelStore,
             NotificationService notificationService) {
         this.alertRepository = alertRepository;
         this.notificationChannelRepository = notificationChannelRepository;
+        this.notificationChannelStore = notificationChannelStore;
         this.notificationService = notificationService;
     }
 
@@ -150,7 +154,7 @@ public class AlertController {
             @Valid @RequestBody NotificationChannelRequest request) {
         
         NotificationChannel channel = convertToChannelEntity(request);
-        channel = notificationChannelRepository.save(channel);
+        channel = notificationChannelStore.saveChannel(channel);
 
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(convertToChannelResponse(channel));
@@ -172,7 +176,7 @@ public class AlertController {
 
         NotificationChannel channel = existingChannel.get();
         updateChannelFromRequest(channel, request);
-        channel = notificationChannelRepository.save(channel);
+        channel = notificationChannelStore.saveChannel(channel);
 
         return ResponseEntity.ok(convertToChannelResponse(channel));
     }
@@ -186,7 +190,7 @@ public class AlertController {
             return ResponseEntity.notFound().build();
         }
 
-        notificationChannelRepository.deleteById(id);
+        notificationChannelStore.deleteChannel(id);
         return ResponseEntity.noContent().build();
     }
 
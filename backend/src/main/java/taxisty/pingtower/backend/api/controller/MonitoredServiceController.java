@@ -26,7 +26,9 @@ import taxisty.pingtower.backend.api.dto.MonitoredServiceResponse;
 import taxisty.pingtower.backend.api.service.UserService;
 import taxisty.pingtower.backend.monitoring.repository.MonitoredServiceRepository;
 import taxisty.pingtower.backend.monitoring.service.MonitoringService;
+import taxisty.pingtower.backend.notifications.routing.ChannelRoutingIndex;
 import taxisty.pingtower.backend.scheduler.service.SchedulerService;
+import taxisty.pingtower.backend.scheduler.task.ProbeClientRegistry;
 import taxisty.pingtower.backend.storage.model.MonitoredService;
 
 /**
@@ -48,16 +50,22 @@ public class MonitoredServiceController {
     private final SchedulerService schedulerService;
     private final MonitoringService monitoringService;
     private final UserService userService;
+    private final ProbeClientRegistry probeClients;
+    private final ChannelRoutingIndex routingIndex;
 
     public MonitoredServiceController(
             MonitoredServiceRepository serviceRepository,
             SchedulerService schedulerService,
             MonitoringService monitoringService,
-            UserService userService) {
+            UserService userService,
+            ProbeClientRegistry probeClients,
+            ChannelRoutingIndex routingIndex) {
         this.serviceRepository = serviceRepository;
         this.schedulerService = schedulerService;
         this.monitoringService = monitoringService;
         this.userService = userService;
+        this.probeClients = probeClients;
+        this.routingIndex = routingIndex;
     }
 
     /**
@@ -132,6 +140,7 @@ public class MonitoredServiceController {
         
         MonitoredService service = convertToEntity(request);
         service = serviceRepository.save(service);
+        routingIndex.onServiceSaved(service);
 
         // Schedule monitoring for the new service if enabled
         if (service.getEnabled()) {
@@ -165,6 +174,7 @@ public class MonitoredServiceController {
         MonitoredService service = existingService.get();
         updateEntityFromRequest(service, request);
         service = serviceRepository.save(service);
+        routingIndex.onServiceSaved(service);
 
         // Reschedule if the service is enabled
         if (service.getEnabled()) {
@@ -204,6 +214,8 @@ public class MonitoredServiceController {
         }
 
         serviceRepository.deleteById(id);
+        monitoringService.forgetService(id);
+        routingIndex.onServiceDeleted(id);
         return ResponseEntity.noContent().build();
     }
 
@@ -275,13 +287,9 @@ public class MonitoredServiceController {
     private ResponseEntity<String> performDirectManualCheck(MonitoredService service) {
         try {
             // Create a test HTTP request to the service URL
-            java.net.http.HttpClient client = java.net.http.HttpClient.newBuilder()
-                    .connectTimeout(java.time.Duration.ofSeconds(service.getTimeoutSeconds()))
-                    .build();
-            
             java.net.http.HttpRequest.Builder requestBuilder = java.net.http.HttpRequest.newBuilder()
                     .uri(java.net.URI.create(service.getUrl()))
-                    .timeout(java.time.Duration.ofSeconds(service.getTimeoutSeconds()))
+                    .timeout(probeClients.requestTimeout(service))
                     .GET();
             
             // Add custom headers if any
@@ -292,8 +300,14 @@ public class MonitoredServiceController {
             java.net.http.HttpRequest request = requestBuilder.build();
             
             long startTime = System.currentTimeMillis();
-            java.net.http.HttpResponse<String> response = client.send(request, 
-                    java.net.http.HttpResponse.BodyHandlers.ofString());
+            java.net.http.HttpResponse<String> response;
+            try {
+                // Shared probe client, so the manual check sees the same pooled connections as scheduled checks
+                response = probeClients.sendAsync(service, request,
+                        java.net.http.HttpResponse.BodyHandlers.ofString()).join();
+            } catch (java.util.concurrent.CompletionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
             long responseTime = System.currentTimeMillis() - startTime;
             
             // Create and save the check result
@@ -350,6 +364,8 @@ public class MonitoredServiceController {
                 service.getQueryParams(),
                 service.getExpectedStatusCode(),
                 service.getExpectedResponseBody(),
+                service.isFollowRedirects(),
+                service.isColdConnectionProbe(),
                 service.isAlive(),
                 service.getCreatedAt(),
                 service.getUpdatedAt()
@@ -376,6 +392,8 @@ public class MonitoredServiceController {
         service.setQueryParams(request.queryParams());
         service.setExpectedStatusCode(request.expectedStatusCode());
         service.setExpectedResponseBody(request.expectedResponseBody());
+        service.setFollowRedirects(request.followRedirects());
+        service.setColdConnectionProbe(request.coldConnectionProbe());
         service.setUserId(getCurrentUserId()); // Get from JWT
     }
 }
\ No newline at end of file
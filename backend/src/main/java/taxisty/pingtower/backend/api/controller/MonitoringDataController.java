@@ -3,7 +3,9 @@ package taxisty.pingtower.backend.api.controller;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -18,10 +20,12 @@ import taxisty.pingtower.backend.api.dto.CheckResultResponse;
 import taxisty.pingtower.backend.api.dto.ServiceMetricsResponse;
 import taxisty.pingtower.backend.monitoring.repository.CheckResultRepository;
 import taxisty.pingtower.backend.monitoring.repository.MonitoredServiceRepository;
+import taxisty.pingtower.backend.monitoring.repository.ServiceStateRepository;
 import taxisty.pingtower.backend.monitoring.service.MonitoringService;
 import taxisty.pingtower.backend.storage.model.CheckResult;
 import taxisty.pingtower.backend.storage.model.MonitoredService;
 import taxisty.pingtower.backend.storage.model.ServiceMetrics;
+import taxisty.pingtower.backend.storage.model.ServiceState;
 
 /**
  * REST API controller for monitoring data and analytics
@@ -33,14 +37,17 @@ public class MonitoringDataController {
     private final MonitoringService monitoringService;
     private final CheckResultRepository checkResultRepository;
     private final MonitoredServiceRepository serviceRepository;
+    private final ServiceStateRepository serviceStateRepository;
 
     public MonitoringDataController(
             MonitoringService monitoringService,
             CheckResultRepository checkResultRepository,
-            MonitoredServiceRepository serviceRepository) {
+            MonitoredServiceRepository serviceRepository,
+            ServiceStateRepository serviceStateRepository) {
         this.monitoringService = monitoringService;
         this.checkResultRepository = checkResultRepository;
         this.serviceRepository = serviceRepository;
+        this.serviceStateRepository = serviceStateRepository;
     }
 
     /**
@@ -74,8 +81,7 @@ public class MonitoringDataController {
             results = checkResultRepository.findByCheckedAtAfterOrderByCheckedAtDesc(sinceTime, pageable);
         }
 
-        Page<CheckResultResponse> response = results.map(this::convertToResponse);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(convertToResponses(results));
     }
 
     /**
@@ -99,8 +105,7 @@ public class MonitoringDataController {
         Page<CheckResult> results = checkResultRepository
                 .findByServiceIdAndCheckedAtBetweenOrderByCheckedAtDesc(serviceId, sinceTime, untilTime, pageable);
 
-        Page<CheckResultResponse> response = results.map(this::convertToResponse);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(convertToResponses(results));
     }
 
     /**
@@ -166,9 +171,9 @@ public class MonitoringDataController {
     @GetMapping("/dashboard")
     public ResponseEntity<List<ServiceStatusResponse>> getDashboardData() {
         try {
-            List<MonitoredService> activeServices = serviceRepository.findAllActive();
-            List<ServiceStatusResponse> statusList = activeServices.stream()
-                    .map(this::getServiceStatus)
+            // One query for all services, however many there are
+            List<ServiceStatusResponse> statusList = serviceStateRepository.findActiveServicesWithState().stream()
+                    .map(row -> getServiceStatus((MonitoredService) row[0], (ServiceState) row[1]))
                     .toList();
             
             return ResponseEntity.ok(statusList);
@@ -177,10 +182,16 @@ public class MonitoringDataController {
         }
     }
 
-    private CheckResultResponse convertToResponse(CheckResult result) {
-        Optional<MonitoredService> serviceOpt = serviceRepository.findById(result.getServiceId());
-        String serviceName = serviceOpt.map(MonitoredService::getName).orElse("Unknown Service");
-        
+    // Resolves the service names of a page with one query
+    private Page<CheckResultResponse> convertToResponses(Page<CheckResult> results) {
+        List<Long> serviceIds = results.stream().map(CheckResult::getServiceId).distinct().toList();
+        Map<Long, String> serviceNames = serviceRepository.findAllById(serviceIds).stream()
+                .collect(Collectors.toMap(MonitoredService::getId, MonitoredService::getName));
+        return results.map(result -> convertToResponse(result,
+                serviceNames.getOrDefault(result.getServiceId(), "Unknown Service")));
+    }
+
+    private CheckResultResponse convertToResponse(CheckResult result, String serviceName) {
         return new CheckResultResponse(
                 result.getId(),
                 result.getServiceId(),
@@ -204,56 +215,50 @@ public class MonitoringDataController {
                 (double) metrics.getAverageResponseTimeMs(),
                 (int) metrics.getMinResponseTimeMs(),
                 (int) metrics.getMaxResponseTimeMs(),
+                toInteger(metrics.getP50ResponseTimeMs()),
+                toInteger(metrics.getP90ResponseTimeMs()),
+                toInteger(metrics.getP95ResponseTimeMs()),
+                toInteger(metrics.getP99ResponseTimeMs()),
                 metrics.getUptimePercentage(),
                 metrics.getPeriodStart(),
                 metrics.getPeriodEnd()
         );
     }
 
-    private ServiceStatusResponse getServiceStatus(MonitoredService service) {
-        try {
-            // Get the most recent check result
-            Optional<CheckResult> latestResult = checkResultRepository
-                    .findTopByServiceIdOrderByCheckTimeDesc(service.getId());
-            
-            if (latestResult.isEmpty()) {
-                return new ServiceStatusResponse(
-                        service.getId(),
-                        service.getName(),
-                        service.getUrl(),
-                        "UNKNOWN",
-                        null,
-                        null,
-                        null,
-                        service.getEnabled()
-                );
-            }
+    private Integer toInteger(Long value) {
+        return value != null ? value.intValue() : null;
+    }
 
-            CheckResult result = latestResult.get();
-            String status = result.isSuccessful() ? "UP" : "DOWN";
-            
+    private ServiceStatusResponse getServiceStatus(MonitoredService service, ServiceState state) {
+        if (state == null) {
             return new ServiceStatusResponse(
                     service.getId(),
                     service.getName(),
                     service.getUrl(),
-                    status,
-                    result.getResponseCode(),
-                    (int) result.getResponseTimeMs(),
-                    result.getCheckTime(),
-                    service.getEnabled()
-            );
-        } catch (Exception e) {
-            return new ServiceStatusResponse(
-                    service.getId(),
-                    service.getName(),
-                    service.getUrl(),
-                    "ERROR",
+                    "UNKNOWN",
+                    null,
+                    null,
                     null,
+                    service.getEnabled(),
                     null,
                     null,
-                    service.getEnabled()
+                    null
             );
         }
+
+        return new ServiceStatusResponse(
+                service.getId(),
+                service.getName(),
+                service.getUrl(),
+                state.getStatus(),
+                state.getLastResponseCode(),
+                (int) state.getLastResponseTimeMs(),
+                state.getLastCheckTime(),
+                service.getEnabled(),
+                state.getConsecutiveSuccesses(),
+                state.getConsecutiveFailures(),
+                state.getStatusChangedAt()
+        );
     }
 
     private LocalDateTime parseDateTimeParam(String dateTimeStr, LocalDateTime defaultValue) {
@@ -287,6 +292,9 @@ public class MonitoringDataController {
             Integer responseCode,
             Integer responseTimeMs,
             LocalDateTime lastChecked,
-            Boolean enabled
+            Boolean enabled,
+            Integer consecutiveSuccesses,
+            Integer consecutiveFailures,
+            LocalDateTime statusChangedAt
     ) {}
 }
\ No newline at end of file
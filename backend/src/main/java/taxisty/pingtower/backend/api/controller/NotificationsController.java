@@ -17,7 +17,8 @@ import org.springframework.web.bind.annotation.RestController;
 import jakarta.validation.Valid;
 import taxisty.pingtower.backend.api.dto.NotificationRequest;
 import taxisty.pingtower.backend.api.dto.TestNotificationRequest;
-import taxisty.pingtower.backend.notifications.repo.InMemoryNotificationRepository;
+import taxisty.pingtower.backend.notifications.repo.NotificationChannelStore;
+import taxisty.pingtower.backend.notifications.repo.NotificationDeliveryLog;
 import taxisty.pingtower.backend.notifications.service.NotificationService;
 import taxisty.pingtower.backend.storage.dto.CreateNotificationChannelRequest;
 import taxisty.pingtower.backend.storage.model.Alert;
@@ -27,11 +28,14 @@ import taxisty.pingtower.backend.storage.model.NotificationDelivery;
 @RestController
 @RequestMapping("/api/notifications")
 public class NotificationsController {
-    private final InMemoryNotificationRepository repo;
+    private final NotificationChannelStore repo;
+    private final NotificationDeliveryLog deliveryLog;
     private final NotificationService service;
 
-    public NotificationsController(InMemoryNotificationRepository repo, NotificationService service) {
+    public NotificationsController(NotificationChannelStore repo, NotificationDeliveryLog deliveryLog,
+                                   NotificationService service) {
         this.repo = repo;
+        this.deliveryLog = deliveryLog;
         this.service = service;
     }
 
@@ -51,10 +55,31 @@ public class NotificationsController {
         return resp;
     }
 
+    /**
+     * Delivery attempts, newest first. {@code next_cursor} is passed back as {@code cursor} for the next page.
+     */
     @GetMapping("/deliveries")
-    public Map<String, Object> listDeliveries() {
+    public Map<String, Object> listDeliveries(
+            @RequestParam(name = "limit", required = false, defaultValue = "50") Integer limit,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "alertId", required = false) Long alertId,
+            @RequestParam(name = "channelId", required = false) Long channelId,
+            @RequestParam(name = "status", required = false) String status) {
+        int lm = Math.min(Math.max(limit == null ? 50 : limit, 1), 500);
+        Long before = null;
+        if (StringUtils.hasText(cursor)) {
+            try {
+                before = Long.parseLong(cursor);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+        NotificationDeliveryLog.Page page = deliveryLog.page(
+                new NotificationDeliveryLog.Filter(alertId, channelId, StringUtils.hasText(status) ? status : null),
+                before, lm);
         Map<String, Object> resp = new HashMap<>();
-        resp.put("items", repo.listDeliveries());
+        resp.put("items", page.items());
+        resp.put("next_cursor", page.nextCursor() == null ? null : String.valueOf(page.nextCursor()));
         return resp;
     }
 
@@ -46,7 +46,11 @@ public record MonitoredServiceRequest(
         
         Integer expectedStatusCode,
         
-        String expectedResponseBody
+        String expectedResponseBody,
+        
+        Boolean followRedirects,
+        
+        Boolean coldConnectionProbe
 ) {
     public MonitoredServiceRequest {
         // Set defaults if null
@@ -65,5 +69,11 @@ public record MonitoredServiceRequest(
         if (expectedStatusCode == null) {
             expectedStatusCode = 200;
         }
+        if (followRedirects == null) {
+            followRedirects = false;
+        }
+        if (coldConnectionProbe == null) {
+            coldConnectionProbe = false;
+        }
     }
 }
\ No newline at end of file
@@ -21,6 +21,8 @@ public record MonitoredServiceResponse(
         Map<String, String> queryParams,
         Integer expectedStatusCode,
         String expectedResponseBody,
+        Boolean followRedirects,
+        Boolean coldConnectionProbe,
         Boolean isAlive,
         LocalDateTime createdAt,
         LocalDateTime updatedAt
@@ -15,6 +15,10 @@ public record ServiceMetricsResponse(
         Double averageResponseTime,
         Integer minResponseTime,
         Integer maxResponseTime,
+        Integer p50ResponseTime,
+        Integer p90ResponseTime,
+        Integer p95ResponseTime,
+        Integer p99ResponseTime,
         Double uptimePercentage,
         LocalDateTime periodStart,
         LocalDateTime periodEnd
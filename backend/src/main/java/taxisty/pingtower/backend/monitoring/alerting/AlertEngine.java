@@ -0,0 +1,422 @@
+package taxisty.pingtower.backend.monitoring.alerting;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import taxisty.pingtower.backend.monitoring.ingest.CheckResultIngestPipeline;
+import taxisty.pingtower.backend.monitoring.repository.AlertRepository;
+import taxisty.pingtower.backend.monitoring.repository.CheckResultRepository;
+import taxisty.pingtower.backend.monitoring.repository.MonitoredServiceRepository;
+import taxisty.pingtower.backend.notifications.service.NotificationService;
+import taxisty.pingtower.backend.scheduler.service.CheckOwnership;
+import taxisty.pingtower.backend.storage.model.Alert;
+import taxisty.pingtower.backend.storage.model.CheckResult;
+import taxisty.pingtower.backend.storage.model.MonitoredService;
+
+/**
+ * Incremental alert evaluation over committed check results.
+ * <p>
+ * Every result is evaluated exactly once, in commit order, against a {@link ServiceAlertWindow}
+ * kept in memory per service. Evaluation itself reads nothing from the database; the database
+ * is only touched when a service is first seen (or seen again after an hour without results),
+ * to seed its window, and when an alert or status change is actually written. Seeding rebuilds the
+ * window from what is persisted: the service status, the failures of the last hour, the previous
+ * result and the unresolved rule alerts of the current incident, so a restart neither repeats nor
+ * misses alerts. The status and incident fields of the window only change once their writes commit.
+ * <p>
+ * Windows are kept only for services this node owns. When ownership changes they are dropped, since
+ * results committed by another node in between never reached them; the next result seeds them again.
+ * A result of a service owned elsewhere, such as a manual check, is evaluated against a freshly
+ * seeded window that is not kept.
+ * <p>
+ * Results are checked against the service's rules from {@link AlertRuleIndex}. An incident raises
+ * an alert when a rule fires, and again only when the severity escalates. A success that fires no
+ * rule ends the incident and resolves its rule alerts. If the previous results were failures and at least 2 of them fall in
+ * the last hour, it also sends a recovery alert.
+ */
+@Component
+public class AlertEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertEngine.class);
+
+    private static final int FAILURE_WINDOW_MINUTES = 30;
+    private static final int RECOVERY_WINDOW_MINUTES = 60;
+    private static final int RECOVERY_THRESHOLD = 2;
+
+    private final Map<Long, ServiceAlertWindow> windows = new ConcurrentHashMap<>();
+    private final MonitoredServiceRepository monitoredServiceRepository;
+    private final CheckResultRepository checkResultRepository;
+    private final AlertRepository alertRepository;
+    private final NotificationService notificationService;
+    private final TransactionTemplate transactionTemplate;
+    private final AlertRuleIndex ruleIndex;
+    private final CheckResultIngestPipeline ingestPipeline;
+    private final CheckOwnership ownership;
+
+    public AlertEngine(AlertRuleIndex ruleIndex,
+                       MonitoredServiceRepository monitoredServiceRepository,
+                       CheckResultRepository checkResultRepository,
+                       AlertRepository alertRepository,
+                       NotificationService notificationService,
+                       PlatformTransactionManager transactionManager,
+                       CheckResultIngestPipeline ingestPipeline,
+                       CheckOwnership ownership) {
+        this.ruleIndex = ruleIndex;
+        this.monitoredServiceRepository = monitoredServiceRepository;
+        this.checkResultRepository = checkResultRepository;
+        this.alertRepository = alertRepository;
+        this.notificationService = notificationService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ingestPipeline = ingestPipeline;
+        this.ownership = ownership;
+    }
+
+    @PostConstruct
+    public void start() {
+        // Alerting runs once per result, after its batch is committed
+        ingestPipeline.addCommitListener(this::evaluate);
+        ownership.addOwnershipChangeListener(this::evictAll);
+    }
+
+    /**
+     * Evaluates a committed batch of check results
+     */
+    public void evaluate(List<CheckResult> checkResults) {
+        for (CheckResult checkResult : checkResults) {
+            try {
+                evaluate(checkResult);
+            } catch (Exception e) {
+                logger.error("Failed to process alerting logic for service: {}", checkResult.getServiceId(), e);
+            }
+        }
+    }
+
+    /**
+     * Drops the alerting state of a service, e.g. after it was deleted
+     */
+    public void evict(Long serviceId) {
+        windows.remove(serviceId);
+    }
+
+    /**
+     * Drops the alerting state of the matching services, so it is seeded again from the database
+     */
+    public void evictAll(LongPredicate serviceIds) {
+        windows.keySet().removeIf(serviceIds::test);
+    }
+
+    private void evaluate(CheckResult checkResult) {
+        long minute = toMinute(checkResult.getCheckTime());
+        ServiceAlertWindow window = windowFor(checkResult, minute);
+        if (window == null) {
+            return;
+        }
+
+        boolean successful = checkResult.isSuccessful();
+        long responseTimeMs = checkResult.getResponseTimeMs();
+        CompiledAlertRule[] rules = ruleIndex.rulesFor(checkResult.getServiceId());
+        boolean statusChanged;
+        int failures;
+        int severity = CompiledAlertRule.NONE;
+        int alertedSeverity;
+        boolean incidentEnded = false;
+        CompiledAlertRule firedRule = null;
+        boolean recovered = false;
+        int recentFailures = 0;
+
+        synchronized (window) {
+            // Failures are facts about committed results; the rest of the window follows the writes below
+            window.lastMinute = Math.max(window.lastMinute, minute);
+            statusChanged = window.alive != successful;
+
+            if (!successful) {
+                window.recordFailure(minute);
+            }
+            failures = window.failuresWithin(minute, FAILURE_WINDOW_MINUTES);
+
+            int level = CompiledAlertRule.NONE;
+            for (CompiledAlertRule rule : rules) {
+                int ruleLevel = rule.evaluate(successful, responseTimeMs, failures);
+                if (ruleLevel > level) {
+                    level = ruleLevel;
+                    firedRule = rule;
+                }
+            }
+
+            if (successful && !window.lastSuccessful) {
+                recentFailures = window.failuresWithin(minute, RECOVERY_WINDOW_MINUTES);
+                recovered = recentFailures >= RECOVERY_THRESHOLD;
+            }
+            alertedSeverity = window.alertedSeverity;
+            if (level > alertedSeverity) {
+                alertedSeverity = level;
+                severity = level;
+            } else if (successful && level == CompiledAlertRule.NONE && alertedSeverity > CompiledAlertRule.NONE) {
+                alertedSeverity = CompiledAlertRule.NONE;
+                incidentEnded = true;
+            }
+        }
+
+        if (statusChanged || severity > CompiledAlertRule.NONE || recovered || incidentEnded) {
+            write(checkResult, statusChanged, severity, firedRule, failures, recovered, recentFailures, incidentEnded);
+        }
+
+        // Left untouched if the write failed, so the next result raises the same change again
+        synchronized (window) {
+            window.alive = successful;
+            window.lastSuccessful = successful;
+            window.alertedSeverity = alertedSeverity;
+        }
+    }
+
+    private void write(CheckResult checkResult, boolean statusChanged, int severity, CompiledAlertRule firedRule,
+                       int failures, boolean recovered, int recentFailures, boolean incidentEnded) {
+        boolean successful = checkResult.isSuccessful();
+        transactionTemplate.executeWithoutResult(status -> {
+            Optional<MonitoredService> serviceOpt = monitoredServiceRepository.findById(checkResult.getServiceId());
+            if (serviceOpt.isEmpty()) {
+                return;
+            }
+            MonitoredService service = serviceOpt.get();
+            if (statusChanged) {
+                monitoredServiceRepository.updateAlive(service.getId(), successful);
+                sendStatusChangeNotification(service, successful);
+            }
+            if (severity > CompiledAlertRule.NONE) {
+                createAndSendAlert(service, checkResult, firedRule, failures, severity);
+            }
+            if (recovered) {
+                sendRecoveryAlert(service, recentFailures);
+            }
+            if (incidentEnded) {
+                resolveIncident(service.getId());
+            }
+        });
+    }
+
+    // Seeds the window of a service seen for the first time or after a gap longer than the window
+    private ServiceAlertWindow windowFor(CheckResult checkResult, long minute) {
+        Long serviceId = checkResult.getServiceId();
+        boolean owned = ownership.owns(serviceId);
+        if (!owned) {
+            // The owner keeps evaluating the service meanwhile, so a window kept here would go stale
+            windows.remove(serviceId);
+        }
+        ServiceAlertWindow window = windows.get(serviceId);
+        if (window != null && minute - window.lastMinute <= RECOVERY_WINDOW_MINUTES) {
+            return window;
+        }
+
+        Optional<MonitoredService> serviceOpt = monitoredServiceRepository.findById(serviceId);
+        if (serviceOpt.isEmpty()) {
+            return null;
+        }
+        boolean alive = serviceOpt.get().isAlive();
+        boolean lastSuccessful = checkResultRepository
+                .findFirstByServiceIdAndCheckTimeBeforeOrderByCheckTimeDesc(serviceId, checkResult.getCheckTime())
+                .map(CheckResult::isSuccessful)
+                .orElse(alive);
+        int alertedSeverity = CompiledAlertRule.NONE;
+        for (Alert alert : incidentAlerts(serviceId)) {
+            alertedSeverity = Math.max(alertedSeverity, CompiledAlertRule.severityLevel(alert.getSeverity()));
+        }
+        ServiceAlertWindow seeded = new ServiceAlertWindow(alive, lastSuccessful, alertedSeverity, minute);
+        LocalDateTime since = checkResult.getCheckTime().minusMinutes(RECOVERY_WINDOW_MINUTES);
+        for (CheckResult failure : checkResultRepository.findRecentFailuresByServiceId(serviceId, since)) {
+            // Results from this batch onwards are already committed and are evaluated one by one
+            if (failure.getCheckTime().isBefore(checkResult.getCheckTime())) {
+                seeded.recordFailure(toMinute(failure.getCheckTime()));
+            }
+        }
+        if (owned) {
+            windows.put(serviceId, seeded);
+        }
+        return seeded;
+    }
+
+    // Rule alerts stay unresolved until their incident ends; status and recovery alerts carry a type
+    private List<Alert> incidentAlerts(Long serviceId) {
+        return alertRepository.findUnresolvedByServiceId(serviceId).stream()
+                .filter(alert -> alert.getMetadata() != null && alert.getMetadata().containsKey("rule"))
+                .toList();
+    }
+
+    private void resolveIncident(Long serviceId) {
+        List<Alert> alerts = incidentAlerts(serviceId);
+        LocalDateTime now = LocalDateTime.now();
+        for (Alert alert : alerts) {
+            alert.setIsResolved(true);
+            alert.setResolvedAt(now);
+        }
+        alertRepository.saveAll(alerts);
+    }
+
+    /**
+     * Sends notification when service status changes (isAlive changes)
+     */
+    private void sendStatusChangeNotification(MonitoredService service, boolean isAlive) {
+        try {
+            String message = isAlive
+                ? String.format("Service '%s' is now UP and responding normally.", service.getName())
+                : String.format("Service '%s' is now DOWN and not responding.", service.getName());
+
+            // Create status change alert
+            Alert statusAlert = new Alert();
+            statusAlert.setServiceId(service.getId());
+            statusAlert.setMessage(message);
+            statusAlert.setSeverity(isAlive ? "INFO" : "HIGH");
+            statusAlert.setIsResolved(isAlive);
+            statusAlert.setTriggeredAt(LocalDateTime.now());
+            if (isAlive) {
+                statusAlert.setResolvedAt(LocalDateTime.now());
+            }
+
+            // Add metadata
+            Map<String, String> metadata = new HashMap<>();
+            metadata.put("type", "STATUS_CHANGE");
+            metadata.put("serviceId", service.getId().toString());
+            metadata.put("serviceName", service.getName());
+            metadata.put("serviceUrl", service.getUrl());
+            metadata.put("newStatus", isAlive ? "UP" : "DOWN");
+            metadata.put("changeTime", LocalDateTime.now().toString());
+            statusAlert.setMetadata(metadata);
+
+            // Save alert
+            Alert savedAlert = alertRepository.save(statusAlert);
+
+            // Send notification
+            try {
+                notificationService.sendAlert(savedAlert);
+                logger.info("Status change notification sent for service {}: {}", service.getName(), message);
+            } catch (Exception notificationError) {
+                logger.error("Failed to send status change notification for service {}: {}",
+                           service.getName(), notificationError.getMessage());
+            }
+
+        } catch (Exception e) {
+            logger.error("Failed to send status change notification for service: {}", service.getId(), e);
+        }
+    }
+
+    private void createAndSendAlert(MonitoredService service, CheckResult checkResult, CompiledAlertRule rule,
+                                    int failureCount, int severity) {
+        try {
+            String message = checkResult.isSuccessful()
+                ? String.format(
+                    "Service '%s' is responding slowly: %d ms.",
+                    service.getName(),
+                    checkResult.getResponseTimeMs())
+                : String.format(
+                    "Service '%s' is experiencing failures. %d failures in the last 30 minutes. " +
+                    "Latest error: %s",
+                    service.getName(),
+                    failureCount,
+                    checkResult.getErrorMessage() != null ?
+                        checkResult.getErrorMessage() : "Connection failed"
+            );
+
+            // Create alert
+            Alert alert = new Alert();
+            alert.setServiceId(service.getId());
+            alert.setMessage(message);
+            alert.setSeverity(CompiledAlertRule.severityName(severity));
+            alert.setIsResolved(false);
+            alert.setTriggeredAt(LocalDateTime.now());
+
+            // Add metadata
+            Map<String, String> metadata = new HashMap<>();
+            metadata.put("serviceId", service.getId().toString());
+            metadata.put("serviceName", service.getName());
+            metadata.put("serviceUrl", service.getUrl());
+            metadata.put("failureCount", String.valueOf(failureCount));
+            metadata.put("rule", rule.name);
+            if (rule.ruleId != null) {
+                metadata.put("ruleId", rule.ruleId.toString());
+            }
+            metadata.put("lastResponseCode", String.valueOf(checkResult.getResponseCode()));
+            metadata.put("lastResponseTime", String.valueOf(checkResult.getResponseTimeMs()));
+            alert.setMetadata(metadata);
+
+            // Save alert to database
+            Alert savedAlert = alertRepository.save(alert);
+
+            // Send through notification service
+            try {
+                notificationService.sendAlert(savedAlert);
+                logger.info("Alert notification sent for service {}: {}", service.getName(), message);
+            } catch (Exception notificationError) {
+                logger.error("Failed to send alert notification for service {}: {}",
+                           service.getName(), notificationError.getMessage());
+            }
+
+            logger.warn("Alert triggered and saved for service {}: {}", service.getName(), message);
+
+        } catch (Exception e) {
+            logger.error("Failed to create alert for service: {}", checkResult.getServiceId(), e);
+        }
+    }
+
+    /**
+     * Sends a recovery alert when a service starts working again after failures
+     */
+    private void sendRecoveryAlert(MonitoredService service, int previousFailures) {
+        try {
+            String message = String.format(
+                    "Service '%s' has recovered after %d failures. Service is now responding normally.",
+                    service.getName(),
+                    previousFailures
+            );
+
+            // Create recovery alert
+            Alert recoveryAlert = new Alert();
+            recoveryAlert.setServiceId(service.getId());
+            recoveryAlert.setMessage(message);
+            recoveryAlert.setSeverity("INFO");
+            recoveryAlert.setIsResolved(true);
+            recoveryAlert.setTriggeredAt(LocalDateTime.now());
+            recoveryAlert.setResolvedAt(LocalDateTime.now());
+
+            // Add recovery metadata
+            Map<String, String> recoveryMetadata = new HashMap<>();
+            recoveryMetadata.put("type", "RECOVERY");
+            recoveryMetadata.put("serviceId", service.getId().toString());
+            recoveryMetadata.put("serviceName", service.getName());
+            recoveryMetadata.put("serviceUrl", service.getUrl());
+            recoveryMetadata.put("recoveryTime", LocalDateTime.now().toString());
+            recoveryMetadata.put("previousFailures", String.valueOf(previousFailures));
+            recoveryAlert.setMetadata(recoveryMetadata);
+
+            // Save recovery alert
+            Alert savedRecoveryAlert = alertRepository.save(recoveryAlert);
+
+            // Send recovery notification
+            try {
+                notificationService.sendAlert(savedRecoveryAlert);
+                logger.info("Recovery notification sent for service {}: {}", service.getName(), message);
+            } catch (Exception notificationError) {
+                logger.error("Failed to send recovery notification for service {}: {}",
+                           service.getName(), notificationError.getMessage());
+            }
+
+        } catch (Exception e) {
+            logger.error("Failed to send recovery alert for service: {}", service.getId(), e);
+        }
+    }
+
+    private static long toMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+}
@@ -0,0 +1,90 @@
+package taxisty.pingtower.backend.monitoring.alerting;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import taxisty.pingtower.backend.monitoring.repository.AlertRuleRepository;
+import taxisty.pingtower.backend.storage.model.AlertRule;
+
+/**
+ * Enabled alert rules compiled into {@link CompiledAlertRule} evaluators and indexed by service id.
+ * <p>
+ * The index is immutable and replaced as a whole, so evaluation reads it without locks. The rule table
+ * is polled every {@code monitoring.alerting.rule-refresh-interval-ms} and recompiled when its row count
+ * or latest update time changes; {@link #reload()} recompiles right away.
+ */
+@Component
+public class AlertRuleIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertRuleIndex.class);
+    private static final CompiledAlertRule[] DEFAULT_RULES = {CompiledAlertRule.DEFAULT};
+
+    private final AlertRuleRepository alertRuleRepository;
+
+    private volatile Map<Long, CompiledAlertRule[]> rulesByService = Map.of();
+    private long loadedCount = -1;
+    private LocalDateTime loadedLatestUpdate;
+
+    public AlertRuleIndex(AlertRuleRepository alertRuleRepository) {
+        this.alertRuleRepository = alertRuleRepository;
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            // Keeps the built-in rule until the next refresh succeeds
+            logger.error("Failed to load alert rules", e);
+        }
+    }
+
+    /**
+     * Rules of a service; services without enabled rules get the built-in rule
+     */
+    CompiledAlertRule[] rulesFor(Long serviceId) {
+        CompiledAlertRule[] rules = rulesByService.get(serviceId);
+        return rules != null ? rules : DEFAULT_RULES;
+    }
+
+    /**
+     * Recompiles the rules if the rule table changed since the last load
+     */
+    @Scheduled(fixedDelayString = "${monitoring.alerting.rule-refresh-interval-ms:30000}",
+               initialDelayString = "${monitoring.alerting.rule-refresh-interval-ms:30000}")
+    public synchronized void refresh() {
+        long count = alertRuleRepository.count();
+        LocalDateTime latestUpdate = alertRuleRepository.findLatestUpdate();
+        if (count == loadedCount && Objects.equals(latestUpdate, loadedLatestUpdate)) {
+            return;
+        }
+        reload();
+        loadedCount = count;
+        loadedLatestUpdate = latestUpdate;
+    }
+
+    /**
+     * Recompiles all enabled rules and swaps them in
+     */
+    public synchronized void reload() {
+        Map<Long, List<CompiledAlertRule>> grouped = new HashMap<>();
+        List<AlertRule> rules = alertRuleRepository.findAllEnabled();
+        for (AlertRule rule : rules) {
+            grouped.computeIfAbsent(rule.getServiceId(), id -> new ArrayList<>()).add(CompiledAlertRule.compile(rule));
+        }
+        Map<Long, CompiledAlertRule[]> index = new HashMap<>(grouped.size() * 2);
+        grouped.forEach((serviceId, compiled) -> index.put(serviceId, compiled.toArray(CompiledAlertRule[]::new)));
+        rulesByService = index;
+        logger.info("Compiled {} alert rules for {} services", rules.size(), index.size());
+    }
+}
@@ -0,0 +1,105 @@
+package taxisty.pingtower.backend.monitoring.alerting;
+
+import java.util.Locale;
+
+import taxisty.pingtower.backend.storage.model.AlertRule;
+
+/**
+ * Immutable evaluator compiled from an {@link AlertRule}.
+ * Evaluation works on primitives only, so it neither allocates nor touches the database.
+ * <p>
+ * Failures are counted over the last 30 minutes. Reaching {@code failureThreshold} raises the rule
+ * severity; reaching {@code warningThreshold}, or a response at or above
+ * {@code responseTimeThresholdMs}, raises a warning at no more than MEDIUM. Thresholds that are not
+ * set, or are 0 or less, are disabled.
+ */
+final class CompiledAlertRule {
+
+    static final int NONE = 0;
+    static final int LOW = 1;
+    static final int MEDIUM = 2;
+    static final int HIGH = 3;
+    static final int CRITICAL = 4;
+
+    private static final String[] SEVERITIES = {null, "LOW", "MEDIUM", "HIGH", "CRITICAL"};
+
+    /**
+     * Built-in rule of services without alert rules: 3, 5 and 10 failures raise MEDIUM, HIGH and
+     * CRITICAL, and a failure slower than 10 seconds raises at least LOW.
+     */
+    static final CompiledAlertRule DEFAULT = new CompiledAlertRule(null, "default", 3, MEDIUM, 0, NONE, 10000, true);
+
+    final Long ruleId;
+    final String name;
+    private final int failureThreshold;
+    private final int failureLevel;
+    private final int warningThreshold;
+    private final int warningLevel;
+    private final long responseTimeThresholdMs;
+    private final boolean builtIn;
+
+    private CompiledAlertRule(Long ruleId, String name, int failureThreshold, int failureLevel,
+                              int warningThreshold, int warningLevel, long responseTimeThresholdMs, boolean builtIn) {
+        this.ruleId = ruleId;
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.failureLevel = failureLevel;
+        this.warningThreshold = warningThreshold;
+        this.warningLevel = warningLevel;
+        this.responseTimeThresholdMs = responseTimeThresholdMs;
+        this.builtIn = builtIn;
+    }
+
+    static CompiledAlertRule compile(AlertRule rule) {
+        int level = severityLevel(rule.getSeverity());
+        int warningThreshold = rule.getWarningThreshold() != null ? rule.getWarningThreshold() : 0;
+        long responseTimeThresholdMs = rule.getResponseTimeThresholdMs() != null ? rule.getResponseTimeThresholdMs() : 0;
+        return new CompiledAlertRule(rule.getId(), rule.getName(), rule.getFailureThreshold(), level,
+                warningThreshold, Math.min(level, MEDIUM), responseTimeThresholdMs, false);
+    }
+
+    /**
+     * Severity level raised by a result, {@link #NONE} if the rule does not fire
+     *
+     * @param failures failures in the last 30 minutes, including this result
+     */
+    int evaluate(boolean successful, long responseTimeMs, int failures) {
+        if (builtIn) {
+            if (successful) {
+                return NONE;
+            }
+            int level = failures >= 10 ? CRITICAL : failures >= 5 ? HIGH : failures >= failureThreshold ? MEDIUM : NONE;
+            return responseTimeMs > responseTimeThresholdMs ? Math.max(level, LOW) : level;
+        }
+
+        int level = NONE;
+        if (!successful) {
+            if (failureThreshold > 0 && failures >= failureThreshold) {
+                level = failureLevel;
+            } else if (warningThreshold > 0 && failures >= warningThreshold) {
+                level = warningLevel;
+            }
+        }
+        if (responseTimeThresholdMs > 0 && responseTimeMs >= responseTimeThresholdMs) {
+            level = Math.max(level, warningLevel);
+        }
+        return level;
+    }
+
+    static String severityName(int level) {
+        return SEVERITIES[level];
+    }
+
+    // Unknown severities count as HIGH, the AlertRule default
+    static int severityLevel(String severity) {
+        if (severity == null) {
+            return HIGH;
+        }
+        return switch (severity.toUpperCase(Locale.ROOT)) {
+            case "LOW" -> LOW;
+            case "MEDIUM" -> MEDIUM;
+            case "CRITICAL" -> CRITICAL;
+            default -> HIGH;
+        };
+    }
+}
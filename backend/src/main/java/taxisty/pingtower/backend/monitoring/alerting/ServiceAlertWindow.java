@@ -0,0 +1,55 @@
+package taxisty.pingtower.backend.monitoring.alerting;
+
+import java.util.Arrays;
+
+/**
+ * Alerting state of one service: failure counts per minute over the last hour,
+ * the outcome of the latest result and the severity already alerted in the current incident.
+ * <p>
+ * Not thread-safe; {@link AlertEngine} evaluates the results of a service on a single thread.
+ */
+final class ServiceAlertWindow {
+
+    static final int MINUTES = 60;
+
+    // Slot i counts the failures of minute bucketMinutes[i]; slots of other minutes are stale
+    private final long[] bucketMinutes = new long[MINUTES];
+    private final int[] failures = new int[MINUTES];
+
+    boolean alive;
+    boolean lastSuccessful;
+    long lastMinute;
+    int alertedSeverity;
+
+    ServiceAlertWindow(boolean alive, boolean lastSuccessful, int alertedSeverity, long minute) {
+        this.alive = alive;
+        this.lastSuccessful = lastSuccessful;
+        this.alertedSeverity = alertedSeverity;
+        this.lastMinute = minute;
+        Arrays.fill(bucketMinutes, Long.MIN_VALUE);
+    }
+
+    void recordFailure(long minute) {
+        int slot = Math.floorMod(minute, MINUTES);
+        if (bucketMinutes[slot] != minute) {
+            bucketMinutes[slot] = minute;
+            failures[slot] = 0;
+        }
+        failures[slot]++;
+    }
+
+    /**
+     * Failures in the {@code minutes} minutes up to and including {@code minute}
+     */
+    int failuresWithin(long minute, int minutes) {
+        int total = 0;
+        long oldest = minute - Math.min(minutes, MINUTES) + 1;
+        for (int slot = 0; slot < MINUTES; slot++) {
+            long bucket = bucketMinutes[slot];
+            if (bucket >= oldest && bucket <= minute) {
+                total += failures[slot];
+            }
+        }
+        return total;
+    }
+}
@@ -2,54 +2,95 @@ package taxisty.pingtower.backend.monitoring.config;
 
 import java.util.Properties;
 
-import javax.sql.DataSource;
-
-import org.springframework.beans.factory.annotation.Value;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 
 /**
  * Configuration for ClickHouse database connection for time series analytics.
  * ClickHouse is used for storing large volumes of monitoring data and performing
  * high-performance analytics queries.
+ * <p>
+ * Ingest and analytics use separate bounded connection pools, so a burst of dashboard
+ * queries cannot starve result writes and vice versa. The pool size is the concurrency
+ * limit of each workload; callers wait up to the connection timeout for a free connection.
  */
 @Configuration
-public class ClickHouseConfig {
-    
-    @Value("${monitoring.clickhouse.url:jdbc:clickhouse://localhost:8123/monitoring}")
-    private String clickHouseUrl;
-    
-    @Value("${monitoring.clickhouse.username:default}")
-    private String username;
-    
-    @Value("${monitoring.clickhouse.password:}")
-    private String password;
-    
-    @Value("${monitoring.clickhouse.driver-class-name:com.clickhouse.jdbc.ClickHouseDriver}")
-    private String driverClassName;
-    
-    // Do NOT expose ClickHouse DataSource as a Spring bean to avoid
+public class ClickHouseConfig implements DisposableBean {
+
+    private final MonitoringProperties.ClickHouse settings;
+    private final MeterRegistry meterRegistry;
+
+    // Do NOT expose ClickHouse DataSources as Spring beans to avoid
     // interfering with Spring Boot's primary JPA DataSource (PostgreSQL).
-    private DataSource clickHouseDataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName(driverClassName);
-        dataSource.setUrl(clickHouseUrl);
-        dataSource.setUsername(username);
-        dataSource.setPassword(password);
-        
+    private HikariDataSource ingestDataSource;
+    private HikariDataSource analyticsDataSource;
+
+    public ClickHouseConfig(MonitoringProperties monitoringProperties, MeterRegistry meterRegistry) {
+        this.settings = monitoringProperties.getClickhouse();
+        this.meterRegistry = meterRegistry;
+    }
+
+    private HikariDataSource clickHouseDataSource(String poolName, int poolSize) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setDriverClassName(settings.getDriverClassName());
+        config.setJdbcUrl(settings.getUrl());
+        config.setUsername(settings.getUsername());
+        config.setPassword(settings.getPassword());
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(1);
+        config.setConnectionTimeout(settings.getConnectionTimeout());
+        config.setIdleTimeout(60_000);
+        config.setMaxLifetime(600_000);
+        // Start even when ClickHouse is down; connections are opened once it is reachable
+        config.setInitializationFailTimeout(-1);
+        // Pool statistics are published as hikaricp.connections.* tagged with the pool name
+        config.setMetricRegistry(meterRegistry);
+
         Properties properties = new Properties();
         // Removed compression settings to avoid LZ4 issues
-        properties.setProperty("socket_timeout", "30000");
-        properties.setProperty("connection_timeout", "10000");
-        dataSource.setConnectionProperties(properties);
-        
-        return dataSource;
+        properties.setProperty("socket_timeout", String.valueOf(settings.getSocketTimeout()));
+        properties.setProperty("connection_timeout", String.valueOf(settings.getConnectionTimeout()));
+        config.setDataSourceProperties(properties);
+
+        return new HikariDataSource(config);
     }
-    
+
+    /**
+     * Template for dashboard and reporting queries.
+     */
     @Bean(name = "clickHouseJdbcTemplate")
     public JdbcTemplate clickHouseJdbcTemplate() {
-        return new JdbcTemplate(clickHouseDataSource());
+        analyticsDataSource = clickHouseDataSource("clickhouse-analytics", settings.getAnalyticsPoolSize());
+        JdbcTemplate template = new JdbcTemplate(analyticsDataSource);
+        // Sent as max_execution_time, so ClickHouse cancels the query server side
+        template.setQueryTimeout(settings.getQueryTimeoutSeconds());
+        return template;
+    }
+
+    /**
+     * Template for batch inserts of check results and metrics.
+     */
+    @Bean(name = "clickHouseIngestJdbcTemplate")
+    public JdbcTemplate clickHouseIngestJdbcTemplate() {
+        ingestDataSource = clickHouseDataSource("clickhouse-ingest", settings.getIngestPoolSize());
+        JdbcTemplate template = new JdbcTemplate(ingestDataSource);
+        template.setQueryTimeout(settings.getIngestQueryTimeoutSeconds());
+        return template;
+    }
+
+    @Override
+    public void destroy() {
+        if (analyticsDataSource != null) {
+            analyticsDataSource.close();
+        }
+        if (ingestDataSource != null) {
+            ingestDataSource.close();
+        }
     }
 }
@@ -12,6 +12,9 @@ public class MonitoringProperties {
     
     private ClickHouse clickhouse = new ClickHouse();
     private Analytics analytics = new Analytics();
+    private Ingest ingest = new Ingest();
+    private Spool spool = new Spool();
+    private HotTier hotTier = new HotTier();
     
     public static class ClickHouse {
         private String url = "jdbc:clickhouse://localhost:8123/monitoring";
@@ -20,6 +23,11 @@ public class MonitoringProperties {
         private String driverClassName = "com.clickhouse.jdbc.ClickHouseDriver";
         private int socketTimeout = 30000;
         private int connectionTimeout = 10000;
+        private int ingestPoolSize = 2;
+        private int analyticsPoolSize = 8;
+        private int queryTimeoutSeconds = 30;
+        private int ingestQueryTimeoutSeconds = 60;
+        private boolean asyncInsert = false;
         
         // Getters and setters
         public String getUrl() { return url; }
@@ -39,6 +47,21 @@ public class MonitoringProperties {
         
         public int getConnectionTimeout() { return connectionTimeout; }
         public void setConnectionTimeout(int connectionTimeout) { this.connectionTimeout = connectionTimeout; }
+        
+        public int getIngestPoolSize() { return ingestPoolSize; }
+        public void setIngestPoolSize(int ingestPoolSize) { this.ingestPoolSize = ingestPoolSize; }
+        
+        public int getAnalyticsPoolSize() { return analyticsPoolSize; }
+        public void setAnalyticsPoolSize(int analyticsPoolSize) { this.analyticsPoolSize = analyticsPoolSize; }
+        
+        public int getQueryTimeoutSeconds() { return queryTimeoutSeconds; }
+        public void setQueryTimeoutSeconds(int queryTimeoutSeconds) { this.queryTimeoutSeconds = queryTimeoutSeconds; }
+        
+        public int getIngestQueryTimeoutSeconds() { return ingestQueryTimeoutSeconds; }
+        public void setIngestQueryTimeoutSeconds(int ingestQueryTimeoutSeconds) { this.ingestQueryTimeoutSeconds = ingestQueryTimeoutSeconds; }
+        
+        public boolean isAsyncInsert() { return asyncInsert; }
+        public void setAsyncInsert(boolean asyncInsert) { this.asyncInsert = asyncInsert; }
     }
     
     public static class Analytics {
@@ -61,9 +84,103 @@ public class MonitoringProperties {
         public void setAggregationPeriods(String aggregationPeriods) { this.aggregationPeriods = aggregationPeriods; }
     }
     
+    /**
+     * Write-behind pipeline for check results.
+     */
+    public static class Ingest {
+        private int queueCapacity = 50000;
+        private int batchSize = 1000;
+        private long lingerMillis = 200;
+        private long offerTimeoutMillis = 50;
+        private long retryInitialMillis = 100;
+        private long retryMaxMillis = 10000;
+        
+        // Getters and setters
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+        
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+        
+        public long getLingerMillis() { return lingerMillis; }
+        public void setLingerMillis(long lingerMillis) { this.lingerMillis = lingerMillis; }
+        
+        public long getOfferTimeoutMillis() { return offerTimeoutMillis; }
+        public void setOfferTimeoutMillis(long offerTimeoutMillis) { this.offerTimeoutMillis = offerTimeoutMillis; }
+        
+        public long getRetryInitialMillis() { return retryInitialMillis; }
+        public void setRetryInitialMillis(long retryInitialMillis) { this.retryInitialMillis = retryInitialMillis; }
+        
+        public long getRetryMaxMillis() { return retryMaxMillis; }
+        public void setRetryMaxMillis(long retryMaxMillis) { this.retryMaxMillis = retryMaxMillis; }
+    }
+    
+    /**
+     * Local disk spool for ClickHouse inserts made while ClickHouse is unavailable.
+     */
+    public static class Spool {
+        private boolean enabled = true;
+        private String directory = "data/clickhouse-spool";
+        private long segmentBytes = 64L * 1024 * 1024;
+        private long maxBytes = 1024L * 1024 * 1024;
+        private int replayBatchBytes = 16 * 1024 * 1024;
+        private long replayIntervalMillis = 5000;
+        
+        // Getters and setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        
+        public String getDirectory() { return directory; }
+        public void setDirectory(String directory) { this.directory = directory; }
+        
+        public long getSegmentBytes() { return segmentBytes; }
+        public void setSegmentBytes(long segmentBytes) { this.segmentBytes = segmentBytes; }
+        
+        public long getMaxBytes() { return maxBytes; }
+        public void setMaxBytes(long maxBytes) { this.maxBytes = maxBytes; }
+        
+        public int getReplayBatchBytes() { return replayBatchBytes; }
+        public void setReplayBatchBytes(int replayBatchBytes) { this.replayBatchBytes = replayBatchBytes; }
+        
+        public long getReplayIntervalMillis() { return replayIntervalMillis; }
+        public void setReplayIntervalMillis(long replayIntervalMillis) { this.replayIntervalMillis = replayIntervalMillis; }
+    }
+    
+    /**
+     * In-memory rings of recent check results per service.
+     */
+    public static class HotTier {
+        private boolean enabled = true;
+        private int capacityPerService = 4096;
+        private long retentionMillis = 6 * 60 * 60 * 1000L;
+        private long maxBytes = 128L * 1024 * 1024;
+        
+        // Getters and setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        
+        public int getCapacityPerService() { return capacityPerService; }
+        public void setCapacityPerService(int capacityPerService) { this.capacityPerService = capacityPerService; }
+        
+        public long getRetentionMillis() { return retentionMillis; }
+        public void setRetentionMillis(long retentionMillis) { this.retentionMillis = retentionMillis; }
+        
+        public long getMaxBytes() { return maxBytes; }
+        public void setMaxBytes(long maxBytes) { this.maxBytes = maxBytes; }
+    }
+    
     public ClickHouse getClickhouse() { return clickhouse; }
     public void setClickhouse(ClickHouse clickhouse) { this.clickhouse = clickhouse; }
     
     public Analytics getAnalytics() { return analytics; }
     public void setAnalytics(Analytics analytics) { this.analytics = analytics; }
+    
+    public Ingest getIngest() { return ingest; }
+    public void setIngest(Ingest ingest) { this.ingest = ingest; }
+    
+    public Spool getSpool() { return spool; }
+    public void setSpool(Spool spool) { this.spool = spool; }
+    
+    public HotTier getHotTier() { return hotTier; }
+    public void setHotTier(HotTier hotTier) { this.hotTier = hotTier; }
 }
\ No newline at end of file
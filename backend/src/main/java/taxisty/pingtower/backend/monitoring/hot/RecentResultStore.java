@@ -0,0 +1,274 @@
+package taxisty.pingtower.backend.monitoring.hot;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongPredicate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import taxisty.pingtower.backend.monitoring.config.MonitoringProperties;
+import taxisty.pingtower.backend.monitoring.ingest.CheckResultIngestPipeline;
+import taxisty.pingtower.backend.monitoring.repository.ServiceStateRepository;
+import taxisty.pingtower.backend.scheduler.service.CheckOwnership;
+import taxisty.pingtower.backend.storage.model.CheckResult;
+
+/**
+ * In-memory hot tier of recent check results, one {@link ResultRing} per service.
+ * <p>
+ * Rings are filled from committed ingest batches. A read is served from memory only when the
+ * ring holds every result of the requested window, i.e. the window starts after the oldest
+ * overwritten entry, after this node started tracking the service and within the retention;
+ * otherwise the lookup returns empty and the caller queries the database.
+ * <p>
+ * Only services this node owns are tracked, since their scheduled checks all commit here. Rings of
+ * services whose ownership changes are dropped: results probed by another node in between never
+ * reach them. In a cluster a manual check may still commit on a node that does not own the service,
+ * so before serving a ring the owner compares its latest result with {@code service_state}; a newer
+ * committed result it never recorded drops the ring and the read goes to the database.
+ * <p>
+ * Memory is bounded by {@code monitoring.hot-tier.max-bytes}: once it is used up, rings stop
+ * growing and services without a ring are not tracked until idle rings are released.
+ */
+@Component
+public class RecentResultStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecentResultStore.class);
+
+    private final CheckResultIngestPipeline ingestPipeline;
+    private final CheckOwnership ownership;
+    private final ServiceStateRepository serviceStateRepository;
+    private final Map<Long, ResultRing> rings = new ConcurrentHashMap<>();
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private final boolean enabled;
+    private final int capacity;
+    private final long retentionMillis;
+    private final long maxBytes;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public RecentResultStore(MonitoringProperties monitoringProperties,
+                             CheckResultIngestPipeline ingestPipeline,
+                             CheckOwnership ownership,
+                             ServiceStateRepository serviceStateRepository,
+                             MeterRegistry meterRegistry) {
+        this.ingestPipeline = ingestPipeline;
+        this.ownership = ownership;
+        this.serviceStateRepository = serviceStateRepository;
+        MonitoringProperties.HotTier settings = monitoringProperties.getHotTier();
+        this.enabled = settings.isEnabled();
+        this.capacity = Math.max(ResultRing.INITIAL_SLOTS, settings.getCapacityPerService());
+        this.retentionMillis = settings.getRetentionMillis();
+        this.maxBytes = settings.getMaxBytes();
+
+        Gauge.builder("pingtower.hottier.services", rings, Map::size)
+                .description("Services with recent results held in memory")
+                .register(meterRegistry);
+        Gauge.builder("pingtower.hottier.bytes", allocatedBytes, AtomicLong::get)
+                .description("Memory allocated for recent results")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.hitCounter = Counter.builder("pingtower.hottier.reads")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("pingtower.hottier.reads")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            ingestPipeline.addCommitListener(this::record);
+            ownership.addOwnershipChangeListener(this::evictAll);
+        }
+    }
+
+    /**
+     * Adds committed check results to the rings of their services.
+     */
+    public void record(List<CheckResult> results) {
+        if (!enabled) {
+            return;
+        }
+        for (CheckResult result : results) {
+            if (result.getServiceId() == null || !ownership.owns(result.getServiceId())) {
+                continue;
+            }
+            ResultRing ring = ringFor(result.getServiceId());
+            if (ring != null) {
+                synchronized (ring) {
+                    // An evicted ring has already released its bytes
+                    if (rings.get(result.getServiceId()) == ring) {
+                        ring.append(result, this::reserve);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Results of a service checked at or after {@code since}, newest first,
+     * or empty when the hot tier does not hold the whole window.
+     */
+    public Optional<List<CheckResult>> findRecent(Long serviceId, LocalDateTime since) {
+        return findBetween(serviceId, since, LocalDateTime.now());
+    }
+
+    /**
+     * Results of a service checked within [since, until], newest first,
+     * or empty when the hot tier does not hold the whole window.
+     */
+    public Optional<List<CheckResult>> findBetween(Long serviceId, LocalDateTime since, LocalDateTime until) {
+        ResultRing ring = current(serviceId);
+        long sinceMillis = ResultRing.toMillis(since);
+        if (ring == null || sinceMillis < horizon()) {
+            missCounter.increment();
+            return Optional.empty();
+        }
+        List<CheckResult> results = new ArrayList<>();
+        synchronized (ring) {
+            if (!ring.covers(sinceMillis)) {
+                missCounter.increment();
+                return Optional.empty();
+            }
+            ring.collect(sinceMillis, ResultRing.toMillis(until), results);
+        }
+        hitCounter.increment();
+        return Optional.of(results);
+    }
+
+    /**
+     * Latest result of a service held in memory, or empty when there is none.
+     */
+    public Optional<CheckResult> findLatest(Long serviceId) {
+        ResultRing ring = current(serviceId);
+        CheckResult latest = null;
+        if (ring != null) {
+            synchronized (ring) {
+                latest = ring.latest();
+            }
+        }
+        (latest != null ? hitCounter : missCounter).increment();
+        return Optional.ofNullable(latest);
+    }
+
+    /**
+     * Drops the results of a service, e.g. after it was deleted.
+     */
+    public void evict(Long serviceId) {
+        ResultRing ring = rings.remove(serviceId);
+        if (ring != null) {
+            synchronized (ring) {
+                allocatedBytes.addAndGet(-ring.allocatedBytes());
+            }
+        }
+    }
+
+    /**
+     * Drops the results of every service matching {@code serviceIds}.
+     */
+    public void evictAll(LongPredicate serviceIds) {
+        for (Long serviceId : rings.keySet()) {
+            if (serviceIds.test(serviceId)) {
+                evict(serviceId);
+            }
+        }
+    }
+
+    // A ring of a service owned elsewhere, e.g. while the leases lapsed, misses the results probed there
+    private ResultRing tracked(Long serviceId) {
+        if (!enabled || serviceId == null || !ownership.owns(serviceId)) {
+            return null;
+        }
+        return rings.get(serviceId);
+    }
+
+    // The tracked ring, unless a newer result of the service committed on another node
+    private ResultRing current(Long serviceId) {
+        ResultRing ring = tracked(serviceId);
+        if (ring == null || !ownership.isClustered()) {
+            return ring;
+        }
+        long latest;
+        synchronized (ring) {
+            latest = ring.latestTime();
+        }
+        Optional<LocalDateTime> committed;
+        try {
+            committed = serviceStateRepository.findLastCheckTime(serviceId);
+        } catch (Exception e) {
+            logger.warn("Failed to read last check time of service {}: {}", serviceId, e.getMessage());
+            return null;
+        }
+        // Also true for a batch of this node's that committed but has not been recorded yet;
+        // dropping the ring then only costs warming it up again
+        if (committed.isPresent() && ResultRing.toMillis(committed.get()) > latest) {
+            evict(serviceId);
+            return null;
+        }
+        return ring;
+    }
+
+    private ResultRing ringFor(Long serviceId) {
+        ResultRing ring = rings.get(serviceId);
+        if (ring != null) {
+            return ring;
+        }
+        long initialBytes = (long) Math.min(ResultRing.INITIAL_SLOTS, capacity) * ResultRing.BYTES_PER_SLOT;
+        if (!reserve(initialBytes)) {
+            releaseIdleRings();
+            if (!reserve(initialBytes)) {
+                return null;
+            }
+        }
+        // Results checked before this moment were never seen, so coverage starts now
+        ResultRing created = new ResultRing(serviceId, capacity, ResultRing.toMillis(LocalDateTime.now()));
+        ResultRing existing = rings.putIfAbsent(serviceId, created);
+        if (existing != null) {
+            allocatedBytes.addAndGet(-initialBytes);
+            return existing;
+        }
+        return created;
+    }
+
+    private boolean reserve(long bytes) {
+        long current;
+        do {
+            current = allocatedBytes.get();
+            if (current + bytes > maxBytes) {
+                return false;
+            }
+        } while (!allocatedBytes.compareAndSet(current, current + bytes));
+        return true;
+    }
+
+    // Releases rings whose latest result is older than the retention
+    private void releaseIdleRings() {
+        long horizon = horizon();
+        for (Map.Entry<Long, ResultRing> entry : rings.entrySet()) {
+            boolean idle;
+            synchronized (entry.getValue()) {
+                idle = entry.getValue().latestTime() < horizon;
+            }
+            if (idle) {
+                evict(entry.getKey());
+            }
+        }
+    }
+
+    private long horizon() {
+        return ResultRing.toMillis(LocalDateTime.now()) - retentionMillis;
+    }
+}
@@ -0,0 +1,215 @@
+package taxisty.pingtower.backend.monitoring.hot;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongPredicate;
+
+import taxisty.pingtower.backend.storage.model.CheckResult;
+
+/**
+ * Fixed-capacity ring of the most recent check results of one service.
+ * <p>
+ * Results are stored column-wise in primitive arrays, with success and SSL flags packed into bit sets;
+ * only failures keep their error message. The arrays start small and double up to the capacity while
+ * the memory budget allows it, after which the oldest entries are overwritten. Error messages are
+ * charged to the budget too; one that does not fit is dropped and coverage restarts after it. Response bodies, SSL
+ * expiry dates and check locations are not kept.
+ * <p>
+ * Not thread-safe; {@link RecentResultStore} synchronizes on the ring.
+ */
+final class ResultRing {
+
+    /**
+     * Bytes per slot: id, check time, latency, status code, error reference and the two flag bits
+     */
+    static final int BYTES_PER_SLOT = 8 + 8 + 4 + 2 + 8 + 1;
+    static final int INITIAL_SLOTS = 16;
+    /**
+     * String and array headers of an error message, which takes up to two bytes per char on top
+     */
+    static final int BYTES_PER_ERROR = 40;
+
+    private final Long serviceId;
+    private final int capacity;
+
+    private long[] ids;
+    private long[] checkTimes;
+    private int[] latencies;
+    private short[] statusCodes;
+    private long[] successBits;
+    private long[] sslValidBits;
+    private String[] errors;
+
+    private int head;
+    private int size;
+    private long errorBytes;
+    // Check time of the latest result stored without its error message
+    private long errorDroppedAt = Long.MIN_VALUE;
+    // Every result of this service checked at or after this time is in the ring
+    private long coveredSince;
+
+    ResultRing(Long serviceId, int capacity, long coveredSince) {
+        this.serviceId = serviceId;
+        this.capacity = capacity;
+        this.coveredSince = coveredSince;
+        allocate(Math.min(INITIAL_SLOTS, capacity));
+    }
+
+    /**
+     * Appends a result, growing the arrays when {@code reserve} grants the extra bytes
+     * and overwriting the oldest entry otherwise. Negative amounts passed to {@code reserve}
+     * release memory and must always be granted.
+     */
+    void append(CheckResult result, LongPredicate reserve) {
+        int length = ids.length;
+        if (size == length && length < capacity) {
+            int grown = Math.min(length * 2, capacity);
+            if (reserve.test((long) (grown - length) * BYTES_PER_SLOT)) {
+                // Never wrapped before reaching full length, so the entries are in order from 0
+                ids = Arrays.copyOf(ids, grown);
+                checkTimes = Arrays.copyOf(checkTimes, grown);
+                latencies = Arrays.copyOf(latencies, grown);
+                statusCodes = Arrays.copyOf(statusCodes, grown);
+                successBits = Arrays.copyOf(successBits, words(grown));
+                sslValidBits = Arrays.copyOf(sslValidBits, words(grown));
+                errors = Arrays.copyOf(errors, grown);
+                length = grown;
+            }
+        }
+
+        int slot = head;
+        if (size == length) {
+            coveredSince = Math.max(coveredSince, checkTimes[slot] + 1);
+        } else {
+            size++;
+        }
+        long checkTime = toMillis(result.getCheckTime());
+        String error = result.isSuccessful() ? null : result.getErrorMessage();
+        long released = errorBytes(errors[slot]);
+        long needed = errorBytes(error);
+        if (needed > released && !reserve.test(needed - released)) {
+            // A result without its message must not be served, so coverage restarts after it
+            coveredSince = Math.max(coveredSince, checkTime + 1);
+            errorDroppedAt = Math.max(errorDroppedAt, checkTime);
+            error = null;
+            needed = 0;
+        } else if (needed < released) {
+            reserve.test(needed - released);
+        }
+        errorBytes += needed - released;
+
+        ids[slot] = result.getId() != null ? result.getId() : 0L;
+        checkTimes[slot] = checkTime;
+        latencies[slot] = (int) Math.max(0, Math.min(result.getResponseTimeMs(), Integer.MAX_VALUE));
+        statusCodes[slot] = (short) result.getResponseCode();
+        setBit(successBits, slot, result.isSuccessful());
+        setBit(sslValidBits, slot, result.isSslValid());
+        errors[slot] = error;
+        head = (slot + 1) % length;
+    }
+
+    /**
+     * Whether every result checked at or after {@code since} is in the ring
+     */
+    boolean covers(long since) {
+        return since >= coveredSince;
+    }
+
+    /**
+     * Adds the results checked within [since, until] to {@code out}, newest first
+     */
+    void collect(long since, long until, List<CheckResult> out) {
+        int from = out.size();
+        int length = ids.length;
+        for (int i = 1; i <= size; i++) {
+            int slot = (head - i + length) % length;
+            long time = checkTimes[slot];
+            if (time >= since && time <= until) {
+                out.add(toCheckResult(slot));
+            }
+        }
+        // Results of one batch can arrive slightly out of order
+        out.subList(from, out.size()).sort((a, b) -> b.getCheckTime().compareTo(a.getCheckTime()));
+    }
+
+    /**
+     * Latest result in the ring, or null when it is empty or its error message was dropped
+     */
+    CheckResult latest() {
+        int latest = -1;
+        for (int slot = 0; slot < size; slot++) {
+            if (latest < 0 || checkTimes[slot] > checkTimes[latest]) {
+                latest = slot;
+            }
+        }
+        return latest < 0 || checkTimes[latest] <= errorDroppedAt ? null : toCheckResult(latest);
+    }
+
+    /**
+     * Check time of the latest result, or {@link Long#MIN_VALUE} when empty
+     */
+    long latestTime() {
+        long latest = Long.MIN_VALUE;
+        for (int slot = 0; slot < size; slot++) {
+            latest = Math.max(latest, checkTimes[slot]);
+        }
+        return latest;
+    }
+
+    long allocatedBytes() {
+        return (long) ids.length * BYTES_PER_SLOT + errorBytes;
+    }
+
+    static long toMillis(LocalDateTime time) {
+        // Only used for ordering and converted back the same way, so the offset does not matter
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private CheckResult toCheckResult(int slot) {
+        return new CheckResult(
+                ids[slot] != 0 ? ids[slot] : null,
+                serviceId,
+                LocalDateTime.ofEpochSecond(Math.floorDiv(checkTimes[slot], 1000),
+                        Math.floorMod(checkTimes[slot], 1000) * 1_000_000, ZoneOffset.UTC),
+                getBit(successBits, slot),
+                statusCodes[slot] & 0xFFFF,
+                latencies[slot],
+                null,
+                errors[slot],
+                getBit(sslValidBits, slot),
+                null,
+                null);
+    }
+
+    private void allocate(int slots) {
+        ids = new long[slots];
+        checkTimes = new long[slots];
+        latencies = new int[slots];
+        statusCodes = new short[slots];
+        successBits = new long[words(slots)];
+        sslValidBits = new long[words(slots)];
+        errors = new String[slots];
+    }
+
+    private static long errorBytes(String error) {
+        return error == null ? 0 : BYTES_PER_ERROR + 2L * error.length();
+    }
+
+    private static int words(int slots) {
+        return (slots + 63) >>> 6;
+    }
+
+    private static void setBit(long[] bits, int index, boolean value) {
+        if (value) {
+            bits[index >>> 6] |= 1L << index;
+        } else {
+            bits[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    private static boolean getBit(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+}
@@ -0,0 +1,342 @@
+package taxisty.pingtower.backend.monitoring.ingest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import taxisty.pingtower.backend.monitoring.config.MonitoringProperties;
+import taxisty.pingtower.backend.monitoring.repository.CheckResultRepository;
+import taxisty.pingtower.backend.monitoring.repository.ClickHouseRepository;
+import taxisty.pingtower.backend.monitoring.repository.ServiceStateRepository;
+import taxisty.pingtower.backend.storage.model.CheckResult;
+import taxisty.pingtower.backend.storage.model.ServiceState;
+
+/**
+ * Write-behind pipeline for check results.
+ * <p>
+ * Probes hand their results to a bounded queue and return immediately. A single writer thread
+ * drains the queue into batches of up to {@code monitoring.ingest.batch-size} results (or whatever
+ * arrived within {@code linger-millis}), writes each batch to PostgreSQL in one transaction, together
+ * with an upsert of the {@link ServiceState} of every service in it, and to
+ * ClickHouse in one insert, and then passes the committed batch to the registered commit listeners.
+ * A failed PostgreSQL write is retried with exponential backoff up to {@code retry-max-millis}
+ * apart until it succeeds, so results survive a database outage in the queue.
+ * <p>
+ * When the queue is full the caller waits for room, so a slow database pushes back on the probes
+ * rather than dropping data. Only the writer thread writes while the pipeline runs.
+ */
+@Component
+public class CheckResultIngestPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckResultIngestPipeline.class);
+
+    private final CheckResultRepository checkResultRepository;
+    private final ClickHouseRepository clickHouseRepository;
+    private final ServiceStateRepository serviceStateRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MonitoringProperties.Ingest settings;
+    private final BlockingQueue<CheckResult> queue;
+    private final List<Consumer<List<CheckResult>>> commitListeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService listenerExecutor;
+
+    private final Timer postgresWriteTimer;
+    private final Timer clickHouseWriteTimer;
+    private final DistributionSummary batchSizeSummary;
+    private final Counter backpressureCounter;
+    private final Counter postgresFailureCounter;
+    private final Counter clickHouseFailureCounter;
+    private final Counter droppedCounter;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public CheckResultIngestPipeline(CheckResultRepository checkResultRepository,
+                                     ClickHouseRepository clickHouseRepository,
+                                     ServiceStateRepository serviceStateRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     MonitoringProperties monitoringProperties,
+                                     MeterRegistry meterRegistry) {
+        this.checkResultRepository = checkResultRepository;
+        this.clickHouseRepository = clickHouseRepository;
+        this.serviceStateRepository = serviceStateRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settings = monitoringProperties.getIngest();
+        this.queue = new ArrayBlockingQueue<>(settings.getQueueCapacity());
+        this.listenerExecutor = Executors.newSingleThreadExecutor(
+                Thread.ofPlatform().name("ingest-listeners").daemon(true).factory());
+
+        Gauge.builder("pingtower.ingest.queue.size", queue, BlockingQueue::size)
+                .description("Check results waiting to be written")
+                .register(meterRegistry);
+        this.postgresWriteTimer = Timer.builder("pingtower.ingest.write")
+                .tag("store", "postgres")
+                .description("Time to write one batch of check results")
+                .register(meterRegistry);
+        this.clickHouseWriteTimer = Timer.builder("pingtower.ingest.write")
+                .tag("store", "clickhouse")
+                .description("Time to write one batch of check results")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("pingtower.ingest.batch.size")
+                .description("Check results per written batch")
+                .register(meterRegistry);
+        this.backpressureCounter = Counter.builder("pingtower.ingest.backpressure")
+                .description("Submissions that had to wait because the queue was full")
+                .register(meterRegistry);
+        this.postgresFailureCounter = Counter.builder("pingtower.ingest.failures")
+                .tag("store", "postgres")
+                .register(meterRegistry);
+        this.clickHouseFailureCounter = Counter.builder("pingtower.ingest.failures")
+                .tag("store", "clickhouse")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("pingtower.ingest.dropped")
+                .description("Results PostgreSQL rejected or that could not be written before shutdown")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writer = Thread.ofPlatform().name("ingest-writer").daemon(true).start(this::drainLoop);
+        logger.info("Started check result ingest: capacity={}, batch={}, linger={}ms",
+                   settings.getQueueCapacity(), settings.getBatchSize(), settings.getLingerMillis());
+    }
+
+    /**
+     * Stops the writer after flushing everything still queued.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<CheckResult> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            writeBatch(remaining);
+        }
+        listenerExecutor.shutdown();
+        try {
+            listenerExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Registers a callback invoked with every batch after it has been committed to PostgreSQL.
+     * Callbacks run on a single thread in commit order.
+     */
+    public void addCommitListener(Consumer<List<CheckResult>> listener) {
+        commitListeners.add(listener);
+    }
+
+    /**
+     * Queues a check result for writing, waiting while the queue is full. Once the pipeline is
+     * stopped the result is written synchronously after the writer has finished.
+     */
+    public void submit(CheckResult checkResult) {
+        boolean interrupted = false;
+        boolean waited = false;
+        try {
+            while (running) {
+                try {
+                    if (queue.offer(checkResult, settings.getOfferTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    // The result must not be lost; restore the interrupt once it is handed over
+                    interrupted = true;
+                }
+                if (!waited) {
+                    backpressureCounter.increment();
+                    waited = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Waits for stop() to flush the queue, so this never writes next to the writer thread
+        synchronized (this) {
+            writeBatch(List.of(checkResult));
+        }
+    }
+
+    /**
+     * Gets the number of results waiting to be written.
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private void drainLoop() {
+        int batchSize = settings.getBatchSize();
+        List<CheckResult> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                CheckResult first = queue.take();
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.getLingerMillis());
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    CheckResult next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Stopping: whatever was collected is written below, the rest by stop()
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+    }
+
+    private void writeBatch(List<CheckResult> results) {
+        batchSizeSummary.record(results.size());
+        List<CheckResult> batch = writeToPostgres(results);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            clickHouseWriteTimer.record(() -> clickHouseRepository.saveCheckResults(batch));
+        } catch (Exception e) {
+            clickHouseFailureCounter.increment();
+            logger.error("Failed to write {} check results to ClickHouse", batch.size(), e);
+        }
+
+        if (commitListeners.isEmpty()) {
+            return;
+        }
+        if (listenerExecutor.isShutdown()) {
+            notifyListeners(batch);
+        } else {
+            listenerExecutor.execute(() -> notifyListeners(batch));
+        }
+    }
+
+    /**
+     * Writes a batch to PostgreSQL, retrying with exponential backoff while the pipeline runs, so
+     * an unavailable database stalls the queue instead of losing results. A batch rejected for its
+     * data is written result by result, so one bad result cannot hold back the others.
+     *
+     * @return the committed results
+     */
+    private List<CheckResult> writeToPostgres(List<CheckResult> batch) {
+        long backoffMillis = settings.getRetryInitialMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                postgresWriteTimer.record(() ->
+                        transactionTemplate.executeWithoutResult(status -> {
+                            checkResultRepository.saveAll(batch);
+                            updateServiceStates(batch);
+                        }));
+                return batch;
+            } catch (DataIntegrityViolationException e) {
+                postgresFailureCounter.increment();
+                batch.forEach(result -> result.setId(null));
+                if (batch.size() == 1) {
+                    droppedCounter.increment();
+                    logger.error("Dropping check result of service {} rejected by PostgreSQL",
+                                batch.get(0).getServiceId(), e);
+                    return List.of();
+                }
+                logger.warn("PostgreSQL rejected a batch of {} check results; writing them one by one",
+                           batch.size(), e);
+                List<CheckResult> committed = new ArrayList<>(batch.size());
+                for (CheckResult result : batch) {
+                    committed.addAll(writeToPostgres(List.of(result)));
+                }
+                return committed;
+            } catch (Exception e) {
+                postgresFailureCounter.increment();
+                // The rolled back inserts assigned ids; clear them so the retry inserts again
+                batch.forEach(result -> result.setId(null));
+                if (!running) {
+                    droppedCounter.increment(batch.size());
+                    logger.error("Dropping {} check results: PostgreSQL is unavailable and the pipeline is stopped",
+                                batch.size(), e);
+                    return List.of();
+                }
+                logger.warn("Failed to write {} check results to PostgreSQL (attempt {}), retrying in {} ms",
+                           batch.size(), attempt, backoffMillis, e);
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    // Stopping: the next failure gives up
+                }
+                backoffMillis = Math.min(backoffMillis * 2, settings.getRetryMaxMillis());
+            }
+        }
+    }
+
+    // One upsert per service in the batch, however many results it has, in a fixed order to avoid deadlocks
+    private void updateServiceStates(List<CheckResult> batch) {
+        Map<Long, List<CheckResult>> byService = new TreeMap<>();
+        for (CheckResult result : batch) {
+            byService.computeIfAbsent(result.getServiceId(), id -> new ArrayList<>()).add(result);
+        }
+        for (Map.Entry<Long, List<CheckResult>> entry : byService.entrySet()) {
+            List<CheckResult> results = entry.getValue();
+            results.sort(Comparator.comparing(CheckResult::getCheckTime));
+            ServiceState state = new ServiceState(entry.getKey());
+            results.forEach(state::apply);
+            boolean continuesRun = state.getConsecutiveSuccesses() + state.getConsecutiveFailures() == results.size();
+            serviceStateRepository.upsert(state, continuesRun);
+        }
+    }
+
+    private void notifyListeners(List<CheckResult> batch) {
+        for (Consumer<List<CheckResult>> listener : commitListeners) {
+            try {
+                listener.accept(batch);
+            } catch (Exception e) {
+                logger.error("Check result commit listener failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package taxisty.pingtower.backend.monitoring.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import taxisty.pingtower.backend.storage.model.AlertRule;
+
+/**
+ * Repository for alert rules.
+ */
+@Repository
+public interface AlertRuleRepository extends JpaRepository<AlertRule, Long> {
+
+    /**
+     * Find all enabled alert rules
+     */
+    @Query("SELECT r FROM AlertRule r WHERE r.isEnabled = true")
+    List<AlertRule> findAllEnabled();
+
+    /**
+     * Latest update time of any rule; together with {@code count()} it changes whenever
+     * a rule is created, updated or deleted
+     */
+    @Query("SELECT MAX(r.updatedAt) FROM AlertRule r")
+    LocalDateTime findLatestUpdate();
+}
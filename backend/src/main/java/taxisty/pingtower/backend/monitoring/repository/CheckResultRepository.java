@@ -27,6 +27,11 @@ public interface CheckResultRepository extends JpaRepository<CheckResult, Long>
      * Find latest check result for a service (single item)
      */
     Optional<CheckResult> findFirstByServiceIdOrderByCheckTimeDesc(Long serviceId);
+
+    /**
+     * Find the latest check result of a service checked before the given time
+     */
+    Optional<CheckResult> findFirstByServiceIdAndCheckTimeBeforeOrderByCheckTimeDesc(Long serviceId, LocalDateTime before);
     
     /**
      * Find check results within time range for a service
@@ -60,6 +65,25 @@ public interface CheckResultRepository extends JpaRepository<CheckResult, Long>
     @Query("SELECT AVG(cr.responseTimeMs) FROM CheckResult cr WHERE cr.serviceId = :serviceId AND cr.isSuccessful = true AND cr.checkTime BETWEEN :start AND :end")
     Double getAverageResponseTime(@Param("serviceId") Long serviceId, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
     
+    /**
+     * Get counts and response time statistics of successful checks, including exact percentiles,
+     * in one pass over the time period
+     */
+    @Query(value = """
+            SELECT COUNT(*) AS totalChecks,
+                   COUNT(*) FILTER (WHERE cr.is_successful) AS successfulChecks,
+                   AVG(cr.response_time_ms) FILTER (WHERE cr.is_successful) AS averageResponseTime,
+                   MIN(cr.response_time_ms) FILTER (WHERE cr.is_successful) AS minResponseTime,
+                   MAX(cr.response_time_ms) FILTER (WHERE cr.is_successful) AS maxResponseTime,
+                   PERCENTILE_CONT(0.5) WITHIN GROUP (ORDER BY cr.response_time_ms) FILTER (WHERE cr.is_successful) AS p50ResponseTime,
+                   PERCENTILE_CONT(0.9) WITHIN GROUP (ORDER BY cr.response_time_ms) FILTER (WHERE cr.is_successful) AS p90ResponseTime,
+                   PERCENTILE_CONT(0.95) WITHIN GROUP (ORDER BY cr.response_time_ms) FILTER (WHERE cr.is_successful) AS p95ResponseTime,
+                   PERCENTILE_CONT(0.99) WITHIN GROUP (ORDER BY cr.response_time_ms) FILTER (WHERE cr.is_successful) AS p99ResponseTime
+            FROM check_result cr
+            WHERE cr.service_id = :serviceId AND cr.check_time BETWEEN :start AND :end
+            """, nativeQuery = true)
+    ResponseTimeSummary summarizeChecks(@Param("serviceId") Long serviceId, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    
     /**
      * Find check results older than specified date for cleanup
      */
@@ -156,4 +180,19 @@ public interface CheckResultRepository extends JpaRepository<CheckResult, Long>
      * Find the most recent check result for a service
      */
     Optional<CheckResult> findTopByServiceIdOrderByCheckTimeDesc(Long serviceId);
+    
+    /**
+     * Result of {@link #summarizeChecks}. Response time values are null without successful checks.
+     */
+    interface ResponseTimeSummary {
+        Long getTotalChecks();
+        Long getSuccessfulChecks();
+        Double getAverageResponseTime();
+        Long getMinResponseTime();
+        Long getMaxResponseTime();
+        Double getP50ResponseTime();
+        Double getP90ResponseTime();
+        Double getP95ResponseTime();
+        Double getP99ResponseTime();
+    }
 }
@@ -2,6 +2,7 @@ package taxisty.pingtower.backend.monitoring.repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 import taxisty.pingtower.backend.storage.model.CheckResult;
 import taxisty.pingtower.backend.storage.model.ServiceMetrics;
@@ -28,10 +29,21 @@ public interface ClickHouseRepository {
     List<CheckResult> getCheckResultsByServiceId(Long serviceId, LocalDateTime start, LocalDateTime end);
     
     /**
-     * Get service metrics for analytics and reporting
+     * Get ids of the check results stored within a time range, of every service
+     */
+    Set<Long> getCheckResultIds(LocalDateTime start, LocalDateTime end);
+    
+    /**
+     * Get service metrics for analytics and reporting, one entry per aggregation period
+     * such as "1m", "1h", "6h", "1d" or "7d"; other labels read the rows stored in service_metrics_ts
      */
     List<ServiceMetrics> getServiceMetrics(Long serviceId, LocalDateTime start, LocalDateTime end, String aggregationPeriod);
     
+    /**
+     * Get metrics for a service aggregated over the whole time range, or null without checks
+     */
+    ServiceMetrics getAggregatedMetrics(Long serviceId, LocalDateTime start, LocalDateTime end, String aggregationPeriod);
+    
     /**
      * Get aggregated uptime percentage for a service
      */
@@ -1,90 +1,195 @@
 package taxisty.pingtower.backend.monitoring.repository;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import com.clickhouse.data.ClickHouseOutputStream;
+import com.clickhouse.data.ClickHouseWriter;
+
+import taxisty.pingtower.backend.monitoring.config.MonitoringProperties;
 import taxisty.pingtower.backend.storage.model.CheckResult;
 import taxisty.pingtower.backend.storage.model.ServiceMetrics;
 
 /**
  * ClickHouse implementation for time series data operations.
  * Optimized for high-volume monitoring data and fast analytics queries.
+ * <p>
+ * Inserts that fail while ClickHouse is unavailable are kept in a {@link ClickHouseSpool} on local
+ * disk and replayed once it is back; while the spool has a backlog new batches go there directly.
  */
 @Repository
 public class ClickHouseRepositoryImpl implements ClickHouseRepository {
     
+    private static final Logger logger = LoggerFactory.getLogger(ClickHouseRepositoryImpl.class);
+    private static final Pattern PERIOD = Pattern.compile("(\\d+)([mhd])");
+    
+    // Merges rollup states into the columns read by ServiceMetricsRowMapper
+    private static final String ROLLUP_MERGE_COLUMNS = """
+        sum(checks) as total_checks,
+        sum(successes) as successful_checks,
+        if(total_checks = 0, 0, successful_checks * 100.0 / total_checks) as uptime_percentage,
+        if(successful_checks = 0, 0, avgIfMerge(response_time_avg)) as average_response_time_ms,
+        maxIfMerge(response_time_max) as max_response_time_ms,
+        minIfMerge(response_time_min) as min_response_time_ms,
+        quantilesTDigestIfMerge(0.5, 0.9, 0.95, 0.99)(response_time_quantiles) as response_time_quantiles_ms,
+        if(successful_checks = 0, 0, round(response_time_quantiles_ms[1])) as p50_response_time_ms,
+        if(successful_checks = 0, 0, round(response_time_quantiles_ms[2])) as p90_response_time_ms,
+        if(successful_checks = 0, 0, round(response_time_quantiles_ms[3])) as p95_response_time_ms,
+        if(successful_checks = 0, 0, round(response_time_quantiles_ms[4])) as p99_response_time_ms,
+        total_checks - successful_checks as failed_checks""";
+    
     private final JdbcTemplate clickHouseJdbcTemplate;
+    private final JdbcTemplate clickHouseIngestJdbcTemplate;
+    private final boolean asyncInsert;
+    private final ClickHouseSpool spool;
     
-    public ClickHouseRepositoryImpl(@Qualifier("clickHouseJdbcTemplate") JdbcTemplate clickHouseJdbcTemplate) {
+    public ClickHouseRepositoryImpl(@Qualifier("clickHouseJdbcTemplate") JdbcTemplate clickHouseJdbcTemplate,
+                                    @Qualifier("clickHouseIngestJdbcTemplate") JdbcTemplate clickHouseIngestJdbcTemplate,
+                                    MonitoringProperties monitoringProperties,
+                                    MeterRegistry meterRegistry) {
         this.clickHouseJdbcTemplate = clickHouseJdbcTemplate;
+        this.clickHouseIngestJdbcTemplate = clickHouseIngestJdbcTemplate;
+        this.asyncInsert = monitoringProperties.getClickhouse().isAsyncInsert();
+        
+        MonitoringProperties.Spool spoolSettings = monitoringProperties.getSpool();
+        if (spoolSettings.isEnabled()) {
+            this.spool = new ClickHouseSpool(
+                    Path.of(spoolSettings.getDirectory()),
+                    spoolSettings.getSegmentBytes(),
+                    spoolSettings.getMaxBytes(),
+                    spoolSettings.getReplayBatchBytes(),
+                    spoolSettings.getReplayIntervalMillis(),
+                    this::insertSpooled);
+            Gauge.builder("pingtower.spool.depth.bytes", spool, ClickHouseSpool::getDepthBytes)
+                    .description("Bytes of ClickHouse inserts waiting in the local spool")
+                    .register(meterRegistry);
+            Gauge.builder("pingtower.spool.depth.rows", spool, ClickHouseSpool::getDepthRows)
+                    .description("Rows of ClickHouse inserts waiting in the local spool")
+                    .register(meterRegistry);
+            Gauge.builder("pingtower.spool.dropped.rows", spool, ClickHouseSpool::getDroppedRows)
+                    .description("Rows dropped because the spool was full")
+                    .register(meterRegistry);
+        } else {
+            this.spool = null;
+        }
+    }
+    
+    @PostConstruct
+    public void startSpool() {
+        if (spool == null) return;
+        try {
+            spool.start();
+        } catch (IOException e) {
+            logger.error("Failed to open ClickHouse spool, failed inserts will not be retried", e);
+        }
+    }
+    
+    @PreDestroy
+    public void stopSpool() {
+        if (spool != null) {
+            spool.stop();
+        }
     }
     
     @Override
     public void saveCheckResults(List<CheckResult> checkResults) {
         if (checkResults.isEmpty()) return;
         
-        String sql = """
-            INSERT INTO monitoring.check_results_ts 
-            (id, service_id, check_time, is_successful, response_code, response_time_ms, 
-             response_body, error_message, ssl_valid, ssl_expiry_date, check_location)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-            """;
-        
-        for (CheckResult result : checkResults) {
-            clickHouseJdbcTemplate.update(sql,
-                result.id(),
-                result.serviceId(),
-                Timestamp.valueOf(result.checkTime()),
-                result.isSuccessful() ? 1 : 0,
-                result.responseCode(),
-                result.responseTimeMs(),
-                result.responseBody() != null ? result.responseBody() : "",
-                result.errorMessage() != null ? result.errorMessage() : "",
-                result.sslValid() ? 1 : 0,
-                result.sslExpiryDate() != null ? Timestamp.valueOf(result.sslExpiryDate()) : null,
-                result.checkLocation() != null ? result.checkLocation() : ""
-            );
-        }
+        ClickHouseWriter rows = out -> {
+            for (CheckResult result : checkResults) {
+                RowBinaryEncoder.writeCheckResult(out, result);
+            }
+        };
+        writeOrSpool(ClickHouseSpool.CHECK_RESULTS, rows, checkResults.size());
     }
     
     @Override
     public void saveServiceMetrics(List<ServiceMetrics> serviceMetrics) {
         if (serviceMetrics.isEmpty()) return;
         
-        String sql = """
-            INSERT INTO monitoring.service_metrics_ts 
-            (id, service_id, period_start, period_end, uptime_percentage, 
-             average_response_time_ms, max_response_time_ms, min_response_time_ms, 
-             total_checks, successful_checks, failed_checks, aggregation_period)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-            """;
+        ClickHouseWriter rows = out -> {
+            for (ServiceMetrics metrics : serviceMetrics) {
+                RowBinaryEncoder.writeServiceMetrics(out, metrics);
+            }
+        };
+        writeOrSpool(ClickHouseSpool.SERVICE_METRICS, rows, serviceMetrics.size());
+    }
+    
+    private void writeOrSpool(byte kind, ClickHouseWriter rows, int rowCount) {
+        if (spool == null) {
+            insertRowBinary(kind, rows, null);
+            return;
+        }
+        if (!spool.hasBacklog()) {
+            try {
+                insertRowBinary(kind, rows, null);
+                return;
+            } catch (DataAccessException e) {
+                logger.warn("ClickHouse insert of {} rows failed, spooling to disk: {}", rowCount, e.getMessage());
+            }
+        }
         
-        for (ServiceMetrics metrics : serviceMetrics) {
-            clickHouseJdbcTemplate.update(sql,
-                metrics.id(),
-                metrics.serviceId(),
-                Timestamp.valueOf(metrics.periodStart()),
-                Timestamp.valueOf(metrics.periodEnd()),
-                metrics.uptimePercentage(),
-                metrics.averageResponseTimeMs(),
-                metrics.maxResponseTimeMs(),
-                metrics.minResponseTimeMs(),
-                metrics.totalChecks(),
-                metrics.successfulChecks(),
-                metrics.failedChecks(),
-                metrics.aggregationPeriod()
-            );
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            rows.write(ClickHouseOutputStream.of(buffer));
+            if (!spool.append(kind, buffer.toByteArray(), rowCount)) {
+                throw new DataAccessResourceFailureException("ClickHouse unavailable and spool is full, dropped " + rowCount + " rows");
+            }
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Failed to spool " + rowCount + " rows for ClickHouse", e);
         }
     }
     
+    private void insertSpooled(byte kind, byte[] rows, String deduplicationToken) {
+        insertRowBinary(kind, out -> out.write(rows), deduplicationToken);
+    }
+    
+    /**
+     * Streams a whole batch to ClickHouse in one HTTP request, so each batch becomes a single part.
+     * With async inserts enabled the server buffers small batches and merges them before writing.
+     * Replayed batches carry a deduplication token instead, so a repeated replay is discarded.
+     */
+    private void insertRowBinary(byte kind, ClickHouseWriter rows, String deduplicationToken) {
+        String target = kind == ClickHouseSpool.CHECK_RESULTS
+                ? "monitoring.check_results_ts " + RowBinaryEncoder.CHECK_RESULT_COLUMNS
+                : "monitoring.service_metrics_ts " + RowBinaryEncoder.SERVICE_METRICS_COLUMNS;
+        String settings = deduplicationToken != null
+                ? " SETTINGS insert_deduplication_token='" + deduplicationToken + "'"
+                : asyncInsert ? " SETTINGS async_insert=1, wait_for_async_insert=1" : "";
+        String sql = "INSERT INTO " + target + settings + " FORMAT RowBinary";
+        
+        clickHouseIngestJdbcTemplate.execute(sql, (PreparedStatementCallback<Integer>) ps -> {
+            ps.setObject(1, rows);
+            return ps.executeUpdate();
+        });
+    }
+    
     @Override
     public List<CheckResult> getCheckResultsByServiceId(Long serviceId, LocalDateTime start, LocalDateTime end) {
         String sql = """
@@ -99,14 +204,48 @@ public class ClickHouseRepositoryImpl implements ClickHouseRepository {
             serviceId, Timestamp.valueOf(start), Timestamp.valueOf(end));
     }
     
+    @Override
+    public Set<Long> getCheckResultIds(LocalDateTime start, LocalDateTime end) {
+        String sql = "SELECT id FROM monitoring.check_results_ts WHERE check_time BETWEEN ? AND ?";
+        Set<Long> ids = new HashSet<>();
+        clickHouseJdbcTemplate.query(sql, rs -> {
+            ids.add(rs.getLong("id"));
+        }, Timestamp.valueOf(start), Timestamp.valueOf(end));
+        return ids;
+    }
+    
     @Override
     public List<ServiceMetrics> getServiceMetrics(Long serviceId, LocalDateTime start, LocalDateTime end, String aggregationPeriod) {
+        Matcher period = PERIOD.matcher(aggregationPeriod);
+        if (!period.matches()) {
+            return getStoredServiceMetrics(serviceId, start, end, aggregationPeriod);
+        }
+        int amount = Integer.parseInt(period.group(1));
+        Rollup rollup = switch (period.group(2)) {
+            case "m" -> Rollup.MINUTE;
+            case "h" -> Rollup.HOUR;
+            default -> Rollup.DAY;
+        };
+        String interval = "INTERVAL " + amount + " " + rollup.unit;
+        String bucket = amount == 1 ? "bucket" : "toStartOfInterval(bucket, " + interval + ")";
+        
+        return queryRollup(rollup, bucket, interval, aggregationPeriod, serviceId, start, end);
+    }
+    
+    /**
+     * Reads metrics stored in service_metrics_ts under a period label the rollups do not cover.
+     * These rows carry no percentiles.
+     */
+    private List<ServiceMetrics> getStoredServiceMetrics(Long serviceId, LocalDateTime start, LocalDateTime end,
+                                                         String aggregationPeriod) {
         String sql = """
             SELECT id, service_id, period_start, period_end, uptime_percentage,
                    average_response_time_ms, max_response_time_ms, min_response_time_ms,
-                   total_checks, successful_checks, failed_checks, aggregation_period
+                   total_checks, successful_checks, failed_checks, aggregation_period,
+                   0 as p50_response_time_ms, 0 as p90_response_time_ms,
+                   0 as p95_response_time_ms, 0 as p99_response_time_ms
             FROM monitoring.service_metrics_ts
-            WHERE service_id = ? AND period_start >= ? AND period_end <= ? 
+            WHERE service_id = ? AND period_start >= ? AND period_end <= ?
             AND aggregation_period = ?
             ORDER BY period_start DESC
             """;
@@ -115,14 +254,36 @@ public class ClickHouseRepositoryImpl implements ClickHouseRepository {
             serviceId, Timestamp.valueOf(start), Timestamp.valueOf(end), aggregationPeriod);
     }
     
+    @Override
+    public ServiceMetrics getAggregatedMetrics(Long serviceId, LocalDateTime start, LocalDateTime end, String aggregationPeriod) {
+        Rollup rollup = Rollup.forRange(start, end);
+        String sql = """
+            SELECT 
+                0 as id,
+                service_id,
+                min(bucket) as period_start,
+                max(bucket) + INTERVAL 1 %s as period_end,
+                %s,
+                ? as aggregation_period
+            FROM monitoring.%s
+            WHERE service_id = ? AND bucket >= %s(?) AND bucket <= ?
+            GROUP BY service_id
+            """.formatted(rollup.unit, ROLLUP_MERGE_COLUMNS, rollup.table, rollup.bucketFunction);
+        
+        List<ServiceMetrics> metrics = clickHouseJdbcTemplate.query(sql, new ServiceMetricsRowMapper(),
+            aggregationPeriod, serviceId, Timestamp.valueOf(start), Timestamp.valueOf(end));
+        return metrics.isEmpty() ? null : metrics.get(0);
+    }
+    
     @Override
     public Double getServiceUptimePercentage(Long serviceId, LocalDateTime start, LocalDateTime end) {
+        Rollup rollup = Rollup.forRange(start, end);
         String sql = """
             SELECT 
-                (countIf(is_successful = 1) * 100.0) / count(*) as uptime_percentage
-            FROM monitoring.check_results_ts
-            WHERE service_id = ? AND check_time BETWEEN ? AND ?
-            """;
+                if(sum(checks) = 0, NULL, sum(successes) * 100.0 / sum(checks)) as uptime_percentage
+            FROM monitoring.%s
+            WHERE service_id = ? AND bucket >= %s(?) AND bucket <= ?
+            """.formatted(rollup.table, rollup.bucketFunction);
         
         return clickHouseJdbcTemplate.queryForObject(sql, Double.class,
             serviceId, Timestamp.valueOf(start), Timestamp.valueOf(end));
@@ -130,11 +291,12 @@ public class ClickHouseRepositoryImpl implements ClickHouseRepository {
     
     @Override
     public Double getAverageResponseTime(Long serviceId, LocalDateTime start, LocalDateTime end) {
+        Rollup rollup = Rollup.forRange(start, end);
         String sql = """
-            SELECT avg(response_time_ms) as avg_response_time
-            FROM monitoring.check_results_ts
-            WHERE service_id = ? AND check_time BETWEEN ? AND ? AND is_successful = 1
-            """;
+            SELECT if(sum(successes) = 0, NULL, avgIfMerge(response_time_avg)) as avg_response_time
+            FROM monitoring.%s
+            WHERE service_id = ? AND bucket >= %s(?) AND bucket <= ?
+            """.formatted(rollup.table, rollup.bucketFunction);
         
         return clickHouseJdbcTemplate.queryForObject(sql, Double.class,
             serviceId, Timestamp.valueOf(start), Timestamp.valueOf(end));
@@ -142,28 +304,31 @@ public class ClickHouseRepositoryImpl implements ClickHouseRepository {
     
     @Override
     public List<ServiceMetrics> getHourlyMetrics(Long serviceId, LocalDateTime start, LocalDateTime end) {
+        return queryRollup(Rollup.HOUR, "bucket", "INTERVAL 1 HOUR", "1h", serviceId, start, end);
+    }
+    
+    /**
+     * Reads metrics per period from a rollup table by merging its partial aggregation states.
+     * Cost depends on the number of buckets in the range, not on the number of raw checks.
+     */
+    private List<ServiceMetrics> queryRollup(Rollup rollup, String bucket, String interval, String aggregationPeriod,
+                                             Long serviceId, LocalDateTime start, LocalDateTime end) {
         String sql = """
             SELECT 
                 0 as id,
                 service_id,
-                toStartOfHour(check_time) as period_start,
-                toStartOfHour(check_time) + INTERVAL 1 HOUR as period_end,
-                (countIf(is_successful = 1) * 100.0) / count(*) as uptime_percentage,
-                avg(response_time_ms) as average_response_time_ms,
-                max(response_time_ms) as max_response_time_ms,
-                min(response_time_ms) as min_response_time_ms,
-                count(*) as total_checks,
-                countIf(is_successful = 1) as successful_checks,
-                countIf(is_successful = 0) as failed_checks,
-                '1h' as aggregation_period
-            FROM monitoring.check_results_ts
-            WHERE service_id = ? AND check_time BETWEEN ? AND ?
-            GROUP BY service_id, toStartOfHour(check_time)
+                %s as period_start,
+                period_start + %s as period_end,
+                %s,
+                ? as aggregation_period
+            FROM monitoring.%s
+            WHERE service_id = ? AND bucket >= %s(?) AND bucket <= ?
+            GROUP BY service_id, period_start
             ORDER BY period_start DESC
-            """;
+            """.formatted(bucket, interval, ROLLUP_MERGE_COLUMNS, rollup.table, rollup.bucketFunction);
         
         return clickHouseJdbcTemplate.query(sql, new ServiceMetricsRowMapper(),
-            serviceId, Timestamp.valueOf(start), Timestamp.valueOf(end));
+            aggregationPeriod, serviceId, Timestamp.valueOf(start), Timestamp.valueOf(end));
     }
     
     @Override
@@ -186,6 +351,7 @@ public class ClickHouseRepositoryImpl implements ClickHouseRepository {
             PARTITION BY toYYYYMM(check_time)
             ORDER BY (service_id, check_time)
             TTL check_time + INTERVAL 1 YEAR DELETE
+            SETTINGS non_replicated_deduplication_window = 1000
             """;
         
         // Create service_metrics_ts table
@@ -207,10 +373,102 @@ public class ClickHouseRepositoryImpl implements ClickHouseRepository {
             PARTITION BY toYYYYMM(period_start)
             ORDER BY (service_id, aggregation_period, period_start)
             TTL period_start + INTERVAL 2 YEAR DELETE
+            SETTINGS non_replicated_deduplication_window = 1000
             """;
         
         clickHouseJdbcTemplate.execute(createCheckResultsTable);
         clickHouseJdbcTemplate.execute(createMetricsTable);
+        
+        // Deduplication tokens of replayed spool batches need a deduplication window,
+        // including on tables created before it was part of the definition
+        clickHouseJdbcTemplate.execute("ALTER TABLE check_results_ts MODIFY SETTING non_replicated_deduplication_window = 1000");
+        clickHouseJdbcTemplate.execute("ALTER TABLE service_metrics_ts MODIFY SETTING non_replicated_deduplication_window = 1000");
+        
+        for (Rollup rollup : Rollup.values()) {
+            initializeRollup(rollup);
+        }
+    }
+    
+    /**
+     * Creates a rollup table and the materialized view that feeds it from check_results_ts.
+     * The view only sees rows inserted after it exists, so when it is created the rows already
+     * stored are aggregated into the rollup once. This runs at startup before checks are scheduled.
+     */
+    private void initializeRollup(Rollup rollup) {
+        String view = rollup.table + "_mv";
+        Integer viewExists = clickHouseJdbcTemplate.queryForObject("EXISTS TABLE " + view, Integer.class);
+        
+        String createRollupTable = """
+            CREATE TABLE IF NOT EXISTS %s (
+                service_id UInt64,
+                bucket DateTime,
+                checks SimpleAggregateFunction(sum, UInt64),
+                successes SimpleAggregateFunction(sum, UInt64),
+                response_time_avg AggregateFunction(avgIf, UInt32, UInt8),
+                response_time_max AggregateFunction(maxIf, UInt32, UInt8),
+                response_time_min AggregateFunction(minIf, UInt32, UInt8),
+                response_time_quantiles AggregateFunction(quantilesTDigestIf(0.5, 0.9, 0.95, 0.99), UInt32, UInt8)
+            ) ENGINE = AggregatingMergeTree()
+            PARTITION BY toYYYYMM(bucket)
+            ORDER BY (service_id, bucket)
+            TTL bucket + INTERVAL %s DELETE
+            """.formatted(rollup.table, rollup.retention);
+        clickHouseJdbcTemplate.execute(createRollupTable);
+        
+        String select = """
+            SELECT
+                service_id,
+                %s(check_time) as bucket,
+                count() as checks,
+                countIf(is_successful = 1) as successes,
+                avgIfState(response_time_ms, is_successful = 1) as response_time_avg,
+                maxIfState(response_time_ms, is_successful = 1) as response_time_max,
+                minIfState(response_time_ms, is_successful = 1) as response_time_min,
+                quantilesTDigestIfState(0.5, 0.9, 0.95, 0.99)(response_time_ms, is_successful = 1) as response_time_quantiles
+            FROM check_results_ts
+            """.formatted(rollup.bucketFunction);
+        
+        if (viewExists != null && viewExists == 1) {
+            upgradeRollupView(rollup, select);
+            return;
+        }
+        
+        // One cutoff, fixed before the view exists, splits check_results_ts between the view and
+        // the backfill: the view aggregates rows at or after it, the backfill rows before it, so no
+        // row is counted twice. check_time is stored as epoch seconds of the JVM zone (RowBinaryEncoder).
+        String cutoff = "toDateTime(" + LocalDateTime.now().atZone(ZoneId.systemDefault()).toEpochSecond() + ")";
+        try {
+            clickHouseJdbcTemplate.execute("CREATE MATERIALIZED VIEW " + view + " TO " + rollup.table + " AS "
+                + select + " WHERE check_time >= " + cutoff + " GROUP BY service_id, bucket");
+        } catch (DataAccessException e) {
+            Integer createdMeanwhile = clickHouseJdbcTemplate.queryForObject("EXISTS TABLE " + view, Integer.class);
+            if (createdMeanwhile != null && createdMeanwhile == 1) {
+                // Another node created the view and backfills up to its own cutoff
+                return;
+            }
+            throw e;
+        }
+        clickHouseJdbcTemplate.execute("INSERT INTO " + rollup.table + " " + select
+            + " WHERE check_time < " + cutoff + " GROUP BY service_id, bucket");
+        logger.info("Backfilled ClickHouse rollup {} from check_results_ts", rollup.table);
+    }
+    
+    /**
+     * Rollups created before percentiles were tracked: adds the sketch column and swaps the view
+     * query in place, so every insert goes through exactly one version of the view. Buckets
+     * aggregated earlier keep an empty sketch.
+     */
+    private void upgradeRollupView(Rollup rollup, String select) {
+        String view = rollup.table + "_mv";
+        clickHouseJdbcTemplate.execute("ALTER TABLE " + rollup.table + " ADD COLUMN IF NOT EXISTS response_time_quantiles "
+            + "AggregateFunction(quantilesTDigestIf(0.5, 0.9, 0.95, 0.99), UInt32, UInt8)");
+        Integer viewHasQuantiles = clickHouseJdbcTemplate.queryForObject(
+            "SELECT count() FROM system.columns WHERE database = currentDatabase() AND table = ? AND name = 'response_time_quantiles'",
+            Integer.class, view);
+        if (viewHasQuantiles == null || viewHasQuantiles == 0) {
+            clickHouseJdbcTemplate.execute("ALTER TABLE " + view + " MODIFY QUERY " + select + " GROUP BY service_id, bucket");
+            logger.info("Updated ClickHouse rollup view {} to track response time percentiles", view);
+        }
     }
     
     @Override
@@ -222,6 +480,40 @@ public class ClickHouseRepositoryImpl implements ClickHouseRepository {
         clickHouseJdbcTemplate.update(sql2, Timestamp.valueOf(beforeDate));
     }
     
+    /**
+     * Pre-aggregated check statistics per service and time bucket. Response time aggregates
+     * cover successful checks only. Percentiles are kept as t-digest states, so any range of
+     * buckets merges into its own p50..p99 without reading raw rows.
+     */
+    private enum Rollup {
+        MINUTE("check_rollup_1m", "toStartOfMinute", "MINUTE", "30 DAY"),
+        HOUR("check_rollup_1h", "toStartOfHour", "HOUR", "2 YEAR"),
+        DAY("check_rollup_1d", "toStartOfDay", "DAY", "5 YEAR");
+        
+        private final String table;
+        private final String bucketFunction;
+        private final String unit;
+        private final String retention;
+        
+        Rollup(String table, String bucketFunction, String unit, String retention) {
+            this.table = table;
+            this.bucketFunction = bucketFunction;
+            this.unit = unit;
+            this.retention = retention;
+        }
+        
+        /**
+         * Finest rollup that still keeps the whole range and reads a bounded number of buckets
+         */
+        static Rollup forRange(LocalDateTime start, LocalDateTime end) {
+            long days = ChronoUnit.DAYS.between(start, end);
+            if (days <= 2) {
+                return MINUTE;
+            }
+            return days <= 90 ? HOUR : DAY;
+        }
+    }
+    
     private static class CheckResultRowMapper implements RowMapper<CheckResult> {
         @Override
         public CheckResult mapRow(ResultSet rs, int rowNum) throws SQLException {
@@ -257,7 +549,11 @@ public class ClickHouseRepositoryImpl implements ClickHouseRepository {
                 rs.getInt("total_checks"),
                 rs.getInt("successful_checks"),
                 rs.getInt("failed_checks"),
-                rs.getString("aggregation_period")
+                rs.getString("aggregation_period"),
+                rs.getLong("p50_response_time_ms"),
+                rs.getLong("p90_response_time_ms"),
+                rs.getLong("p95_response_time_ms"),
+                rs.getLong("p99_response_time_ms")
             );
         }
     }
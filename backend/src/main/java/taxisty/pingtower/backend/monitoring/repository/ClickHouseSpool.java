@@ -0,0 +1,448 @@
+package taxisty.pingtower.backend.monitoring.repository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Disk-backed write-ahead spool for ClickHouse inserts.
+ * <p>
+ * Batches that cannot be written to ClickHouse are appended as RowBinary records to segment files
+ * named after the logical offset of their first byte. A replay thread reads records from the last
+ * acknowledged offset, merges consecutive records for the same table into one large insert and
+ * advances the checkpoint once ClickHouse accepted it.
+ * <p>
+ * Before each replay insert the checkpoint records the offset range being replayed; the range,
+ * prefixed with a random id the spool keeps in its checkpoint, doubles as the
+ * {@code insert_deduplication_token}. The id keeps tokens of different nodes, and of a spool whose
+ * directory was wiped, from colliding in ClickHouse. If the process dies after ClickHouse accepted
+ * the insert but before the checkpoint moved, the same range is replayed with the same token and
+ * ClickHouse discards it, so every spooled row lands exactly once.
+ * <p>
+ * Disk usage is bounded: once the segments reach {@code maxBytes} new batches are rejected.
+ */
+public class ClickHouseSpool {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClickHouseSpool.class);
+
+    /** Record kind of check_results_ts rows. */
+    public static final byte CHECK_RESULTS = 1;
+    /** Record kind of service_metrics_ts rows. */
+    public static final byte SERVICE_METRICS = 2;
+
+    // payload length, row count, CRC32 of the payload, kind
+    private static final int HEADER_BYTES = 13;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT = "checkpoint";
+
+    /**
+     * Destination of replayed records.
+     */
+    @FunctionalInterface
+    public interface Sink {
+        void write(byte kind, byte[] rows, String deduplicationToken) throws Exception;
+    }
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final long maxBytes;
+    private final int replayBatchBytes;
+    private final long replayIntervalMillis;
+    private final Sink sink;
+
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private FileChannel activeChannel;
+    private long diskBytes;
+
+    private String spoolId;
+    private volatile long endOffset;
+    private volatile long ackedOffset;
+    private long pendingStart = -1;
+    private long pendingEnd = -1;
+    private final AtomicLong pendingRows = new AtomicLong();
+    private final AtomicLong droppedRows = new AtomicLong();
+
+    private ScheduledExecutorService replayExecutor;
+
+    public ClickHouseSpool(Path directory,
+                           long segmentBytes,
+                           long maxBytes,
+                           int replayBatchBytes,
+                           long replayIntervalMillis,
+                           Sink sink) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = maxBytes;
+        this.replayBatchBytes = replayBatchBytes;
+        this.replayIntervalMillis = replayIntervalMillis;
+        this.sink = sink;
+    }
+
+    /**
+     * Recovers the spool from disk and starts the replay thread.
+     */
+    public synchronized void start() throws IOException {
+        if (replayExecutor != null) {
+            return;
+        }
+        Files.createDirectories(directory);
+        loadCheckpoint();
+        if (spoolId == null) {
+            spoolId = UUID.randomUUID().toString();
+            saveCheckpoint();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(f -> f.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                 .forEach(f -> segments.put(baseOf(f), f));
+        }
+        recover();
+
+        replayExecutor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("clickhouse-spool").daemon(true).factory());
+        replayExecutor.scheduleWithFixedDelay(this::replaySafely, replayIntervalMillis,
+                replayIntervalMillis, TimeUnit.MILLISECONDS);
+        if (hasBacklog()) {
+            logger.info("ClickHouse spool has {} bytes ({} rows) to replay", getDepthBytes(), getDepthRows());
+        }
+    }
+
+    /**
+     * Stops the replay thread; spooled data stays on disk for the next start.
+     */
+    public synchronized void stop() {
+        if (replayExecutor == null) {
+            return;
+        }
+        replayExecutor.shutdownNow();
+        replayExecutor = null;
+        closeActive();
+    }
+
+    /**
+     * Whether spooled data is still waiting for replay. New batches should then be spooled too,
+     * so a struggling ClickHouse is not hit by live inserts while it catches up.
+     */
+    public boolean hasBacklog() {
+        return endOffset > ackedOffset;
+    }
+
+    /**
+     * Appends one batch of RowBinary rows.
+     *
+     * @return false if the spool is full and the batch was dropped
+     */
+    public synchronized boolean append(byte kind, byte[] rows, int rowCount) throws IOException {
+        int recordBytes = HEADER_BYTES + rows.length;
+        if (diskBytes + recordBytes > maxBytes) {
+            droppedRows.addAndGet(rowCount);
+            return false;
+        }
+        if (activeChannel == null || activeChannel.size() >= segmentBytes) {
+            rollSegment();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(rows);
+        ByteBuffer record = ByteBuffer.allocate(recordBytes);
+        record.putInt(rows.length).putInt(rowCount).putInt((int) crc.getValue()).put(kind).put(rows).flip();
+        while (record.hasRemaining()) {
+            activeChannel.write(record);
+        }
+        activeChannel.force(false);
+
+        diskBytes += recordBytes;
+        endOffset += recordBytes;
+        pendingRows.addAndGet(rowCount);
+        return true;
+    }
+
+    /**
+     * Replays spooled records until the spool is empty or an insert fails.
+     * Called periodically after {@link #start()}.
+     */
+    public void replay() throws Exception {
+        while (hasBacklog()) {
+            Batch batch = nextBatch();
+            if (batch == null) {
+                return;
+            }
+            sink.write(batch.kind(), batch.rows(), deduplicationToken(batch));
+            acknowledge(batch);
+        }
+    }
+
+    /**
+     * Gets the id that makes the deduplication tokens of this spool unique.
+     */
+    public String getSpoolId() {
+        return spoolId;
+    }
+
+    public long getDepthBytes() {
+        return endOffset - ackedOffset;
+    }
+
+    public long getDepthRows() {
+        return pendingRows.get();
+    }
+
+    public long getDroppedRows() {
+        return droppedRows.get();
+    }
+
+    private void replaySafely() {
+        try {
+            replay();
+        } catch (Exception e) {
+            logger.warn("ClickHouse spool replay failed, {} bytes pending: {}", getDepthBytes(), e.getMessage());
+        }
+    }
+
+    private String deduplicationToken(Batch batch) {
+        return "spool-" + spoolId + "-" + batch.start() + "-" + batch.end();
+    }
+
+    private record Batch(byte kind, byte[] rows, int rowCount, long start, long end) {
+    }
+
+    /**
+     * Reads the next replay range and records it in the checkpoint before it is sent. A range
+     * recorded by an earlier attempt is read again unchanged so that it keeps its token.
+     */
+    private synchronized Batch nextBatch() throws IOException {
+        long start = ackedOffset;
+        long limit = pendingStart == start ? pendingEnd : endOffset;
+
+        ByteArrayOutputStream rows = new ByteArrayOutputStream();
+        byte kind = 0;
+        int rowCount = 0;
+        long offset = start;
+        while (offset < limit) {
+            Map.Entry<Long, Path> segment = segments.floorEntry(offset);
+            if (segment == null) {
+                break;
+            }
+            try (FileChannel channel = FileChannel.open(segment.getValue(), StandardOpenOption.READ)) {
+                if (offset - segment.getKey() >= channel.size()) {
+                    // End of this segment; the next one starts exactly here
+                    if (segments.higherKey(segment.getKey()) == null) {
+                        break;
+                    }
+                    offset = segments.higherKey(segment.getKey());
+                    continue;
+                }
+                ByteBuffer header = readFully(channel, offset - segment.getKey(), HEADER_BYTES);
+                int length = header.getInt();
+                int count = header.getInt();
+                header.getInt();
+                byte recordKind = header.get();
+                if (kind != 0 && (recordKind != kind || rows.size() + length > replayBatchBytes)) {
+                    break;
+                }
+                ByteBuffer payload = readFully(channel, offset - segment.getKey() + HEADER_BYTES, length);
+                rows.write(payload.array(), 0, length);
+                kind = recordKind;
+                rowCount += count;
+                offset += HEADER_BYTES + length;
+            }
+        }
+        if (kind == 0) {
+            return null;
+        }
+        if (pendingStart != start || pendingEnd != offset) {
+            pendingStart = start;
+            pendingEnd = offset;
+            saveCheckpoint();
+        }
+        return new Batch(kind, rows.toByteArray(), rowCount, start, offset);
+    }
+
+    private synchronized void acknowledge(Batch batch) throws IOException {
+        ackedOffset = batch.end();
+        pendingStart = -1;
+        pendingEnd = -1;
+        pendingRows.addAndGet(-batch.rowCount());
+        saveCheckpoint();
+
+        // Delete segments that lie entirely below the acknowledged offset
+        while (segments.size() > 1 && segments.higherKey(segments.firstKey()) <= ackedOffset) {
+            deleteSegment(segments.pollFirstEntry().getValue());
+        }
+        if (ackedOffset == endOffset && activeChannel != null && activeChannel.size() > 0) {
+            // Fully replayed: start over with an empty segment
+            closeActive();
+            while (!segments.isEmpty()) {
+                deleteSegment(segments.pollFirstEntry().getValue());
+            }
+            diskBytes = 0;
+        }
+        logger.info("Replayed {} spooled rows to ClickHouse, {} bytes pending", batch.rowCount(), getDepthBytes());
+    }
+
+    /**
+     * Validates records from the checkpoint onwards, truncates a torn tail left by a crash
+     * and recounts the pending rows.
+     */
+    private void recover() throws IOException {
+        // Segments entirely below the checkpoint were replayed but not deleted yet
+        while (segments.size() > 1 && segments.higherKey(segments.firstKey()) <= ackedOffset) {
+            Files.deleteIfExists(segments.pollFirstEntry().getValue());
+        }
+        if (!segments.isEmpty() && segments.firstKey() > ackedOffset) {
+            ackedOffset = segments.firstKey();
+        }
+
+        long offset = segments.isEmpty() ? ackedOffset : segments.firstKey();
+        long rows = 0;
+        diskBytes = 0;
+        for (long base : segments.keySet().toArray(new Long[0])) {
+            Path file = segments.get(base);
+            if (base != offset) {
+                // Follows a truncated segment, so it can no longer be reached
+                segments.remove(base);
+                Files.deleteIfExists(file);
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long position = 0;
+                while (position + HEADER_BYTES <= channel.size()) {
+                    ByteBuffer header = readFully(channel, position, HEADER_BYTES);
+                    int length = header.getInt();
+                    int count = header.getInt();
+                    int checksum = header.getInt();
+                    if (length < 0 || position + HEADER_BYTES + length > channel.size()) {
+                        break;
+                    }
+                    CRC32 crc = new CRC32();
+                    crc.update(readFully(channel, position + HEADER_BYTES, length));
+                    if ((int) crc.getValue() != checksum) {
+                        break;
+                    }
+                    if (base + position >= ackedOffset) {
+                        rows += count;
+                    }
+                    position += HEADER_BYTES + length;
+                }
+                if (position < channel.size()) {
+                    logger.warn("Truncating torn ClickHouse spool segment {} at {}", file, position);
+                    channel.truncate(position);
+                    channel.force(true);
+                }
+                offset = base + position;
+                diskBytes += position;
+            }
+        }
+
+        endOffset = offset;
+        if (ackedOffset > endOffset) {
+            ackedOffset = endOffset;
+        }
+        if (pendingStart != ackedOffset || pendingEnd > endOffset) {
+            pendingStart = -1;
+            pendingEnd = -1;
+        }
+        pendingRows.set(rows);
+        if (!segments.isEmpty()) {
+            activeChannel = FileChannel.open(segments.lastEntry().getValue(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        closeActive();
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, endOffset, SEGMENT_SUFFIX));
+        activeChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segments.put(endOffset, file);
+    }
+
+    private void closeActive() {
+        if (activeChannel != null) {
+            try {
+                activeChannel.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close ClickHouse spool segment", e);
+            }
+            activeChannel = null;
+        }
+    }
+
+    private void deleteSegment(Path file) {
+        try {
+            diskBytes -= Files.size(file);
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Failed to delete ClickHouse spool segment {}", file, e);
+        }
+        if (diskBytes < 0) {
+            diskBytes = 0;
+        }
+    }
+
+    private void loadCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT);
+        if (!Files.exists(file)) {
+            return;
+        }
+        Properties checkpoint = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            checkpoint.load(in);
+        }
+        spoolId = checkpoint.getProperty("id");
+        ackedOffset = Long.parseLong(checkpoint.getProperty("acked", "0"));
+        pendingStart = Long.parseLong(checkpoint.getProperty("pending.start", "-1"));
+        pendingEnd = Long.parseLong(checkpoint.getProperty("pending.end", "-1"));
+    }
+
+    private void saveCheckpoint() throws IOException {
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty("id", spoolId);
+        checkpoint.setProperty("acked", String.valueOf(ackedOffset));
+        checkpoint.setProperty("pending.start", String.valueOf(pendingStart));
+        checkpoint.setProperty("pending.end", String.valueOf(pendingEnd));
+
+        Path temp = directory.resolve(CHECKPOINT + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream out = Channels.newOutputStream(channel)) {
+            checkpoint.store(out, null);
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of spool segment");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static long baseOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,43 @@
+package taxisty.pingtower.backend.monitoring.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import taxisty.pingtower.backend.storage.model.ClusterNode;
+
+/**
+ * Repository for cluster node heartbeats
+ */
+@Repository
+public interface ClusterNodeRepository extends JpaRepository<ClusterNode, String> {
+
+    /**
+     * Records a heartbeat at the database time, registering the node if it is not known yet
+     */
+    @Modifying
+    @Query(value = "INSERT INTO cluster_node (node_id, started_at, last_heartbeat) VALUES (:nodeId, LOCALTIMESTAMP, LOCALTIMESTAMP) " +
+                   "ON CONFLICT (node_id) DO UPDATE SET last_heartbeat = EXCLUDED.last_heartbeat",
+           nativeQuery = true)
+    int heartbeat(@Param("nodeId") String nodeId);
+
+    /**
+     * Find ids of nodes with a heartbeat within the given number of milliseconds of the database time
+     */
+    @Query(value = "SELECT node_id FROM cluster_node " +
+                   "WHERE last_heartbeat > LOCALTIMESTAMP - :withinMillis * INTERVAL '1 millisecond' ORDER BY node_id",
+           nativeQuery = true)
+    List<String> findLiveNodeIds(@Param("withinMillis") long withinMillis);
+
+    /**
+     * Remove nodes that have not sent a heartbeat for the given number of milliseconds of the database time
+     */
+    @Modifying
+    @Query(value = "DELETE FROM cluster_node WHERE last_heartbeat < LOCALTIMESTAMP - :olderThanMillis * INTERVAL '1 millisecond'",
+           nativeQuery = true)
+    int deleteStale(@Param("olderThanMillis") long olderThanMillis);
+}
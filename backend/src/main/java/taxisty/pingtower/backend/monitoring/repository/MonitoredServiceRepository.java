@@ -1,6 +1,7 @@
 package taxisty.pingtower.backend.monitoring.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -23,6 +24,19 @@ public interface MonitoredServiceRepository extends JpaRepository<MonitoredServi
     @Query("SELECT ms FROM MonitoredService ms WHERE ms.isActive = true")
     List<MonitoredService> findAllActive();
     
+    /**
+     * Find the owner of a service without loading the entity
+     */
+    @Query("SELECT ms.userId FROM MonitoredService ms WHERE ms.id = :serviceId")
+    Optional<Long> findUserIdById(@Param("serviceId") Long serviceId);
+
+    /**
+     * Set whether the latest check of a service succeeded
+     */
+    @Modifying
+    @Query("UPDATE MonitoredService ms SET ms.isAlive = :alive WHERE ms.id = :serviceId")
+    int updateAlive(@Param("serviceId") Long serviceId, @Param("alive") boolean alive);
+    
     /**
      * Find monitored services by user ID
      */
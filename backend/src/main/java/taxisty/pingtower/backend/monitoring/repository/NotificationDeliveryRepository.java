@@ -0,0 +1,13 @@
+package taxisty.pingtower.backend.monitoring.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import taxisty.pingtower.backend.storage.model.NotificationDelivery;
+
+/**
+ * Repository for persisted notification delivery attempts.
+ */
+@Repository
+public interface NotificationDeliveryRepository extends JpaRepository<NotificationDelivery, Long> {
+}
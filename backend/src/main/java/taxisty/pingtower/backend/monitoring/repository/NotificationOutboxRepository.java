@@ -0,0 +1,51 @@
+package taxisty.pingtower.backend.monitoring.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import taxisty.pingtower.backend.storage.model.NotificationOutbox;
+
+/**
+ * Repository for the notification outbox.
+ */
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    /**
+     * Locks the oldest due pending rows. Rows locked by another relay are skipped
+     * (FOR UPDATE SKIP LOCKED on Postgres), so several instances can drain the outbox at once.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM NotificationOutbox o WHERE o.status = 'PENDING' AND o.nextAttemptAt <= :now " +
+           "ORDER BY o.nextAttemptAt")
+    List<NotificationOutbox> findDueForUpdate(@Param("now") LocalDateTime now, Pageable pageable);
+
+    long countByStatus(String status);
+
+    /**
+     * Moves the next attempt of the given pending rows to {@code until}, renewing their lease
+     */
+    @Modifying
+    @Query("UPDATE NotificationOutbox o SET o.nextAttemptAt = :until WHERE o.id IN :ids AND o.status = 'PENDING'")
+    int extendLease(@Param("ids") Collection<Long> ids, @Param("until") LocalDateTime until);
+
+    /**
+     * Removes rows of the given status completed before the cutoff
+     */
+    @Modifying
+    @Query("DELETE FROM NotificationOutbox o WHERE o.status = :status AND o.completedAt < :cutoff")
+    int deleteCompletedBefore(@Param("status") String status, @Param("cutoff") LocalDateTime cutoff);
+}
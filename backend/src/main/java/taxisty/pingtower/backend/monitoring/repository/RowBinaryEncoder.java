@@ -0,0 +1,92 @@
+package taxisty.pingtower.backend.monitoring.repository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.TimeZone;
+
+import com.clickhouse.data.format.BinaryStreamUtils;
+
+import taxisty.pingtower.backend.storage.model.CheckResult;
+import taxisty.pingtower.backend.storage.model.ServiceMetrics;
+
+/**
+ * Encodes rows in ClickHouse RowBinary format for bulk inserts.
+ * Column order and types must match {@link #CHECK_RESULT_COLUMNS} and {@link #SERVICE_METRICS_COLUMNS}
+ * and the table definitions in {@link ClickHouseRepositoryImpl#initializeTables()}.
+ */
+final class RowBinaryEncoder {
+
+    static final String CHECK_RESULT_COLUMNS =
+            "(id, service_id, check_time, is_successful, response_code, response_time_ms, " +
+            "response_body, error_message, ssl_valid, ssl_expiry_date, check_location)";
+
+    static final String SERVICE_METRICS_COLUMNS =
+            "(id, service_id, period_start, period_end, uptime_percentage, " +
+            "average_response_time_ms, max_response_time_ms, min_response_time_ms, " +
+            "total_checks, successful_checks, failed_checks, aggregation_period)";
+
+    private RowBinaryEncoder() {
+    }
+
+    /**
+     * Writes one check_results_ts row.
+     */
+    static void writeCheckResult(OutputStream out, CheckResult result) throws IOException {
+        BinaryStreamUtils.writeUnsignedInt64(out, orZero(result.id()));
+        BinaryStreamUtils.writeUnsignedInt64(out, orZero(result.serviceId()));
+        writeDateTime(out, result.checkTime());
+        BinaryStreamUtils.writeUnsignedInt8(out, result.isSuccessful() ? 1 : 0);
+        BinaryStreamUtils.writeUnsignedInt16(out, clamp(result.responseCode(), 0xFFFF));
+        BinaryStreamUtils.writeUnsignedInt32(out, clamp(result.responseTimeMs(), 0xFFFFFFFFL));
+        BinaryStreamUtils.writeString(out, orEmpty(result.responseBody()));
+        BinaryStreamUtils.writeString(out, orEmpty(result.errorMessage()));
+        BinaryStreamUtils.writeUnsignedInt8(out, result.sslValid() ? 1 : 0);
+        if (result.sslExpiryDate() == null) {
+            BinaryStreamUtils.writeNull(out);
+        } else {
+            BinaryStreamUtils.writeNonNull(out);
+            writeDateTime(out, result.sslExpiryDate());
+        }
+        BinaryStreamUtils.writeString(out, orEmpty(result.checkLocation()));
+    }
+
+    /**
+     * Writes one service_metrics_ts row.
+     */
+    static void writeServiceMetrics(OutputStream out, ServiceMetrics metrics) throws IOException {
+        BinaryStreamUtils.writeUnsignedInt64(out, orZero(metrics.id()));
+        BinaryStreamUtils.writeUnsignedInt64(out, orZero(metrics.serviceId()));
+        writeDateTime(out, metrics.periodStart());
+        writeDateTime(out, metrics.periodEnd());
+        BinaryStreamUtils.writeFloat64(out, metrics.uptimePercentage());
+        BinaryStreamUtils.writeFloat64(out, metrics.averageResponseTimeMs());
+        BinaryStreamUtils.writeUnsignedInt32(out, clamp(metrics.maxResponseTimeMs(), 0xFFFFFFFFL));
+        BinaryStreamUtils.writeUnsignedInt32(out, clamp(metrics.minResponseTimeMs(), 0xFFFFFFFFL));
+        BinaryStreamUtils.writeUnsignedInt32(out, clamp(metrics.totalChecks(), 0xFFFFFFFFL));
+        BinaryStreamUtils.writeUnsignedInt32(out, clamp(metrics.successfulChecks(), 0xFFFFFFFFL));
+        BinaryStreamUtils.writeUnsignedInt32(out, clamp(metrics.failedChecks(), 0xFFFFFFFFL));
+        BinaryStreamUtils.writeString(out, orEmpty(metrics.aggregationPeriod()));
+    }
+
+    // DateTime columns have no time zone; the JVM zone matches what Timestamp.valueOf sent before
+    private static void writeDateTime(OutputStream out, LocalDateTime value) throws IOException {
+        BinaryStreamUtils.writeDateTime32(out, value, TimeZone.getDefault());
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    private static String orEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private static int clamp(int value, int max) {
+        return Math.max(0, Math.min(value, max));
+    }
+
+    private static long clamp(long value, long max) {
+        return Math.max(0L, Math.min(value, max));
+    }
+}
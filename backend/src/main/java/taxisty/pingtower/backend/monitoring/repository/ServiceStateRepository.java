@@ -0,0 +1,71 @@
+package taxisty.pingtower.backend.monitoring.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import taxisty.pingtower.backend.storage.model.ServiceState;
+
+/**
+ * Repository for the current state of monitored services.
+ */
+@Repository
+public interface ServiceStateRepository extends JpaRepository<ServiceState, Long> {
+
+    /**
+     * Merges the state built from one batch of a service's results into the stored row in a single
+     * statement, so concurrent writers cannot both insert it. When {@code continuesRun} is set the
+     * whole batch is one run, which extends the stored run if the status did not change. States
+     * older than the stored one are ignored.
+     *
+     * @return 1 if the row was inserted or updated, 0 if it was newer already
+     */
+    @Modifying
+    @Query(value = "INSERT INTO service_state (service_id, last_check_id, last_check_time, last_successful, " +
+                   "last_response_code, last_response_time_ms, last_error_message, " +
+                   "consecutive_successes, consecutive_failures, status_changed_at) " +
+                   "VALUES (:#{#state.serviceId}, :#{#state.lastCheckId}, :#{#state.lastCheckTime}, " +
+                   ":#{#state.lastSuccessful}, :#{#state.lastResponseCode}, :#{#state.lastResponseTimeMs}, " +
+                   ":#{#state.lastErrorMessage}, :#{#state.consecutiveSuccesses}, " +
+                   ":#{#state.consecutiveFailures}, :#{#state.statusChangedAt}) " +
+                   "ON CONFLICT (service_id) DO UPDATE SET " +
+                   "last_check_id = EXCLUDED.last_check_id, " +
+                   "last_check_time = EXCLUDED.last_check_time, " +
+                   "last_successful = EXCLUDED.last_successful, " +
+                   "last_response_code = EXCLUDED.last_response_code, " +
+                   "last_response_time_ms = EXCLUDED.last_response_time_ms, " +
+                   "last_error_message = EXCLUDED.last_error_message, " +
+                   "consecutive_successes = CASE WHEN :continuesRun " +
+                   "AND service_state.last_successful = EXCLUDED.last_successful " +
+                   "THEN service_state.consecutive_successes + EXCLUDED.consecutive_successes " +
+                   "ELSE EXCLUDED.consecutive_successes END, " +
+                   "consecutive_failures = CASE WHEN :continuesRun " +
+                   "AND service_state.last_successful = EXCLUDED.last_successful " +
+                   "THEN service_state.consecutive_failures + EXCLUDED.consecutive_failures " +
+                   "ELSE EXCLUDED.consecutive_failures END, " +
+                   "status_changed_at = CASE WHEN :continuesRun " +
+                   "AND service_state.last_successful = EXCLUDED.last_successful " +
+                   "THEN service_state.status_changed_at ELSE EXCLUDED.status_changed_at END " +
+                   "WHERE service_state.last_check_time <= EXCLUDED.last_check_time",
+           nativeQuery = true)
+    int upsert(@Param("state") ServiceState state, @Param("continuesRun") boolean continuesRun);
+
+    /**
+     * Check time of the latest committed result of a service
+     */
+    @Query("SELECT st.lastCheckTime FROM ServiceState st WHERE st.serviceId = :serviceId")
+    Optional<LocalDateTime> findLastCheckTime(@Param("serviceId") Long serviceId);
+
+    /**
+     * All active services with their current state (null for services not checked yet), in one query
+     */
+    @Query("SELECT ms, st FROM MonitoredService ms LEFT JOIN ServiceState st ON st.serviceId = ms.id " +
+           "WHERE ms.isActive = true ORDER BY ms.id")
+    List<Object[]> findActiveServicesWithState();
+}
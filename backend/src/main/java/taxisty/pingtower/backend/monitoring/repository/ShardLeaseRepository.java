@@ -0,0 +1,53 @@
+package taxisty.pingtower.backend.monitoring.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import taxisty.pingtower.backend.storage.model.ShardLease;
+
+/**
+ * Repository for shard leases. Leases are taken and renewed with conditional updates,
+ * so two nodes can never hold the same unexpired lease.
+ */
+@Repository
+public interface ShardLeaseRepository extends JpaRepository<ShardLease, Integer> {
+
+    /**
+     * Creates the lease row of a shard if it does not exist yet. New leases are free and expired.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO shard_lease (shard_id, owner_node_id, lease_expires_at) " +
+                   "VALUES (:shardId, NULL, LOCALTIMESTAMP - INTERVAL '1 year') " +
+                   "ON CONFLICT (shard_id) DO NOTHING",
+           nativeQuery = true)
+    int createIfMissing(@Param("shardId") int shardId);
+
+    /**
+     * Acquires or renews a lease. Succeeds only if the node already holds the lease
+     * or the current lease has expired. Expiry is decided by the database clock, so
+     * nodes with skewed clocks agree on it.
+     *
+     * @return 1 if the lease is now held by the node, 0 otherwise
+     */
+    @Modifying
+    @Query(value = "UPDATE shard_lease SET owner_node_id = :nodeId, " +
+                   "lease_expires_at = LOCALTIMESTAMP + :leaseMillis * INTERVAL '1 millisecond' " +
+                   "WHERE shard_id = :shardId " +
+                   "AND (owner_node_id = :nodeId OR owner_node_id IS NULL OR lease_expires_at < LOCALTIMESTAMP)",
+           nativeQuery = true)
+    int tryAcquire(@Param("shardId") int shardId,
+                   @Param("nodeId") String nodeId,
+                   @Param("leaseMillis") long leaseMillis);
+
+    /**
+     * Releases a lease held by the node so another node can take it right away
+     */
+    @Modifying
+    @Query(value = "UPDATE shard_lease SET owner_node_id = NULL, lease_expires_at = LOCALTIMESTAMP - INTERVAL '1 year' " +
+                   "WHERE shard_id = :shardId AND owner_node_id = :nodeId",
+           nativeQuery = true)
+    int release(@Param("shardId") int shardId, @Param("nodeId") String nodeId);
+}
@@ -3,12 +3,15 @@ package taxisty.pingtower.backend.monitoring.service;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import taxisty.pingtower.backend.monitoring.config.MonitoringProperties;
 import taxisty.pingtower.backend.monitoring.repository.CheckResultRepository;
 import taxisty.pingtower.backend.monitoring.repository.ClickHouseRepository;
 import taxisty.pingtower.backend.storage.model.CheckResult;
 
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Service for synchronizing data between PostgreSQL and ClickHouse.
@@ -20,16 +23,21 @@ public class DataSynchronizationService {
     
     private final CheckResultRepository checkResultRepository;
     private final ClickHouseRepository clickHouseRepository;
+    private final MonitoringProperties monitoringProperties;
     
     public DataSynchronizationService(
             CheckResultRepository checkResultRepository,
-            ClickHouseRepository clickHouseRepository) {
+            ClickHouseRepository clickHouseRepository,
+            MonitoringProperties monitoringProperties) {
         this.checkResultRepository = checkResultRepository;
         this.clickHouseRepository = clickHouseRepository;
+        this.monitoringProperties = monitoringProperties;
     }
     
     /**
-     * Migrate old PostgreSQL check results to ClickHouse
+     * Migrate old PostgreSQL check results to ClickHouse.
+     * The ingest pipeline already wrote most of them there, so only results missing from ClickHouse
+     * are inserted: the rollup views aggregate every inserted row and would count the others twice.
      */
     public void migrateOldCheckResults() {
         LocalDateTime cutoffDate = LocalDateTime.now().minusDays(7); // Keep 7 days in PostgreSQL
@@ -37,29 +45,33 @@ public class DataSynchronizationService {
         
         if (!oldResults.isEmpty()) {
             // Ensure data exists in ClickHouse
-            clickHouseRepository.saveCheckResults(oldResults);
+            LocalDateTime oldest = oldResults.stream()
+                .map(CheckResult::getCheckTime)
+                .min(Comparator.naturalOrder())
+                .orElse(cutoffDate);
+            int migrated = saveMissing(oldResults, clickHouseRepository.getCheckResultIds(oldest, cutoffDate));
             
             // Remove from PostgreSQL after successful migration
             checkResultRepository.deleteByCheckTimeBefore(cutoffDate);
             
-            System.out.println("Migrated " + oldResults.size() + " check results to ClickHouse");
+            System.out.println("Migrated " + migrated + " of " + oldResults.size()
+                + " check results to ClickHouse");
         }
     }
     
     /**
-     * Synchronize recent data to ClickHouse
+     * Synchronize recent data to ClickHouse, inserting the results missing there
      */
     public void synchronizeRecentData() {
         LocalDateTime oneDayAgo = LocalDateTime.now().minusDays(1);
+        LocalDateTime now = LocalDateTime.now();
         List<Long> serviceIds = checkResultRepository.findAllServiceIds();
+        Set<Long> stored = clickHouseRepository.getCheckResultIds(oneDayAgo, now);
         
         for (Long serviceId : serviceIds) {
             List<CheckResult> recentResults = checkResultRepository
-                .findByServiceIdAndTimeRange(serviceId, oneDayAgo, LocalDateTime.now());
-            
-            if (!recentResults.isEmpty()) {
-                clickHouseRepository.saveCheckResults(recentResults);
-            }
+                .findByServiceIdAndTimeRange(serviceId, oneDayAgo, now);
+            saveMissing(recentResults, stored);
         }
     }
     
@@ -109,19 +121,34 @@ public class DataSynchronizationService {
     }
     
     /**
-     * Force synchronization of specific service data
+     * Force synchronization of specific service data, inserting the results missing in ClickHouse
      */
     public void forceSyncServiceData(Long serviceId, LocalDateTime start, LocalDateTime end) {
         List<CheckResult> postgresResults = checkResultRepository
             .findByServiceIdAndTimeRange(serviceId, start, end);
         
         if (!postgresResults.isEmpty()) {
-            clickHouseRepository.saveCheckResults(postgresResults);
-            System.out.println("Force synced " + postgresResults.size() + 
+            int synced = saveMissing(postgresResults, clickHouseRepository.getCheckResultIds(start, end));
+            System.out.println("Force synced " + synced + 
                              " results for service " + serviceId + " to ClickHouse");
         }
     }
     
+    /**
+     * Insert the results whose ids are not stored in ClickHouse yet
+     *
+     * @return the number of results inserted
+     */
+    private int saveMissing(List<CheckResult> results, Set<Long> stored) {
+        List<CheckResult> missing = results.stream()
+            .filter(result -> !stored.contains(result.getId()))
+            .toList();
+        if (!missing.isEmpty()) {
+            clickHouseRepository.saveCheckResults(missing);
+        }
+        return missing.size();
+    }
+    
     /**
      * Scheduled task to migrate old data (runs daily at 3 AM)
      */
@@ -135,10 +162,14 @@ public class DataSynchronizationService {
     }
     
     /**
-     * Scheduled task to synchronize recent data (runs every hour)
+     * Scheduled task to synchronize recent data (runs every hour).
+     * Skipped when the ClickHouse spool is enabled, since it already replays failed inserts.
      */
     @Scheduled(fixedRate = 3600000) // 1 hour
     public void scheduledDataSync() {
+        if (monitoringProperties.getSpool().isEnabled()) {
+            return;
+        }
         try {
             synchronizeRecentData();
         } catch (Exception e) {
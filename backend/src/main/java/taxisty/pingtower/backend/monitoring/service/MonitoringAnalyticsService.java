@@ -6,8 +6,6 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import taxisty.pingtower.backend.monitoring.config.MonitoringProperties;
 import taxisty.pingtower.backend.monitoring.repository.ClickHouseRepository;
-import taxisty.pingtower.backend.monitoring.repository.MonitoredServiceRepository;
-import taxisty.pingtower.backend.storage.model.MonitoredService;
 import taxisty.pingtower.backend.storage.model.ServiceMetrics;
 
 import java.time.LocalDateTime;
@@ -18,6 +16,8 @@ import java.util.concurrent.CompletableFuture;
 /**
  * Service for aggregating monitoring data and generating analytics reports.
  * Handles metrics calculation, SLA reporting, and historical data analysis.
+ * Aggregates are read from the ClickHouse rollup tables, which materialized views keep up to date
+ * on every insert, so no periodic per-service recomputation is needed.
  */
 @Service
 public class MonitoringAnalyticsService {
@@ -26,15 +26,12 @@ public class MonitoringAnalyticsService {
     
     private final ClickHouseRepository clickHouseRepository;
     private final MonitoringProperties monitoringProperties;
-    private final MonitoredServiceRepository monitoredServiceRepository;
     
     public MonitoringAnalyticsService(
             ClickHouseRepository clickHouseRepository,
-            MonitoringProperties monitoringProperties,
-            MonitoredServiceRepository monitoredServiceRepository) {
+            MonitoringProperties monitoringProperties) {
         this.clickHouseRepository = clickHouseRepository;
         this.monitoringProperties = monitoringProperties;
-        this.monitoredServiceRepository = monitoredServiceRepository;
     }
     
     /**
@@ -125,142 +122,9 @@ public class MonitoringAnalyticsService {
         );
     }
     
-    /**
-     * Scheduled task to calculate metrics for all services
-     */
-    @Scheduled(fixedRateString = "#{${monitoring.analytics.flush-interval-seconds:60} * 1000}")
-    public void calculateScheduledMetrics() {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime oneHourAgo = now.minusHours(1);
-        
-        try {
-            // Get all active services from repository
-            List<MonitoredService> activeServices = monitoredServiceRepository.findAllActive();
-            
-            if (activeServices.isEmpty()) {
-                logger.debug("No active services found for metrics calculation");
-                return;
-            }
-            
-            logger.info("Running scheduled metrics calculation for {} services at {}", 
-                       activeServices.size(), now);
-            
-            // Calculate metrics for each service in parallel
-            List<CompletableFuture<Void>> futures = activeServices.stream()
-                .map(service -> calculateServiceMetrics(
-                    service.getId(), 
-                    oneHourAgo, 
-                    now, 
-                    "1h"
-                ))
-                .toList();
-            
-            // Wait for all metrics calculations to complete
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-                .join();
-            
-            logger.info("Completed scheduled metrics calculation for {} services", activeServices.size());
-            
-        } catch (Exception e) {
-            logger.error("Error during scheduled metrics calculation", e);
-        }
-    }
-    
-    /**
-     * Calculate daily metrics aggregation (runs at midnight)
-     */
-    @Scheduled(cron = "0 0 0 * * ?")
-    public void calculateDailyMetrics() {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime oneDayAgo = now.minusDays(1);
-        
-        try {
-            List<MonitoredService> activeServices = monitoredServiceRepository.findAllActive();
-            
-            logger.info("Running daily metrics calculation for {} services", activeServices.size());
-            
-            for (MonitoredService service : activeServices) {
-                try {
-                    calculateServiceMetrics(service.getId(), oneDayAgo, now, "1d").join();
-                } catch (Exception e) {
-                    logger.error("Failed to calculate daily metrics for service: {}", service.getId(), e);
-                }
-            }
-            
-            logger.info("Completed daily metrics calculation");
-        } catch (Exception e) {
-            logger.error("Error during daily metrics calculation", e);
-        }
-    }
-    
-    /**
-     * Calculate weekly metrics aggregation (runs on Sunday at 2 AM)
-     */
-    @Scheduled(cron = "0 0 2 * * SUN")
-    public void calculateWeeklyMetrics() {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime oneWeekAgo = now.minusDays(7);
-        
-        try {
-            List<MonitoredService> activeServices = monitoredServiceRepository.findAllActive();
-            
-            logger.info("Running weekly metrics calculation for {} services", activeServices.size());
-            
-            for (MonitoredService service : activeServices) {
-                try {
-                    calculateServiceMetrics(service.getId(), oneWeekAgo, now, "7d").join();
-                } catch (Exception e) {
-                    logger.error("Failed to calculate weekly metrics for service: {}", service.getId(), e);
-                }
-            }
-            
-            logger.info("Completed weekly metrics calculation");
-        } catch (Exception e) {
-            logger.error("Error during weekly metrics calculation", e);
-        }
-    }
-    
-
-    
     private ServiceMetrics computeServiceMetrics(Long serviceId, LocalDateTime start, LocalDateTime end, String aggregationPeriod) {
-        Double uptimePercentage = clickHouseRepository.getServiceUptimePercentage(serviceId, start, end);
-        Double averageResponseTime = clickHouseRepository.getAverageResponseTime(serviceId, start, end);
-        
-        // Get raw check results to calculate additional metrics
-        var checkResults = clickHouseRepository.getCheckResultsByServiceId(serviceId, start, end);
-        
-        if (checkResults.isEmpty()) {
-            return null;
-        }
-        
-        int totalChecks = checkResults.size();
-        int successfulChecks = (int) checkResults.stream().filter(r -> r.isSuccessful()).count();
-        int failedChecks = totalChecks - successfulChecks;
-        
-        long maxResponseTime = checkResults.stream()
-            .filter(r -> r.isSuccessful())
-            .mapToLong(r -> r.responseTimeMs())
-            .max().orElse(0L);
-        
-        long minResponseTime = checkResults.stream()
-            .filter(r -> r.isSuccessful())
-            .mapToLong(r -> r.responseTimeMs())
-            .min().orElse(0L);
-        
-        return new ServiceMetrics(
-            null, // ID will be generated
-            serviceId,
-            start,
-            end,
-            uptimePercentage != null ? uptimePercentage : 0.0,
-            averageResponseTime != null ? averageResponseTime.longValue() : 0L,
-            maxResponseTime,
-            minResponseTime,
-            totalChecks,
-            successfulChecks,
-            failedChecks,
-            aggregationPeriod
-        );
+        // Merged from the ClickHouse rollups instead of loading every raw check into the JVM
+        return clickHouseRepository.getAggregatedMetrics(serviceId, start, end, aggregationPeriod);
     }
     
     private TrendDirection determineTrend(double first, double second) {
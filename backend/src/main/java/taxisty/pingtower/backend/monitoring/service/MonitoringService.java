@@ -1,24 +1,23 @@
 package taxisty.pingtower.backend.monitoring.service;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import taxisty.pingtower.backend.monitoring.repository.AlertRepository;
+import taxisty.pingtower.backend.monitoring.alerting.AlertEngine;
+import taxisty.pingtower.backend.monitoring.hot.RecentResultStore;
+import taxisty.pingtower.backend.monitoring.ingest.CheckResultIngestPipeline;
 import taxisty.pingtower.backend.monitoring.repository.CheckResultRepository;
 import taxisty.pingtower.backend.monitoring.repository.ClickHouseRepository;
 import taxisty.pingtower.backend.monitoring.repository.MonitoredServiceRepository;
-import taxisty.pingtower.backend.notifications.service.NotificationService;
 import taxisty.pingtower.backend.scheduler.service.MonitoringDataService;
-import taxisty.pingtower.backend.storage.model.Alert;
 import taxisty.pingtower.backend.storage.model.CheckResult;
 import taxisty.pingtower.backend.storage.model.MonitoredService;
 import taxisty.pingtower.backend.storage.model.ServiceMetrics;
@@ -37,53 +36,43 @@ public class MonitoringService implements MonitoringDataService {
     private final ClickHouseRepository clickHouseRepository;
     private final CheckResultRepository checkResultRepository;
     private final MonitoredServiceRepository monitoredServiceRepository;
-    private final AlertRepository alertRepository;
-    private final NotificationService notificationService;
+    private final CheckResultIngestPipeline ingestPipeline;
+    private final RecentResultStore recentResults;
+    private final AlertEngine alertEngine;
     
     public MonitoringService(
             ClickHouseRepository clickHouseRepository,
             CheckResultRepository checkResultRepository,
             MonitoredServiceRepository monitoredServiceRepository,
-            AlertRepository alertRepository,
-            NotificationService notificationService) {
+            CheckResultIngestPipeline ingestPipeline,
+            RecentResultStore recentResults,
+            AlertEngine alertEngine) {
         this.clickHouseRepository = clickHouseRepository;
         this.checkResultRepository = checkResultRepository;
         this.monitoredServiceRepository = monitoredServiceRepository;
-        this.alertRepository = alertRepository;
-        this.notificationService = notificationService;
+        this.ingestPipeline = ingestPipeline;
+        this.recentResults = recentResults;
+        this.alertEngine = alertEngine;
     }
     
     /**
-     * Process and store monitoring check results from scheduler
+     * Process and store monitoring check results from scheduler.
+     * The result is queued for batched storage; alerting runs after it is committed.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void processCheckResult(CheckResult checkResult) {
-        // Store immediately in PostgreSQL for recent data access
-        checkResultRepository.save(checkResult);
-        
-        // Store in ClickHouse for long-term analytics
-        clickHouseRepository.saveCheckResults(List.of(checkResult));
-        
-        // Process alerting logic
-        processAlertingLogic(checkResult);
+        ingestPipeline.submit(checkResult);
     }
     
     /**
-     * Process multiple check results in batch
+     * Process multiple check results in batch.
+     * Goes through the ingest pipeline like single results, so service state, the hot tier
+     * and alerting see them too.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void processCheckResults(List<CheckResult> checkResults) {
-        if (checkResults.isEmpty()) return;
-        
-        // Batch save to PostgreSQL for immediate access
-        checkResultRepository.saveAll(checkResults);
-        
-        // Batch insert to ClickHouse for analytics
-        clickHouseRepository.saveCheckResults(checkResults);
-        
-        // Process each result for alerts and notifications
         for (CheckResult result : checkResults) {
-            if (!result.isSuccessful()) {
-                processAlertingLogic(result);
-            }
+            ingestPipeline.submit(result);
         }
     }
     
@@ -93,7 +82,8 @@ public class MonitoringService implements MonitoringDataService {
     public MonitoringDashboardData getDashboardData(Long serviceId, LocalDateTime start, LocalDateTime end) {
         Double uptimePercentage = clickHouseRepository.getServiceUptimePercentage(serviceId, start, end);
         Double averageResponseTime = clickHouseRepository.getAverageResponseTime(serviceId, start, end);
-        List<CheckResult> recentChecks = clickHouseRepository.getCheckResultsByServiceId(serviceId, start, end);
+        List<CheckResult> recentChecks = recentResults.findBetween(serviceId, start, end)
+                .orElseGet(() -> clickHouseRepository.getCheckResultsByServiceId(serviceId, start, end));
         List<ServiceMetrics> hourlyMetrics = clickHouseRepository.getHourlyMetrics(serviceId, start, end);
         
         return new MonitoringDashboardData(
@@ -109,12 +99,14 @@ public class MonitoringService implements MonitoringDataService {
      * Get service availability status (UP, DOWN, DEGRADED)
      */
     public ServiceStatus getServiceStatus(Long serviceId) {
-        // First try PostgreSQL for recent data (faster)
+        // Served from memory when the hot tier holds the last five minutes, otherwise from PostgreSQL
         LocalDateTime fiveMinutesAgo = LocalDateTime.now().minusMinutes(5);
-        List<CheckResult> recentChecks = checkResultRepository.findRecentByServiceId(serviceId, fiveMinutesAgo);
+        Optional<List<CheckResult>> hot = recentResults.findRecent(serviceId, fiveMinutesAgo);
+        List<CheckResult> recentChecks = hot.orElseGet(() ->
+                checkResultRepository.findRecentByServiceId(serviceId, fiveMinutesAgo));
         
         // Fallback to ClickHouse if no recent data in PostgreSQL
-        if (recentChecks.isEmpty()) {
+        if (recentChecks.isEmpty() && hot.isEmpty()) {
             LocalDateTime now = LocalDateTime.now();
             recentChecks = clickHouseRepository.getCheckResultsByServiceId(serviceId, fiveMinutesAgo, now);
         }
@@ -153,7 +145,8 @@ public class MonitoringService implements MonitoringDataService {
      * Get latest check result for a service
      */
     public Optional<CheckResult> getLatestCheckResult(Long serviceId) {
-        return checkResultRepository.findFirstByServiceIdOrderByCheckTimeDesc(serviceId)
+        return recentResults.findLatest(serviceId)
+                .or(() -> checkResultRepository.findFirstByServiceIdOrderByCheckTimeDesc(serviceId))
                 .or(() -> {
                     // Fallback to ClickHouse
                     LocalDateTime oneDayAgo = LocalDateTime.now().minusDays(1);
@@ -169,6 +162,11 @@ public class MonitoringService implements MonitoringDataService {
     public List<CheckResult> getRecentCheckResults(Long serviceId, int hours) {
         LocalDateTime since = LocalDateTime.now().minusHours(hours);
         
+        Optional<List<CheckResult>> hot = recentResults.findRecent(serviceId, since);
+        if (hot.isPresent()) {
+            return hot.get();
+        }
+        
         // Try PostgreSQL first for recent data
         List<CheckResult> results = checkResultRepository.findRecentByServiceId(serviceId, since);
         
@@ -181,6 +179,14 @@ public class MonitoringService implements MonitoringDataService {
         return results;
     }
     
+    /**
+     * Drop the in-memory recent results and alerting state of a deleted service
+     */
+    public void forgetService(Long serviceId) {
+        recentResults.evict(serviceId);
+        alertEngine.evict(serviceId);
+    }
+    
     /**
      * Initialize ClickHouse tables for monitoring data
      */
@@ -204,261 +210,10 @@ public class MonitoringService implements MonitoringDataService {
     }
     
     @Override
-    public CheckResult saveCheckResult(CheckResult checkResult) {
-        // Save to PostgreSQL and ClickHouse
-        CheckResult saved = checkResultRepository.save(checkResult);
-        clickHouseRepository.saveCheckResults(List.of(saved));
-        
-        // Process alerting if failed
-        if (!saved.isSuccessful()) {
-            processAlertingLogic(saved);
-        }
-        
-        return saved;
-    }
-    
-    @Override
-    public void handleFailureAlert(MonitoredService service, CheckResult failedResult) {
-        processAlertingLogic(failedResult);
-    }
-    
-    private void processAlertingLogic(CheckResult checkResult) {
-        try {
-            Optional<MonitoredService> serviceOpt = monitoredServiceRepository.findById(checkResult.getServiceId());
-            if (serviceOpt.isEmpty()) {
-                return;
-            }
-            
-            MonitoredService service = serviceOpt.get();
-            boolean previousIsAlive = service.isAlive();
-            boolean currentIsAlive = checkResult.isSuccessful();
-            
-            // Update isAlive status if changed
-            if (previousIsAlive != currentIsAlive) {
-                service.setAlive(currentIsAlive);
-                monitoredServiceRepository.save(service);
-                
-                // Send notification for status change
-                sendStatusChangeNotification(service, currentIsAlive);
-            }
-            
-            // Process failure alerts if check failed
-            if (!checkResult.isSuccessful()) {
-                // Get recent failures to determine if we should trigger an alert
-                LocalDateTime since = LocalDateTime.now().minusMinutes(30);
-                List<CheckResult> recentFailures = checkResultRepository
-                        .findRecentFailuresByServiceId(checkResult.getServiceId(), since);
-                
-                // Check if we have enough failures to trigger an alert
-                if (shouldTriggerAlert(checkResult, recentFailures)) {
-                    createAndSendAlert(checkResult, recentFailures);
-                }
-            } else {
-                // Check if this is a recovery from previous failures
-                checkForRecoveryAlert(checkResult);
-            }
-        } catch (Exception e) {
-            logger.error("Failed to process alerting logic for service: {}", checkResult.getServiceId(), e);
-        }
-    }
-    
-    /**
-     * Sends notification when service status changes (isAlive changes)
-     */
-    private void sendStatusChangeNotification(MonitoredService service, boolean isAlive) {
-        try {
-            String message = isAlive 
-                ? String.format("Service '%s' is now UP and responding normally.", service.getName())
-                : String.format("Service '%s' is now DOWN and not responding.", service.getName());
-            
-            // Create status change alert
-            Alert statusAlert = new Alert();
-            statusAlert.setServiceId(service.getId());
-            statusAlert.setMessage(message);
-            statusAlert.setSeverity(isAlive ? "INFO" : "HIGH");
-            statusAlert.setIsResolved(isAlive);
-            statusAlert.setTriggeredAt(LocalDateTime.now());
-            if (isAlive) {
-                statusAlert.setResolvedAt(LocalDateTime.now());
-            }
-            
-            // Add metadata
-            Map<String, String> metadata = new HashMap<>();
-            metadata.put("type", "STATUS_CHANGE");
-            metadata.put("serviceId", service.getId().toString());
-            metadata.put("serviceName", service.getName());
-            metadata.put("serviceUrl", service.getUrl());
-            metadata.put("newStatus", isAlive ? "UP" : "DOWN");
-            metadata.put("changeTime", LocalDateTime.now().toString());
-            statusAlert.setMetadata(metadata);
-            
-            // Save alert
-            Alert savedAlert = alertRepository.save(statusAlert);
-            
-            // Send notification
-            try {
-                notificationService.sendAlert(savedAlert);
-                logger.info("Status change notification sent for service {}: {}", service.getName(), message);
-            } catch (Exception notificationError) {
-                logger.error("Failed to send status change notification for service {}: {}", 
-                           service.getName(), notificationError.getMessage());
-            }
-            
-        } catch (Exception e) {
-            logger.error("Failed to send status change notification for service: {}", service.getId(), e);
-        }
-    }
-    
-    /**
-     * Determines if an alert should be triggered based on failure patterns
-     */
-    private boolean shouldTriggerAlert(CheckResult checkResult, List<CheckResult> recentFailures) {
-        // Trigger alert if we have 3 or more failures in the last 30 minutes
-        if (recentFailures.size() >= 3) {
-            return true;
-        }
-        
-        // Check response time threshold
-        if (checkResult.getResponseTimeMs() > 10000) { // 10 seconds
-            return true;
-        }
-        
-        return false;
-    }
-    private void createAndSendAlert(CheckResult checkResult, List<CheckResult> recentFailures) {
-        try {
-            // Get service information
-            Optional<MonitoredService> serviceOpt = monitoredServiceRepository
-                    .findById(checkResult.getServiceId());
-            
-            if (serviceOpt.isEmpty()) {
-                return;
-            }
-            
-            MonitoredService service = serviceOpt.get();
-            
-            String message = String.format(
-                    "Service '%s' is experiencing failures. %d failures in the last 30 minutes. " +
-                    "Latest error: %s",
-                    service.getName(),
-                    recentFailures.size(),
-                    checkResult.getErrorMessage() != null ? 
-                        checkResult.getErrorMessage() : "Connection failed"
-            );
-            
-            // Create alert
-            Alert alert = new Alert();
-            alert.setServiceId(service.getId());
-            alert.setMessage(message);
-            alert.setSeverity(determineSeverity(recentFailures.size()));
-            alert.setIsResolved(false);
-            alert.setTriggeredAt(LocalDateTime.now());
-            
-            // Add metadata
-            Map<String, String> metadata = new HashMap<>();
-            metadata.put("serviceId", service.getId().toString());
-            metadata.put("serviceName", service.getName());
-            metadata.put("serviceUrl", service.getUrl());
-            metadata.put("failureCount", String.valueOf(recentFailures.size()));
-            metadata.put("lastResponseCode", String.valueOf(checkResult.getResponseCode()));
-            metadata.put("lastResponseTime", String.valueOf(checkResult.getResponseTimeMs()));
-            alert.setMetadata(metadata);
-            
-            // Save alert to database
-            Alert savedAlert = alertRepository.save(alert);
-            
-            // Send through notification service
-            try {
-                notificationService.sendAlert(savedAlert);
-                logger.info("Alert notification sent for service {}: {}", service.getName(), message);
-            } catch (Exception notificationError) {
-                logger.error("Failed to send alert notification for service {}: {}", 
-                           service.getName(), notificationError.getMessage());
-            }
-            
-            logger.warn("Alert triggered and saved for service {}: {}", service.getName(), message);
-            
-        } catch (Exception e) {
-            logger.error("Failed to create alert for service: {}", checkResult.getServiceId(), e);
-        }
-    }
-    
-    /**
-     * Checks for recovery alerts when a service starts working again
-     */
-    private void checkForRecoveryAlert(CheckResult checkResult) {
-        try {
-            // Look for recent failures before this success
-            LocalDateTime since = LocalDateTime.now().minusHours(1);
-            List<CheckResult> recentFailures = checkResultRepository
-                    .findRecentFailuresByServiceId(checkResult.getServiceId(), since);
-            
-            // If we had failures in the last hour, send recovery alert
-            if (recentFailures.size() >= 2) {
-                Optional<MonitoredService> serviceOpt = monitoredServiceRepository
-                        .findById(checkResult.getServiceId());
-                
-                if (serviceOpt.isPresent()) {
-                    MonitoredService service = serviceOpt.get();
-                    String message = String.format(
-                            "Service '%s' has recovered after %d failures. Service is now responding normally.",
-                            service.getName(),
-                            recentFailures.size()
-                    );
-                    
-                    // Create recovery alert
-                    Alert recoveryAlert = new Alert();
-                    recoveryAlert.setServiceId(service.getId());
-                    recoveryAlert.setMessage(message);
-                    recoveryAlert.setSeverity("INFO");
-                    recoveryAlert.setIsResolved(true);
-                    recoveryAlert.setTriggeredAt(LocalDateTime.now());
-                    recoveryAlert.setResolvedAt(LocalDateTime.now());
-                    
-                    // Add recovery metadata
-                    Map<String, String> recoveryMetadata = new HashMap<>();
-                    recoveryMetadata.put("type", "RECOVERY");
-                    recoveryMetadata.put("serviceId", service.getId().toString());
-                    recoveryMetadata.put("serviceName", service.getName());
-                    recoveryMetadata.put("serviceUrl", service.getUrl());
-                    recoveryMetadata.put("recoveryTime", LocalDateTime.now().toString());
-                    recoveryMetadata.put("previousFailures", String.valueOf(recentFailures.size()));
-                    recoveryAlert.setMetadata(recoveryMetadata);
-                    
-                    // Save recovery alert
-                    Alert savedRecoveryAlert = alertRepository.save(recoveryAlert);
-                    
-                    // Send recovery notification
-                    try {
-                        notificationService.sendAlert(savedRecoveryAlert);
-                        logger.info("Recovery notification sent for service {}: {}", service.getName(), message);
-                    } catch (Exception notificationError) {
-                        logger.error("Failed to send recovery notification for service {}: {}", 
-                                   service.getName(), notificationError.getMessage());
-                    }
-                    
-                    logger.info("Recovery detected and notification sent for service {}: {}", service.getName(), message);
-                }
-            }
-            
-        } catch (Exception e) {
-            logger.error("Failed to check recovery alert for service: {}", checkResult.getServiceId(), e);
-        }
-    }
-    
-    /**
-     * Determines alert severity based on failure count
-     */
-    private String determineSeverity(int failureCount) {
-        if (failureCount >= 10) {
-            return "CRITICAL";
-        } else if (failureCount >= 5) {
-            return "HIGH";
-        } else if (failureCount >= 3) {
-            return "MEDIUM";
-        } else {
-            return "LOW";
-        }
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void saveCheckResult(CheckResult checkResult) {
+        // Written behind in batches to PostgreSQL and ClickHouse; AlertEngine evaluates it on commit
+        ingestPipeline.submit(checkResult);
     }
     
     /**
@@ -473,26 +228,28 @@ public class MonitoringService implements MonitoringDataService {
     ) {}
     
     /**
-     * Get comprehensive metrics for a service within a time period
+     * Get comprehensive metrics for a service within a time period.
+     * Served from the ClickHouse rollups, whose percentile sketches merge across buckets;
+     * falls back to exact statistics over the raw PostgreSQL rows when ClickHouse has no data.
      */
     public ServiceMetrics getServiceMetrics(Long serviceId, LocalDateTime start, LocalDateTime end) {
         try {
-            // Get basic counts
-            Long totalChecks = checkResultRepository.countTotalChecks(serviceId, start, end);
-            Long successfulChecks = checkResultRepository.countSuccessfulChecks(serviceId, start, end);
-            Long failedChecks = totalChecks - successfulChecks;
-            
-            // Get response time metrics
-            Double avgResponseTime = checkResultRepository.getAverageResponseTime(serviceId, start, end);
+            ServiceMetrics metrics = clickHouseRepository.getAggregatedMetrics(serviceId, start, end, "CUSTOM");
+            if (metrics != null) {
+                return metrics;
+            }
+        } catch (Exception e) {
+            logger.warn("ClickHouse metrics unavailable for service {}, using PostgreSQL: {}", serviceId, e.getMessage());
+        }
+        
+        try {
+            CheckResultRepository.ResponseTimeSummary summary = checkResultRepository.summarizeChecks(serviceId, start, end);
+            long totalChecks = summary.getTotalChecks() != null ? summary.getTotalChecks() : 0L;
+            long successfulChecks = summary.getSuccessfulChecks() != null ? summary.getSuccessfulChecks() : 0L;
             
             // Calculate uptime percentage
-            Double uptimePercentage = totalChecks > 0 ? 
-                    (successfulChecks.doubleValue() / totalChecks.doubleValue()) * 100.0 : 0.0;
-            
-            // For min/max response times, we'll use a simple approach
-            // In a real implementation, you might want separate queries
-            Integer minResponseTime = avgResponseTime != null ? avgResponseTime.intValue() : 0;
-            Integer maxResponseTime = avgResponseTime != null ? (int)(avgResponseTime * 1.5) : 0;
+            double uptimePercentage = totalChecks > 0 ? 
+                    ((double) successfulChecks / totalChecks) * 100.0 : 0.0;
             
             return new ServiceMetrics(
                     null, // id
@@ -500,13 +257,17 @@ public class MonitoringService implements MonitoringDataService {
                     start, // periodStart
                     end, // periodEnd
                     uptimePercentage, // uptimePercentage
-                    avgResponseTime != null ? avgResponseTime.longValue() : 0L, // averageResponseTimeMs
-                    maxResponseTime.longValue(), // maxResponseTimeMs
-                    minResponseTime.longValue(), // minResponseTimeMs
-                    totalChecks.intValue(), // totalChecks
-                    successfulChecks.intValue(), // successfulChecks
-                    failedChecks.intValue(), // failedChecks
-                    "CUSTOM" // aggregationPeriod
+                    toMillis(summary.getAverageResponseTime()), // averageResponseTimeMs
+                    summary.getMaxResponseTime() != null ? summary.getMaxResponseTime() : 0L, // maxResponseTimeMs
+                    summary.getMinResponseTime() != null ? summary.getMinResponseTime() : 0L, // minResponseTimeMs
+                    (int) totalChecks, // totalChecks
+                    (int) successfulChecks, // successfulChecks
+                    (int) (totalChecks - successfulChecks), // failedChecks
+                    "CUSTOM", // aggregationPeriod
+                    toMillis(summary.getP50ResponseTime()),
+                    toMillis(summary.getP90ResponseTime()),
+                    toMillis(summary.getP95ResponseTime()),
+                    toMillis(summary.getP99ResponseTime())
             );
             
         } catch (Exception e) {
@@ -528,6 +289,10 @@ public class MonitoringService implements MonitoringDataService {
             );
         }
     }
+    
+    private static long toMillis(Double value) {
+        return value != null ? Math.round(value) : 0L;
+    }
 
     /**
      * Enumeration for service availability status
@@ -0,0 +1,122 @@
+package taxisty.pingtower.backend.notifications.breaker;
+
+import taxisty.pingtower.backend.notifications.config.NotificationProperties;
+
+/**
+ * Circuit breaker of one endpoint. Methods are synchronized; they are called by the outbox relay
+ * before a send and by provider threads when it completes.
+ */
+final class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * How soon rows held behind a probe are looked at again
+     */
+    private static final long PROBE_RECHECK_MILLIS = 1000;
+
+    private final String endpoint;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openMillis;
+    private long openUntil;
+    private long probeDeadline;
+    private long probeGrantedAt;
+    private long lastUsed;
+    private long opened;
+    private long halfOpened;
+    private long closed;
+
+    CircuitBreaker(String endpoint, long now) {
+        this.endpoint = endpoint;
+        this.lastUsed = now;
+    }
+
+    /**
+     * Lets a send through if closed, or as the single probe once the open period is over
+     *
+     * @return 0 if the send may go now, otherwise milliseconds until it should be tried again
+     */
+    synchronized long acquire(long now, long probeTimeoutMillis) {
+        lastUsed = now;
+        switch (state) {
+            case CLOSED:
+                return 0;
+            case OPEN:
+                if (now < openUntil) {
+                    return openUntil - now;
+                }
+                state = State.HALF_OPEN;
+                halfOpened++;
+                break;
+            case HALF_OPEN:
+                // A probe whose outcome never came, e.g. because it was not queued, does not block forever
+                if (now < probeDeadline) {
+                    return PROBE_RECHECK_MILLIS;
+                }
+                break;
+        }
+        probeDeadline = now + probeTimeoutMillis;
+        probeGrantedAt = now;
+        return 0;
+    }
+
+    /**
+     * Gives back a probe granted by {@link #acquire} that was not sent
+     */
+    synchronized void release() {
+        if (state == State.HALF_OPEN) {
+            probeDeadline = 0;
+        }
+    }
+
+    /**
+     * Applies the outcome of a send started at {@code startedAt}. While the breaker is open nothing
+     * counts, and while it is half-open only the probe does: a send started before the probe was
+     * let through, such as one already under way when the breaker opened, can neither close nor
+     * reopen it.
+     *
+     * @return the state the breaker moved to, or null if it stayed in its state
+     */
+    synchronized State record(boolean failed, long startedAt, long now, NotificationProperties.Breaker settings) {
+        lastUsed = now;
+        if (state == State.OPEN || (state == State.HALF_OPEN && startedAt < probeGrantedAt)) {
+            return null;
+        }
+        if (!failed) {
+            consecutiveFailures = 0;
+            if (state == State.HALF_OPEN) {
+                state = State.CLOSED;
+                openMillis = 0;
+                closed++;
+                return State.CLOSED;
+            }
+            return null;
+        }
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= settings.getFailureThreshold()) {
+            // Every failed probe doubles the open period, up to the maximum
+            openMillis = openMillis == 0
+                    ? settings.getOpenMillis()
+                    : Math.min(openMillis * 2, Math.max(settings.getOpenMillis(), settings.getMaxOpenMillis()));
+            openUntil = now + openMillis;
+            state = State.OPEN;
+            opened++;
+            return State.OPEN;
+        }
+        return null;
+    }
+
+    synchronized boolean isIdleSince(long cutoff) {
+        return state == State.CLOSED && consecutiveFailures == 0 && lastUsed < cutoff;
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    synchronized CircuitBreakerRegistry.BreakerState snapshot() {
+        return new CircuitBreakerRegistry.BreakerState(endpoint, state.name(), consecutiveFailures,
+                state == State.OPEN ? openUntil : null, opened, halfOpened, closed);
+    }
+}
@@ -0,0 +1,184 @@
+package taxisty.pingtower.backend.notifications.breaker;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import taxisty.pingtower.backend.notifications.config.NotificationProperties;
+import taxisty.pingtower.backend.notifications.providers.ChannelProvider.DeliveryResult;
+
+/**
+ * Circuit breakers per delivery endpoint: a webhook host, an SMTP server or a Telegram chat.
+ * <p>
+ * A breaker opens after {@code failureThreshold} consecutive failed or slow sends. A send failed if
+ * it timed out, could not connect or got a 5xx or 408; a send slower than {@code slowCallMillis}
+ * counts as failed even if it succeeded. While a breaker is open nothing is sent to the endpoint and
+ * the outbox keeps the rows for later. After {@code openMillis} one send goes through as a probe:
+ * if it succeeds the breaker closes, otherwise it opens again for twice as long, up to
+ * {@code maxOpenMillis}. Outcomes of other sends that complete meanwhile are ignored. State is kept
+ * in memory per instance.
+ */
+@Component
+public class CircuitBreakerRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreakerRegistry.class);
+
+    /**
+     * Closed breakers without failures are dropped after this long without sends
+     */
+    private static final long IDLE_EVICTION_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * State of one breaker. {@code openUntil} is set only while open; the counters are transitions
+     * into each state since the breaker was created.
+     */
+    public record BreakerState(String endpoint, String state, int consecutiveFailures, Long openUntil,
+                               long opened, long halfOpened, long closed) {}
+
+    private final NotificationProperties.Breaker settings;
+    private final long probeTimeoutMillis;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Map<CircuitBreaker.State, Counter> transitions = new EnumMap<>(CircuitBreaker.State.class);
+
+    public CircuitBreakerRegistry(NotificationProperties notificationProperties, MeterRegistry meterRegistry) {
+        this.settings = notificationProperties.getBreaker();
+        // A probe is sent within the dispatcher's send timeout, or not at all
+        this.probeTimeoutMillis = notificationProperties.getDispatch().getSendTimeoutMillis();
+
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            transitions.put(state, Counter.builder("pingtower.notifications.breaker.transitions")
+                    .tag("state", state.name())
+                    .description("Circuit breaker transitions into the state")
+                    .register(meterRegistry));
+        }
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        Gauge.builder("pingtower.notifications.breaker.open", this, registry -> registry.count(CircuitBreaker.State.OPEN))
+                .description("Endpoints whose circuit breaker is open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Asks whether a send to the endpoint may go now. A granted send must be followed by
+     * {@link #record}, or by {@link #release} if it is not sent after all.
+     *
+     * @return 0 if the send may go now, otherwise milliseconds until it should be tried again
+     */
+    public long acquire(String endpoint, long now) {
+        if (!settings.isEnabled()) {
+            return 0;
+        }
+        CircuitBreaker breaker = breakers.get(endpoint);
+        if (breaker == null) {
+            // Closed breakers are created lazily, once the endpoint has failed
+            return 0;
+        }
+        CircuitBreaker.State before = breaker.state();
+        long wait = breaker.acquire(now, probeTimeoutMillis);
+        if (before == CircuitBreaker.State.OPEN && breaker.state() == CircuitBreaker.State.HALF_OPEN) {
+            transitions.get(CircuitBreaker.State.HALF_OPEN).increment();
+            logger.info("Probing notification endpoint {}", endpoint);
+        }
+        return wait;
+    }
+
+    /**
+     * Gives back a send granted by {@link #acquire} that was not made
+     */
+    public void release(String endpoint) {
+        CircuitBreaker breaker = breakers.get(endpoint);
+        if (breaker != null) {
+            breaker.release();
+        }
+    }
+
+    /**
+     * Applies the outcome of a send started at {@code startedAt} to the endpoint's breaker
+     */
+    public void record(String endpoint, DeliveryResult result, long startedAt, long durationMillis, long now) {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        boolean failed = isEndpointFailure(result) || durationMillis >= settings.getSlowCallMillis();
+        CircuitBreaker breaker = failed
+                ? breakers.computeIfAbsent(endpoint, key -> new CircuitBreaker(key, now))
+                : breakers.get(endpoint);
+        if (breaker == null) {
+            return;
+        }
+        CircuitBreaker.State moved = breaker.record(failed, startedAt, now, settings);
+        if (moved != null) {
+            transitions.get(moved).increment();
+            if (moved == CircuitBreaker.State.OPEN) {
+                logger.warn("Circuit breaker for notification endpoint {} opened: {}", endpoint,
+                           result.success() ? "sent in " + durationMillis + " ms" : result.error());
+            } else {
+                logger.info("Circuit breaker for notification endpoint {} closed", endpoint);
+            }
+        }
+    }
+
+    /**
+     * Breakers currently tracked, open and half-open ones first
+     */
+    public List<BreakerState> states() {
+        List<BreakerState> states = new ArrayList<>(breakers.size());
+        breakers.values().forEach(breaker -> states.add(breaker.snapshot()));
+        states.sort(Comparator.comparing((BreakerState state) -> CircuitBreaker.State.CLOSED.name().equals(state.state()))
+                .thenComparing(BreakerState::endpoint));
+        return states;
+    }
+
+    /**
+     * Transitions into each state over all endpoints since startup
+     */
+    public Map<String, Long> transitionCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        transitions.forEach((state, counter) -> counts.put(state.name(), (long) counter.count()));
+        return counts;
+    }
+
+    @Scheduled(fixedDelayString = "${pingtower.notifications.breaker.sweep-interval-millis:60000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - IDLE_EVICTION_MILLIS;
+        breakers.values().removeIf(breaker -> breaker.isIdleSince(cutoff));
+    }
+
+    private int count(CircuitBreaker.State state) {
+        int count = 0;
+        for (CircuitBreaker breaker : breakers.values()) {
+            if (breaker.state() == state) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Errors that say nothing about the endpoint being unavailable, such as a rejected payload or
+    // throttling, leave the breaker alone
+    private static boolean isEndpointFailure(DeliveryResult result) {
+        if (result.success()) {
+            return false;
+        }
+        Integer httpCode = result.httpCode();
+        return httpCode == null || httpCode >= 500 || httpCode == 408;
+    }
+}
@@ -0,0 +1,39 @@
+package taxisty.pingtower.backend.notifications.breaker;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint {@code /actuator/notificationbreakers} reporting the circuit breakers of
+ * notification endpoints and how often breakers changed state.
+ */
+@Component
+@Endpoint(id = "notificationbreakers")
+public class NotificationBreakersEndpoint {
+
+    private final CircuitBreakerRegistry registry;
+
+    public NotificationBreakersEndpoint(CircuitBreakerRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Gets the tracked breakers and the transition counts since startup.
+     */
+    @ReadOperation
+    public Breakers breakers() {
+        return new Breakers(registry.transitionCounts(), registry.states());
+    }
+
+    /**
+     * Breakers of all endpoints; endpoints that have not failed recently are not listed.
+     */
+    public record Breakers(
+            Map<String, Long> transitions,
+            List<CircuitBreakerRegistry.BreakerState> endpoints
+    ) {}
+}
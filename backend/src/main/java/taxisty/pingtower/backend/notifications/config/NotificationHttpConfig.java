@@ -0,0 +1,79 @@
+package taxisty.pingtower.backend.notifications.config;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * HTTP client shared by the notification providers.
+ * <p>
+ * One Reactor Netty connection pool keeps connections to Telegram and webhook hosts alive between
+ * deliveries. The client is built from the Boot-configured {@link WebClient.Builder}, so requests are
+ * recorded as {@code http.client.requests}; the pool reports {@code reactor.netty.connection.provider.*}
+ * under the name {@value #POOL_NAME}.
+ */
+@Configuration
+public class NotificationHttpConfig {
+
+    public static final String POOL_NAME = "notifications";
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider notificationConnectionProvider(NotificationProperties notificationProperties) {
+        NotificationProperties.Http settings = notificationProperties.getHttp();
+        ConnectionProvider.Builder builder = pool(ConnectionProvider.builder(POOL_NAME), settings,
+                settings.getMaxConnectionsPerHost());
+        for (Map.Entry<String, Integer> host : settings.getHostMaxConnections().entrySet()) {
+            // Host specs start from the library defaults, not from the builder's settings
+            builder.forRemoteHost(remoteHost(host.getKey()), spec -> pool(spec, settings, host.getValue()));
+        }
+        return builder.metrics(true).build();
+    }
+
+    @Bean
+    public WebClient notificationWebClient(WebClient.Builder webClientBuilder,
+                                           @Qualifier("notificationConnectionProvider") ConnectionProvider connectionProvider,
+                                           NotificationProperties notificationProperties) {
+        NotificationProperties.Http settings = notificationProperties.getHttp();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) settings.getConnectTimeoutMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(Duration.ofMillis(settings.getResponseTimeoutMillis()));
+        if (settings.isHttp2()) {
+            // HTTP/2 is negotiated over TLS (ALPN); plain-text hosts keep HTTP/1.1
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        return webClientBuilder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    private static <T extends ConnectionProvider.ConnectionPoolSpec<T>> T pool(T spec, NotificationProperties.Http settings,
+                                                                              int maxConnections) {
+        return spec.maxConnections(Math.max(1, maxConnections))
+                .pendingAcquireMaxCount(settings.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(Duration.ofMillis(settings.getPendingAcquireTimeoutMillis()))
+                .maxIdleTime(Duration.ofMillis(settings.getMaxIdleTimeMillis()))
+                .maxLifeTime(Duration.ofMillis(settings.getMaxLifeTimeMillis()))
+                .evictInBackground(Duration.ofSeconds(30));
+    }
+
+    private static InetSocketAddress remoteHost(String hostAndPort) {
+        int colon = hostAndPort.lastIndexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("Expected host:port, got " + hostAndPort);
+        }
+        return InetSocketAddress.createUnresolved(hostAndPort.substring(0, colon),
+                Integer.parseInt(hostAndPort.substring(colon + 1)));
+    }
+}
@@ -0,0 +1,329 @@
+package taxisty.pingtower.backend.notifications.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for notification delivery.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "pingtower.notifications")
+public class NotificationProperties {
+
+    private Dispatch dispatch = new Dispatch();
+    private Outbox outbox = new Outbox();
+    private RateLimit rateLimit = new RateLimit();
+    private Digest digest = new Digest();
+    private Smtp smtp = new Smtp();
+    private Http http = new Http();
+    private DeliveryLog deliveryLog = new DeliveryLog();
+    private Breaker breaker = new Breaker();
+
+    /**
+     * Queues and workers that deliver alerts off the alerting thread.
+     */
+    public static class Dispatch {
+        private long sendTimeoutMillis = 30000;
+        private Channel telegram = new Channel(10000, 1, 32);
+        private Channel email = new Channel(10000, 4, 4);
+        private Channel webhook = new Channel(10000, 1, 64);
+
+        // Getters and setters
+        public long getSendTimeoutMillis() { return sendTimeoutMillis; }
+        public void setSendTimeoutMillis(long sendTimeoutMillis) { this.sendTimeoutMillis = sendTimeoutMillis; }
+
+        public Channel getTelegram() { return telegram; }
+        public void setTelegram(Channel telegram) { this.telegram = telegram; }
+
+        public Channel getEmail() { return email; }
+        public void setEmail(Channel email) { this.email = email; }
+
+        public Channel getWebhook() { return webhook; }
+        public void setWebhook(Channel webhook) { this.webhook = webhook; }
+    }
+
+    /**
+     * Durable outbox that alerts are written to and retried from.
+     */
+    public static class Outbox {
+        private long pollIntervalMillis = 1000;
+        private int batchSize = 200;
+        private long leaseMillis = 5 * 60 * 1000L;
+        private int maxAttempts = 10;
+        private long initialBackoffMillis = 5000;
+        private long maxBackoffMillis = 30 * 60 * 1000L;
+        private long sentRetentionMillis = 24 * 60 * 60 * 1000L;
+        private long deadRetentionMillis = 7 * 24 * 60 * 60 * 1000L;
+
+        // Getters and setters
+        public long getPollIntervalMillis() { return pollIntervalMillis; }
+        public void setPollIntervalMillis(long pollIntervalMillis) { this.pollIntervalMillis = pollIntervalMillis; }
+
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+        public long getLeaseMillis() { return leaseMillis; }
+        public void setLeaseMillis(long leaseMillis) { this.leaseMillis = leaseMillis; }
+
+        public int getMaxAttempts() { return maxAttempts; }
+        public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+
+        public long getInitialBackoffMillis() { return initialBackoffMillis; }
+        public void setInitialBackoffMillis(long initialBackoffMillis) { this.initialBackoffMillis = initialBackoffMillis; }
+
+        public long getMaxBackoffMillis() { return maxBackoffMillis; }
+        public void setMaxBackoffMillis(long maxBackoffMillis) { this.maxBackoffMillis = maxBackoffMillis; }
+
+        public long getSentRetentionMillis() { return sentRetentionMillis; }
+        public void setSentRetentionMillis(long sentRetentionMillis) { this.sentRetentionMillis = sentRetentionMillis; }
+
+        public long getDeadRetentionMillis() { return deadRetentionMillis; }
+        public void setDeadRetentionMillis(long deadRetentionMillis) { this.deadRetentionMillis = deadRetentionMillis; }
+    }
+
+    /**
+     * Token buckets that limit sends per channel and per destination (Telegram bot, webhook host, SMTP server).
+     */
+    public static class RateLimit {
+        private boolean enabled = true;
+        private Bucket channel = new Bucket(1, 5);
+        private Bucket telegram = new Bucket(25, 25);
+        private Bucket email = new Bucket(5, 10);
+        private Bucket webhook = new Bucket(20, 40);
+
+        // Getters and setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public Bucket getChannel() { return channel; }
+        public void setChannel(Bucket channel) { this.channel = channel; }
+
+        public Bucket getTelegram() { return telegram; }
+        public void setTelegram(Bucket telegram) { this.telegram = telegram; }
+
+        public Bucket getEmail() { return email; }
+        public void setEmail(Bucket email) { this.email = email; }
+
+        public Bucket getWebhook() { return webhook; }
+        public void setWebhook(Bucket webhook) { this.webhook = webhook; }
+    }
+
+    /**
+     * Token bucket refilled at {@code ratePerSecond} and holding at most {@code burst} tokens.
+     */
+    public static class Bucket {
+        private double ratePerSecond;
+        private int burst;
+
+        public Bucket() {}
+
+        public Bucket(double ratePerSecond, int burst) {
+            this.ratePerSecond = ratePerSecond;
+            this.burst = burst;
+        }
+
+        // Getters and setters
+        public double getRatePerSecond() { return ratePerSecond; }
+        public void setRatePerSecond(double ratePerSecond) { this.ratePerSecond = ratePerSecond; }
+
+        public int getBurst() { return burst; }
+        public void setBurst(int burst) { this.burst = burst; }
+    }
+
+    /**
+     * Coalescing of alert storms: after a channel sends, alerts for it are held until the window
+     * ends and then sent as one message. Off by default, and applied to Telegram and email channels
+     * only; webhook receivers expect one event per alert.
+     */
+    public static class Digest {
+        private boolean enabled = false;
+        private long windowMillis = 30000;
+        private int maxAlerts = 100;
+
+        // Getters and setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public long getWindowMillis() { return windowMillis; }
+        public void setWindowMillis(long windowMillis) { this.windowMillis = windowMillis; }
+
+        public int getMaxAlerts() { return maxAlerts; }
+        public void setMaxAlerts(int maxAlerts) { this.maxAlerts = maxAlerts; }
+    }
+
+    /**
+     * Connection pool and timeouts of the HTTP client shared by the Telegram, webhook and bot providers.
+     * Connections are pooled per remote host; {@code hostMaxConnections} overrides the limit for
+     * single hosts, keyed by {@code host:port}.
+     */
+    public static class Http {
+        private int maxConnectionsPerHost = 50;
+        private Map<String, Integer> hostMaxConnections = new HashMap<>(Map.of("api.telegram.org:443", 32));
+        private int pendingAcquireMaxCount = 1000;
+        private long pendingAcquireTimeoutMillis = 10000;
+        private long connectTimeoutMillis = 5000;
+        private long responseTimeoutMillis = 10000;
+        private long maxIdleTimeMillis = 55000;
+        private long maxLifeTimeMillis = 10 * 60 * 1000L;
+        private boolean http2 = false;
+
+        // Getters and setters
+        public int getMaxConnectionsPerHost() { return maxConnectionsPerHost; }
+        public void setMaxConnectionsPerHost(int maxConnectionsPerHost) { this.maxConnectionsPerHost = maxConnectionsPerHost; }
+
+        public Map<String, Integer> getHostMaxConnections() { return hostMaxConnections; }
+        public void setHostMaxConnections(Map<String, Integer> hostMaxConnections) { this.hostMaxConnections = hostMaxConnections; }
+
+        public int getPendingAcquireMaxCount() { return pendingAcquireMaxCount; }
+        public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) { this.pendingAcquireMaxCount = pendingAcquireMaxCount; }
+
+        public long getPendingAcquireTimeoutMillis() { return pendingAcquireTimeoutMillis; }
+        public void setPendingAcquireTimeoutMillis(long pendingAcquireTimeoutMillis) { this.pendingAcquireTimeoutMillis = pendingAcquireTimeoutMillis; }
+
+        public long getConnectTimeoutMillis() { return connectTimeoutMillis; }
+        public void setConnectTimeoutMillis(long connectTimeoutMillis) { this.connectTimeoutMillis = connectTimeoutMillis; }
+
+        public long getResponseTimeoutMillis() { return responseTimeoutMillis; }
+        public void setResponseTimeoutMillis(long responseTimeoutMillis) { this.responseTimeoutMillis = responseTimeoutMillis; }
+
+        public long getMaxIdleTimeMillis() { return maxIdleTimeMillis; }
+        public void setMaxIdleTimeMillis(long maxIdleTimeMillis) { this.maxIdleTimeMillis = maxIdleTimeMillis; }
+
+        public long getMaxLifeTimeMillis() { return maxLifeTimeMillis; }
+        public void setMaxLifeTimeMillis(long maxLifeTimeMillis) { this.maxLifeTimeMillis = maxLifeTimeMillis; }
+
+        public boolean isHttp2() { return http2; }
+        public void setHttp2(boolean http2) { this.http2 = http2; }
+    }
+
+    /**
+     * Delivery attempts kept in memory for the API, optionally also written to the
+     * {@code notification_delivery} table in the background.
+     */
+    public static class DeliveryLog {
+        private int capacity = 100000;
+        private boolean persist = false;
+        private int persistQueueCapacity = 10000;
+        private int persistBatchSize = 500;
+
+        // Getters and setters
+        public int getCapacity() { return capacity; }
+        public void setCapacity(int capacity) { this.capacity = capacity; }
+
+        public boolean isPersist() { return persist; }
+        public void setPersist(boolean persist) { this.persist = persist; }
+
+        public int getPersistQueueCapacity() { return persistQueueCapacity; }
+        public void setPersistQueueCapacity(int persistQueueCapacity) { this.persistQueueCapacity = persistQueueCapacity; }
+
+        public int getPersistBatchSize() { return persistBatchSize; }
+        public void setPersistBatchSize(int persistBatchSize) { this.persistBatchSize = persistBatchSize; }
+    }
+
+    /**
+     * SMTP connections kept open between email sends, per server and account.
+     */
+    public static class Smtp {
+        private int maxIdlePerServer = 4;
+        private long idleTimeoutMillis = 60000;
+        private long connectionTimeoutMillis = 10000;
+        private long timeoutMillis = 15000;
+
+        // Getters and setters
+        public int getMaxIdlePerServer() { return maxIdlePerServer; }
+        public void setMaxIdlePerServer(int maxIdlePerServer) { this.maxIdlePerServer = maxIdlePerServer; }
+
+        public long getIdleTimeoutMillis() { return idleTimeoutMillis; }
+        public void setIdleTimeoutMillis(long idleTimeoutMillis) { this.idleTimeoutMillis = idleTimeoutMillis; }
+
+        public long getConnectionTimeoutMillis() { return connectionTimeoutMillis; }
+        public void setConnectionTimeoutMillis(long connectionTimeoutMillis) { this.connectionTimeoutMillis = connectionTimeoutMillis; }
+
+        public long getTimeoutMillis() { return timeoutMillis; }
+        public void setTimeoutMillis(long timeoutMillis) { this.timeoutMillis = timeoutMillis; }
+    }
+
+    /**
+     * Circuit breakers per delivery endpoint. A breaker opens after {@code failureThreshold}
+     * consecutive failed sends, or sends slower than {@code slowCallMillis}, and lets a probe through
+     * after {@code openMillis}, doubled after every failed probe up to {@code maxOpenMillis}.
+     */
+    public static class Breaker {
+        private boolean enabled = true;
+        private int failureThreshold = 5;
+        private long slowCallMillis = 10000;
+        private long openMillis = 30000;
+        private long maxOpenMillis = 10 * 60 * 1000L;
+
+        // Getters and setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public int getFailureThreshold() { return failureThreshold; }
+        public void setFailureThreshold(int failureThreshold) { this.failureThreshold = failureThreshold; }
+
+        public long getSlowCallMillis() { return slowCallMillis; }
+        public void setSlowCallMillis(long slowCallMillis) { this.slowCallMillis = slowCallMillis; }
+
+        public long getOpenMillis() { return openMillis; }
+        public void setOpenMillis(long openMillis) { this.openMillis = openMillis; }
+
+        public long getMaxOpenMillis() { return maxOpenMillis; }
+        public void setMaxOpenMillis(long maxOpenMillis) { this.maxOpenMillis = maxOpenMillis; }
+    }
+
+    /**
+     * Queue and worker limits of one channel type. Workers take deliveries off the queue;
+     * at most {@code maxInFlight} deliveries of the type are sent at the same time.
+     */
+    public static class Channel {
+        private int queueCapacity;
+        private int workers;
+        private int maxInFlight;
+
+        public Channel() {}
+
+        public Channel(int queueCapacity, int workers, int maxInFlight) {
+            this.queueCapacity = queueCapacity;
+            this.workers = workers;
+            this.maxInFlight = maxInFlight;
+        }
+
+        // Getters and setters
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+
+        public int getWorkers() { return workers; }
+        public void setWorkers(int workers) { this.workers = workers; }
+
+        public int getMaxInFlight() { return maxInFlight; }
+        public void setMaxInFlight(int maxInFlight) { this.maxInFlight = maxInFlight; }
+    }
+
+    public Dispatch getDispatch() { return dispatch; }
+    public void setDispatch(Dispatch dispatch) { this.dispatch = dispatch; }
+
+    public Outbox getOutbox() { return outbox; }
+    public void setOutbox(Outbox outbox) { this.outbox = outbox; }
+
+    public RateLimit getRateLimit() { return rateLimit; }
+    public void setRateLimit(RateLimit rateLimit) { this.rateLimit = rateLimit; }
+
+    public Digest getDigest() { return digest; }
+    public void setDigest(Digest digest) { this.digest = digest; }
+
+    public Smtp getSmtp() { return smtp; }
+    public void setSmtp(Smtp smtp) { this.smtp = smtp; }
+
+    public Http getHttp() { return http; }
+    public void setHttp(Http http) { this.http = http; }
+
+    public DeliveryLog getDeliveryLog() { return deliveryLog; }
+    public void setDeliveryLog(DeliveryLog deliveryLog) { this.deliveryLog = deliveryLog; }
+
+    public Breaker getBreaker() { return breaker; }
+    public void setBreaker(Breaker breaker) { this.breaker = breaker; }
+}
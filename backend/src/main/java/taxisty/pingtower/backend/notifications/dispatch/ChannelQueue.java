@@ -0,0 +1,167 @@
+package taxisty.pingtower.backend.notifications.dispatch;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import taxisty.pingtower.backend.notifications.config.NotificationProperties;
+import taxisty.pingtower.backend.notifications.model.ChannelType;
+import taxisty.pingtower.backend.notifications.providers.ChannelProvider;
+import taxisty.pingtower.backend.notifications.providers.ChannelProvider.DeliveryResult;
+import taxisty.pingtower.backend.storage.model.Alert;
+import taxisty.pingtower.backend.storage.model.NotificationChannel;
+
+/**
+ * Bounded queue and workers of one channel type.
+ * <p>
+ * A worker takes a delivery, waits for an in-flight permit and subscribes to the provider's
+ * {@link ChannelProvider#sendAsync}; the permit is released when the send completes. Non-blocking
+ * providers therefore keep up to {@code maxInFlight} sends open from a single worker, while a
+ * blocking provider occupies its worker for the whole send.
+ */
+final class ChannelQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChannelQueue.class);
+
+    /**
+     * One queued delivery. {@code enqueuedAt} is a {@link System#nanoTime()} reading;
+     * {@code onResult} is called with the outcome of the send.
+     */
+    record Delivery(Alert alert, NotificationChannel channel, int attempt, long enqueuedAt,
+                    Consumer<DeliveryResult> onResult) {}
+
+    /**
+     * Outcome of a send together with when it started and how long it took
+     */
+    record Attempt(DeliveryResult result, LocalDateTime startedAt, long durationNanos) {}
+
+    private final ChannelType type;
+    private final ChannelProvider provider;
+    private final NotificationProperties.Channel settings;
+    private final Duration sendTimeout;
+    private final BiConsumer<Delivery, Attempt> onComplete;
+    private final BlockingQueue<Delivery> queue;
+    private final Semaphore permits;
+    // Sends started and not completed; an idle worker holds a permit without sending
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean running;
+
+    ChannelQueue(ChannelType type, ChannelProvider provider, NotificationProperties.Channel settings,
+                 Duration sendTimeout, BiConsumer<Delivery, Attempt> onComplete) {
+        this.type = type;
+        this.provider = provider;
+        this.settings = settings;
+        this.sendTimeout = sendTimeout;
+        this.onComplete = onComplete;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, settings.getQueueCapacity()));
+        this.permits = new Semaphore(Math.max(1, settings.getMaxInFlight()));
+    }
+
+    void start() {
+        running = true;
+        String prefix = "notify-" + type.name().toLowerCase() + "-";
+        for (int i = 0; i < Math.max(1, settings.getWorkers()); i++) {
+            workers.add(Thread.ofPlatform().name(prefix + i).daemon(true).start(this::workLoop));
+        }
+    }
+
+    /**
+     * Returns the deliveries that were still queued
+     */
+    List<Delivery> stop() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        for (Thread worker : workers) {
+            try {
+                worker.join(Duration.ofSeconds(5).toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        List<Delivery> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        return remaining;
+    }
+
+    /**
+     * Queues a delivery without waiting; false if the queue is full
+     */
+    boolean offer(Delivery delivery) {
+        return queue.offer(delivery);
+    }
+
+    int size() {
+        return queue.size();
+    }
+
+    int remainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private void workLoop() {
+        while (running) {
+            Delivery delivery;
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                delivery = queue.take();
+            } catch (InterruptedException e) {
+                permits.release();
+                Thread.currentThread().interrupt();
+                return;
+            }
+            send(delivery);
+        }
+    }
+
+    private void send(Delivery delivery) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long started = System.nanoTime();
+        inFlight.incrementAndGet();
+        Mono<DeliveryResult> send;
+        try {
+            send = provider.sendAsync(delivery.alert(), delivery.channel());
+        } catch (Exception e) {
+            send = Mono.error(e);
+        }
+        send.timeout(sendTimeout)
+                .onErrorResume(e -> Mono.just(new DeliveryResult(false, null, e.toString(), null)))
+                .defaultIfEmpty(new DeliveryResult(false, null, "No result", null))
+                .doFinally(signal -> {
+                    inFlight.decrementAndGet();
+                    permits.release();
+                })
+                .subscribe(result -> complete(delivery, new Attempt(result, startedAt, System.nanoTime() - started)));
+    }
+
+    private void complete(Delivery delivery, Attempt attempt) {
+        try {
+            onComplete.accept(delivery, attempt);
+        } catch (Exception e) {
+            logger.error("Failed to record delivery of alert {} to channel {}",
+                        delivery.alert().id(), delivery.channel().id(), e);
+        }
+    }
+}
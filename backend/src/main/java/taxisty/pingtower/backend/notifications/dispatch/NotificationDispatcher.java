@@ -0,0 +1,272 @@
+package taxisty.pingtower.backend.notifications.dispatch;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import taxisty.pingtower.backend.notifications.breaker.CircuitBreakerRegistry;
+import taxisty.pingtower.backend.notifications.config.NotificationProperties;
+import taxisty.pingtower.backend.notifications.model.ChannelType;
+import taxisty.pingtower.backend.notifications.providers.ChannelProvider;
+import taxisty.pingtower.backend.notifications.providers.ChannelProvider.DeliveryResult;
+import taxisty.pingtower.backend.notifications.providers.EmailProvider;
+import taxisty.pingtower.backend.notifications.providers.TelegramProvider;
+import taxisty.pingtower.backend.notifications.providers.WebhookProvider;
+import taxisty.pingtower.backend.notifications.repo.NotificationChannelStore;
+import taxisty.pingtower.backend.notifications.repo.NotificationDeliveryLog;
+import taxisty.pingtower.backend.storage.model.Alert;
+import taxisty.pingtower.backend.storage.model.NotificationChannel;
+import taxisty.pingtower.backend.storage.model.NotificationDelivery;
+
+/**
+ * Delivers alerts to channels on dedicated workers, one bounded {@link ChannelQueue} per channel type.
+ * <p>
+ * {@link #dispatch} only queues the delivery, so the caller never waits on Telegram, SMTP or a webhook,
+ * and a slow channel type cannot hold up the others. Every attempt is recorded in the delivery log,
+ * and the outcome of a queued attempt also in the circuit breaker of its endpoint.
+ * {@link #deliver} sends right away on the calling thread and is meant for test sends from the API.
+ */
+@Component
+public class NotificationDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private final NotificationDeliveryLog deliveryLog;
+    private final CircuitBreakerRegistry breakers;
+    private final Map<ChannelType, ChannelProvider> providers = new EnumMap<>(ChannelType.class);
+    private final Map<ChannelType, ChannelQueue> queues = new EnumMap<>(ChannelType.class);
+    private final Map<ChannelType, Timer> sentTimers = new EnumMap<>(ChannelType.class);
+    private final Map<ChannelType, Timer> failedTimers = new EnumMap<>(ChannelType.class);
+    private final Map<ChannelType, Counter> rejectedCounters = new EnumMap<>(ChannelType.class);
+    private final Duration sendTimeout;
+
+    public NotificationDispatcher(NotificationChannelStore repo,
+                                  NotificationDeliveryLog deliveryLog,
+                                  CircuitBreakerRegistry breakers,
+                                  TelegramProvider telegram,
+                                  EmailProvider email,
+                                  WebhookProvider webhook,
+                                  NotificationProperties notificationProperties,
+                                  MeterRegistry meterRegistry) {
+        this.deliveryLog = deliveryLog;
+        this.breakers = breakers;
+        NotificationProperties.Dispatch settings = notificationProperties.getDispatch();
+        this.sendTimeout = Duration.ofMillis(settings.getSendTimeoutMillis());
+        providers.put(ChannelType.TELEGRAM, telegram);
+        providers.put(ChannelType.EMAIL, email);
+        providers.put(ChannelType.WEBHOOK, webhook);
+        // Providers cache parsed channel configurations by channel id
+        repo.addChannelListener(channel -> providers.values().forEach(provider -> provider.evict(channel.id())));
+
+        for (ChannelType type : ChannelType.values()) {
+            NotificationProperties.Channel channelSettings = switch (type) {
+                case TELEGRAM -> settings.getTelegram();
+                case EMAIL -> settings.getEmail();
+                case WEBHOOK -> settings.getWebhook();
+            };
+            ChannelQueue queue = new ChannelQueue(type, providers.get(type), channelSettings, sendTimeout,
+                    (delivery, attempt) -> complete(type, delivery, attempt));
+            queues.put(type, queue);
+
+            String channel = type.name();
+            Gauge.builder("pingtower.notifications.queue.size", queue, ChannelQueue::size)
+                    .tag("channel", channel)
+                    .description("Deliveries waiting for a worker")
+                    .register(meterRegistry);
+            Gauge.builder("pingtower.notifications.inflight", queue, ChannelQueue::inFlight)
+                    .tag("channel", channel)
+                    .description("Deliveries being sent")
+                    .register(meterRegistry);
+            sentTimers.put(type, deliveryTimer(meterRegistry, channel, "sent"));
+            failedTimers.put(type, deliveryTimer(meterRegistry, channel, "failed"));
+            rejectedCounters.put(type, Counter.builder("pingtower.notifications.rejected")
+                    .tag("channel", channel)
+                    .description("Deliveries refused because the queue was full")
+                    .register(meterRegistry));
+        }
+    }
+
+    private static Timer deliveryTimer(MeterRegistry meterRegistry, String channel, String outcome) {
+        return Timer.builder("pingtower.notifications.delivery")
+                .tag("channel", channel)
+                .tag("outcome", outcome)
+                .description("Time from queueing a delivery to its completion")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        queues.values().forEach(ChannelQueue::start);
+    }
+
+    @PreDestroy
+    public void stop() {
+        queues.forEach((type, queue) -> {
+            List<ChannelQueue.Delivery> remaining = queue.stop();
+            if (!remaining.isEmpty()) {
+                logger.info("Left {} queued {} deliveries in the outbox on shutdown", remaining.size(), type);
+            }
+        });
+    }
+
+    /**
+     * Queues an attempt to deliver an alert to a channel and returns immediately.
+     * {@code onResult} is called from a provider or worker thread once the attempt completes.
+     *
+     * @return false if the queue of the channel type is full and the attempt was not queued
+     * @throws IllegalArgumentException if the channel type is not supported
+     */
+    public boolean dispatch(Alert alert, NotificationChannel channel, int attempt, Consumer<DeliveryResult> onResult) {
+        ChannelType type = typeOf(channel);
+        ChannelQueue.Delivery delivery = new ChannelQueue.Delivery(alert, channel, attempt, System.nanoTime(), onResult);
+        if (!queues.get(type).offer(delivery)) {
+            rejectedCounters.get(type).increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Rate limit key of the endpoint a channel delivers to, see {@link ChannelProvider#destination}
+     *
+     * @throws IllegalArgumentException if the channel type is not supported
+     */
+    public String destinationOf(NotificationChannel channel) {
+        return providers.get(typeOf(channel)).destination(channel);
+    }
+
+    /**
+     * Circuit breaker key of the endpoint a channel delivers to, see {@link ChannelProvider#endpoint}
+     *
+     * @throws IllegalArgumentException if the channel type is not supported
+     */
+    public String endpointOf(NotificationChannel channel) {
+        return providers.get(typeOf(channel)).endpoint(channel);
+    }
+
+    /**
+     * @see ChannelProvider#eventsPerRequest
+     */
+    public int eventsPerRequestOf(NotificationChannel channel) {
+        return Math.max(1, providers.get(typeOf(channel)).eventsPerRequest(channel));
+    }
+
+    /**
+     * @see ChannelProvider#messageCount
+     */
+    public int messageCountOf(Alert alert, NotificationChannel channel) {
+        return Math.max(1, providers.get(typeOf(channel)).messageCount(alert, channel));
+    }
+
+    /**
+     * Free queue slots over all channel types
+     */
+    public int remainingCapacity() {
+        int remaining = 0;
+        for (ChannelQueue queue : queues.values()) {
+            remaining += queue.remainingCapacity();
+        }
+        return remaining;
+    }
+
+    /**
+     * Sends an alert to a channel on the calling thread and records the delivery
+     *
+     * @throws IllegalArgumentException if the channel type is not supported
+     */
+    public NotificationDelivery deliver(Alert alert, NotificationChannel channel) {
+        ChannelType type = typeOf(channel);
+        LocalDateTime startedAt = LocalDateTime.now();
+        DeliveryResult result = providers.get(type).sendAsync(alert, channel)
+                .timeout(sendTimeout)
+                .onErrorResume(e -> Mono.just(new DeliveryResult(false, null, e.toString(), null)))
+                .block();
+        return record(alert, channel, type, 1, result, startedAt);
+    }
+
+    private void complete(ChannelType type, ChannelQueue.Delivery delivery, ChannelQueue.Attempt attempt) {
+        DeliveryResult result = attempt.result();
+        Timer timer = result.success() ? sentTimers.get(type) : failedTimers.get(type);
+        timer.record(System.nanoTime() - delivery.enqueuedAt(), TimeUnit.NANOSECONDS);
+        if (!result.success()) {
+            logger.warn("Attempt {} to deliver alerts {} to {} channel {} failed: {}",
+                       delivery.attempt(), alertIdsOf(delivery.alert()), type, delivery.channel().id(), result.error());
+        }
+        try {
+            breakers.record(providers.get(type).endpoint(delivery.channel()), result,
+                    attempt.startedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                    TimeUnit.NANOSECONDS.toMillis(attempt.durationNanos()), System.currentTimeMillis());
+            record(delivery.alert(), delivery.channel(), type, delivery.attempt(), result, attempt.startedAt());
+        } finally {
+            delivery.onResult().accept(result);
+        }
+    }
+
+    /**
+     * Records the attempt once per alert it delivered, so a digest is found under each of its alerts
+     */
+    private NotificationDelivery record(Alert alert, NotificationChannel channel, ChannelType type, int attempt,
+                                        DeliveryResult result, LocalDateTime startedAt) {
+        LocalDateTime completedAt = result.success() ? LocalDateTime.now() : null;
+        NotificationDelivery recorded = null;
+        for (Long alertId : alertIdsOf(alert)) {
+            recorded = deliveryLog.append(new NotificationDelivery(
+                    null,
+                    alertId,
+                    channel.id(),
+                    result.success() ? "SENT" : "FAILED",
+                    type.name(),
+                    attempt,
+                    result.error(),
+                    startedAt,
+                    completedAt
+            ));
+        }
+        return recorded;
+    }
+
+    // A digest has no id of its own and lists the alerts it stands for
+    private static List<Long> alertIdsOf(Alert alert) {
+        String digestIds = alert.id() == null && alert.metadata() != null ? alert.metadata().get("alertIds") : null;
+        if (digestIds == null || digestIds.isEmpty()) {
+            return Collections.singletonList(alert.id());
+        }
+        List<Long> ids = new ArrayList<>();
+        for (String id : digestIds.split(",")) {
+            ids.add(Long.valueOf(id));
+        }
+        return ids;
+    }
+
+    private static ChannelType typeOf(NotificationChannel channel) {
+        ChannelType type;
+        try {
+            type = ChannelType.fromString(channel.type());
+        } catch (IllegalArgumentException e) {
+            type = null;
+        }
+        if (type == null) {
+            throw new IllegalArgumentException("Unsupported channel type: " + channel.type());
+        }
+        return type;
+    }
+}
@@ -0,0 +1,26 @@
+package taxisty.pingtower.backend.notifications.model;
+
+import java.util.Locale;
+
+/**
+ * Alert severities in increasing order.
+ */
+public enum Severity {
+    INFO,
+    LOW,
+    MEDIUM,
+    HIGH,
+    CRITICAL;
+
+    /**
+     * Position of a severity name in the order, -1 for null or unknown names
+     */
+    public static int rank(String s) {
+        if (s == null) return -1;
+        try {
+            return Severity.valueOf(s.trim().toUpperCase(Locale.ROOT)).ordinal();
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package taxisty.pingtower.backend.notifications.outbox;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.UUID;
+
+import taxisty.pingtower.backend.notifications.model.Severity;
+import taxisty.pingtower.backend.storage.model.Alert;
+
+/**
+ * Builds the single alert sent for several alerts held in one digest window.
+ */
+final class AlertDigest {
+
+    private AlertDigest() {}
+
+    /**
+     * One line per alert, oldest first. The digest carries the highest severity and is resolved
+     * only if every alert is. It is not stored and has no alert id of its own: {@code digestId}
+     * identifies it, and {@code alertIds} lists the alerts it stands for, which is what delivery
+     * records are kept under.
+     */
+    static Alert of(List<Alert> alerts) {
+        Alert first = alerts.get(0);
+        String severity = first.severity();
+        boolean resolved = true;
+        LocalDateTime triggeredAt = first.triggeredAt();
+        Long serviceId = first.serviceId();
+        StringJoiner ids = new StringJoiner(",");
+        StringBuilder message = new StringBuilder().append(alerts.size()).append(" alerts:");
+
+        for (Alert alert : alerts) {
+            if (Severity.rank(alert.severity()) > Severity.rank(severity)) {
+                severity = alert.severity();
+            }
+            resolved &= alert.isResolved();
+            if (alert.triggeredAt() != null && (triggeredAt == null || alert.triggeredAt().isBefore(triggeredAt))) {
+                triggeredAt = alert.triggeredAt();
+            }
+            if (!Objects.equals(serviceId, alert.serviceId())) {
+                serviceId = null;
+            }
+            ids.add(String.valueOf(alert.id()));
+            message.append('\n').append('[').append(alert.severity()).append("] ");
+            if (alert.isResolved()) {
+                message.append("RESOLVED ");
+            }
+            message.append(alert.message());
+        }
+
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("digest", "true");
+        metadata.put("digestId", UUID.randomUUID().toString());
+        metadata.put("alertCount", String.valueOf(alerts.size()));
+        metadata.put("alertIds", ids.toString());
+        return new Alert(null, null, serviceId, message.toString(), severity, resolved,
+                triggeredAt, null, metadata);
+    }
+}
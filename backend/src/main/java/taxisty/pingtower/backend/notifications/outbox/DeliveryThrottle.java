@@ -0,0 +1,103 @@
+package taxisty.pingtower.backend.notifications.outbox;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import taxisty.pingtower.backend.notifications.config.NotificationProperties;
+import taxisty.pingtower.backend.notifications.model.ChannelType;
+
+/**
+ * Rate limits and digest windows of the channels the relay delivers to. Times are epoch milliseconds.
+ * <p>
+ * A send takes a token from the bucket of its channel and from the bucket of its destination, so
+ * channels sharing a Telegram bot, webhook host or SMTP server also share that limit. State lives
+ * in this instance only and is not thread-safe; the relay thread is its only user.
+ */
+final class DeliveryThrottle {
+
+    private final NotificationProperties.RateLimit rateLimit;
+    private final NotificationProperties.Digest digest;
+    private final Map<Long, TokenBucket> channelBuckets = new HashMap<>();
+    private final Map<String, TokenBucket> destinationBuckets = new HashMap<>();
+    private final Map<Long, Long> digestWindowEnds = new HashMap<>();
+
+    DeliveryThrottle(NotificationProperties.RateLimit rateLimit, NotificationProperties.Digest digest) {
+        this.rateLimit = rateLimit;
+        this.digest = digest;
+    }
+
+    /**
+     * Takes a token per message of one send to the channel if both buckets have them. A channel
+     * that sends {@code eventsPerRequest} alerts per request is charged that share of a token per alert.
+     *
+     * @return 0 if the send may go now, otherwise milliseconds until it may
+     */
+    long acquire(Long channelId, ChannelType type, String destination, int messages, int eventsPerRequest,
+                 long now) {
+        if (!rateLimit.isEnabled()) {
+            return 0;
+        }
+        TokenBucket channelBucket = channelId == null ? null : channelBuckets.computeIfAbsent(channelId,
+                id -> new TokenBucket(rateLimit.getChannel().getRatePerSecond(), rateLimit.getChannel().getBurst(), now));
+        TokenBucket destinationBucket = destinationBuckets.computeIfAbsent(destination, key -> {
+            NotificationProperties.Bucket settings = switch (type) {
+                case TELEGRAM -> rateLimit.getTelegram();
+                case EMAIL -> rateLimit.getEmail();
+                case WEBHOOK -> rateLimit.getWebhook();
+            };
+            return new TokenBucket(settings.getRatePerSecond(), settings.getBurst(), now);
+        });
+
+        double cost = (double) Math.max(1, messages) / Math.max(1, eventsPerRequest);
+        long wait = destinationBucket.waitMillis(now, cost);
+        if (channelBucket != null) {
+            wait = Math.max(wait, channelBucket.waitMillis(now, cost));
+        }
+        if (wait > 0) {
+            return wait;
+        }
+        destinationBucket.take(cost);
+        if (channelBucket != null) {
+            channelBucket.take(cost);
+        }
+        return 0;
+    }
+
+    boolean isDigestEnabled() {
+        return digest.isEnabled();
+    }
+
+    int maxDigestAlerts() {
+        return Math.max(1, digest.getMaxAlerts());
+    }
+
+    long digestWindowMillis() {
+        return digest.getWindowMillis();
+    }
+
+    /**
+     * End of the channel's open digest window, 0 if none is open
+     */
+    long digestWindowEnd(Long channelId, long now) {
+        Long end = channelId == null ? null : digestWindowEnds.get(channelId);
+        return end != null && end > now ? end : 0;
+    }
+
+    /**
+     * Opens a digest window after a send: alerts for the channel are held until it ends
+     */
+    void openDigestWindow(Long channelId, long now) {
+        if (channelId != null && digest.isEnabled()) {
+            digestWindowEnds.put(channelId, now + digest.getWindowMillis());
+        }
+    }
+
+    /**
+     * Drops full buckets and closed windows, which behave the same as absent ones
+     */
+    void evictIdle(long now) {
+        channelBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        destinationBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        digestWindowEnds.values().removeIf(end -> end <= now);
+    }
+}
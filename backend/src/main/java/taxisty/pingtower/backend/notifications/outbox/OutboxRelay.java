@@ -0,0 +1,550 @@
+package taxisty.pingtower.backend.notifications.outbox;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import taxisty.pingtower.backend.monitoring.repository.AlertRepository;
+import taxisty.pingtower.backend.monitoring.repository.NotificationOutboxRepository;
+import taxisty.pingtower.backend.notifications.breaker.CircuitBreakerRegistry;
+import taxisty.pingtower.backend.notifications.config.NotificationProperties;
+import taxisty.pingtower.backend.notifications.dispatch.NotificationDispatcher;
+import taxisty.pingtower.backend.notifications.model.ChannelType;
+import taxisty.pingtower.backend.notifications.providers.ChannelProvider.DeliveryResult;
+import taxisty.pingtower.backend.notifications.repo.NotificationChannelStore;
+import taxisty.pingtower.backend.notifications.routing.ChannelRoutingIndex;
+import taxisty.pingtower.backend.storage.model.Alert;
+import taxisty.pingtower.backend.storage.model.NotificationChannel;
+import taxisty.pingtower.backend.storage.model.NotificationOutbox;
+
+/**
+ * Moves deliveries from the {@code notification_outbox} table to the {@link NotificationDispatcher}.
+ * <p>
+ * {@link #enqueue} writes one row per channel in the caller's transaction. Rows carry only the
+ * channel id; the channel is looked up in {@link NotificationChannelStore} when its rows are sent,
+ * so credentials in its configuration never reach the table and an edited channel is used as it is
+ * now. Rows of a channel that no longer belongs to the owner of the alerted service are dropped.
+ * <p>
+ * A single relay thread claims due rows in batches, pushing their next attempt time forward by a
+ * lease so a crashed instance's deliveries are picked up again, and hands them to the dispatcher as
+ * far as the {@link DeliveryThrottle} allows. The lease of a row still queued here is renewed until
+ * its outcome is applied, so a long dispatcher queue does not get it claimed and sent twice. Rows
+ * held back by a rate limit, an open digest window or the open circuit breaker of their endpoint are
+ * deferred without using up an attempt. Outcomes come back on provider threads and are applied by
+ * the relay thread in batches: a failed attempt is rescheduled with exponential backoff, or after the
+ * provider's Retry-After, and dead-lettered once {@code maxAttempts} is reached or the receiver
+ * rejects the request outright.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+    private static final long EVICTION_INTERVAL_MILLIS = 60_000;
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final AlertRepository alertRepository;
+    private final NotificationChannelStore channels;
+    private final ChannelRoutingIndex routing;
+    private final NotificationDispatcher dispatcher;
+    private final CircuitBreakerRegistry breakers;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationProperties.Outbox settings;
+    private final ConcurrentLinkedQueue<Completion> completions = new ConcurrentLinkedQueue<>();
+    private final Semaphore wakeup = new Semaphore(0);
+    private final AtomicLong pendingRows = new AtomicLong();
+    // Relay thread only
+    private final DeliveryThrottle throttle;
+    // Claimed rows whose outcome has not been applied yet, with the end of their lease in epoch millis
+    private final Map<Long, Long> leases = new HashMap<>();
+    private long lastEvictionMillis;
+
+    private final Counter sentCounter;
+    private final Counter retryCounter;
+    private final Counter deadCounter;
+    private final Counter digestCounter;
+
+    private volatile boolean running;
+    private Thread relay;
+
+    /**
+     * Outcome of an attempt. A null result means nothing was sent and the row waits until {@code deferUntil}.
+     */
+    private record Completion(long outboxId, DeliveryResult result, LocalDateTime deferUntil) {}
+
+    public OutboxRelay(NotificationOutboxRepository outboxRepository,
+                       AlertRepository alertRepository,
+                       NotificationChannelStore channels,
+                       ChannelRoutingIndex routing,
+                       NotificationDispatcher dispatcher,
+                       CircuitBreakerRegistry breakers,
+                       PlatformTransactionManager transactionManager,
+                       NotificationProperties notificationProperties,
+                       MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.alertRepository = alertRepository;
+        this.channels = channels;
+        this.routing = routing;
+        this.dispatcher = dispatcher;
+        this.breakers = breakers;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settings = notificationProperties.getOutbox();
+        this.throttle = new DeliveryThrottle(notificationProperties.getRateLimit(), notificationProperties.getDigest());
+
+        Gauge.builder("pingtower.notifications.outbox.pending", pendingRows, AtomicLong::get)
+                .description("Outbox rows waiting for delivery, as of the last maintenance run")
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("pingtower.notifications.outbox.completed")
+                .tag("outcome", "sent")
+                .register(meterRegistry);
+        this.deadCounter = Counter.builder("pingtower.notifications.outbox.completed")
+                .tag("outcome", "dead")
+                .register(meterRegistry);
+        this.retryCounter = Counter.builder("pingtower.notifications.outbox.retries")
+                .description("Failed attempts scheduled for another try")
+                .register(meterRegistry);
+        this.digestCounter = Counter.builder("pingtower.notifications.digests")
+                .description("Messages that coalesced several alerts for one channel")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        relay = Thread.ofPlatform().name("notify-outbox").daemon(true).start(this::relayLoop);
+    }
+
+    /**
+     * Stops claiming rows. Outcomes still arriving are applied once more; rows in flight are
+     * retried after their lease expires.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        relay.interrupt();
+        try {
+            relay.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        applyCompletions();
+    }
+
+    /**
+     * Writes an outbox row per channel, saving the alert first if it is new. Joins the caller's
+     * transaction, so the rows commit or roll back together with the alert; the relay is woken
+     * after commit.
+     */
+    public void enqueue(Alert alert, List<NotificationChannel> channels) {
+        if (channels.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            Alert saved = alert.id() == null ? alertRepository.save(alert) : alert;
+            LocalDateTime now = LocalDateTime.now();
+            List<NotificationOutbox> rows = new ArrayList<>(channels.size());
+            for (NotificationChannel channel : channels) {
+                rows.add(new NotificationOutbox(saved.id(), channel.id(), now));
+            }
+            outboxRepository.saveAll(rows);
+        });
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wake();
+                }
+            });
+        } else {
+            wake();
+        }
+    }
+
+    /**
+     * Deletes old sent and dead rows and refreshes the pending gauge
+     */
+    @Scheduled(fixedDelayString = "${pingtower.notifications.outbox.maintenance-interval-millis:60000}",
+               initialDelayString = "${pingtower.notifications.outbox.maintenance-interval-millis:60000}")
+    public void maintain() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxRepository.deleteCompletedBefore(NotificationOutbox.SENT,
+                        now.minus(Duration.ofMillis(settings.getSentRetentionMillis())))
+                + outboxRepository.deleteCompletedBefore(NotificationOutbox.DEAD,
+                        now.minus(Duration.ofMillis(settings.getDeadRetentionMillis()))));
+        if (deleted != null && deleted > 0) {
+            logger.debug("Deleted {} completed outbox rows", deleted);
+        }
+        pendingRows.set(outboxRepository.countByStatus(NotificationOutbox.PENDING));
+    }
+
+    private void wake() {
+        if (wakeup.availablePermits() == 0) {
+            wakeup.release();
+        }
+    }
+
+    private void relayLoop() {
+        while (running) {
+            try {
+                applyCompletions();
+                renewLeases();
+                int claimed = claimAndDispatch();
+                if (claimed < settings.getBatchSize()) {
+                    wakeup.tryAcquire(settings.getPollIntervalMillis(), TimeUnit.MILLISECONDS);
+                    wakeup.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Notification outbox relay failed", e);
+                try {
+                    Thread.sleep(settings.getPollIntervalMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Claims as many due rows as the dispatcher queues can take and queues them, channel by channel.
+     * A claimed row is held until its outcome is applied; if its lease has lapsed meanwhile it comes
+     * back from the query, and then only gets a new lease.
+     */
+    private int claimAndDispatch() {
+        int limit = Math.min(settings.getBatchSize(), dispatcher.remainingCapacity());
+        if (limit <= 0) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plus(Duration.ofMillis(settings.getLeaseMillis()));
+        List<NotificationOutbox> claimed = transactionTemplate.execute(status -> {
+            List<NotificationOutbox> due = outboxRepository.findDueForUpdate(now, PageRequest.of(0, limit));
+            List<NotificationOutbox> fresh = new ArrayList<>(due.size());
+            for (NotificationOutbox row : due) {
+                row.setNextAttemptAt(leaseUntil);
+                // Still queued here from an earlier claim: only its lease is renewed
+                if (!leases.containsKey(row.getId())) {
+                    row.setAttemptCount(row.getAttemptCount() + 1);
+                    fresh.add(row);
+                }
+            }
+            return fresh;
+        });
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+        long leaseEnd = System.currentTimeMillis() + settings.getLeaseMillis();
+        claimed.forEach(row -> leases.put(row.getId(), leaseEnd));
+
+        Set<Long> alertIds = new HashSet<>();
+        claimed.forEach(row -> alertIds.add(row.getAlertId()));
+        Map<Long, Alert> alerts = new HashMap<>();
+        alertRepository.findAllById(alertIds).forEach(alert -> alerts.put(alert.getId(), alert));
+
+        // Rows come oldest first, so each channel's rows stay in alert order
+        Map<Long, List<NotificationOutbox>> byChannel = new LinkedHashMap<>();
+        for (NotificationOutbox row : claimed) {
+            if (!alerts.containsKey(row.getAlertId())) {
+                completions.add(new Completion(row.getId(), new DeliveryResult(false, 404, "Alert not found", null), null));
+            } else {
+                byChannel.computeIfAbsent(row.getChannelId(), id -> new ArrayList<>()).add(row);
+            }
+        }
+        long nowMillis = System.currentTimeMillis();
+        byChannel.forEach((channelId, rows) -> dispatchChannel(channelId, rows, alerts, now, nowMillis));
+
+        if (nowMillis - lastEvictionMillis > EVICTION_INTERVAL_MILLIS) {
+            throttle.evictIdle(nowMillis);
+            lastEvictionMillis = nowMillis;
+        }
+        return claimed.size();
+    }
+
+    /**
+     * Sends the due rows of one channel as far as its rate limits allow, charging a token per
+     * message the provider needs. With digests enabled, rows of a Telegram or email channel
+     * arriving while its digest window is open are held until it ends and then go out as one
+     * message; otherwise every row is a message of its own. While the endpoint's circuit breaker
+     * is open nothing is sent, and once it lets a probe through only one message goes. Held rows are
+     * deferred without using up an attempt; rows of a channel that is gone or disabled, or that no
+     * longer belongs to the owner of the alerted service, are dead.
+     */
+    private void dispatchChannel(Long channelId, List<NotificationOutbox> rows, Map<Long, Alert> alerts,
+                                 LocalDateTime now, long nowMillis) {
+        NotificationChannel channel = channels.getChannel(channelId);
+        if (channel == null || !channel.isEnabled()) {
+            fail(rows, new DeliveryResult(false, 404, "Channel not found or disabled: " + channelId, null));
+            return;
+        }
+        rows = owned(channel, rows, alerts);
+        if (rows.isEmpty()) {
+            return;
+        }
+        ChannelType type;
+        String destination;
+        String endpoint;
+        int eventsPerRequest;
+        try {
+            type = ChannelType.fromString(channel.type());
+            destination = dispatcher.destinationOf(channel);
+            endpoint = dispatcher.endpointOf(channel);
+            eventsPerRequest = dispatcher.eventsPerRequestOf(channel);
+        } catch (IllegalArgumentException e) {
+            fail(rows, new DeliveryResult(false, 400, "Unsupported channel type: " + channel.type(), null));
+            return;
+        }
+
+        if (throttle.isDigestEnabled() && type != ChannelType.WEBHOOK) {
+            long windowEnd = throttle.digestWindowEnd(channelId, nowMillis);
+            if (windowEnd > 0) {
+                defer(rows, now.plus(Duration.ofMillis(windowEnd - nowMillis)));
+                return;
+            }
+            List<NotificationOutbox> batch = rows.size() > throttle.maxDigestAlerts()
+                    ? rows.subList(0, throttle.maxDigestAlerts())
+                    : rows;
+            Alert message;
+            if (batch.size() == 1) {
+                message = alerts.get(batch.get(0).getAlertId());
+            } else {
+                List<Alert> held = new ArrayList<>(batch.size());
+                batch.forEach(row -> held.add(alerts.get(row.getAlertId())));
+                message = AlertDigest.of(held);
+            }
+            long wait = acquire(channel, type, destination, endpoint, eventsPerRequest, message, nowMillis);
+            if (wait > 0) {
+                defer(rows, now.plus(Duration.ofMillis(wait)));
+                return;
+            }
+            if (batch.size() < rows.size()) {
+                defer(rows.subList(batch.size(), rows.size()),
+                      now.plus(Duration.ofMillis(throttle.digestWindowMillis())));
+            }
+            throttle.openDigestWindow(channelId, nowMillis);
+            if (batch.size() > 1) {
+                digestCounter.increment();
+            }
+            dispatch(message, channel, endpoint, batch);
+            return;
+        }
+
+        for (int i = 0; i < rows.size(); i++) {
+            NotificationOutbox row = rows.get(i);
+            Alert alert = alerts.get(row.getAlertId());
+            long wait = acquire(channel, type, destination, endpoint, eventsPerRequest, alert, nowMillis);
+            if (wait > 0) {
+                defer(rows.subList(i, rows.size()), now.plus(Duration.ofMillis(wait)));
+                return;
+            }
+            dispatch(alert, channel, endpoint, List.of(row));
+        }
+    }
+
+    /**
+     * Rows whose alert the channel may still receive; the others are dead, since the channel or the
+     * alerted service has changed owner since the row was written
+     */
+    private List<NotificationOutbox> owned(NotificationChannel channel, List<NotificationOutbox> rows,
+                                           Map<Long, Alert> alerts) {
+        List<NotificationOutbox> owned = new ArrayList<>(rows.size());
+        for (NotificationOutbox row : rows) {
+            if (routing.mayReceive(alerts.get(row.getAlertId()), channel)) {
+                owned.add(row);
+            } else {
+                fail(List.of(row), new DeliveryResult(false, 403,
+                        "Channel " + channel.id() + " does not belong to the owner of the alerted service", null));
+            }
+        }
+        return owned;
+    }
+
+    /**
+     * Asks the endpoint's breaker and then the rate limits whether the alert may be sent now
+     *
+     * @return 0 if it may, otherwise milliseconds to wait; a breaker permit is given back on a wait
+     */
+    private long acquire(NotificationChannel channel, ChannelType type, String destination, String endpoint,
+                         int eventsPerRequest, Alert alert, long nowMillis) {
+        long wait = breakers.acquire(endpoint, nowMillis);
+        if (wait > 0) {
+            return wait;
+        }
+        wait = throttle.acquire(channel.id(), type, destination, dispatcher.messageCountOf(alert, channel),
+                eventsPerRequest, nowMillis);
+        if (wait > 0) {
+            breakers.release(endpoint);
+        }
+        return wait;
+    }
+
+    /**
+     * Queues one message for the given rows; its outcome applies to all of them
+     */
+    private void dispatch(Alert alert, NotificationChannel channel, String endpoint, List<NotificationOutbox> rows) {
+        List<Long> outboxIds = new ArrayList<>(rows.size());
+        int attempt = 0;
+        for (NotificationOutbox row : rows) {
+            outboxIds.add(row.getId());
+            attempt = Math.max(attempt, row.getAttemptCount());
+        }
+        boolean queued = dispatcher.dispatch(alert, channel, attempt, result -> {
+            for (Long outboxId : outboxIds) {
+                completions.add(new Completion(outboxId, result, null));
+            }
+            wake();
+        });
+        if (!queued) {
+            breakers.release(endpoint);
+            defer(rows, LocalDateTime.now().plus(Duration.ofMillis(settings.getPollIntervalMillis())));
+        }
+    }
+
+    private void defer(List<NotificationOutbox> rows, LocalDateTime until) {
+        for (NotificationOutbox row : rows) {
+            completions.add(new Completion(row.getId(), null, until));
+        }
+    }
+
+    private void fail(List<NotificationOutbox> rows, DeliveryResult result) {
+        for (NotificationOutbox row : rows) {
+            completions.add(new Completion(row.getId(), result, null));
+        }
+    }
+
+    /**
+     * Renews the lease of claimed rows once half of it has passed, so rows still waiting in a
+     * dispatcher queue are not claimed again, here or by another instance, and sent twice
+     */
+    private void renewLeases() {
+        long nowMillis = System.currentTimeMillis();
+        long leaseMillis = settings.getLeaseMillis();
+        List<Long> expiring = new ArrayList<>();
+        leases.forEach((id, leaseEnd) -> {
+            if (leaseEnd - nowMillis < leaseMillis / 2) {
+                expiring.add(id);
+            }
+        });
+        if (expiring.isEmpty()) {
+            return;
+        }
+        LocalDateTime leaseUntil = LocalDateTime.now().plus(Duration.ofMillis(leaseMillis));
+        int chunk = Math.max(1, settings.getBatchSize());
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < expiring.size(); i += chunk) {
+                outboxRepository.extendLease(expiring.subList(i, Math.min(i + chunk, expiring.size())), leaseUntil);
+            }
+        });
+        long leaseEnd = nowMillis + leaseMillis;
+        expiring.forEach(id -> leases.put(id, leaseEnd));
+    }
+
+    private void applyCompletions() {
+        if (completions.isEmpty()) {
+            return;
+        }
+        Map<Long, DeliveryResult> results = new HashMap<>();
+        Map<Long, LocalDateTime> deferred = new HashMap<>();
+        Completion completion;
+        while ((completion = completions.poll()) != null) {
+            if (completion.result() == null) {
+                deferred.put(completion.outboxId(), completion.deferUntil());
+            } else {
+                results.put(completion.outboxId(), completion.result());
+            }
+        }
+        Set<Long> ids = new HashSet<>(results.keySet());
+        ids.addAll(deferred.keySet());
+        leases.keySet().removeAll(ids);
+
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (NotificationOutbox row : outboxRepository.findAllById(ids)) {
+                if (!NotificationOutbox.PENDING.equals(row.getStatus())) {
+                    continue;
+                }
+                DeliveryResult result = results.get(row.getId());
+                if (result == null) {
+                    // Not sent: give the attempt back
+                    row.setAttemptCount(row.getAttemptCount() - 1);
+                    row.setNextAttemptAt(deferred.get(row.getId()));
+                } else {
+                    apply(row, result, now);
+                }
+            }
+        });
+    }
+
+    private void apply(NotificationOutbox row, DeliveryResult result, LocalDateTime now) {
+        row.setLastHttpCode(result.httpCode());
+        if (result.success()) {
+            row.setStatus(NotificationOutbox.SENT);
+            row.setLastError(null);
+            row.setCompletedAt(now);
+            sentCounter.increment();
+            return;
+        }
+        row.setLastError(result.error());
+        if (row.getAttemptCount() >= settings.getMaxAttempts() || !isRetryable(result.httpCode())) {
+            row.setStatus(NotificationOutbox.DEAD);
+            row.setCompletedAt(now);
+            deadCounter.increment();
+            logger.warn("Giving up on alert {} for channel {} after {} attempts: {}",
+                       row.getAlertId(), row.getChannelId(), row.getAttemptCount(), result.error());
+            return;
+        }
+        row.setNextAttemptAt(now.plus(Duration.ofMillis(retryDelayMillis(row.getAttemptCount(), result))));
+        retryCounter.increment();
+    }
+
+    /**
+     * Retry-After if the provider sent one, otherwise exponential backoff with 20% jitter
+     */
+    private long retryDelayMillis(int attempt, DeliveryResult result) {
+        if (result.retryAfterSeconds() != null && result.retryAfterSeconds() > 0) {
+            return TimeUnit.SECONDS.toMillis(result.retryAfterSeconds());
+        }
+        int shift = Math.min(attempt - 1, 30);
+        long backoff = Math.min(settings.getMaxBackoffMillis(), settings.getInitialBackoffMillis() << shift);
+        return (long) (backoff * ThreadLocalRandom.current().nextDouble(0.8, 1.2));
+    }
+
+    // Client errors other than timeouts and throttling will fail the same way again
+    private static boolean isRetryable(Integer httpCode) {
+        return httpCode == null || httpCode < 400 || httpCode >= 500 || httpCode == 408 || httpCode == 429;
+    }
+}
@@ -0,0 +1,50 @@
+package taxisty.pingtower.backend.notifications.outbox;
+
+/**
+ * Token bucket refilled continuously at a fixed rate. Times are epoch milliseconds.
+ * <p>
+ * Not thread-safe; used by the relay thread only.
+ */
+final class TokenBucket {
+
+    private final double tokensPerMilli;
+    private final double capacity;
+    private double tokens;
+    private long updatedAt;
+
+    TokenBucket(double ratePerSecond, int burst, long now) {
+        this.tokensPerMilli = Math.max(ratePerSecond, 0.001) / 1000.0;
+        this.capacity = Math.max(burst, 1);
+        this.tokens = capacity;
+        this.updatedAt = now;
+    }
+
+    /**
+     * Milliseconds until {@code cost} tokens are available, 0 if they are available now. A cost
+     * above the capacity is allowed once the bucket is full and leaves it in debt.
+     */
+    long waitMillis(long now, double cost) {
+        refill(now);
+        double needed = Math.min(cost, capacity);
+        return tokens >= needed ? 0 : (long) Math.ceil((needed - tokens) / tokensPerMilli);
+    }
+
+    /**
+     * Takes {@code cost} tokens; call only after {@link #waitMillis} returned 0
+     */
+    void take(double cost) {
+        tokens -= cost;
+    }
+
+    boolean isFull(long now) {
+        refill(now);
+        return tokens >= capacity;
+    }
+
+    private void refill(long now) {
+        if (now > updatedAt) {
+            tokens = Math.min(capacity, tokens + (now - updatedAt) * tokensPerMilli);
+            updatedAt = now;
+        }
+    }
+}
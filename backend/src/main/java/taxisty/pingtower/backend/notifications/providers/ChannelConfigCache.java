@@ -0,0 +1,62 @@
+package taxisty.pingtower.backend.notifications.providers;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import taxisty.pingtower.backend.storage.model.NotificationChannel;
+
+/**
+ * Parsed and validated configurations of channels, cached per channel id.
+ * <p>
+ * An entry is reused only while the channel's configuration string is unchanged, so an updated
+ * channel is parsed again even before {@link #evict} is called. Invalid configurations are not
+ * cached and fail on every send. Channels without an id are parsed on every call.
+ */
+final class ChannelConfigCache<T> {
+
+    /**
+     * Builds the typed configuration; throws {@link IllegalArgumentException} for invalid input
+     */
+    @FunctionalInterface
+    interface Parser<T> {
+        T parse(JsonNode cfg) throws Exception;
+    }
+
+    private record Entry<T>(String source, T config) {}
+
+    private final ObjectMapper mapper;
+    private final Parser<T> parser;
+    private final Map<Long, Entry<T>> entries = new ConcurrentHashMap<>();
+
+    ChannelConfigCache(ObjectMapper mapper, Parser<T> parser) {
+        this.mapper = mapper;
+        this.parser = parser;
+    }
+
+    T get(NotificationChannel channel) throws Exception {
+        String source = channel.configuration();
+        Entry<T> entry = channel.id() == null ? null : entries.get(channel.id());
+        if (entry != null && Objects.equals(entry.source(), source)) {
+            return entry.config();
+        }
+        JsonNode cfg = source == null ? null : mapper.readTree(source);
+        if (cfg == null || !cfg.isObject()) {
+            throw new IllegalArgumentException("Channel configuration must be a JSON object");
+        }
+        T config = parser.parse(cfg);
+        if (channel.id() != null) {
+            entries.put(channel.id(), new Entry<>(source, config));
+        }
+        return config;
+    }
+
+    void evict(Long channelId) {
+        if (channelId != null) {
+            entries.remove(channelId);
+        }
+    }
+}
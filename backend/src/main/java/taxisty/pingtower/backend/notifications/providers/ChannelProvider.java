@@ -1,5 +1,6 @@
 package taxisty.pingtower.backend.notifications.providers;
 
+import reactor.core.publisher.Mono;
 import taxisty.pingtower.backend.storage.model.Alert;
 import taxisty.pingtower.backend.storage.model.NotificationChannel;
 
@@ -12,6 +13,49 @@ public interface ChannelProvider {
      */
     DeliveryResult send(Alert alert, NotificationChannel channel);
 
+    /**
+     * Sends an alert without blocking the subscribing thread where the transport allows it.
+     * The default runs the blocking {@link #send} on subscription.
+     */
+    default Mono<DeliveryResult> sendAsync(Alert alert, NotificationChannel channel) {
+        return Mono.fromCallable(() -> send(alert, channel));
+    }
+
+    /**
+     * Key of the endpoint the channel delivers to, shared by channels that hit the same
+     * rate limits. Defaults to the channel itself.
+     */
+    default String destination(NotificationChannel channel) {
+        return type() + ":channel:" + channel.id();
+    }
+
+    /**
+     * Endpoint whose circuit breaker guards sends to the channel; by default its {@link #destination}.
+     * Shown by the actuator, so it must not contain credentials.
+     */
+    default String endpoint(NotificationChannel channel) {
+        return destination(channel);
+    }
+
+    /**
+     * How many alerts the channel sends per request; rate limits charge each alert that share of a send
+     */
+    default int eventsPerRequest(NotificationChannel channel) {
+        return 1;
+    }
+
+    /**
+     * How many messages sending the alert takes, for transports that split long alerts; rate limits
+     * charge a token per message
+     */
+    default int messageCount(Alert alert, NotificationChannel channel) {
+        return 1;
+    }
+
+    /**
+     * Drops anything cached for the channel; called when the channel is stored again
+     */
+    default void evict(Long channelId) {}
+
     record DeliveryResult(boolean success, Integer httpCode, String error, Long retryAfterSeconds) {}
 }
-
@@ -2,26 +2,46 @@ package taxisty.pingtower.backend.notifications.providers;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
 import jakarta.mail.Message;
 import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import taxisty.pingtower.backend.notifications.config.NotificationProperties;
 import taxisty.pingtower.backend.storage.model.Alert;
 import taxisty.pingtower.backend.storage.model.NotificationChannel;
 
-import java.time.Duration;
-import java.util.Properties;
-
+/**
+ * Sends alerts by SMTP over connections pooled per server, see {@link SmtpTransportPool}.
+ */
 @Component
 public class EmailProvider implements ChannelProvider {
     private static final Logger log = LoggerFactory.getLogger(EmailProvider.class);
-    private final ObjectMapper mapper;
+    private final ChannelConfigCache<Settings> settings;
+    private final SmtpTransportPool transports;
+
+    /**
+     * Validated channel configuration with parsed addresses
+     */
+    private record Settings(SmtpTransportPool.Server server, InternetAddress from, InternetAddress[] to) {
+
+        static Settings parse(JsonNode cfg) throws Exception {
+            String username = cfg.path("username").asText(null);
+            String password = cfg.path("password").asText(null);
+            SmtpTransportPool.Server server = new SmtpTransportPool.Server(
+                    required(cfg, "smtpHost").toLowerCase(), cfg.path("smtpPort").asInt(587), username, password,
+                    cfg.path("useStartTLS").asBoolean(true), cfg.path("useSSL").asBoolean(false));
+            return new Settings(server, new InternetAddress(required(cfg, "from")),
+                    InternetAddress.parse(required(cfg, "to")));
+        }
+    }
 
-    public EmailProvider(ObjectMapper mapper) {
-        this.mapper = mapper;
+    public EmailProvider(ObjectMapper mapper, NotificationProperties properties) {
+        this.settings = new ChannelConfigCache<>(mapper, Settings::parse);
+        this.transports = new SmtpTransportPool(properties.getSmtp());
     }
 
     @Override
@@ -30,38 +50,16 @@ public class EmailProvider implements ChannelProvider {
     @Override
     public DeliveryResult send(Alert alert, NotificationChannel channel) {
         try {
-            JsonNode cfg = mapper.readTree(channel.configuration());
-            String host = required(cfg, "smtpHost");
-            int port = cfg.path("smtpPort").asInt(587);
-            String username = cfg.path("username").asText(null);
-            String password = cfg.path("password").asText(null);
-            String from = required(cfg, "from");
-            String to = required(cfg, "to");
-            boolean useStartTLS = cfg.path("useStartTLS").asBoolean(true);
-            boolean useSSL = cfg.path("useSSL").asBoolean(false);
-
-            JavaMailSenderImpl sender = new JavaMailSenderImpl();
-            sender.setHost(host);
-            sender.setPort(port);
-            if (username != null) sender.setUsername(username);
-            if (password != null) sender.setPassword(password);
-            Properties props = sender.getJavaMailProperties();
-            props.put("mail.transport.protocol", "smtp");
-            props.put("mail.smtp.auth", String.valueOf(username != null));
-            props.put("mail.smtp.starttls.enable", String.valueOf(useStartTLS));
-            props.put("mail.smtp.ssl.enable", String.valueOf(useSSL));
-            props.put("mail.smtp.connectiontimeout", String.valueOf(Duration.ofSeconds(10).toMillis()));
-            props.put("mail.smtp.timeout", String.valueOf(Duration.ofSeconds(15).toMillis()));
-            props.put("mail.smtp.writetimeout", String.valueOf(Duration.ofSeconds(15).toMillis()));
-
-            MimeMessage msg = sender.createMimeMessage();
-            msg.setFrom(new InternetAddress(from));
-            msg.setRecipients(Message.RecipientType.TO, InternetAddress.parse(to));
+            Settings cfg = settings.get(channel);
+
+            MimeMessage msg = new MimeMessage(transports.session(cfg.server()));
+            msg.setFrom(cfg.from());
+            msg.setRecipients(Message.RecipientType.TO, cfg.to());
             msg.setSubject(buildSubject(alert));
             String html = buildHtml(alert);
             msg.setContent(html, "text/html; charset=UTF-8");
 
-            sender.send(msg);
+            transports.send(cfg.server(), msg);
             return new DeliveryResult(true, 250, null, null);
         } catch (Exception e) {
             log.error("Email send failed", e);
@@ -69,6 +67,34 @@ public class EmailProvider implements ChannelProvider {
         }
     }
 
+    /**
+     * The SMTP server
+     */
+    @Override
+    public String destination(NotificationChannel channel) {
+        try {
+            SmtpTransportPool.Server server = settings.get(channel).server();
+            return "EMAIL:" + server.host() + ":" + server.port();
+        } catch (Exception e) {
+            return ChannelProvider.super.destination(channel);
+        }
+    }
+
+    @Override
+    public void evict(Long channelId) {
+        settings.evict(channelId);
+    }
+
+    @Scheduled(fixedDelayString = "${pingtower.notifications.smtp.idle-timeout-millis:60000}")
+    public void evictIdleConnections() {
+        transports.evictIdle(System.currentTimeMillis());
+    }
+
+    @PreDestroy
+    public void closeConnections() {
+        transports.closeAll();
+    }
+
     private static String required(JsonNode n, String field) {
         String v = n.path(field).asText(null);
         if (v == null || v.isEmpty()) throw new IllegalArgumentException("Missing field: " + field);
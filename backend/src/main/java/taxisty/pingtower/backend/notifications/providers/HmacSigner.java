@@ -0,0 +1,64 @@
+package taxisty.pingtower.backend.notifications.providers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.Objects;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Signs webhook bodies with one key. {@link Mac} instances are not thread-safe, so each thread
+ * initialises its own once and reuses it; {@code doFinal} resets it for the next body.
+ * Signers with the same algorithm and secret are equal.
+ */
+final class HmacSigner {
+
+    private final String algo;
+    private final String secret;
+    private final ThreadLocal<Mac> macs;
+
+    private HmacSigner(String algo, String secret) {
+        this.algo = algo;
+        this.secret = secret;
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), algo);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(algo);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /**
+     * @throws IllegalArgumentException if the algorithm is not available or rejects the key
+     */
+    static HmacSigner of(String algo, String secret) {
+        HmacSigner signer = new HmacSigner(algo, secret);
+        try {
+            signer.macs.get();
+        } catch (IllegalStateException e) {
+            throw new IllegalArgumentException("Unsupported algo: " + algo, e.getCause());
+        }
+        return signer;
+    }
+
+    String sign(String body) {
+        byte[] raw = macs.get().doFinal(body.getBytes(StandardCharsets.UTF_8));
+        return "sha256=" + Base64.getEncoder().encodeToString(raw);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof HmacSigner other && algo.equals(other.algo) && secret.equals(other.secret);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(algo, secret);
+    }
+}
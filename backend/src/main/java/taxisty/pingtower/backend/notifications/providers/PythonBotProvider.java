@@ -4,15 +4,16 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.BodyInserters;
-import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 import taxisty.pingtower.backend.storage.model.Alert;
 import taxisty.pingtower.backend.storage.model.NotificationChannel;
 
+import java.net.URI;
 import java.time.Duration;
 import java.util.Map;
 
@@ -22,8 +23,8 @@ public class PythonBotProvider implements ChannelProvider {
     private final WebClient webClient;
     private final ObjectMapper mapper;
 
-    public PythonBotProvider(ObjectMapper mapper) {
-        this.webClient = WebClient.builder().build();
+    public PythonBotProvider(ObjectMapper mapper, @Qualifier("notificationWebClient") WebClient webClient) {
+        this.webClient = webClient;
         this.mapper = mapper;
     }
 
@@ -34,6 +35,11 @@ public class PythonBotProvider implements ChannelProvider {
 
     @Override
     public DeliveryResult send(Alert alert, NotificationChannel channel) {
+        return sendAsync(alert, channel).block();
+    }
+
+    @Override
+    public Mono<DeliveryResult> sendAsync(Alert alert, NotificationChannel channel) {
         try {
             JsonNode cfg = mapper.readTree(channel.configuration());
             String botUrl = required(cfg, "botUrl");
@@ -46,7 +52,7 @@ public class PythonBotProvider implements ChannelProvider {
             String status = metadata.get("status");
             
             if (username == null || serviceName == null) {
-                return new DeliveryResult(false, null, "Missing username or service_name in alert metadata", null);
+                return Mono.just(new DeliveryResult(false, null, "Missing username or service_name in alert metadata", null));
             }
             
             // Р¤РѕСЂРјРёСЂСѓРµРј Р·Р°РїСЂРѕСЃ Рє Python Р±РѕС‚Сѓ
@@ -62,32 +68,26 @@ public class PythonBotProvider implements ChannelProvider {
             
         } catch (Exception e) {
             log.error("Python bot send failed", e);
-            return new DeliveryResult(false, null, e.getMessage(), null);
+            return Mono.just(new DeliveryResult(false, null, e.getMessage(), null));
         }
     }
 
-    private DeliveryResult doSend(String botUrl, Map<String, Object> requestBody) {
-        try {
-            Mono<ClientResponse> respMono = webClient.post()
-                    .uri(botUrl + "/send_notification")
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(BodyInserters.fromValue(requestBody))
-                    .exchangeToMono(Mono::just);
-
-            ClientResponse resp = respMono.block(Duration.ofSeconds(15));
-            if (resp == null) return new DeliveryResult(false, null, "No response from Python bot", null);
-            
-            int code = resp.statusCode().value();
-            if (code == 200) {
-                return new DeliveryResult(true, code, null, null);
-            }
-
-            String body = resp.bodyToMono(String.class).block(Duration.ofSeconds(10));
-            return new DeliveryResult(false, code, body, null);
-            
-        } catch (Exception e) {
-            return new DeliveryResult(false, null, e.getMessage(), null);
-        }
+    private Mono<DeliveryResult> doSend(String botUrl, Map<String, Object> requestBody) {
+        return webClient.post()
+                .uri(URI.create(botUrl + "/send_notification"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue(requestBody))
+                .exchangeToMono(resp -> {
+                    int code = resp.statusCode().value();
+                    if (code == 200) {
+                        return resp.releaseBody().thenReturn(new DeliveryResult(true, code, null, null));
+                    }
+                    return resp.bodyToMono(String.class)
+                            .defaultIfEmpty("")
+                            .map(body -> new DeliveryResult(false, code, body, null));
+                })
+                .timeout(Duration.ofSeconds(15))
+                .onErrorResume(e -> Mono.just(new DeliveryResult(false, null, e.getMessage(), null)));
     }
 
     private static String required(JsonNode n, String field) {
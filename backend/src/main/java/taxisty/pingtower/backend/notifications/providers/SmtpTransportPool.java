@@ -0,0 +1,173 @@
+package taxisty.pingtower.backend.notifications.providers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import taxisty.pingtower.backend.notifications.config.NotificationProperties;
+
+/**
+ * Connected SMTP transports kept open between sends, pooled per server and account.
+ * <p>
+ * A send borrows an idle transport or connects a new one and returns it afterwards, so consecutive
+ * emails to the same server share one authenticated session instead of a TCP/TLS handshake and login
+ * each. A transport that failed a send is closed rather than returned. Transports idle for longer
+ * than {@code idleTimeoutMillis} are closed by {@link #evictIdle}.
+ */
+final class SmtpTransportPool {
+
+    private static final Logger log = LoggerFactory.getLogger(SmtpTransportPool.class);
+
+    /**
+     * Idle transports are checked with a NOOP before reuse once they have been idle this long
+     */
+    private static final long VERIFY_AFTER_IDLE_MILLIS = 5000;
+
+    /**
+     * SMTP server and account; transports are only shared between equal servers
+     */
+    record Server(String host, int port, String username, String password, boolean startTls, boolean ssl) {
+
+        @Override
+        public String toString() {
+            return (username == null ? "" : username + "@") + host + ":" + port;
+        }
+    }
+
+    private record Idle(Transport transport, long since) {}
+
+    /**
+     * Session and idle transports of one server
+     */
+    private final class Pool {
+        final Session session;
+        final Deque<Idle> idle = new ArrayDeque<>();
+
+        Pool(Server server) {
+            this.session = Session.getInstance(properties(server));
+        }
+    }
+
+    private final NotificationProperties.Smtp settings;
+    private final Map<Server, Pool> pools = new ConcurrentHashMap<>();
+
+    SmtpTransportPool(NotificationProperties.Smtp settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Session to build messages for the server with
+     */
+    Session session(Server server) {
+        return pool(server).session;
+    }
+
+    /**
+     * Sends the message over a pooled connection to the server
+     */
+    void send(Server server, MimeMessage message) throws MessagingException {
+        Pool pool = pool(server);
+        Transport transport = borrow(server, pool);
+        boolean sent = false;
+        try {
+            message.saveChanges();
+            transport.sendMessage(message, message.getAllRecipients());
+            sent = true;
+        } finally {
+            if (sent) {
+                release(pool, transport);
+            } else {
+                close(transport);
+            }
+        }
+    }
+
+    /**
+     * Closes transports idle for longer than the idle timeout
+     */
+    void evictIdle(long now) {
+        for (Pool pool : pools.values()) {
+            List<Transport> expired = new ArrayList<>();
+            synchronized (pool) {
+                // Oldest at the tail: transports are returned to and borrowed from the head
+                while (!pool.idle.isEmpty() && now - pool.idle.peekLast().since() > settings.getIdleTimeoutMillis()) {
+                    expired.add(pool.idle.pollLast().transport());
+                }
+            }
+            expired.forEach(SmtpTransportPool::close);
+        }
+    }
+
+    void closeAll() {
+        evictIdle(Long.MAX_VALUE);
+    }
+
+    private Pool pool(Server server) {
+        return pools.computeIfAbsent(server, Pool::new);
+    }
+
+    private Transport borrow(Server server, Pool pool) throws MessagingException {
+        while (true) {
+            Idle idle;
+            synchronized (pool) {
+                idle = pool.idle.pollFirst();
+            }
+            if (idle == null) {
+                break;
+            }
+            boolean fresh = System.currentTimeMillis() - idle.since() < VERIFY_AFTER_IDLE_MILLIS;
+            if (fresh || idle.transport().isConnected()) {
+                return idle.transport();
+            }
+            close(idle.transport());
+        }
+        Transport transport = pool.session.getTransport("smtp");
+        transport.connect(server.host(), server.port(), server.username(), server.password());
+        log.debug("Opened SMTP connection to {}", server);
+        return transport;
+    }
+
+    private void release(Pool pool, Transport transport) {
+        boolean kept = false;
+        synchronized (pool) {
+            if (pool.idle.size() < Math.max(0, settings.getMaxIdlePerServer())) {
+                pool.idle.addFirst(new Idle(transport, System.currentTimeMillis()));
+                kept = true;
+            }
+        }
+        if (!kept) {
+            close(transport);
+        }
+    }
+
+    private Properties properties(Server server) {
+        Properties props = new Properties();
+        props.put("mail.transport.protocol", "smtp");
+        props.put("mail.smtp.auth", String.valueOf(server.username() != null));
+        props.put("mail.smtp.starttls.enable", String.valueOf(server.startTls()));
+        props.put("mail.smtp.ssl.enable", String.valueOf(server.ssl()));
+        props.put("mail.smtp.connectiontimeout", String.valueOf(settings.getConnectionTimeoutMillis()));
+        props.put("mail.smtp.timeout", String.valueOf(settings.getTimeoutMillis()));
+        props.put("mail.smtp.writetimeout", String.valueOf(settings.getTimeoutMillis()));
+        return props;
+    }
+
+    private static void close(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.debug("Failed to close SMTP connection: {}", e.getMessage());
+        }
+    }
+}
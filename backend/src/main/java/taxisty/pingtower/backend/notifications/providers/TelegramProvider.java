@@ -4,11 +4,13 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import taxisty.pingtower.backend.storage.model.Alert;
 import taxisty.pingtower.backend.storage.model.NotificationChannel;
@@ -22,12 +24,24 @@ import java.util.Objects;
 @Component
 public class TelegramProvider implements ChannelProvider {
     private static final Logger log = LoggerFactory.getLogger(TelegramProvider.class);
+    private static final int MAX_MESSAGE_BYTES = 4096;
     private final WebClient webClient;
-    private final ObjectMapper mapper;
+    private final ChannelConfigCache<Settings> settings;
 
-    public TelegramProvider(ObjectMapper mapper) {
-        this.webClient = WebClient.builder().build();
-        this.mapper = mapper;
+    /**
+     * Validated channel configuration
+     */
+    private record Settings(String botToken, String chatId, String parseMode, boolean disablePreview) {
+
+        static Settings parse(JsonNode cfg) {
+            return new Settings(required(cfg, "botToken"), required(cfg, "chatId"),
+                    cfg.path("parseMode").asText("HTML"), cfg.path("disablePreview").asBoolean(true));
+        }
+    }
+
+    public TelegramProvider(ObjectMapper mapper, @Qualifier("notificationWebClient") WebClient webClient) {
+        this.webClient = webClient;
+        this.settings = new ChannelConfigCache<>(mapper, Settings::parse);
     }
 
     @Override
@@ -35,60 +49,98 @@ public class TelegramProvider implements ChannelProvider {
 
     @Override
     public DeliveryResult send(Alert alert, NotificationChannel channel) {
+        return sendAsync(alert, channel).block();
+    }
+
+    @Override
+    public Mono<DeliveryResult> sendAsync(Alert alert, NotificationChannel channel) {
         try {
-            JsonNode cfg = mapper.readTree(channel.configuration());
-            String token = required(cfg, "botToken");
-            String chatId = required(cfg, "chatId");
-            String parseMode = cfg.path("parseMode").asText("HTML");
-            boolean disablePreview = cfg.path("disablePreview").asBoolean(true);
-
-            String text = buildMessage(alert);
-            List<String> chunks = splitTelegram(text, 4096);
-
-            DeliveryResult last = null;
-            for (String chunk : chunks) {
-                last = doSend(token, chatId, chunk, parseMode, disablePreview);
-                if (!last.success()) {
-                    return last;
-                }
-            }
-            return last == null ? new DeliveryResult(true, 200, null, null) : last;
+            Settings cfg = settings.get(channel);
+            List<String> chunks = splitTelegram(buildMessage(alert), MAX_MESSAGE_BYTES);
+
+            // Chunks go out in order; the first failed chunk ends the delivery
+            return Flux.fromIterable(chunks)
+                    .concatMap(chunk -> doSend(cfg.botToken(), cfg.chatId(), chunk, cfg.parseMode(), cfg.disablePreview()))
+                    .takeUntil(result -> !result.success())
+                    .last(new DeliveryResult(true, 200, null, null))
+                    .onErrorResume(e -> {
+                        log.error("Telegram send failed", e);
+                        return Mono.just(new DeliveryResult(false, null, e.getMessage(), null));
+                    });
         } catch (Exception e) {
             log.error("Telegram send failed", e);
-            return new DeliveryResult(false, null, e.getMessage(), null);
+            return Mono.just(new DeliveryResult(false, null, e.getMessage(), null));
         }
     }
 
-    private DeliveryResult doSend(String token, String chatId, String text, String parseMode, boolean disablePreview) {
+    /**
+     * The bot: Telegram limits how many messages a bot sends per second across all chats
+     */
+    @Override
+    public String destination(NotificationChannel channel) {
         try {
-            Mono<ClientResponse> respMono = webClient.post()
-                    .uri("https://api.telegram.org/bot" + token + "/sendMessage")
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(BodyInserters.fromValue("{"+
-                            "\"chat_id\":\"" + escape(chatId) + "\","+
-                            "\"text\":\"" + escape(text) + "\","+
-                            "\"parse_mode\":\"" + escape(parseMode) + "\","+
-                            "\"disable_web_page_preview\":" + disablePreview +
-                            "}"))
-                    .exchangeToMono(Mono::just);
-
-            ClientResponse resp = respMono.block(Duration.ofSeconds(15));
-            if (resp == null) return new DeliveryResult(false, null, "No response", null);
-            int code = resp.statusCode().value();
-            if (code == 200) return new DeliveryResult(true, code, null, null);
-
-            Long retry = null;
-            if (code == 429) {
-                String ra = resp.headers().asHttpHeaders().getFirst("Retry-After");
-                if (ra != null) try { retry = Long.parseLong(ra); } catch (NumberFormatException ignored) {}
-            }
-            String body = resp.bodyToMono(String.class).block(Duration.ofSeconds(10));
-            return new DeliveryResult(false, code, body, retry);
+            return "TELEGRAM:" + settings.get(channel).botToken();
+        } catch (Exception e) {
+            return ChannelProvider.super.destination(channel);
+        }
+    }
+
+    /**
+     * The chat; the destination carries the bot token
+     */
+    @Override
+    public String endpoint(NotificationChannel channel) {
+        try {
+            return "TELEGRAM:chat:" + settings.get(channel).chatId();
         } catch (Exception e) {
-            return new DeliveryResult(false, null, e.getMessage(), null);
+            return ChannelProvider.super.destination(channel);
         }
     }
 
+    /**
+     * Long alerts such as digests go out as several messages, one per chunk
+     */
+    @Override
+    public int messageCount(Alert alert, NotificationChannel channel) {
+        return splitTelegram(buildMessage(alert), MAX_MESSAGE_BYTES).size();
+    }
+
+    @Override
+    public void evict(Long channelId) {
+        settings.evict(channelId);
+    }
+
+    private Mono<DeliveryResult> doSend(String token, String chatId, String text, String parseMode, boolean disablePreview) {
+        return webClient.post()
+                // Template keeps the token out of the http.client.requests uri tag
+                .uri("https://api.telegram.org/bot{token}/sendMessage", token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromValue("{"+
+                        "\"chat_id\":\"" + escape(chatId) + "\","+
+                        "\"text\":\"" + escape(text) + "\","+
+                        "\"parse_mode\":\"" + escape(parseMode) + "\","+
+                        "\"disable_web_page_preview\":" + disablePreview +
+                        "}"))
+                .exchangeToMono(resp -> {
+                    int code = resp.statusCode().value();
+                    if (code == 200) {
+                        return resp.releaseBody().thenReturn(new DeliveryResult(true, code, null, null));
+                    }
+                    Long retry = code == 429 ? retryAfter(resp) : null;
+                    return resp.bodyToMono(String.class)
+                            .defaultIfEmpty("")
+                            .map(body -> new DeliveryResult(false, code, body, retry));
+                })
+                .timeout(Duration.ofSeconds(15))
+                .onErrorResume(e -> Mono.just(new DeliveryResult(false, null, e.getMessage(), null)));
+    }
+
+    private static Long retryAfter(ClientResponse resp) {
+        String ra = resp.headers().asHttpHeaders().getFirst("Retry-After");
+        if (ra != null) try { return Long.parseLong(ra); } catch (NumberFormatException ignored) {}
+        return null;
+    }
+
     private static String required(JsonNode n, String field) {
         String v = n.path(field).asText(null);
         if (v == null || v.isEmpty()) throw new IllegalArgumentException("Missing field: " + field);
@@ -98,31 +150,66 @@ public class TelegramProvider implements ChannelProvider {
     private static String buildMessage(Alert a) {
         String status = a.isResolved() ? "RESOLVED" : "OPEN";
         StringBuilder sb = new StringBuilder();
-        sb.append("<b>" + escapeHtml(a.severity()) + "</b> ").append(status).append("\\n");
-        sb.append(escapeHtml(a.message())).append("\\n");
+        sb.append("<b>" + escapeHtml(a.severity()) + "</b> ").append(status).append("\n");
+        sb.append(escapeHtml(a.message())).append("\n");
         if (a.triggeredAt() != null) {
-            sb.append("at: ").append(escapeHtml(String.valueOf(a.triggeredAt()))).append("\\n");
+            sb.append("at: ").append(escapeHtml(String.valueOf(a.triggeredAt()))).append("\n");
         }
         return sb.toString();
     }
 
-    private static List<String> splitTelegram(String text, int max) {
+    /**
+     * Splits text into chunks of at most {@code max} UTF-8 bytes, cutting after the last line break
+     * of a chunk where there is one, so multi-line messages such as digests keep whole lines
+     */
+    static List<String> splitTelegram(String text, int max) {
         byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
         if (bytes.length <= max) return List.of(text);
         List<String> parts = new ArrayList<>();
         int start = 0;
         while (start < bytes.length) {
             int end = Math.min(bytes.length, start + max);
-            // do not cut mid-char
-            while (end > start && (bytes[end - 1] & 0xC0) == 0x80) end--; // UTF-8 continuation
+            if (end < bytes.length) {
+                int newline = end - 1;
+                while (newline > start && bytes[newline] != '\n') newline--;
+                if (newline > start) {
+                    end = newline + 1;
+                } else {
+                    // do not cut mid-char: never start the next chunk on a UTF-8 continuation byte
+                    while (end > start && (bytes[end] & 0xC0) == 0x80) end--;
+                }
+            }
             parts.add(new String(bytes, start, end - start, StandardCharsets.UTF_8));
             start = end;
         }
         return parts;
     }
 
-    private static String escape(String s) {
-        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    /**
+     * Escapes a value for a JSON string: quotes, backslashes and every control character
+     */
+    static String escape(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 16);
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                case '\b' -> sb.append("\\b");
+                case '\f' -> sb.append("\\f");
+                default -> {
+                    if (c < 0x20 || c == 0x7F) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.toString();
     }
 
     private static String escapeHtml(String s) {
@@ -0,0 +1,108 @@
+package taxisty.pingtower.backend.notifications.providers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import taxisty.pingtower.backend.notifications.providers.ChannelProvider.DeliveryResult;
+
+/**
+ * Buffers webhook events bound for one endpoint and sends them as one request: when
+ * {@code maxEvents} are buffered, or {@code lingerMillis} after the first event of the batch.
+ * Every event of a batch completes with the result of that request. An event whose result is
+ * cancelled before its batch is sent, as when the dispatcher's send timeout expires, leaves the
+ * batch, so the retry that follows does not deliver it twice.
+ */
+final class WebhookBatcher {
+
+    private record Pending(Object event, Sinks.One<DeliveryResult> result) {}
+
+    private final int maxEvents;
+    private final long lingerMillis;
+    private final Function<List<Object>, Mono<DeliveryResult>> sender;
+    private List<Pending> pending = new ArrayList<>();
+    private Disposable lingerTimer;
+    private long lastAddedMillis = System.currentTimeMillis();
+
+    WebhookBatcher(int maxEvents, long lingerMillis, Function<List<Object>, Mono<DeliveryResult>> sender) {
+        this.maxEvents = maxEvents;
+        this.lingerMillis = lingerMillis;
+        this.sender = sender;
+    }
+
+    /**
+     * Adds the event to the current batch; the result arrives once the batch has been sent
+     */
+    Mono<DeliveryResult> add(Object event) {
+        Sinks.One<DeliveryResult> result = Sinks.one();
+        Pending added = new Pending(event, result);
+        List<Pending> full = null;
+        synchronized (this) {
+            lastAddedMillis = System.currentTimeMillis();
+            pending.add(added);
+            if (pending.size() >= maxEvents) {
+                full = take();
+            } else if (lingerTimer == null) {
+                lingerTimer = Schedulers.parallel().schedule(this::flush, lingerMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+        return result.asMono().doOnCancel(() -> withdraw(added));
+    }
+
+    /**
+     * True if nothing is buffered and nothing was added since {@code cutoff}
+     */
+    synchronized boolean isIdleSince(long cutoff) {
+        return pending.isEmpty() && lastAddedMillis < cutoff;
+    }
+
+    // Takes the event out of the open batch; once the batch has been sent this does nothing
+    private synchronized void withdraw(Pending event) {
+        if (pending.remove(event) && pending.isEmpty() && lingerTimer != null) {
+            lingerTimer.dispose();
+            lingerTimer = null;
+        }
+    }
+
+    private void flush() {
+        List<Pending> batch;
+        synchronized (this) {
+            batch = pending.isEmpty() ? null : take();
+        }
+        if (batch != null) {
+            send(batch);
+        }
+    }
+
+    private List<Pending> take() {
+        List<Pending> batch = pending;
+        pending = new ArrayList<>();
+        if (lingerTimer != null) {
+            lingerTimer.dispose();
+            lingerTimer = null;
+        }
+        return batch;
+    }
+
+    private void send(List<Pending> batch) {
+        List<Object> events = new ArrayList<>(batch.size());
+        batch.forEach(p -> events.add(p.event()));
+        Mono<DeliveryResult> request;
+        try {
+            request = sender.apply(events);
+        } catch (Exception e) {
+            request = Mono.error(e);
+        }
+        request.onErrorResume(e -> Mono.just(new DeliveryResult(false, null, e.getMessage(), null)))
+                .defaultIfEmpty(new DeliveryResult(false, null, "No result", null))
+                .subscribe(outcome -> batch.forEach(p -> p.result().tryEmitValue(outcome)));
+    }
+}
@@ -4,8 +4,10 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -13,23 +15,69 @@ import reactor.core.publisher.Mono;
 import taxisty.pingtower.backend.storage.model.Alert;
 import taxisty.pingtower.backend.storage.model.NotificationChannel;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
+import java.net.URI;
 import java.time.Duration;
-import java.util.Base64;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class WebhookProvider implements ChannelProvider {
     private static final Logger log = LoggerFactory.getLogger(WebhookProvider.class);
-    private final WebClient webClient = WebClient.builder().build();
+    private final WebClient webClient;
     private final ObjectMapper mapper;
+    private final ChannelConfigCache<Settings> settings;
 
-    public WebhookProvider(ObjectMapper mapper) {
+    /**
+     * Validated channel configuration; {@code host} is the lower-cased host of {@code url}. With
+     * {@code batchSize} above 1 events are posted as JSON arrays of up to that many events.
+     */
+    private record Settings(URI url, String host, Map<String, String> headers, HmacSigner signer,
+                            String signatureHeader, int batchSize, long batchLingerMillis) {
+
+        static Settings parse(JsonNode cfg) {
+            URI url = URI.create(required(cfg, "url"));
+            String host = url.getHost();
+            if (host == null) throw new IllegalArgumentException("Invalid url: " + url);
+            String hmacSecret = cfg.path("hmacSecret").asText(null);
+            HmacSigner signer = hmacSecret == null || hmacSecret.isEmpty()
+                    ? null
+                    : HmacSigner.of(cfg.path("algo").asText("HmacSHA256"), hmacSecret);
+            int batchSize = cfg.path("batchSize").asInt(1);
+            long batchLingerMillis = cfg.path("batchLingerMillis").asLong(DEFAULT_BATCH_LINGER_MILLIS);
+            if (batchSize < 1 || batchSize > MAX_BATCH_SIZE) {
+                throw new IllegalArgumentException("batchSize must be between 1 and " + MAX_BATCH_SIZE);
+            }
+            if (batchLingerMillis < 0 || batchLingerMillis > MAX_BATCH_LINGER_MILLIS) {
+                throw new IllegalArgumentException("batchLingerMillis must be between 0 and " + MAX_BATCH_LINGER_MILLIS);
+            }
+            return new Settings(url, host.toLowerCase(), Map.copyOf(readHeaders(cfg.path("headers"))), signer,
+                    cfg.path("signatureHeader").asText("X-Signature-256"), batchSize, batchLingerMillis);
+        }
+    }
+
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final long DEFAULT_BATCH_LINGER_MILLIS = 200;
+    // Well below the dispatcher's send timeout, which also covers the time an event waits in a batch
+    private static final long MAX_BATCH_LINGER_MILLIS = 10000;
+
+    /**
+     * Batchers idle this long are dropped, so settings no longer used do not keep theirs
+     */
+    private static final long BATCHER_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * Open batches; channels with equal settings, such as several channels posting to the same URL
+     * with the same secret, share one
+     */
+    private final Map<Settings, WebhookBatcher> batchers = new ConcurrentHashMap<>();
+
+    public WebhookProvider(ObjectMapper mapper, @Qualifier("notificationWebClient") WebClient webClient) {
         this.mapper = mapper;
+        this.webClient = webClient;
+        this.settings = new ChannelConfigCache<>(mapper, Settings::parse);
     }
 
     @Override
@@ -37,13 +85,13 @@ public class WebhookProvider implements ChannelProvider {
 
     @Override
     public DeliveryResult send(Alert alert, NotificationChannel channel) {
+        return sendAsync(alert, channel).block();
+    }
+
+    @Override
+    public Mono<DeliveryResult> sendAsync(Alert alert, NotificationChannel channel) {
         try {
-            JsonNode cfg = mapper.readTree(channel.configuration());
-            String url = required(cfg, "url");
-            Map<String, String> headers = readHeaders(cfg.path("headers"));
-            String hmacSecret = cfg.path("hmacSecret").asText(null);
-            String signatureHeader = cfg.path("signatureHeader").asText("X-Signature-256");
-            String algo = cfg.path("algo").asText("HmacSHA256");
+            Settings cfg = settings.get(channel);
 
             Map<String, Object> payload = new HashMap<>();
             payload.put("eventId", alert.id());
@@ -55,35 +103,108 @@ public class WebhookProvider implements ChannelProvider {
             payload.put("resolvedAt", alert.resolvedAt());
             payload.put("metadata", alert.metadata());
 
+            if (cfg.batchSize() > 1) {
+                return Mono.defer(() -> batchers.computeIfAbsent(cfg, this::newBatcher).add(payload));
+            }
+            return post(cfg, payload);
+        } catch (Exception e) {
+            log.error("Webhook send failed", e);
+            return Mono.just(new DeliveryResult(false, null, e.getMessage(), null));
+        }
+    }
+
+    /**
+     * The receiving host
+     */
+    @Override
+    public String destination(NotificationChannel channel) {
+        try {
+            return "WEBHOOK:" + settings.get(channel).host();
+        } catch (Exception e) {
+            return ChannelProvider.super.destination(channel);
+        }
+    }
+
+    @Override
+    public int eventsPerRequest(NotificationChannel channel) {
+        try {
+            return settings.get(channel).batchSize();
+        } catch (Exception e) {
+            return 1;
+        }
+    }
+
+    @Override
+    public void evict(Long channelId) {
+        settings.evict(channelId);
+    }
+
+    /**
+     * Drops batchers with nothing buffered that have not been used for a while. An event added to a
+     * batcher just dropped is still sent by it; the next event starts a new one.
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdleBatchers() {
+        evictIdleBatchers(System.currentTimeMillis());
+    }
+
+    void evictIdleBatchers(long now) {
+        long cutoff = now - BATCHER_IDLE_MILLIS;
+        batchers.values().removeIf(batcher -> batcher.isIdleSince(cutoff));
+    }
+
+    int batcherCount() {
+        return batchers.size();
+    }
+
+    private WebhookBatcher newBatcher(Settings cfg) {
+        return new WebhookBatcher(cfg.batchSize(), cfg.batchLingerMillis(), events -> post(cfg, events));
+    }
+
+    /**
+     * Posts one event, or a list of events as a JSON array, signing the serialized body
+     */
+    private Mono<DeliveryResult> post(Settings cfg, Object payload) {
+        try {
             String body = mapper.writeValueAsString(payload);
 
-            WebClient.RequestBodySpec spec = webClient.post().uri(url)
+            // A URI rather than a template keeps per-hook URLs out of the http.client.requests uri tag
+            WebClient.RequestBodySpec spec = webClient.post().uri(cfg.url())
                     .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
-            headers.forEach(spec::header);
+            cfg.headers().forEach(spec::header);
 
-            if (hmacSecret != null && !hmacSecret.isEmpty()) {
-                String sig = sign(algo, hmacSecret, body);
-                spec.header(signatureHeader, sig);
+            if (cfg.signer() != null) {
+                spec.header(cfg.signatureHeader(), cfg.signer().sign(body));
             }
 
-            Mono<ClientResponse> respMono = spec.bodyValue(body).exchangeToMono(Mono::just);
-            ClientResponse resp = respMono.block(Duration.ofSeconds(15));
-            if (resp == null) return new DeliveryResult(false, null, "No response", null);
-            int code = resp.statusCode().value();
-            if (code >= 200 && code < 300) return new DeliveryResult(true, code, null, null);
-            Long retry = null;
-            if (code == 429) {
-                String ra = resp.headers().asHttpHeaders().getFirst("Retry-After");
-                if (ra != null) try { retry = Long.parseLong(ra); } catch (NumberFormatException ignored) {}
-            }
-            String respBody = resp.bodyToMono(String.class).block(Duration.ofSeconds(10));
-            return new DeliveryResult(false, code, respBody, retry);
+            return spec.bodyValue(body)
+                    .exchangeToMono(resp -> {
+                        int code = resp.statusCode().value();
+                        if (code >= 200 && code < 300) {
+                            return resp.releaseBody().thenReturn(new DeliveryResult(true, code, null, null));
+                        }
+                        Long retry = code == 429 ? retryAfter(resp) : null;
+                        return resp.bodyToMono(String.class)
+                                .defaultIfEmpty("")
+                                .map(respBody -> new DeliveryResult(false, code, respBody, retry));
+                    })
+                    .timeout(Duration.ofSeconds(15))
+                    .onErrorResume(e -> {
+                        log.error("Webhook send failed", e);
+                        return Mono.just(new DeliveryResult(false, null, e.getMessage(), null));
+                    });
         } catch (Exception e) {
             log.error("Webhook send failed", e);
-            return new DeliveryResult(false, null, e.getMessage(), null);
+            return Mono.just(new DeliveryResult(false, null, e.getMessage(), null));
         }
     }
 
+    private static Long retryAfter(ClientResponse resp) {
+        String ra = resp.headers().asHttpHeaders().getFirst("Retry-After");
+        if (ra != null) try { return Long.parseLong(ra); } catch (NumberFormatException ignored) {}
+        return null;
+    }
+
     private static String required(JsonNode n, String field) {
         String v = n.path(field).asText(null);
         if (v == null || v.isEmpty()) throw new IllegalArgumentException("Missing field: " + field);
@@ -101,11 +222,4 @@ public class WebhookProvider implements ChannelProvider {
         }
         return map;
     }
-
-    private static String sign(String algo, String secret, String body) throws Exception {
-        Mac mac = Mac.getInstance(algo);
-        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), algo));
-        byte[] raw = mac.doFinal(body.getBytes(StandardCharsets.UTF_8));
-        return "sha256=" + Base64.getEncoder().encodeToString(raw);
-    }
 }
@@ -0,0 +1,104 @@
+package taxisty.pingtower.backend.notifications.repo;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Repository;
+import taxisty.pingtower.backend.monitoring.repository.NotificationChannelRepository;
+import taxisty.pingtower.backend.storage.model.NotificationChannel;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Notification channels, stored in {@code notification_channel} and cached in memory.
+ * <p>
+ * Ids come from the table, so they stay the same across restarts and outbox rows keep pointing
+ * at the channel they were written for. Every channel is loaded on startup; a channel missing from
+ * the cache, such as one created by another instance, is read from the table on first use.
+ */
+@Repository
+public class NotificationChannelStore {
+    private final NotificationChannelRepository channelRepository;
+    private final Map<Long, NotificationChannel> channels = new ConcurrentHashMap<>();
+    private final List<Consumer<NotificationChannel>> channelListeners = new CopyOnWriteArrayList<>();
+
+    public NotificationChannelStore(NotificationChannelRepository channelRepository) {
+        this.channelRepository = channelRepository;
+    }
+
+    @PostConstruct
+    public void load() {
+        channelRepository.findAll().forEach(ch -> channels.put(ch.id(), ch));
+    }
+
+    public NotificationChannel createChannel(Long userId, String type, String name, String configuration, boolean enabled, boolean isDefault) {
+        NotificationChannel ch = new NotificationChannel(
+                null,
+                userId,
+                type,
+                name,
+                configuration,
+                enabled,
+                isDefault,
+                LocalDateTime.now(),
+                LocalDateTime.now()
+        );
+        return saveChannel(ch);
+    }
+
+    /**
+     * Stores a new or changed channel
+     */
+    public NotificationChannel saveChannel(NotificationChannel channel) {
+        NotificationChannel saved = channelRepository.save(channel);
+        channels.put(saved.id(), saved);
+        channelListeners.forEach(listener -> listener.accept(saved));
+        return saved;
+    }
+
+    /**
+     * Deletes a channel; listeners see it one last time as disabled
+     */
+    public void deleteChannel(Long id) {
+        channelRepository.deleteById(id);
+        NotificationChannel removed = channels.remove(id);
+        if (removed != null) {
+            NotificationChannel disabled = new NotificationChannel(removed.id(), removed.userId(), removed.type(),
+                    removed.name(), removed.configuration(), false, removed.isDefault(), removed.createdAt(),
+                    LocalDateTime.now());
+            channelListeners.forEach(listener -> listener.accept(disabled));
+        }
+    }
+
+    /**
+     * Registers a listener called with every channel after it is stored or deleted
+     */
+    public void addChannelListener(Consumer<NotificationChannel> listener) {
+        channelListeners.add(listener);
+    }
+
+    public List<NotificationChannel> listChannels() {
+        return new ArrayList<>(channels.values());
+    }
+
+    public NotificationChannel getChannel(Long id) {
+        NotificationChannel ch = channels.get(id);
+        if (ch != null || id == null) {
+            return ch;
+        }
+        NotificationChannel loaded = channelRepository.findById(id).orElse(null);
+        if (loaded == null) {
+            return null;
+        }
+        NotificationChannel cached = channels.putIfAbsent(id, loaded);
+        if (cached != null) {
+            return cached;
+        }
+        channelListeners.forEach(listener -> listener.accept(loaded));
+        return loaded;
+    }
+}
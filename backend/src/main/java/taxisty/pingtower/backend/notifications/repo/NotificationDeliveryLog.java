@@ -0,0 +1,323 @@
+package taxisty.pingtower.backend.notifications.repo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import taxisty.pingtower.backend.monitoring.repository.NotificationDeliveryRepository;
+import taxisty.pingtower.backend.notifications.config.NotificationProperties;
+import taxisty.pingtower.backend.storage.model.NotificationDelivery;
+
+/**
+ * The most recent delivery attempts, newest first, with indexes by alert, channel and status.
+ * <p>
+ * Attempts get increasing ids and are stored in a ring of {@code capacity} slots, so the oldest is
+ * overwritten once the ring is full. Each index maps a key to its latest attempt, and every attempt
+ * links to the previous one with the same key, so a filtered page follows the links instead of
+ * scanning the ring. Appending takes no shared lock: the id comes from an atomic counter and an
+ * index update locks only the key's bin of a {@link ConcurrentHashMap}. Ids double as page cursors.
+ * <p>
+ * With {@code persist} enabled, attempts are also written to {@code notification_delivery} in batches
+ * by a background thread. Attempts that do not fit the write queue are counted and only kept in memory.
+ */
+@Component
+public class NotificationDeliveryLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDeliveryLog.class);
+
+    /**
+     * Attempts that match every non-null field
+     */
+    public record Filter(Long alertId, Long channelId, String status) {}
+
+    /**
+     * One page of attempts; {@code nextCursor} is null on the last page
+     */
+    public record Page(List<NotificationDelivery> items, Long nextCursor) {}
+
+    private enum Key { ALERT, CHANNEL, STATUS }
+
+    /**
+     * A stored attempt with the ids of the previous attempts of its alert, channel and status, 0 for none.
+     * The links are written under the index bin lock before the attempt becomes the key's latest.
+     */
+    private static final class Entry {
+        final long id;
+        final NotificationDelivery delivery;
+        volatile long previousForAlert;
+        volatile long previousForChannel;
+        volatile long previousForStatus;
+
+        Entry(long id, NotificationDelivery delivery) {
+            this.id = id;
+            this.delivery = delivery;
+        }
+
+        long previous(Key key) {
+            return switch (key) {
+                case ALERT -> previousForAlert;
+                case CHANNEL -> previousForChannel;
+                case STATUS -> previousForStatus;
+            };
+        }
+    }
+
+    private final int capacity;
+    private final AtomicReferenceArray<Entry> ring;
+    private final AtomicLong lastId = new AtomicLong();
+    private final Map<Long, Long> latestByAlert = new ConcurrentHashMap<>();
+    private final Map<Long, Long> latestByChannel = new ConcurrentHashMap<>();
+    private final Map<String, Long> latestByStatus = new ConcurrentHashMap<>();
+
+    private final NotificationProperties.DeliveryLog settings;
+    private final NotificationDeliveryRepository deliveryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<NotificationDelivery> pendingWrites;
+    private final MeterRegistry meterRegistry;
+    private final Counter droppedWrites;
+    private volatile Thread writer;
+
+    public NotificationDeliveryLog(NotificationProperties notificationProperties,
+                                   NotificationDeliveryRepository deliveryRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry) {
+        this.settings = notificationProperties.getDeliveryLog();
+        this.capacity = Math.max(1, settings.getCapacity());
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.deliveryRepository = deliveryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.pendingWrites = new ArrayBlockingQueue<>(Math.max(1, settings.getPersistQueueCapacity()));
+        this.meterRegistry = meterRegistry;
+        this.droppedWrites = Counter.builder("pingtower.notifications.deliveries.persist.dropped")
+                .description("Delivery attempts not persisted because the write queue was full")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        Gauge.builder("pingtower.notifications.deliveries.retained", this, NotificationDeliveryLog::size)
+                .description("Delivery attempts held in memory")
+                .register(meterRegistry);
+        if (settings.isPersist() && writer == null) {
+            writer = Thread.ofPlatform().name("notify-delivery-log").daemon(true).start(this::writeLoop);
+        }
+    }
+
+    /**
+     * Stops the writer after flushing the attempts still queued
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        Thread current = writer;
+        if (current == null) {
+            return;
+        }
+        writer = null;
+        current.interrupt();
+        try {
+            current.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * Stores the attempt and assigns its id
+     */
+    public NotificationDelivery append(NotificationDelivery delivery) {
+        long id = lastId.incrementAndGet();
+        delivery.setId(id);
+        Entry entry = new Entry(id, delivery);
+        ring.set(slot(id), entry);
+
+        if (delivery.alertId() != null) {
+            latestByAlert.compute(delivery.alertId(), (k, previous) -> {
+                entry.previousForAlert = previous == null ? 0 : previous;
+                return id;
+            });
+        }
+        if (delivery.channelId() != null) {
+            latestByChannel.compute(delivery.channelId(), (k, previous) -> {
+                entry.previousForChannel = previous == null ? 0 : previous;
+                return id;
+            });
+        }
+        if (delivery.status() != null) {
+            latestByStatus.compute(normalize(delivery.status()), (k, previous) -> {
+                entry.previousForStatus = previous == null ? 0 : previous;
+                return id;
+            });
+        }
+
+        if (writer != null && !pendingWrites.offer(delivery)) {
+            droppedWrites.increment();
+        }
+        return delivery;
+    }
+
+    /**
+     * Attempts after {@code cursor} (from the newest if null) that match the filter
+     */
+    public Page page(Filter filter, Long cursor, int limit) {
+        limit = Math.max(1, limit);
+        long oldest = oldestId(lastId.get());
+
+        // The most selective index drives the walk; the other fields are checked per attempt
+        Key key = filter.alertId() != null ? Key.ALERT
+                : filter.channelId() != null ? Key.CHANNEL
+                : filter.status() != null ? Key.STATUS
+                : null;
+        long next;
+        if (key == null) {
+            next = cursor == null ? lastId.get() : cursor - 1;
+        } else if (cursor == null) {
+            Long latest = switch (key) {
+                case ALERT -> latestByAlert.get(filter.alertId());
+                case CHANNEL -> latestByChannel.get(filter.channelId());
+                case STATUS -> latestByStatus.get(normalize(filter.status()));
+            };
+            next = latest == null ? 0 : latest;
+        } else {
+            // The cursor is the last attempt of the previous page, so it is on the key's chain
+            Entry last = entry(cursor);
+            next = last != null && matches(last.delivery, filter) ? last.previous(key) : 0;
+        }
+
+        List<NotificationDelivery> items = new ArrayList<>(Math.min(limit, 64) + 1);
+        while (next >= oldest && next > 0 && items.size() <= limit) {
+            Entry entry = entry(next);
+            if (entry == null) {
+                // Overwritten, or appended by a thread that has not stored it yet
+                if (key != null) {
+                    break;
+                }
+                next--;
+                continue;
+            }
+            if (matches(entry.delivery, filter)) {
+                items.add(entry.delivery);
+            }
+            next = key == null ? next - 1 : entry.previous(key);
+        }
+        Long nextCursor = null;
+        if (items.size() > limit) {
+            items.remove(items.size() - 1);
+            nextCursor = items.get(items.size() - 1).id();
+        }
+        return new Page(items, nextCursor);
+    }
+
+    /**
+     * Attempts currently held
+     */
+    public int size() {
+        return (int) Math.min(lastId.get(), capacity);
+    }
+
+    /**
+     * Drops index keys whose latest attempt has been overwritten
+     */
+    @Scheduled(fixedDelayString = "${pingtower.notifications.delivery-log.sweep-interval-millis:60000}")
+    public void sweep() {
+        long oldest = oldestId(lastId.get());
+        sweep(latestByAlert, oldest);
+        sweep(latestByChannel, oldest);
+        sweep(latestByStatus, oldest);
+    }
+
+    private Entry entry(long id) {
+        Entry entry = ring.get(slot(id));
+        // The slot may already hold a newer attempt, or not yet hold this one
+        return entry != null && entry.id == id ? entry : null;
+    }
+
+    private static boolean matches(NotificationDelivery delivery, Filter filter) {
+        return (filter.alertId() == null || filter.alertId().equals(delivery.alertId()))
+                && (filter.channelId() == null || filter.channelId().equals(delivery.channelId()))
+                && (filter.status() == null || normalize(filter.status()).equals(normalize(delivery.status())));
+    }
+
+    private int slot(long id) {
+        return (int) ((id - 1) % capacity);
+    }
+
+    private long oldestId(long newest) {
+        return Math.max(1, newest - capacity + 1);
+    }
+
+    private static <K> void sweep(Map<K, Long> latest, long oldest) {
+        for (Map.Entry<K, Long> entry : latest.entrySet()) {
+            if (entry.getValue() < oldest) {
+                // Conditional, so a key that has just got a new attempt stays
+                latest.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private static String normalize(String status) {
+        return status == null ? null : status.toUpperCase(Locale.ROOT);
+    }
+
+    private void writeLoop() {
+        List<NotificationDelivery> batch = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(pendingWrites.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            pendingWrites.drainTo(batch, Math.max(1, settings.getPersistBatchSize()) - 1);
+            persist(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush() {
+        List<NotificationDelivery> batch = new ArrayList<>();
+        while (pendingWrites.drainTo(batch, Math.max(1, settings.getPersistBatchSize())) > 0) {
+            persist(batch);
+            batch.clear();
+        }
+    }
+
+    private void persist(List<NotificationDelivery> batch) {
+        List<NotificationDelivery> rows = new ArrayList<>(batch.size());
+        for (NotificationDelivery d : batch) {
+            if (d.alertId() == null || d.channelId() == null) {
+                continue;
+            }
+            // A copy: the table assigns its own ids, the in-memory attempt keeps the log id
+            rows.add(new NotificationDelivery(null, d.alertId(), d.channelId(), d.status(), d.deliveryMethod(),
+                    d.attemptCount(), d.errorMessage(), d.sentAt(), d.deliveredAt()));
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> deliveryRepository.saveAll(rows));
+        } catch (Exception e) {
+            logger.error("Failed to persist {} delivery attempts", rows.size(), e);
+        }
+    }
+}
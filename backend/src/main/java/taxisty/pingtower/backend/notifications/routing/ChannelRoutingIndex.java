@@ -0,0 +1,188 @@
+package taxisty.pingtower.backend.notifications.routing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import taxisty.pingtower.backend.monitoring.repository.MonitoredServiceRepository;
+import taxisty.pingtower.backend.notifications.model.Severity;
+import taxisty.pingtower.backend.notifications.repo.NotificationChannelStore;
+import taxisty.pingtower.backend.storage.model.Alert;
+import taxisty.pingtower.backend.storage.model.MonitoredService;
+import taxisty.pingtower.backend.storage.model.NotificationChannel;
+
+/**
+ * Resolves the channels an alert goes to: the enabled channels of the user owning the alerted service.
+ * <p>
+ * If the owner has no enabled channel, or the service has no owner, the alert goes to the enabled
+ * default channels that belong to no user; a user's channels, default or not, only ever receive that
+ * user's alerts. A channel whose configuration has {@code "minSeverity"} only receives alerts of that
+ * severity or higher; resolved alerts and alerts of unknown severity always pass.
+ * <p>
+ * Routes are kept per user and rebuilt only when one of the user's channels is stored or deleted;
+ * service owners are loaded once per service and updated by {@link #onServiceSaved} and
+ * {@link #onServiceDeleted}.
+ */
+@Component
+public class ChannelRoutingIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChannelRoutingIndex.class);
+
+    /**
+     * Cached owner of a service that has none; {@link ConcurrentHashMap} does not hold nulls
+     */
+    private static final long NO_OWNER = -1L;
+
+    /**
+     * An indexed channel with its minimum severity rank, -1 for no filter
+     */
+    private record Route(NotificationChannel channel, int minSeverity) {
+
+        boolean accepts(Alert alert, int severity) {
+            return minSeverity < 0 || severity < 0 || severity >= minSeverity || alert.isResolved();
+        }
+    }
+
+    private final NotificationChannelStore channels;
+    private final MonitoredServiceRepository serviceRepository;
+    private final ObjectMapper mapper;
+    private final Map<Long, Long> serviceOwners = new ConcurrentHashMap<>();
+    // Keyed by owner; default channels without a user are kept under NO_OWNER
+    private final Map<Long, List<Route>> routesByUser = new ConcurrentHashMap<>();
+
+    public ChannelRoutingIndex(NotificationChannelStore channels,
+                               MonitoredServiceRepository serviceRepository,
+                               ObjectMapper mapper) {
+        this.channels = channels;
+        this.serviceRepository = serviceRepository;
+        this.mapper = mapper;
+    }
+
+    @PostConstruct
+    public void start() {
+        // Register first: indexing a channel twice only replaces its route
+        channels.addChannelListener(this::onChannelSaved);
+        channels.listChannels().forEach(this::onChannelSaved);
+    }
+
+    /**
+     * Channels the alert should be delivered to
+     */
+    public List<NotificationChannel> targets(Alert alert) {
+        List<Route> routes = routesByUser.getOrDefault(ownerOf(alert.serviceId()), List.of());
+        if (routes.isEmpty()) {
+            routes = routesByUser.getOrDefault(NO_OWNER, List.of());
+        }
+        int severity = Severity.rank(alert.severity());
+        List<NotificationChannel> targets = new ArrayList<>(routes.size());
+        for (Route route : routes) {
+            if (route.accepts(alert, severity)) {
+                targets.add(route.channel());
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Whether the channel may receive the alert: it belongs to the owner of the alerted service,
+     * or it is a default channel of no user
+     */
+    public boolean mayReceive(Alert alert, NotificationChannel channel) {
+        if (channel.userId() == null) {
+            return channel.isDefault();
+        }
+        return channel.userId() == ownerOf(alert.serviceId());
+    }
+
+    /**
+     * Records the owner of a created or updated service
+     */
+    public void onServiceSaved(MonitoredService service) {
+        if (service.getId() != null) {
+            serviceOwners.put(service.getId(), service.getUserId() == null ? NO_OWNER : service.getUserId());
+        }
+    }
+
+    public void onServiceDeleted(Long serviceId) {
+        if (serviceId != null) {
+            serviceOwners.remove(serviceId);
+        }
+    }
+
+    /**
+     * Replaces the routes of a stored channel. The user's route list is copied, so concurrent
+     * {@link #targets} calls see either the old or the new list.
+     */
+    synchronized void onChannelSaved(NotificationChannel channel) {
+        Route route = channel.isEnabled() ? new Route(channel, minSeverity(channel)) : null;
+        long owner = channel.userId() == null ? NO_OWNER : channel.userId();
+        if (owner == NO_OWNER && !channel.isDefault()) {
+            route = null;
+        }
+        List<Route> routes = replace(routesByUser.getOrDefault(owner, List.of()), channel.id(), route);
+        if (routes.isEmpty()) {
+            routesByUser.remove(owner);
+        } else {
+            routesByUser.put(owner, routes);
+        }
+    }
+
+    private long ownerOf(Long serviceId) {
+        if (serviceId == null) {
+            return NO_OWNER;
+        }
+        Long owner = serviceOwners.get(serviceId);
+        if (owner != null) {
+            return owner;
+        }
+        try {
+            owner = serviceRepository.findUserIdById(serviceId).orElse(NO_OWNER);
+        } catch (Exception e) {
+            // Not cached, so the next alert for the service looks the owner up again
+            logger.warn("Failed to look up owner of service {}: {}", serviceId, e.getMessage());
+            return NO_OWNER;
+        }
+        serviceOwners.putIfAbsent(serviceId, owner);
+        return owner;
+    }
+
+    private int minSeverity(NotificationChannel channel) {
+        try {
+            JsonNode cfg = mapper.readTree(channel.configuration());
+            JsonNode value = cfg == null ? null : cfg.get("minSeverity");
+            if (value == null || value.isNull()) {
+                return -1;
+            }
+            int rank = Severity.rank(value.asText());
+            if (rank < 0) {
+                logger.warn("Channel {} has unknown minSeverity '{}', not filtering", channel.id(), value.asText());
+            }
+            return rank;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static List<Route> replace(List<Route> routes, Long channelId, Route route) {
+        List<Route> copy = new ArrayList<>(routes.size() + 1);
+        for (Route existing : routes) {
+            if (!Objects.equals(existing.channel().id(), channelId)) {
+                copy.add(existing);
+            }
+        }
+        if (route != null) {
+            copy.add(route);
+        }
+        return List.copyOf(copy);
+    }
+}
@@ -0,0 +1,278 @@
+package taxisty.pingtower.backend.scheduler.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+import taxisty.pingtower.backend.monitoring.repository.ClusterNodeRepository;
+import taxisty.pingtower.backend.monitoring.repository.ShardLeaseRepository;
+import taxisty.pingtower.backend.scheduler.service.CheckOwnership;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Partitions monitored services across live backend nodes using shard leases in Postgres.
+ * <p>
+ * Every service maps to one of a fixed number of shards. On each check-in the node records a
+ * heartbeat, reads the set of live nodes and uses rendezvous hashing to decide which shards it
+ * should own. Shards that now belong to another node are released; wanted shards are acquired
+ * with a conditional update that only succeeds when the lease is free, expired or already ours.
+ * A node that joins therefore takes over its shards once the previous owners release them, and
+ * the shards of a node that dies move to the survivors after its leases expire.
+ * <p>
+ * Heartbeats, liveness and lease expiry are all computed from the database clock, so nodes with
+ * skewed clocks still agree on who is alive. A node only treats a shard as owned until shortly
+ * before its lease expires, measured from the start of the check-in that renewed it, so a node
+ * that loses the database stops probing before anyone else can take its shards over.
+ * Instances are plain objects, so several nodes can run in one JVM against the same database.
+ */
+public class ShardLeaseCoordinator implements CheckOwnership {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardLeaseCoordinator.class);
+    private static final long GOLDEN_RATIO_64 = 0x9E3779B97F4A7C15L;
+
+    private final String nodeId;
+    private final long nodeHash;
+    private final int shardCount;
+    private final long checkinIntervalMillis;
+    private final long leaseMillis;
+    private final ClusterNodeRepository nodeRepository;
+    private final ShardLeaseRepository leaseRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final List<Consumer<LongPredicate>> ownershipListeners = new CopyOnWriteArrayList<>();
+
+    private volatile BitSet ownedShards = new BitSet();
+    private volatile long ownedUntilMillis;
+    private volatile int liveNodeCount;
+    private ScheduledExecutorService checkinExecutor;
+
+    public ShardLeaseCoordinator(String nodeId,
+                                 int shardCount,
+                                 long checkinIntervalMillis,
+                                 ClusterNodeRepository nodeRepository,
+                                 ShardLeaseRepository leaseRepository,
+                                 TransactionTemplate transactionTemplate) {
+        this.nodeId = nodeId;
+        this.nodeHash = hash(nodeId);
+        this.shardCount = shardCount;
+        this.checkinIntervalMillis = checkinIntervalMillis;
+        this.leaseMillis = checkinIntervalMillis * 3;
+        this.nodeRepository = nodeRepository;
+        this.leaseRepository = leaseRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Creates missing shard rows and starts the periodic check-in.
+     */
+    public synchronized void start() {
+        if (checkinExecutor != null) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int shard = 0; shard < shardCount; shard++) {
+                leaseRepository.createIfMissing(shard);
+            }
+        });
+
+        checkinExecutor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("cluster-checkin-" + nodeId).daemon(true).factory());
+        checkinExecutor.scheduleWithFixedDelay(this::checkinSafely, 0, checkinIntervalMillis, TimeUnit.MILLISECONDS);
+        logger.info("Started cluster node {}: shards={}, checkin={}ms, lease={}ms",
+                   nodeId, shardCount, checkinIntervalMillis, leaseMillis);
+    }
+
+    /**
+     * Stops the check-in and releases all shards held by this node so that the remaining
+     * nodes can take them over at their next check-in.
+     */
+    public synchronized void stop() {
+        if (checkinExecutor == null) {
+            return;
+        }
+        checkinExecutor.shutdownNow();
+        checkinExecutor = null;
+
+        BitSet released = ownedShards;
+        ownedShards = new BitSet();
+        ownedUntilMillis = 0;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                released.stream().forEach(shard -> leaseRepository.release(shard, nodeId));
+                nodeRepository.deleteById(nodeId);
+            });
+            logger.info("Stopped cluster node {} and released {} shards", nodeId, released.cardinality());
+        } catch (Exception e) {
+            logger.warn("Failed to release shards of cluster node {}; they will expire", nodeId, e);
+        }
+        notifyOwnershipChange(released);
+    }
+
+    @Override
+    public void addOwnershipChangeListener(Consumer<LongPredicate> listener) {
+        ownershipListeners.add(listener);
+    }
+
+    @Override
+    public boolean isClustered() {
+        return true;
+    }
+
+    @Override
+    public boolean owns(long serviceId) {
+        return System.currentTimeMillis() < ownedUntilMillis && ownedShards.get(shardOf(serviceId));
+    }
+
+    /**
+     * Gets the shard a service belongs to.
+     */
+    public int shardOf(long serviceId) {
+        long h = serviceId * GOLDEN_RATIO_64;
+        return (int) Math.floorMod(h ^ (h >>> 32), (long) shardCount);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Gets the number of shards currently held by this node.
+     */
+    public int getOwnedShardCount() {
+        return System.currentTimeMillis() < ownedUntilMillis ? ownedShards.cardinality() : 0;
+    }
+
+    /**
+     * Gets the number of live nodes seen at the last check-in.
+     */
+    public int getLiveNodeCount() {
+        return liveNodeCount;
+    }
+
+    /**
+     * Runs one check-in: heartbeat, rebalance and lease renewal.
+     * Called periodically after {@link #start()}; exposed for deterministic tests.
+     */
+    public void checkin() {
+        long startedAt = System.currentTimeMillis();
+        BitSet before = ownedShards;
+        // Shards held until the leases lapsed were not probed in between
+        boolean lapsed = startedAt >= ownedUntilMillis;
+
+        BitSet acquired = transactionTemplate.execute(status -> {
+            nodeRepository.heartbeat(nodeId);
+            nodeRepository.deleteStale(leaseMillis * 10);
+            List<String> liveNodes = nodeRepository.findLiveNodeIds(leaseMillis);
+            if (!liveNodes.contains(nodeId)) {
+                liveNodes = new ArrayList<>(liveNodes);
+                liveNodes.add(nodeId);
+            }
+            liveNodeCount = liveNodes.size();
+
+            long[] liveHashes = liveNodes.stream().mapToLong(ShardLeaseCoordinator::hash).toArray();
+            BitSet preferred = new BitSet(shardCount);
+            for (int shard = 0; shard < shardCount; shard++) {
+                if (isPreferredOwner(shard, liveHashes)) {
+                    preferred.set(shard);
+                }
+            }
+
+            // Stop probing shards that move away before their leases are released
+            BitSet toRelease = (BitSet) ownedShards.clone();
+            toRelease.andNot(preferred);
+            if (!toRelease.isEmpty()) {
+                BitSet kept = (BitSet) ownedShards.clone();
+                kept.and(preferred);
+                ownedShards = kept;
+                toRelease.stream().forEach(shard -> leaseRepository.release(shard, nodeId));
+            }
+
+            BitSet held = new BitSet(shardCount);
+            preferred.stream().forEach(shard -> {
+                if (leaseRepository.tryAcquire(shard, nodeId, leaseMillis) == 1) {
+                    held.set(shard);
+                }
+            });
+            return held;
+        });
+
+        BitSet previous = ownedShards;
+        ownedShards = acquired;
+        // Stop trusting the leases one check-in before they expire in the database. The local
+        // clock only measures the elapsed time here; expiry itself is judged by the database clock.
+        ownedUntilMillis = startedAt + leaseMillis - checkinIntervalMillis;
+
+        if (!previous.equals(acquired)) {
+            logger.info("Cluster node {} now owns {} of {} shards ({} live nodes)",
+                       nodeId, acquired.cardinality(), shardCount, liveNodeCount);
+        }
+
+        BitSet changed = (BitSet) before.clone();
+        if (lapsed) {
+            changed.or(acquired);
+        } else {
+            changed.xor(acquired);
+        }
+        notifyOwnershipChange(changed);
+    }
+
+    private void notifyOwnershipChange(BitSet shards) {
+        if (shards.isEmpty()) {
+            return;
+        }
+        LongPredicate affected = serviceId -> shards.get(shardOf(serviceId));
+        for (Consumer<LongPredicate> listener : ownershipListeners) {
+            try {
+                listener.accept(affected);
+            } catch (Exception e) {
+                logger.error("Ownership change listener failed on cluster node {}", nodeId, e);
+            }
+        }
+    }
+
+    private void checkinSafely() {
+        try {
+            checkin();
+        } catch (Exception e) {
+            logger.error("Cluster check-in failed for node {}", nodeId, e);
+        }
+    }
+
+    /**
+     * Rendezvous hashing: the node with the highest score for a shard owns it. Adding or
+     * removing a node only moves the shards that node wins or loses.
+     */
+    private boolean isPreferredOwner(int shard, long[] liveHashes) {
+        long own = score(nodeHash, shard);
+        for (long other : liveHashes) {
+            if (other != nodeHash && Long.compareUnsigned(score(other, shard), own) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long score(long nodeHash, int shard) {
+        long h = nodeHash ^ (shard * GOLDEN_RATIO_64);
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    private static long hash(String nodeId) {
+        long h = 0xCBF29CE484222325L;
+        for (byte b : nodeId.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ b) * 0x100000001B3L;
+        }
+        return h;
+    }
+}
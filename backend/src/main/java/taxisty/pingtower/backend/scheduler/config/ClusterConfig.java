@@ -0,0 +1,76 @@
+package taxisty.pingtower.backend.scheduler.config;
+
+import java.net.InetAddress;
+import java.util.UUID;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import taxisty.pingtower.backend.monitoring.repository.ClusterNodeRepository;
+import taxisty.pingtower.backend.monitoring.repository.ShardLeaseRepository;
+import taxisty.pingtower.backend.scheduler.cluster.ShardLeaseCoordinator;
+import taxisty.pingtower.backend.scheduler.service.CheckOwnership;
+
+/**
+ * Configuration of check ownership.
+ * With {@code pingtower.scheduler.clustered=true} services are partitioned across nodes through
+ * shard leases in Postgres; otherwise this node executes every check.
+ */
+@Configuration
+public class ClusterConfig {
+
+    /**
+     * Shard lease coordinator for clustered execution.
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(prefix = "pingtower.scheduler", name = "clustered", havingValue = "true")
+    public ShardLeaseCoordinator shardLeaseCoordinator(SchedulerProperties schedulerProperties,
+                                                       ClusterNodeRepository nodeRepository,
+                                                       ShardLeaseRepository leaseRepository,
+                                                       PlatformTransactionManager transactionManager,
+                                                       MeterRegistry meterRegistry) {
+        ShardLeaseCoordinator coordinator = new ShardLeaseCoordinator(
+                resolveNodeId(schedulerProperties),
+                schedulerProperties.getClusterShardCount(),
+                schedulerProperties.getClusterCheckinInterval(),
+                nodeRepository,
+                leaseRepository,
+                new TransactionTemplate(transactionManager));
+
+        Gauge.builder("pingtower.cluster.shards.owned", coordinator, ShardLeaseCoordinator::getOwnedShardCount)
+                .description("Shards whose checks this node executes")
+                .register(meterRegistry);
+        Gauge.builder("pingtower.cluster.nodes.live", coordinator, ShardLeaseCoordinator::getLiveNodeCount)
+                .description("Live nodes seen at the last cluster check-in")
+                .register(meterRegistry);
+        return coordinator;
+    }
+
+    /**
+     * Standalone node: every service is owned locally.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "pingtower.scheduler", name = "clustered", havingValue = "false", matchIfMissing = true)
+    public CheckOwnership standaloneCheckOwnership() {
+        return serviceId -> true;
+    }
+
+    private String resolveNodeId(SchedulerProperties schedulerProperties) {
+        String nodeId = schedulerProperties.getClusterNodeId();
+        if (nodeId != null && !nodeId.isBlank()) {
+            return nodeId;
+        }
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -14,21 +14,56 @@ public class SchedulerProperties {
      */
     private String instanceName = "PingTowerScheduler";
     
+    /**
+     * Scheduling backend: "quartz" (one Quartz job per service) or
+     * "timing-wheel" (in-process hierarchical timing wheel for large fleets).
+     */
+    private String backend = "quartz";
+    
+    /**
+     * Tick duration of the timing-wheel backend in milliseconds.
+     */
+    private long wheelTickMillis = 100;
+    
     /**
      * Number of threads in the scheduler thread pool.
+     * These threads only fire triggers; checks run on the virtual-thread execution engine.
      */
     private int threadCount = 10;
     
+    /**
+     * Maximum number of checks executing at the same time across all services.
+     */
+    private int maxInFlightChecks = 10000;
+    
+    /**
+     * Maximum number of checks waiting for an in-flight permit.
+     * Checks fired while the queue is full are skipped until the next trigger.
+     */
+    private int maxQueuedChecks = 100000;
+    
     /**
      * Whether this scheduler instance is part of a cluster.
+     * Clustered nodes split the monitored services between them through shard leases in Postgres.
      */
     private boolean clustered = false;
     
     /**
-     * Cluster check-in interval in milliseconds.
+     * Cluster check-in interval in milliseconds. Shard leases last three check-in intervals.
      */
     private long clusterCheckinInterval = 20000;
     
+    /**
+     * Number of shards the monitored services are partitioned into.
+     * Must be the same on every node of the cluster.
+     */
+    private int clusterShardCount = 256;
+    
+    /**
+     * Unique id of this node in the cluster; generated from the host name when empty.
+     */
+    private String clusterNodeId;
+    
     /**
      * Misfire threshold in milliseconds.
      * Jobs that are delayed by more than this amount are considered misfired.
@@ -50,6 +85,21 @@ public class SchedulerProperties {
      */
     private int defaultTimeoutSeconds = 30;
     
+    /**
+     * Preferred HTTP version of the shared probe clients (HTTP_1_1 or HTTP_2).
+     */
+    private String probeHttpVersion = "HTTP_2";
+    
+    /**
+     * Optional outbound proxy host for probe requests; empty means direct connections.
+     */
+    private String probeProxyHost;
+    
+    /**
+     * Outbound proxy port for probe requests.
+     */
+    private int probeProxyPort = 8080;
+    
     /**
      * Whether to automatically start the scheduler on application startup.
      */
@@ -65,6 +115,22 @@ public class SchedulerProperties {
         this.instanceName = instanceName;
     }
     
+    public String getBackend() {
+        return backend;
+    }
+    
+    public void setBackend(String backend) {
+        this.backend = backend;
+    }
+    
+    public long getWheelTickMillis() {
+        return wheelTickMillis;
+    }
+    
+    public void setWheelTickMillis(long wheelTickMillis) {
+        this.wheelTickMillis = wheelTickMillis;
+    }
+    
     public int getThreadCount() {
         return threadCount;
     }
@@ -73,6 +139,22 @@ public class SchedulerProperties {
         this.threadCount = threadCount;
     }
     
+    public int getMaxInFlightChecks() {
+        return maxInFlightChecks;
+    }
+    
+    public void setMaxInFlightChecks(int maxInFlightChecks) {
+        this.maxInFlightChecks = maxInFlightChecks;
+    }
+    
+    public int getMaxQueuedChecks() {
+        return maxQueuedChecks;
+    }
+    
+    public void setMaxQueuedChecks(int maxQueuedChecks) {
+        this.maxQueuedChecks = maxQueuedChecks;
+    }
+    
     public boolean isClustered() {
         return clustered;
     }
@@ -89,6 +171,22 @@ public class SchedulerProperties {
         this.clusterCheckinInterval = clusterCheckinInterval;
     }
     
+    public int getClusterShardCount() {
+        return clusterShardCount;
+    }
+    
+    public void setClusterShardCount(int clusterShardCount) {
+        this.clusterShardCount = clusterShardCount;
+    }
+    
+    public String getClusterNodeId() {
+        return clusterNodeId;
+    }
+    
+    public void setClusterNodeId(String clusterNodeId) {
+        this.clusterNodeId = clusterNodeId;
+    }
+    
     public long getMisfireThreshold() {
         return misfireThreshold;
     }
@@ -121,6 +219,30 @@ public class SchedulerProperties {
         this.defaultTimeoutSeconds = defaultTimeoutSeconds;
     }
     
+    public String getProbeHttpVersion() {
+        return probeHttpVersion;
+    }
+    
+    public void setProbeHttpVersion(String probeHttpVersion) {
+        this.probeHttpVersion = probeHttpVersion;
+    }
+    
+    public String getProbeProxyHost() {
+        return probeProxyHost;
+    }
+    
+    public void setProbeProxyHost(String probeProxyHost) {
+        this.probeProxyHost = probeProxyHost;
+    }
+    
+    public int getProbeProxyPort() {
+        return probeProxyPort;
+    }
+    
+    public void setProbeProxyPort(int probeProxyPort) {
+        this.probeProxyPort = probeProxyPort;
+    }
+    
     public boolean isAutoStart() {
         return autoStart;
     }
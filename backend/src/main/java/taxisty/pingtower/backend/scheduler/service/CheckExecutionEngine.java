@@ -0,0 +1,187 @@
+package taxisty.pingtower.backend.scheduler.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import taxisty.pingtower.backend.scheduler.config.SchedulerProperties;
+import taxisty.pingtower.backend.scheduler.task.TaskExecutionContext;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes monitoring checks on virtual threads, decoupled from the trigger threads.
+ * Quartz only fires triggers and hands the check over to this engine, so a slow target
+ * blocks its own virtual thread instead of a scheduler worker. Probes are sent with
+ * {@code HttpClient.sendAsync}, so no thread is parked while a request is on the wire.
+ * A global semaphore caps the number of checks talking to the network at the same time;
+ * a permit is held until the result is stored, and checks waiting for one are counted as queued.
+ */
+@Service
+public class CheckExecutionEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckExecutionEngine.class);
+
+    private final MonitoringExecutorService executorService;
+    private final CheckOwnership ownership;
+    private final ExecutorService virtualThreads;
+    private final Semaphore inFlightPermits;
+    private final int maxQueuedChecks;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Set<Long> pendingServices = ConcurrentHashMap.newKeySet();
+
+    private final Counter submittedCounter;
+    private final Counter overlapSkippedCounter;
+    private final Counter rejectedCounter;
+    private final Counter notOwnedCounter;
+    private final Timer queueWaitTimer;
+
+    public CheckExecutionEngine(MonitoringExecutorService executorService,
+                                CheckOwnership ownership,
+                                SchedulerProperties schedulerProperties,
+                                MeterRegistry meterRegistry) {
+        this.executorService = executorService;
+        this.ownership = ownership;
+        this.virtualThreads = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("check-", 0).factory());
+        this.inFlightPermits = new Semaphore(schedulerProperties.getMaxInFlightChecks());
+        this.maxQueuedChecks = schedulerProperties.getMaxQueuedChecks();
+
+        Gauge.builder("pingtower.checks.in.flight", inFlight, AtomicInteger::get)
+                .description("Checks currently executing")
+                .register(meterRegistry);
+        Gauge.builder("pingtower.checks.queued", queued, AtomicInteger::get)
+                .description("Checks waiting for an in-flight permit")
+                .register(meterRegistry);
+        this.submittedCounter = Counter.builder("pingtower.checks.submitted").register(meterRegistry);
+        this.overlapSkippedCounter = Counter.builder("pingtower.checks.skipped")
+                .tag("reason", "overlap")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("pingtower.checks.skipped")
+                .tag("reason", "queue_full")
+                .register(meterRegistry);
+        this.notOwnedCounter = Counter.builder("pingtower.checks.skipped")
+                .tag("reason", "not_owner")
+                .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("pingtower.checks.queue.wait")
+                .description("Time a check waited for an in-flight permit")
+                .register(meterRegistry);
+
+        logger.info("Initialized CheckExecutionEngine: maxInFlight={}, maxQueued={}",
+                   schedulerProperties.getMaxInFlightChecks(), maxQueuedChecks);
+    }
+
+    /**
+     * Submits a check for asynchronous execution and returns immediately.
+     * A check is dropped if the service is owned by another cluster node, if the previous check
+     * of the same service is still queued or running, or if the queue is already at capacity.
+     *
+     * @param serviceId The service ID to monitor
+     * @param context The execution context
+     * @return true if the check was accepted, false if it was skipped
+     */
+    public boolean submit(Long serviceId, TaskExecutionContext context) {
+        if (!ownership.owns(serviceId)) {
+            notOwnedCounter.increment();
+            return false;
+        }
+        return enqueue(serviceId, context);
+    }
+
+    /**
+     * Submits a manually requested check. Manual checks run on the node that received the
+     * request, regardless of cluster ownership.
+     *
+     * @param serviceId The service ID to monitor
+     * @param context The execution context
+     * @return true if the check was accepted, false if it was skipped
+     */
+    public boolean submitManual(Long serviceId, TaskExecutionContext context) {
+        return enqueue(serviceId, context);
+    }
+
+    private boolean enqueue(Long serviceId, TaskExecutionContext context) {
+
+        if (!pendingServices.add(serviceId)) {
+            overlapSkippedCounter.increment();
+            logger.debug("Skipping check for service {} - previous check still pending", serviceId);
+            return false;
+        }
+
+        if (queued.incrementAndGet() > maxQueuedChecks) {
+            queued.decrementAndGet();
+            pendingServices.remove(serviceId);
+            rejectedCounter.increment();
+            logger.warn("Check queue is full ({}), skipping check for service {}", maxQueuedChecks, serviceId);
+            return false;
+        }
+
+        submittedCounter.increment();
+        long enqueuedAt = System.nanoTime();
+        virtualThreads.execute(() -> runCheck(serviceId, context, enqueuedAt));
+        return true;
+    }
+
+    private void runCheck(Long serviceId, TaskExecutionContext context, long enqueuedAt) {
+        try {
+            inFlightPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued.decrementAndGet();
+            pendingServices.remove(serviceId);
+            logger.debug("Check for service {} interrupted while waiting for a permit", serviceId);
+            return;
+        }
+        queued.decrementAndGet();
+        inFlight.incrementAndGet();
+        queueWaitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+
+        // The permit is held until the probe and its persistence stage complete;
+        // the virtual thread itself is released as soon as the request is sent.
+        CompletableFuture<Void> check;
+        try {
+            check = executorService.executeMonitoringAsync(serviceId, context, virtualThreads);
+        } catch (RuntimeException e) {
+            logger.error("Failed to start check for service {}", serviceId, e);
+            check = CompletableFuture.completedFuture(null);
+        }
+        check.whenComplete((ignored, error) -> {
+            inFlight.decrementAndGet();
+            inFlightPermits.release();
+            pendingServices.remove(serviceId);
+        });
+    }
+
+    /**
+     * Gets the number of checks currently executing.
+     */
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * Gets the number of checks waiting for an in-flight permit.
+     */
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        logger.info("Shutting down check execution engine: inFlight={}, queued={}", inFlight.get(), queued.get());
+        virtualThreads.shutdownNow();
+    }
+}
@@ -0,0 +1,32 @@
+package taxisty.pingtower.backend.scheduler.service;
+
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+/**
+ * Decides whether this node executes the checks of a service.
+ * A standalone node owns every service; in a cluster each service is owned by exactly one live node.
+ */
+@FunctionalInterface
+public interface CheckOwnership {
+
+    /**
+     * Whether this node should execute checks of the given service right now.
+     */
+    boolean owns(long serviceId);
+
+    /**
+     * Registers a callback run whenever this node gains or loses services, with a test matching
+     * the service ids concerned. A standalone node owns every service and never calls it.
+     */
+    default void addOwnershipChangeListener(Consumer<LongPredicate> listener) {
+    }
+
+    /**
+     * Whether other nodes run checks too. Manual checks run on the node that received the request,
+     * so in a cluster results of a service may also commit on nodes that do not own it.
+     */
+    default boolean isClustered() {
+        return false;
+    }
+}
@@ -0,0 +1,106 @@
+package taxisty.pingtower.backend.scheduler.service;
+
+import org.springframework.stereotype.Component;
+import taxisty.pingtower.backend.scheduler.wheel.LongObjectHashMap;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assigns each interval-scheduled service a fixed phase inside its interval, so that
+ * services with the same interval do not all fire in the same second.
+ * The phase is derived from the service id with a golden-ratio (Fibonacci) hash, which
+ * spreads consecutive ids almost evenly over the interval. Fire times are aligned to the
+ * epoch, so a service keeps the same offset across restarts and reschedules.
+ * Also keeps the planned phases to report how many checks are planned per second.
+ */
+@Component
+public class CheckPhasePlanner {
+
+    private static final long GOLDEN_RATIO_64 = 0x9E3779B97F4A7C15L;
+
+    private final LongObjectHashMap<long[]> plannedPhases = new LongObjectHashMap<>(1024);
+
+    /**
+     * Gets the phase of a service within its interval, in whole seconds.
+     */
+    public long phaseSeconds(long serviceId, long intervalSeconds) {
+        if (intervalSeconds <= 1) {
+            return 0;
+        }
+        // Top 53 bits of the hash as a fraction in [0, 1)
+        double fraction = ((serviceId * GOLDEN_RATIO_64) >>> 11) * 0x1.0p-53;
+        return (long) (fraction * intervalSeconds);
+    }
+
+    /**
+     * Plans the first fire time of a service: the earliest time at or after {@code nowMillis}
+     * whose offset from the epoch modulo the interval equals the service phase.
+     * The plan is recorded for {@link #plannedChecksPerSecond(long, int)}.
+     *
+     * @return Epoch millis of the first check
+     */
+    public long planFirstFire(long serviceId, long intervalSeconds, long nowMillis) {
+        long intervalMillis = TimeUnit.SECONDS.toMillis(Math.max(1, intervalSeconds));
+        long phaseMillis = TimeUnit.SECONDS.toMillis(phaseSeconds(serviceId, intervalSeconds));
+
+        synchronized (plannedPhases) {
+            plannedPhases.put(serviceId, new long[] {intervalMillis, phaseMillis});
+        }
+
+        long base = nowMillis - Math.floorMod(nowMillis, intervalMillis);
+        long firstFire = base + phaseMillis;
+        return firstFire < nowMillis ? firstFire + intervalMillis : firstFire;
+    }
+
+    /**
+     * Forgets the plan of a service that is no longer scheduled.
+     */
+    public void release(long serviceId) {
+        synchronized (plannedPhases) {
+            plannedPhases.remove(serviceId);
+        }
+    }
+
+    /**
+     * Forgets all plans.
+     */
+    public void releaseAll() {
+        synchronized (plannedPhases) {
+            plannedPhases.clear();
+        }
+    }
+
+    /**
+     * Counts the planned checks for each second of a window.
+     *
+     * @param fromMillis Start of the window, rounded down to a whole second
+     * @param seconds Window length in seconds
+     * @return Number of checks planned in each second of the window
+     */
+    public int[] plannedChecksPerSecond(long fromMillis, int seconds) {
+        int[] histogram = new int[seconds];
+        long windowStart = fromMillis - Math.floorMod(fromMillis, 1000L);
+        long windowEnd = windowStart + TimeUnit.SECONDS.toMillis(seconds);
+
+        synchronized (plannedPhases) {
+            plannedPhases.forEachValue(plan -> {
+                long intervalMillis = plan[0];
+                long phaseMillis = plan[1];
+                long fire = windowStart + Math.floorMod(phaseMillis - windowStart, intervalMillis);
+                for (; fire < windowEnd; fire += intervalMillis) {
+                    histogram[(int) ((fire - windowStart) / 1000)]++;
+                }
+            });
+        }
+        return histogram;
+    }
+
+    /**
+     * Gets the number of services with a planned phase.
+     */
+    public int plannedServiceCount() {
+        synchronized (plannedPhases) {
+            return plannedPhases.size();
+        }
+    }
+}
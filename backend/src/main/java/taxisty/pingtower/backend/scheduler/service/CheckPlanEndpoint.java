@@ -0,0 +1,65 @@
+package taxisty.pingtower.backend.scheduler.service;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.IntSummaryStatistics;
+
+/**
+ * Actuator endpoint {@code /actuator/checkplan} reporting how many checks are planned
+ * for each second of the upcoming window, to verify that check start times are spread evenly.
+ */
+@Component
+@Endpoint(id = "checkplan")
+public class CheckPlanEndpoint {
+
+    private static final int DEFAULT_WINDOW_SECONDS = 300;
+    private static final int MAX_WINDOW_SECONDS = 86400;
+
+    private final CheckPhasePlanner phasePlanner;
+
+    public CheckPlanEndpoint(CheckPhasePlanner phasePlanner) {
+        this.phasePlanner = phasePlanner;
+    }
+
+    /**
+     * Gets the planned checks per second for the next {@code windowSeconds} seconds.
+     */
+    @ReadOperation
+    public CheckPlan checkPlan(@Nullable Integer windowSeconds) {
+        int window = windowSeconds == null
+                ? DEFAULT_WINDOW_SECONDS
+                : Math.max(1, Math.min(windowSeconds, MAX_WINDOW_SECONDS));
+        long from = System.currentTimeMillis();
+        int[] perSecond = phasePlanner.plannedChecksPerSecond(from, window);
+        IntSummaryStatistics stats = Arrays.stream(perSecond).summaryStatistics();
+
+        return new CheckPlan(
+                from,
+                window,
+                phasePlanner.plannedServiceCount(),
+                stats.getSum(),
+                stats.getMin(),
+                stats.getMax(),
+                stats.getAverage(),
+                perSecond
+        );
+    }
+
+    /**
+     * Planned check load of a window.
+     */
+    public record CheckPlan(
+            long fromEpochMillis,
+            int windowSeconds,
+            int plannedServices,
+            long totalChecks,
+            int minPerSecond,
+            int maxPerSecond,
+            double avgPerSecond,
+            int[] plannedPerSecond
+    ) {}
+}
@@ -19,19 +19,10 @@ public interface MonitoringDataService {
     MonitoredService getMonitoredService(Long serviceId);
     
     /**
-     * Saves a check result to storage.
+     * Queues a check result for storage. The result is written behind in batches, so its id is
+     * assigned only when the batch commits; failure alerting runs after that commit, not here.
      * 
      * @param checkResult The check result to save
-     * @return Saved check result with generated ID
      */
-    CheckResult saveCheckResult(CheckResult checkResult);
-    
-    /**
-     * Handles failure alerting when a monitoring check fails.
-     * This method should trigger alert processing based on configured rules.
-     * 
-     * @param service The monitored service
-     * @param failedResult The failed check result
-     */
-    void handleFailureAlert(MonitoredService service, CheckResult failedResult);
-}
\ No newline at end of file
+    void saveCheckResult(CheckResult checkResult);
+}
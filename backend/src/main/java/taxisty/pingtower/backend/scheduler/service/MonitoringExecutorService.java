@@ -13,6 +13,9 @@ import taxisty.pingtower.backend.storage.model.MonitoredService;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -44,66 +47,101 @@ public class MonitoringExecutorService {
     
     /**
      * Executes monitoring for a service with the given execution context.
+     * Blocks until the check has been executed and its result stored.
      * 
      * @param serviceId The service ID to monitor
      * @param context The execution context
      */
     public void executeMonitoring(Long serviceId, TaskExecutionContext context) {
+        executeMonitoringAsync(serviceId, context, Runnable::run).join();
+    }
+    
+    /**
+     * Executes monitoring for a service without blocking on the network.
+     * The probe runs on the task's asynchronous path; storing the result and alerting
+     * run as a follow-up stage on the given executor, so a slow database never holds
+     * up the HTTP client threads.
+     * 
+     * @param serviceId The service ID to monitor
+     * @param context The execution context
+     * @param persistenceExecutor Executor used to store the result and handle alerts
+     * @return Future completed once the result is stored; never completed exceptionally
+     */
+    public CompletableFuture<Void> executeMonitoringAsync(Long serviceId, TaskExecutionContext context,
+                                                          Executor persistenceExecutor) {
+        MonitoredService service;
+        ScheduledTask task;
+        String taskType;
         try {
-            MonitoredService service = dataService.getMonitoredService(serviceId);
+            service = dataService.getMonitoredService(serviceId);
             
             if (service == null) {
                 logger.error("Service not found: {}", serviceId);
-                return;
+                return CompletableFuture.completedFuture(null);
             }
             
             if (!service.isActive()) {
                 logger.debug("Skipping monitoring for inactive service: {}", serviceId);
-                return;
+                return CompletableFuture.completedFuture(null);
             }
             
             // Determine appropriate task type
-            String taskType = determineTaskType(service);
-            ScheduledTask task = taskRegistry.get(taskType);
+            taskType = determineTaskType(service);
+            task = taskRegistry.get(taskType);
             
             if (task == null) {
                 logger.error("No task implementation found for type: {}", taskType);
                 createErrorResult(service, "No task implementation available", context);
-                return;
+                return CompletableFuture.completedFuture(null);
             }
             
             if (!task.canExecute(service)) {
                 logger.warn("Task {} cannot execute for service: {}", taskType, serviceId);
                 createErrorResult(service, "Task execution not possible", context);
-                return;
+                return CompletableFuture.completedFuture(null);
             }
-            
-            // Execute the monitoring task
-            logger.debug("Executing {} for service: {} ({})", taskType, service.name(), serviceId);
-            CheckResult result = task.execute(service);
-            
-            // Store the result
-            dataService.saveCheckResult(result);
-            
-            // Handle alerts if needed
-            if (!result.isSuccessful()) {
-                dataService.handleFailureAlert(service, result);
-            }
-            
-            logger.debug("Monitoring completed for service: {} - Success: {}, Response time: {}ms", 
-                        service.name(), result.isSuccessful(), result.responseTimeMs());
-                        
         } catch (Exception e) {
-            logger.error("Failed to execute monitoring for service: {}", serviceId, e);
-            
-            try {
-                MonitoredService service = dataService.getMonitoredService(serviceId);
-                if (service != null) {
-                    createErrorResult(service, "Monitoring execution failed: " + e.getMessage(), context);
-                }
-            } catch (Exception ex) {
-                logger.error("Failed to create error result for service: {}", serviceId, ex);
+            handleExecutionFailure(serviceId, context, e);
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        // Execute the monitoring task
+        logger.debug("Executing {} for service: {} ({})", taskType, service.name(), serviceId);
+        CompletableFuture<CheckResult> probe;
+        try {
+            probe = task.executeAsync(service);
+        } catch (Exception e) {
+            handleExecutionFailure(serviceId, context, e);
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        return probe
+                .thenAcceptAsync(result -> storeResult(service, result), persistenceExecutor)
+                .exceptionally(e -> {
+                    handleExecutionFailure(serviceId, context,
+                            e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                    return null;
+                });
+    }
+    
+    private void storeResult(MonitoredService service, CheckResult result) {
+        // Stored behind; alerting evaluates the result once it is committed
+        dataService.saveCheckResult(result);
+        
+        logger.debug("Monitoring completed for service: {} - Success: {}, Response time: {}ms", 
+                    service.name(), result.isSuccessful(), result.responseTimeMs());
+    }
+    
+    private void handleExecutionFailure(Long serviceId, TaskExecutionContext context, Throwable e) {
+        logger.error("Failed to execute monitoring for service: {}", serviceId, e);
+        
+        try {
+            MonitoredService service = dataService.getMonitoredService(serviceId);
+            if (service != null) {
+                createErrorResult(service, "Monitoring execution failed: " + e.getMessage(), context);
             }
+        } catch (Exception ex) {
+            logger.error("Failed to create error result for service: {}", serviceId, ex);
         }
     }
     
@@ -8,28 +8,27 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import taxisty.pingtower.backend.scheduler.task.ScheduledTask;
 import taxisty.pingtower.backend.scheduler.task.TaskExecutionContext;
-import taxisty.pingtower.backend.storage.model.CheckResult;
-import taxisty.pingtower.backend.storage.model.MonitoredService;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 /**
- * Quartz job implementation that executes monitoring tasks for services.
- * Orchestrates the execution of different monitoring task types.
+ * Quartz job implementation that fires monitoring checks for services.
+ * The check itself runs on the {@link CheckExecutionEngine}, so the Quartz
+ * worker thread is released as soon as the check is handed over.
  */
 @Component
 public class MonitoringJob implements Job {
     
     private static final Logger logger = LoggerFactory.getLogger(MonitoringJob.class);
     
-    @Autowired
-    private MonitoringExecutorService executorService;
+    /**
+     * Trigger data flag marking a manually requested check.
+     */
+    public static final String MANUAL_TRIGGER_KEY = "manual";
     
     @Autowired
-    private List<ScheduledTask> scheduledTasks;
+    private CheckExecutionEngine executionEngine;
     
     @Override
     public void execute(JobExecutionContext context) throws JobExecutionException {
@@ -49,12 +48,16 @@ public class MonitoringJob implements Job {
                     LocalDateTime.now()
             );
             
-            // Execute monitoring
-            executorService.executeMonitoring(serviceId, executionContext);
+            // Hand the check over to the execution engine
+            if (context.getMergedJobDataMap().containsKey(MANUAL_TRIGGER_KEY)) {
+                executionEngine.submitManual(serviceId, executionContext);
+            } else {
+                executionEngine.submit(serviceId, executionContext);
+            }
             
         } catch (Exception e) {
-            logger.error("Failed to execute monitoring for service: {} (ID: {})", serviceName, serviceId, e);
-            throw new JobExecutionException("Monitoring execution failed", e);
+            logger.error("Failed to submit monitoring for service: {} (ID: {})", serviceName, serviceId, e);
+            throw new JobExecutionException("Monitoring submission failed", e);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,159 @@
+package taxisty.pingtower.backend.scheduler.service;
+
+import org.quartz.*;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import taxisty.pingtower.backend.storage.model.CheckSchedule;
+import taxisty.pingtower.backend.storage.model.MonitoredService;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Scheduler backend with one Quartz job and trigger per service.
+ * This is the default backend.
+ */
+@Component
+@ConditionalOnProperty(prefix = "pingtower.scheduler", name = "backend", havingValue = "quartz", matchIfMissing = true)
+public class QuartzSchedulerBackend implements SchedulerBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuartzSchedulerBackend.class);
+    private static final String JOB_GROUP = "monitoring-jobs";
+    private static final String TRIGGER_GROUP = "monitoring-triggers";
+
+    private final Scheduler scheduler;
+
+    public QuartzSchedulerBackend(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void schedule(MonitoredService service, CheckSchedule schedule) throws SchedulerException {
+        JobKey jobKey = createJobKey(service.id());
+        TriggerKey triggerKey = createTriggerKey(service.id());
+
+        // Remove existing job if present
+        if (scheduler.checkExists(jobKey)) {
+            scheduler.deleteJob(jobKey);
+            logger.info("Removed existing job for service: {}", service.id());
+        }
+
+        // Create job detail
+        JobDetail jobDetail = JobBuilder.newJob(MonitoringJob.class)
+                .withIdentity(jobKey)
+                .usingJobData("serviceId", service.id())
+                .usingJobData("serviceName", service.name())
+                .usingJobData("serviceUrl", service.url())
+                .build();
+
+        // Create trigger based on schedule type
+        Trigger trigger = createTrigger(schedule, triggerKey);
+
+        // Schedule the job
+        scheduler.scheduleJob(jobDetail, trigger);
+    }
+
+    @Override
+    public boolean unschedule(Long serviceId) throws SchedulerException {
+        JobKey jobKey = createJobKey(serviceId);
+
+        if (scheduler.checkExists(jobKey)) {
+            scheduler.deleteJob(jobKey);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean triggerNow(Long serviceId) throws SchedulerException {
+        JobKey jobKey = createJobKey(serviceId);
+
+        if (scheduler.checkExists(jobKey)) {
+            JobDataMap triggerData = new JobDataMap();
+            triggerData.put(MonitoringJob.MANUAL_TRIGGER_KEY, true);
+            scheduler.triggerJob(jobKey, triggerData);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isScheduled(Long serviceId) throws SchedulerException {
+        return scheduler.checkExists(createJobKey(serviceId));
+    }
+
+    @Override
+    public LocalDateTime getNextExecutionTime(Long serviceId) throws SchedulerException {
+        Trigger trigger = scheduler.getTrigger(createTriggerKey(serviceId));
+
+        if (trigger != null) {
+            Date nextFireTime = trigger.getNextFireTime();
+            if (nextFireTime != null) {
+                return LocalDateTime.ofInstant(nextFireTime.toInstant(), ZoneId.systemDefault());
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public void pauseAll() throws SchedulerException {
+        if (scheduler.isStarted()) {
+            scheduler.pauseAll();
+        }
+    }
+
+    @Override
+    public int getActiveJobCount() throws SchedulerException {
+        return scheduler.getCurrentlyExecutingJobs().size();
+    }
+
+    @Override
+    public int getScheduledCount() throws SchedulerException {
+        return scheduler.getJobKeys(GroupMatcher.jobGroupEquals(JOB_GROUP)).size();
+    }
+
+    @Override
+    public boolean isRunning() throws SchedulerException {
+        return scheduler.isStarted() && !scheduler.isInStandbyMode();
+    }
+
+    private Trigger createTrigger(CheckSchedule schedule, TriggerKey triggerKey) {
+        TriggerBuilder<Trigger> triggerBuilder = TriggerBuilder.newTrigger()
+                .withIdentity(triggerKey);
+
+        // Use cron expression if available, otherwise use interval
+        if (schedule.cronExpression() != null && !schedule.cronExpression().isBlank()) {
+            return triggerBuilder
+                    .withSchedule(CronScheduleBuilder.cronSchedule(schedule.cronExpression())
+                            .inTimeZone(java.util.TimeZone.getTimeZone(schedule.timezone())))
+                    .build();
+        } else {
+            return triggerBuilder
+                    .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                            .withIntervalInSeconds(schedule.intervalSeconds())
+                            .repeatForever())
+                    .startAt(startTimeOf(schedule))
+                    .build();
+        }
+    }
+
+    private Date startTimeOf(CheckSchedule schedule) {
+        LocalDateTime nextRunTime = schedule.nextRunTime();
+        return nextRunTime != null
+                ? Date.from(nextRunTime.atZone(ZoneId.systemDefault()).toInstant())
+                : new Date();
+    }
+
+    private JobKey createJobKey(Long serviceId) {
+        return JobKey.jobKey("monitoring-service-" + serviceId, JOB_GROUP);
+    }
+
+    private TriggerKey createTriggerKey(Long serviceId) {
+        return TriggerKey.triggerKey("monitoring-trigger-" + serviceId, TRIGGER_GROUP);
+    }
+}
@@ -0,0 +1,52 @@
+package taxisty.pingtower.backend.scheduler.service;
+
+import org.quartz.SchedulerException;
+import taxisty.pingtower.backend.storage.model.CheckSchedule;
+import taxisty.pingtower.backend.storage.model.MonitoredService;
+
+import java.time.LocalDateTime;
+
+/**
+ * Scheduling mechanism behind {@link SchedulerService}.
+ * Implementations fire due checks into the {@link CheckExecutionEngine}; the backend is
+ * selected with {@code pingtower.scheduler.backend}.
+ */
+public interface SchedulerBackend {
+
+    /**
+     * Schedules periodic checks for a service, replacing any existing schedule.
+     */
+    void schedule(MonitoredService service, CheckSchedule schedule) throws SchedulerException;
+
+    /**
+     * Removes the schedule of a service.
+     *
+     * @return true if the service was scheduled
+     */
+    boolean unschedule(Long serviceId) throws SchedulerException;
+
+    /**
+     * Fires a check for a scheduled service right away.
+     *
+     * @return true if the service was scheduled and the check was fired
+     */
+    boolean triggerNow(Long serviceId) throws SchedulerException;
+
+    boolean isScheduled(Long serviceId) throws SchedulerException;
+
+    /**
+     * Gets the next planned check time of a service, or null if it is not scheduled.
+     */
+    LocalDateTime getNextExecutionTime(Long serviceId) throws SchedulerException;
+
+    /**
+     * Stops firing checks until services are scheduled again.
+     */
+    void pauseAll() throws SchedulerException;
+
+    int getActiveJobCount() throws SchedulerException;
+
+    int getScheduledCount() throws SchedulerException;
+
+    boolean isRunning() throws SchedulerException;
+}
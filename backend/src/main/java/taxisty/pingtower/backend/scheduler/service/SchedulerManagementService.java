@@ -28,14 +28,17 @@ public class SchedulerManagementService {
     private final SchedulerService schedulerService;
     private final SchedulerProperties schedulerProperties;
     private final MonitoringService monitoringService;
+    private final CheckExecutionEngine executionEngine;
     
     @Autowired
     public SchedulerManagementService(SchedulerService schedulerService, 
                                     SchedulerProperties schedulerProperties,
-                                    MonitoringService monitoringService) {
+                                    MonitoringService monitoringService,
+                                    CheckExecutionEngine executionEngine) {
         this.schedulerService = schedulerService;
         this.schedulerProperties = schedulerProperties;
         this.monitoringService = monitoringService;
+        this.executionEngine = executionEngine;
     }
     
     /**
@@ -73,8 +76,9 @@ public class SchedulerManagementService {
     @PostConstruct
     public void startup() {
         logger.info("PingTower scheduler management service starting up...");
-        logger.info("Scheduler configuration: threads={}, clustered={}, autoStart={}", 
+        logger.info("Scheduler configuration: threads={}, maxInFlightChecks={}, clustered={}, autoStart={}", 
                    schedulerProperties.getThreadCount(),
+                   schedulerProperties.getMaxInFlightChecks(),
                    schedulerProperties.isClustered(),
                    schedulerProperties.isAutoStart());
     }
@@ -155,15 +159,19 @@ public class SchedulerManagementService {
     }
     
     /**
-     * Creates a default schedule configuration for a service
+     * Creates a default schedule configuration for a service, running every
+     * {@code checkIntervalMinutes} of the service, or every 5 minutes when it has none.
+     * Until the phase planner was added every service loaded at startup ran every 5 minutes,
+     * whatever its configured interval.
      */
     private CheckSchedule createDefaultScheduleForService(MonitoredService service) {
         CheckSchedule schedule = new CheckSchedule();
         schedule.setServiceId(service.getId());
-        schedule.setIntervalSeconds(300); // Default 5 minutes
+        Integer intervalMinutes = service.getCheckIntervalMinutes();
+        schedule.setIntervalSeconds(intervalMinutes != null && intervalMinutes > 0 ? intervalMinutes * 60 : 300);
         schedule.setIsEnabled(true);
         schedule.setTimezone("UTC");
-        schedule.setNextRunTime(LocalDateTime.now().plusSeconds(30)); // Start in 30 seconds
+        // First run time is assigned by the phase planner when the service is scheduled
         schedule.setCreatedAt(LocalDateTime.now());
         schedule.setUpdatedAt(LocalDateTime.now());
         
@@ -187,12 +195,14 @@ public class SchedulerManagementService {
                     activeJobs,
                     totalJobs,
                     schedulerProperties.getThreadCount(),
-                    schedulerProperties.isClustered()
+                    schedulerProperties.isClustered(),
+                    executionEngine.getInFlightCount(),
+                    executionEngine.getQueuedCount()
             );
             
         } catch (Exception e) {
             logger.error("Failed to get scheduler status", e);
-            return new SchedulerStatus(false, 0, 0, 0, false);
+            return new SchedulerStatus(false, 0, 0, 0, false, 0, 0);
         }
     }
     
@@ -204,6 +214,8 @@ public class SchedulerManagementService {
             int activeJobs,
             int totalJobs,
             int threadCount,
-            boolean isClustered
+            boolean isClustered,
+            int inFlightChecks,
+            int queuedChecks
     ) {}
 }
\ No newline at end of file
@@ -1,7 +1,6 @@
 package taxisty.pingtower.backend.scheduler.service;
 
-import org.quartz.*;
-import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.SchedulerException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,26 +8,36 @@ import org.springframework.stereotype.Service;
 import taxisty.pingtower.backend.storage.model.CheckSchedule;
 import taxisty.pingtower.backend.storage.model.MonitoredService;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.util.Date;
 
 /**
- * Core scheduler service that manages monitoring task scheduling using Quartz.
+ * Core scheduler service that manages monitoring task scheduling.
  * Handles flexible interval configuration from seconds to hours based on service criticality.
+ * The actual timers live in a {@link SchedulerBackend}: Quartz by default, or the
+ * in-process timing wheel for large fleets.
  */
 @Service
 public class SchedulerService {
     
     private static final Logger logger = LoggerFactory.getLogger(SchedulerService.class);
-    private static final String JOB_GROUP = "monitoring-jobs";
-    private static final String TRIGGER_GROUP = "monitoring-triggers";
     
-    private final Scheduler scheduler;
+    /**
+     * A service added or changed through the API is checked right away when its phased first
+     * check is further off than this; the checks after it keep the phase.
+     */
+    private static final Duration MAX_FIRST_CHECK_DELAY = Duration.ofSeconds(5);
+    
+    private final SchedulerBackend backend;
+    private final CheckPhasePlanner phasePlanner;
     
     @Autowired
-    public SchedulerService(Scheduler scheduler) {
-        this.scheduler = scheduler;
+    public SchedulerService(SchedulerBackend backend, CheckPhasePlanner phasePlanner) {
+        this.backend = backend;
+        this.phasePlanner = phasePlanner;
+        logger.info("Using scheduler backend: {}", backend.getClass().getSimpleName());
     }
     
     /**
@@ -44,28 +53,14 @@ public class SchedulerService {
             return;
         }
         
-        JobKey jobKey = createJobKey(service.id());
-        TriggerKey triggerKey = createTriggerKey(service.id());
-        
-        // Remove existing job if present
-        if (scheduler.checkExists(jobKey)) {
-            scheduler.deleteJob(jobKey);
-            logger.info("Removed existing job for service: {}", service.id());
+        // Interval schedules start at the service's fixed phase instead of all at once
+        if (!isCronSchedule(schedule)) {
+            long firstFire = phasePlanner.planFirstFire(
+                    service.id(), schedule.intervalSeconds(), System.currentTimeMillis());
+            schedule.setNextRunTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(firstFire), ZoneId.systemDefault()));
         }
         
-        // Create job detail
-        JobDetail jobDetail = JobBuilder.newJob(MonitoringJob.class)
-                .withIdentity(jobKey)
-                .usingJobData("serviceId", service.id())
-                .usingJobData("serviceName", service.name())
-                .usingJobData("serviceUrl", service.url())
-                .build();
-        
-        // Create trigger based on schedule type
-        Trigger trigger = createTrigger(schedule, triggerKey);
-        
-        // Schedule the job
-        scheduler.scheduleJob(jobDetail, trigger);
+        backend.schedule(service, schedule);
         
         logger.info("Scheduled monitoring for service: {} with schedule: {}", 
                    service.name(), getScheduleDescription(schedule));
@@ -78,10 +73,8 @@ public class SchedulerService {
      * @throws SchedulerException If unscheduling fails
      */
     public void unscheduleMonitoring(Long serviceId) throws SchedulerException {
-        JobKey jobKey = createJobKey(serviceId);
-        
-        if (scheduler.checkExists(jobKey)) {
-            scheduler.deleteJob(jobKey);
+        phasePlanner.release(serviceId);
+        if (backend.unschedule(serviceId)) {
             logger.info("Unscheduled monitoring for service: {}", serviceId);
         }
     }
@@ -105,10 +98,7 @@ public class SchedulerService {
      * @throws SchedulerException If triggering fails
      */
     public void triggerImmediateCheck(Long serviceId) throws SchedulerException {
-        JobKey jobKey = createJobKey(serviceId);
-        
-        if (scheduler.checkExists(jobKey)) {
-            scheduler.triggerJob(jobKey);
+        if (backend.triggerNow(serviceId)) {
             logger.info("Triggered immediate check for service: {}", serviceId);
         } else {
             logger.warn("Cannot trigger immediate check - no scheduled job found for service: {}", serviceId);
@@ -123,8 +113,7 @@ public class SchedulerService {
      * @throws SchedulerException If check fails
      */
     public boolean isMonitoringScheduled(Long serviceId) throws SchedulerException {
-        JobKey jobKey = createJobKey(serviceId);
-        return scheduler.checkExists(jobKey);
+        return backend.isScheduled(serviceId);
     }
     
     /**
@@ -135,45 +124,7 @@ public class SchedulerService {
      * @throws SchedulerException If retrieval fails
      */
     public LocalDateTime getNextExecutionTime(Long serviceId) throws SchedulerException {
-        TriggerKey triggerKey = createTriggerKey(serviceId);
-        Trigger trigger = scheduler.getTrigger(triggerKey);
-        
-        if (trigger != null) {
-            Date nextFireTime = trigger.getNextFireTime();
-            if (nextFireTime != null) {
-                return LocalDateTime.ofInstant(nextFireTime.toInstant(), ZoneId.systemDefault());
-            }
-        }
-        
-        return null;
-    }
-    
-    private Trigger createTrigger(CheckSchedule schedule, TriggerKey triggerKey) {
-        TriggerBuilder<Trigger> triggerBuilder = TriggerBuilder.newTrigger()
-                .withIdentity(triggerKey);
-        
-        // Use cron expression if available, otherwise use interval
-        if (schedule.cronExpression() != null && !schedule.cronExpression().isBlank()) {
-            return triggerBuilder
-                    .withSchedule(CronScheduleBuilder.cronSchedule(schedule.cronExpression())
-                            .inTimeZone(java.util.TimeZone.getTimeZone(schedule.timezone())))
-                    .build();
-        } else {
-            return triggerBuilder
-                    .withSchedule(SimpleScheduleBuilder.simpleSchedule()
-                            .withIntervalInSeconds(schedule.intervalSeconds())
-                            .repeatForever())
-                    .startNow()
-                    .build();
-        }
-    }
-    
-    private JobKey createJobKey(Long serviceId) {
-        return JobKey.jobKey("monitoring-service-" + serviceId, JOB_GROUP);
-    }
-    
-    private TriggerKey createTriggerKey(Long serviceId) {
-        return TriggerKey.triggerKey("monitoring-trigger-" + serviceId, TRIGGER_GROUP);
+        return backend.getNextExecutionTime(serviceId);
     }
     
     /**
@@ -182,10 +133,9 @@ public class SchedulerService {
      * @throws SchedulerException If stopping jobs fails
      */
     public void stopAll() throws SchedulerException {
-        if (scheduler.isStarted()) {
-            scheduler.pauseAll();
-            logger.info("Paused all monitoring jobs");
-        }
+        backend.pauseAll();
+        phasePlanner.releaseAll();
+        logger.info("Paused all monitoring jobs");
     }
     
     /**
@@ -195,7 +145,7 @@ public class SchedulerService {
      * @throws SchedulerException If retrieval fails
      */
     public int getActiveJobCount() throws SchedulerException {
-        return scheduler.getCurrentlyExecutingJobs().size();
+        return backend.getActiveJobCount();
     }
     
     /**
@@ -205,7 +155,7 @@ public class SchedulerService {
      * @throws SchedulerException If retrieval fails
      */
     public int getTotalJobCount() throws SchedulerException {
-        return scheduler.getJobKeys(GroupMatcher.jobGroupEquals(JOB_GROUP)).size();
+        return backend.getScheduledCount();
     }
     
     /**
@@ -215,17 +165,37 @@ public class SchedulerService {
      * @throws SchedulerException If check fails
      */
     public boolean isRunning() throws SchedulerException {
-        return scheduler.isStarted() && !scheduler.isInStandbyMode();
+        return backend.isRunning();
+    }
+    
+    /**
+     * Runs the first check of a newly scheduled service now instead of waiting up to a whole
+     * interval for its phase. Services loaded at startup are not checked early, so their
+     * first checks stay spread over the interval.
+     */
+    private void checkSoon(MonitoredService service, CheckSchedule schedule) throws SchedulerException {
+        if (!service.isActive()) {
+            return;
+        }
+        LocalDateTime firstRun = schedule.nextRunTime();
+        if (firstRun != null && !firstRun.isAfter(LocalDateTime.now().plus(MAX_FIRST_CHECK_DELAY))) {
+            return;
+        }
+        triggerImmediateCheck(service.id());
     }
     
     private String getScheduleDescription(CheckSchedule schedule) {
-        if (schedule.cronExpression() != null && !schedule.cronExpression().isBlank()) {
+        if (isCronSchedule(schedule)) {
             return "cron: " + schedule.cronExpression();
         } else {
-            return "interval: " + schedule.intervalSeconds() + "s";
+            return "interval: " + schedule.intervalSeconds() + "s, first run: " + schedule.nextRunTime();
         }
     }
     
+    private boolean isCronSchedule(CheckSchedule schedule) {
+        return schedule.cronExpression() != null && !schedule.cronExpression().isBlank();
+    }
+    
     // Adapter methods for controller compatibility
     
     /**
@@ -245,6 +215,7 @@ public class SchedulerService {
                 LocalDateTime.now() // updatedAt
         );
         scheduleMonitoring(service, defaultSchedule);
+        checkSoon(service, defaultSchedule);
     }
     
     /**
@@ -264,6 +235,7 @@ public class SchedulerService {
                 LocalDateTime.now() // updatedAt
         );
         rescheduleMonitoring(service, newSchedule);
+        checkSoon(service, newSchedule);
     }
     
     /**
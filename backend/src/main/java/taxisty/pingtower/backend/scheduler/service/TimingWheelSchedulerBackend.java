@@ -0,0 +1,291 @@
+package taxisty.pingtower.backend.scheduler.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.quartz.CronExpression;
+import org.quartz.SchedulerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import taxisty.pingtower.backend.scheduler.config.SchedulerProperties;
+import taxisty.pingtower.backend.scheduler.task.TaskExecutionContext;
+import taxisty.pingtower.backend.scheduler.wheel.LongObjectHashMap;
+import taxisty.pingtower.backend.scheduler.wheel.TimerNode;
+import taxisty.pingtower.backend.scheduler.wheel.TimingWheel;
+import taxisty.pingtower.backend.storage.model.CheckSchedule;
+import taxisty.pingtower.backend.storage.model.MonitoredService;
+
+import java.text.ParseException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process scheduler backend built on a hierarchical timing wheel.
+ * Each service is a single node indexed by its primitive id, so scheduling and
+ * cancelling are O(1) and no job, trigger or key objects are kept per service.
+ * A ticker thread advances the wheel and submits every check due in a tick as one batch.
+ * Enabled with {@code pingtower.scheduler.backend=timing-wheel}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "pingtower.scheduler", name = "backend", havingValue = "timing-wheel")
+public class TimingWheelSchedulerBackend implements SchedulerBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimingWheelSchedulerBackend.class);
+    private static final int WHEEL_SIZE = 512;
+    private static final int WHEEL_LEVELS = 3;
+
+    private final CheckExecutionEngine executionEngine;
+    private final long tickMillis;
+    private final TimingWheel<ScheduledCheck> wheel;
+    private final LongObjectHashMap<ScheduledCheck> checks = new LongObjectHashMap<>(1024);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final MeterRegistry meterRegistry;
+    private final Timer tickTimer;
+
+    private volatile boolean running;
+    private Thread ticker;
+
+    public TimingWheelSchedulerBackend(CheckExecutionEngine executionEngine,
+                                       SchedulerProperties schedulerProperties,
+                                       MeterRegistry meterRegistry) {
+        this.executionEngine = executionEngine;
+        this.tickMillis = schedulerProperties.getWheelTickMillis();
+        this.wheel = new TimingWheel<>(tickMillis, WHEEL_SIZE, WHEEL_LEVELS, System.currentTimeMillis());
+        this.meterRegistry = meterRegistry;
+        this.tickTimer = Timer.builder("pingtower.scheduler.wheel.tick")
+                .description("Time spent advancing the timing wheel and submitting due checks")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        Gauge.builder("pingtower.scheduler.wheel.scheduled", this, TimingWheelSchedulerBackend::scheduledCount)
+                .description("Services scheduled in the timing wheel")
+                .register(meterRegistry);
+        running = true;
+        ticker = Thread.ofPlatform()
+                .name("timing-wheel")
+                .daemon(true)
+                .start(this::runTicker);
+        logger.info("Started timing wheel scheduler: tick={}ms, wheelSize={}, levels={}",
+                   tickMillis, WHEEL_SIZE, WHEEL_LEVELS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (ticker != null) {
+            ticker.interrupt();
+        }
+    }
+
+    @Override
+    public void schedule(MonitoredService service, CheckSchedule schedule) throws SchedulerException {
+        ScheduledCheck check = new ScheduledCheck(service.id(), schedule);
+        long now = System.currentTimeMillis();
+        long firstFire;
+        if (check.cron != null) {
+            firstFire = check.nextCronFire(now);
+        } else if (schedule.nextRunTime() != null) {
+            firstFire = schedule.nextRunTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } else {
+            firstFire = now;
+        }
+
+        lock.lock();
+        try {
+            ScheduledCheck previous = checks.put(service.id(), check);
+            if (previous != null) {
+                wheel.cancel(previous);
+            }
+            wheel.schedule(check, firstFire);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean unschedule(Long serviceId) {
+        lock.lock();
+        try {
+            ScheduledCheck check = checks.remove(serviceId);
+            if (check == null) {
+                return false;
+            }
+            wheel.cancel(check);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean triggerNow(Long serviceId) {
+        if (!isScheduled(serviceId)) {
+            return false;
+        }
+        executionEngine.submitManual(serviceId, TaskExecutionContext.createInitial(
+                serviceId, "HTTP_CHECK", LocalDateTime.now()));
+        return true;
+    }
+
+    @Override
+    public boolean isScheduled(Long serviceId) {
+        lock.lock();
+        try {
+            return checks.containsKey(serviceId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public LocalDateTime getNextExecutionTime(Long serviceId) {
+        lock.lock();
+        try {
+            ScheduledCheck check = checks.get(serviceId);
+            if (check == null || !check.isScheduled()) {
+                return null;
+            }
+            return LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(wheel.toMillis(check.getDeadlineTick())), ZoneId.systemDefault());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void pauseAll() {
+        lock.lock();
+        try {
+            checks.forEachValue(wheel::cancel);
+            checks.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getActiveJobCount() {
+        return executionEngine.getInFlightCount();
+    }
+
+    @Override
+    public int getScheduledCount() {
+        return scheduledCount();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running && ticker != null && ticker.isAlive();
+    }
+
+    private int scheduledCount() {
+        lock.lock();
+        try {
+            return checks.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runTicker() {
+        List<ScheduledCheck> due = new ArrayList<>();
+        while (running) {
+            try {
+                long now = System.currentTimeMillis();
+                long sleep = tickMillis - Math.floorMod(now, tickMillis);
+                Thread.sleep(sleep);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            long startNanos = System.nanoTime();
+            long now = System.currentTimeMillis();
+            lock.lock();
+            try {
+                wheel.advanceTo(now, check -> {
+                    due.add(check);
+                    wheel.schedule(check, check.nextFire(wheel.toMillis(check.getDeadlineTick()), now));
+                });
+            } finally {
+                lock.unlock();
+            }
+
+            // Submit outside the lock; the engine only enqueues onto virtual threads
+            if (!due.isEmpty()) {
+                LocalDateTime fireTime = LocalDateTime.now();
+                for (ScheduledCheck check : due) {
+                    try {
+                        executionEngine.submit(check.serviceId, TaskExecutionContext.createInitial(
+                                check.serviceId, "HTTP_CHECK", fireTime));
+                    } catch (Exception e) {
+                        logger.error("Failed to submit monitoring for service: {}", check.serviceId, e);
+                    }
+                }
+                logger.debug("Timing wheel fired {} checks", due.size());
+                due.clear();
+            }
+            tickTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Wheel node holding the schedule of one service.
+     */
+    private static final class ScheduledCheck extends TimerNode {
+
+        private final long serviceId;
+        private final long intervalMillis;
+        private final CronExpression cron;
+
+        private ScheduledCheck(long serviceId, CheckSchedule schedule) throws SchedulerException {
+            this.serviceId = serviceId;
+            if (schedule.cronExpression() != null && !schedule.cronExpression().isBlank()) {
+                try {
+                    this.cron = new CronExpression(schedule.cronExpression());
+                } catch (ParseException e) {
+                    throw new SchedulerException("Invalid cron expression: " + schedule.cronExpression(), e);
+                }
+                this.cron.setTimeZone(TimeZone.getTimeZone(schedule.timezone()));
+                this.intervalMillis = 0;
+            } else {
+                this.cron = null;
+                this.intervalMillis = TimeUnit.SECONDS.toMillis(Math.max(1, schedule.intervalSeconds()));
+            }
+        }
+
+        /**
+         * Computes the fire time following the one that just expired. Interval schedules
+         * keep a fixed rate; fire times missed while the ticker stalled are skipped.
+         */
+        private long nextFire(long firedAt, long now) {
+            if (cron != null) {
+                return nextCronFire(now);
+            }
+            long next = firedAt + intervalMillis;
+            if (next <= now) {
+                next += ((now - next) / intervalMillis + 1) * intervalMillis;
+            }
+            return next;
+        }
+
+        private long nextCronFire(long after) {
+            Date next = cron.getNextValidTimeAfter(new Date(after));
+            // Expressions without future fire times are parked far ahead
+            return next != null ? next.getTime() : Long.MAX_VALUE / 2;
+        }
+    }
+}
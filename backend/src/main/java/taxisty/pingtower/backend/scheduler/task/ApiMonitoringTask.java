@@ -7,12 +7,12 @@ import taxisty.pingtower.backend.storage.model.CheckResult;
 import taxisty.pingtower.backend.storage.model.MonitoredService;
 
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Implementation of API endpoint monitoring with JSON/XML response validation.
@@ -22,26 +22,28 @@ import java.util.Map;
 public class ApiMonitoringTask implements ScheduledTask {
     
     private static final Logger logger = LoggerFactory.getLogger(ApiMonitoringTask.class);
-    private static final int DEFAULT_TIMEOUT_SECONDS = 30;
+    private final ProbeClientRegistry probeClients;
     
-    private final HttpClient httpClient;
-    
-    public ApiMonitoringTask() {
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(DEFAULT_TIMEOUT_SECONDS))
-                .build();
+    public ApiMonitoringTask(ProbeClientRegistry probeClients) {
+        this.probeClients = probeClients;
     }
     
     @Override
     public CheckResult execute(MonitoredService service) {
+        return executeAsync(service).join();
+    }
+    
+    @Override
+    public CompletableFuture<CheckResult> executeAsync(MonitoredService service) {
         long startTime = System.currentTimeMillis();
         LocalDateTime checkTime = LocalDateTime.now();
         
+        HttpRequest request;
         try {
             // Build HTTP request
             HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
                     .uri(buildUri(service))
-                    .timeout(Duration.ofSeconds(DEFAULT_TIMEOUT_SECONDS));
+                    .timeout(probeClients.requestTimeout(service));
             
             // Set HTTP method with body if needed
             setHttpMethod(requestBuilder, service.httpMethod(), service.requestBody());
@@ -49,49 +51,60 @@ public class ApiMonitoringTask implements ScheduledTask {
             // Add custom headers
             addCustomHeaders(requestBuilder, service.headers());
             
-            HttpRequest request = requestBuilder.build();
-            
-            // Execute request
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            
-            long responseTime = System.currentTimeMillis() - startTime;
-            
-            // Validate API response
-            boolean isSuccessful = validateApiResponse(response, service);
-            
-            return new CheckResult(
-                    null, // ID will be generated by storage
-                    service.id(),
-                    checkTime,
-                    isSuccessful,
-                    response.statusCode(),
-                    responseTime,
-                    truncateResponseBody(response.body()),
-                    null,
-                    false, // SSL check not performed here
-                    null,
-                    "api-task"
-            );
-            
+            request = requestBuilder.build();
         } catch (Exception e) {
-            long responseTime = System.currentTimeMillis() - startTime;
-            
-            logger.debug("API check failed for service {}: {}", service.name(), e.getMessage());
-            
-            return new CheckResult(
-                    null,
-                    service.id(),
-                    checkTime,
-                    false,
-                    0,
-                    responseTime,
-                    null,
-                    e.getMessage(),
-                    false,
-                    null,
-                    "api-task"
-            );
+            return CompletableFuture.completedFuture(failedResult(service, checkTime, startTime, e));
         }
+        
+        // Execute request; API validation runs as a stage on the response
+        return probeClients.sendAsync(service, request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> toCheckResult(service, response, checkTime, startTime))
+                .exceptionally(e -> failedResult(service, checkTime, startTime, e));
+    }
+    
+    private CheckResult toCheckResult(MonitoredService service, HttpResponse<String> response,
+                                      LocalDateTime checkTime, long startTime) {
+        long responseTime = System.currentTimeMillis() - startTime;
+        
+        // Validate API response
+        boolean isSuccessful = validateApiResponse(response, service);
+        
+        return new CheckResult(
+                null, // ID will be generated by storage
+                service.id(),
+                checkTime,
+                isSuccessful,
+                response.statusCode(),
+                responseTime,
+                truncateResponseBody(response.body()),
+                null,
+                false, // SSL check not performed here
+                null,
+                "api-task"
+        );
+    }
+    
+    private CheckResult failedResult(MonitoredService service, LocalDateTime checkTime,
+                                     long startTime, Throwable error) {
+        long responseTime = System.currentTimeMillis() - startTime;
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+        
+        logger.debug("API check failed for service {}: {}", service.name(), cause.getMessage());
+        
+        return new CheckResult(
+                null,
+                service.id(),
+                checkTime,
+                false,
+                0,
+                responseTime,
+                null,
+                cause.getMessage(),
+                false,
+                null,
+                "api-task"
+        );
     }
     
     @Override
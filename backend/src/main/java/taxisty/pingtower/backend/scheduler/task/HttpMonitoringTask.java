@@ -6,17 +6,18 @@ import org.springframework.stereotype.Component;
 import taxisty.pingtower.backend.storage.model.CheckResult;
 import taxisty.pingtower.backend.storage.model.MonitoredService;
 
-import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSession;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Implementation of HTTP/HTTPS monitoring checks.
@@ -26,26 +27,28 @@ import java.util.Map;
 public class HttpMonitoringTask implements ScheduledTask {
     
     private static final Logger logger = LoggerFactory.getLogger(HttpMonitoringTask.class);
-    private static final int DEFAULT_TIMEOUT_SECONDS = 30;
+    private final ProbeClientRegistry probeClients;
     
-    private final HttpClient httpClient;
-    
-    public HttpMonitoringTask() {
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(DEFAULT_TIMEOUT_SECONDS))
-                .build();
+    public HttpMonitoringTask(ProbeClientRegistry probeClients) {
+        this.probeClients = probeClients;
     }
     
     @Override
     public CheckResult execute(MonitoredService service) {
+        return executeAsync(service).join();
+    }
+    
+    @Override
+    public CompletableFuture<CheckResult> executeAsync(MonitoredService service) {
         long startTime = System.currentTimeMillis();
         LocalDateTime checkTime = LocalDateTime.now();
         
+        HttpRequest request;
         try {
             // Build HTTP request
             HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
                     .uri(URI.create(service.url()))
-                    .timeout(Duration.ofSeconds(DEFAULT_TIMEOUT_SECONDS));
+                    .timeout(probeClients.requestTimeout(service));
             
             // Set HTTP method
             setHttpMethod(requestBuilder, service.httpMethod());
@@ -53,59 +56,70 @@ public class HttpMonitoringTask implements ScheduledTask {
             // Add custom headers
             addCustomHeaders(requestBuilder, service.headers());
             
-            HttpRequest request = requestBuilder.build();
-            
-            // Execute request
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            
-            long responseTime = System.currentTimeMillis() - startTime;
-            
-            // Validate response
-            boolean isSuccessful = validateResponse(response, service);
-            
-            // Check SSL certificate if required
-            LocalDateTime sslExpiryDate = null;
-            boolean sslValid = true;
-            
-            if (service.sslCertificateCheck() && service.url().startsWith("https")) {
-                SslCheckResult sslResult = checkSslCertificate(service.url());
-                sslValid = sslResult.isValid();
-                sslExpiryDate = sslResult.expiryDate();
-            }
-            
-            return new CheckResult(
-                    null, // ID will be generated by storage
-                    service.id(),
-                    checkTime,
-                    isSuccessful && sslValid,
-                    response.statusCode(),
-                    responseTime,
-                    truncateResponseBody(response.body()),
-                    null,
-                    sslValid,
-                    sslExpiryDate,
-                    "http-task"
-            );
-            
+            request = requestBuilder.build();
         } catch (Exception e) {
-            long responseTime = System.currentTimeMillis() - startTime;
-            
-            logger.debug("HTTP check failed for service {}: {}", service.name(), e.getMessage());
-            
-            return new CheckResult(
-                    null,
-                    service.id(),
-                    checkTime,
-                    false,
-                    0,
-                    responseTime,
-                    null,
-                    e.getMessage(),
-                    false,
-                    null,
-                    "http-task"
-            );
+            return CompletableFuture.completedFuture(failedResult(service, checkTime, startTime, e));
         }
+        
+        // Execute request; validation and SSL inspection run as stages on the response
+        return probeClients.sendAsync(service, request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> toCheckResult(service, response, checkTime, startTime))
+                .exceptionally(e -> failedResult(service, checkTime, startTime, e));
+    }
+    
+    private CheckResult toCheckResult(MonitoredService service, HttpResponse<String> response,
+                                      LocalDateTime checkTime, long startTime) {
+        long responseTime = System.currentTimeMillis() - startTime;
+        
+        // Validate response
+        boolean isSuccessful = validateResponse(response, service);
+        
+        // Check SSL certificate if required
+        LocalDateTime sslExpiryDate = null;
+        boolean sslValid = true;
+        
+        if (service.sslCertificateCheck() && service.url().startsWith("https")) {
+            SslCheckResult sslResult = checkSslCertificate(response);
+            sslValid = sslResult.isValid();
+            sslExpiryDate = sslResult.expiryDate();
+        }
+        
+        return new CheckResult(
+                null, // ID will be generated by storage
+                service.id(),
+                checkTime,
+                isSuccessful && sslValid,
+                response.statusCode(),
+                responseTime,
+                truncateResponseBody(response.body()),
+                null,
+                sslValid,
+                sslExpiryDate,
+                "http-task"
+        );
+    }
+    
+    private CheckResult failedResult(MonitoredService service, LocalDateTime checkTime,
+                                     long startTime, Throwable error) {
+        long responseTime = System.currentTimeMillis() - startTime;
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+        
+        logger.debug("HTTP check failed for service {}: {}", service.name(), cause.getMessage());
+        
+        return new CheckResult(
+                null,
+                service.id(),
+                checkTime,
+                false,
+                0,
+                responseTime,
+                null,
+                cause.getMessage(),
+                false,
+                null,
+                "http-task"
+        );
     }
     
     @Override
@@ -186,30 +200,28 @@ public class HttpMonitoringTask implements ScheduledTask {
         };
     }
     
-    private SslCheckResult checkSslCertificate(String url) {
+    private SslCheckResult checkSslCertificate(HttpResponse<?> response) {
+        // Inspect the certificate negotiated by the probe itself instead of opening a second connection
         try {
-            HttpsURLConnection connection = (HttpsURLConnection) URI.create(url).toURL().openConnection();
-            connection.setConnectTimeout(DEFAULT_TIMEOUT_SECONDS * 1000);
-            connection.setReadTimeout(DEFAULT_TIMEOUT_SECONDS * 1000);
-            connection.connect();
+            Optional<SSLSession> session = response.sslSession();
+            if (session.isEmpty()) {
+                return new SslCheckResult(false, null);
+            }
             
-            Certificate[] certificates = connection.getServerCertificates();
+            Certificate[] certificates = session.get().getPeerCertificates();
             if (certificates.length > 0 && certificates[0] instanceof X509Certificate cert) {
                 LocalDateTime expiryDate = cert.getNotAfter().toInstant()
                         .atZone(ZoneId.systemDefault())
                         .toLocalDateTime();
                 
                 boolean isValid = cert.getNotAfter().after(new java.util.Date());
-                
-                connection.disconnect();
                 return new SslCheckResult(isValid, expiryDate);
             }
             
-            connection.disconnect();
             return new SslCheckResult(false, null);
             
         } catch (Exception e) {
-            logger.debug("SSL certificate check failed for {}: {}", url, e.getMessage());
+            logger.debug("SSL certificate check failed for {}: {}", response.uri(), e.getMessage());
             return new SslCheckResult(false, null);
         }
     }
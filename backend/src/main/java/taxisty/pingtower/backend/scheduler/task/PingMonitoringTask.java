@@ -7,12 +7,12 @@ import taxisty.pingtower.backend.storage.model.CheckResult;
 import taxisty.pingtower.backend.storage.model.MonitoredService;
 
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Implementation of simple ping monitoring checks.
@@ -22,65 +22,80 @@ import java.util.Map;
 public class PingMonitoringTask implements ScheduledTask {
     
     private static final Logger logger = LoggerFactory.getLogger(PingMonitoringTask.class);
-    private static final int DEFAULT_TIMEOUT_SECONDS = 30;
+    
+    private final ProbeClientRegistry probeClients;
+    
+    public PingMonitoringTask(ProbeClientRegistry probeClients) {
+        this.probeClients = probeClients;
+    }
     
     @Override
     public CheckResult execute(MonitoredService service) {
-    long startTime = System.currentTimeMillis();
-    LocalDateTime checkTime = LocalDateTime.now();
-    Integer timeoutVal = service.getTimeoutSeconds();
-    int configuredTimeout = timeoutVal != null ? timeoutVal : DEFAULT_TIMEOUT_SECONDS;
+        return executeAsync(service).join();
+    }
+    
+    @Override
+    public CompletableFuture<CheckResult> executeAsync(MonitoredService service) {
+        long startTime = System.currentTimeMillis();
+        LocalDateTime checkTime = LocalDateTime.now();
         
-    // Создаем клиент с таймаутом конкретного сервиса (дешево для ping)
-    HttpClient dynamicClient = HttpClient.newBuilder()
-        .connectTimeout(Duration.ofSeconds(configuredTimeout))
-        .build();
+        HttpRequest request;
+        try {
+            HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
+                    .uri(URI.create(service.url()))
+                    .timeout(probeClients.requestTimeout(service))
+                    .GET();
+            addCustomHeaders(requestBuilder, service.headers());
+            request = requestBuilder.build();
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(failedResult(service, checkTime, startTime, e));
+        }
         
-    try {
-        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-            .uri(URI.create(service.url()))
-            .timeout(Duration.ofSeconds(configuredTimeout))
-            .GET();
-        addCustomHeaders(requestBuilder, service.headers());
-        HttpRequest request = requestBuilder.build();
-        HttpResponse<String> response = dynamicClient.send(request, HttpResponse.BodyHandlers.ofString());
-        long responseTime = System.currentTimeMillis() - startTime;
-        boolean isSuccessful = response.statusCode() >= 200 && response.statusCode() < 300;
-        return new CheckResult(
-            null,
-            service.id(),
-            checkTime,
-            isSuccessful,
-            response.statusCode(),
-            responseTime,
-            null,
-            null,
-            false,
-            null,
-            "ping-task"
-        );
-    } catch (Exception e) {
+        return probeClients.sendAsync(service, request, HttpResponse.BodyHandlers.discarding())
+                .thenApply(response -> {
+                    long responseTime = System.currentTimeMillis() - startTime;
+                    boolean isSuccessful = response.statusCode() >= 200 && response.statusCode() < 300;
+                    return new CheckResult(
+                            null,
+                            service.id(),
+                            checkTime,
+                            isSuccessful,
+                            response.statusCode(),
+                            responseTime,
+                            null,
+                            null,
+                            false,
+                            null,
+                            "ping-task"
+                    );
+                })
+                .exceptionally(e -> failedResult(service, checkTime, startTime, e));
+    }
+    
+    private CheckResult failedResult(MonitoredService service, LocalDateTime checkTime,
+                                     long startTime, Throwable error) {
         long responseTime = System.currentTimeMillis() - startTime;
-        String err = e.getMessage();
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+        String err = cause.getMessage();
         if (err == null || err.isBlank()) {
-        err = e.getClass().getSimpleName();
+            err = cause.getClass().getSimpleName();
         }
         logger.warn("Ping check failed for service {} ({} ms): {}", service.name(), responseTime, err);
         return new CheckResult(
-            null,
-            service.id(),
-            checkTime,
-            false,
-            0,
-            responseTime,
-            null,
-            err,
-            false,
-            null,
-            "ping-task"
+                null,
+                service.id(),
+                checkTime,
+                false,
+                0,
+                responseTime,
+                null,
+                err,
+                false,
+                null,
+                "ping-task"
         );
     }
-    }
     
     @Override
     public String getTaskType() {
@@ -0,0 +1,40 @@
+package taxisty.pingtower.backend.scheduler.task;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Connection settings that decide which shared probe client a check uses.
+ * Services with equal profiles share one {@link HttpClient} and its connection pool.
+ *
+ * @param connectTimeout Connect timeout, rounded up to a timeout class
+ * @param version Preferred HTTP version
+ * @param redirect Redirect policy
+ * @param proxy Outbound proxy, or null for direct connections
+ */
+public record ProbeClientProfile(
+        Duration connectTimeout,
+        HttpClient.Version version,
+        HttpClient.Redirect redirect,
+        InetSocketAddress proxy
+) {
+
+    /**
+     * Connect timeout classes in seconds. Per-service timeouts are rounded up to the
+     * nearest class so that a handful of clients covers every configured value.
+     */
+    private static final int[] TIMEOUT_CLASSES_SECONDS = {5, 10, 30, 60, 120, 300};
+
+    /**
+     * Rounds a timeout in seconds up to its timeout class.
+     */
+    public static Duration timeoutClass(int timeoutSeconds) {
+        for (int timeoutClass : TIMEOUT_CLASSES_SECONDS) {
+            if (timeoutSeconds <= timeoutClass) {
+                return Duration.ofSeconds(timeoutClass);
+            }
+        }
+        return Duration.ofSeconds(TIMEOUT_CLASSES_SECONDS[TIMEOUT_CLASSES_SECONDS.length - 1]);
+    }
+}
@@ -0,0 +1,134 @@
+package taxisty.pingtower.backend.scheduler.task;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import taxisty.pingtower.backend.scheduler.config.SchedulerProperties;
+import taxisty.pingtower.backend.storage.model.MonitoredService;
+
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Central registry of HTTP clients used by monitoring probes.
+ * Clients are shared per {@link ProbeClientProfile}, so checks against the same host reuse
+ * pooled connections and TLS sessions instead of paying for a new handshake every time.
+ * All clients run their callbacks on one shared virtual-thread executor.
+ * Services flagged for cold-connection probing get a throwaway client per check, which
+ * deliberately measures the full DNS, connect and TLS cost.
+ */
+@Component
+public class ProbeClientRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProbeClientRegistry.class);
+
+    private final Map<ProbeClientProfile, HttpClient> clients = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+    private final int defaultTimeoutSeconds;
+    private final HttpClient.Version version;
+    private final InetSocketAddress proxy;
+
+    public ProbeClientRegistry(SchedulerProperties schedulerProperties, MeterRegistry meterRegistry) {
+        this.executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("probe-http-", 0).factory());
+        this.defaultTimeoutSeconds = schedulerProperties.getDefaultTimeoutSeconds();
+        this.version = parseVersion(schedulerProperties.getProbeHttpVersion());
+        String proxyHost = schedulerProperties.getProbeProxyHost();
+        this.proxy = proxyHost == null || proxyHost.isBlank()
+                ? null
+                : InetSocketAddress.createUnresolved(proxyHost, schedulerProperties.getProbeProxyPort());
+
+        Gauge.builder("pingtower.probe.clients", clients, Map::size)
+                .description("Shared probe HTTP clients, one per connection profile")
+                .register(meterRegistry);
+
+        logger.info("Initialized ProbeClientRegistry: version={}, proxy={}", version, proxy);
+    }
+
+    /**
+     * Gets the connection profile of a service.
+     */
+    public ProbeClientProfile profileFor(MonitoredService service) {
+        HttpClient.Redirect redirect = service.isFollowRedirects()
+                ? HttpClient.Redirect.NORMAL
+                : HttpClient.Redirect.NEVER;
+        return new ProbeClientProfile(
+                ProbeClientProfile.timeoutClass(timeoutSecondsOf(service)), version, redirect, proxy);
+    }
+
+    /**
+     * Gets the request timeout of a service, falling back to the scheduler default.
+     */
+    public Duration requestTimeout(MonitoredService service) {
+        return Duration.ofSeconds(timeoutSecondsOf(service));
+    }
+
+    /**
+     * Gets the shared client for a profile, creating it on first use.
+     */
+    public HttpClient client(ProbeClientProfile profile) {
+        return clients.computeIfAbsent(profile, this::newClient);
+    }
+
+    /**
+     * Sends a probe request for a service. Shared clients are used unless the service
+     * requests cold-connection probing, in which case a dedicated client is created for
+     * this request and shut down once the response has been received.
+     */
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(MonitoredService service, HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> bodyHandler) {
+        ProbeClientProfile profile = profileFor(service);
+        if (!service.isColdConnectionProbe()) {
+            return client(profile).sendAsync(request, bodyHandler);
+        }
+
+        HttpClient coldClient = newClient(profile);
+        return coldClient.sendAsync(request, bodyHandler)
+                .whenComplete((response, error) -> coldClient.shutdown());
+    }
+
+    private HttpClient newClient(ProbeClientProfile profile) {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .connectTimeout(profile.connectTimeout())
+                .version(profile.version())
+                .followRedirects(profile.redirect())
+                .executor(executor);
+        if (profile.proxy() != null) {
+            builder.proxy(ProxySelector.of(profile.proxy()));
+        }
+        return builder.build();
+    }
+
+    private int timeoutSecondsOf(MonitoredService service) {
+        Integer timeoutSeconds = service.getTimeoutSeconds();
+        return timeoutSeconds != null && timeoutSeconds > 0 ? timeoutSeconds : defaultTimeoutSeconds;
+    }
+
+    private static HttpClient.Version parseVersion(String value) {
+        try {
+            return value == null ? HttpClient.Version.HTTP_2 : HttpClient.Version.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unknown probe HTTP version '{}', using HTTP_2", value);
+            return HttpClient.Version.HTTP_2;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        clients.values().forEach(HttpClient::shutdownNow);
+        clients.clear();
+        executor.shutdownNow();
+    }
+}
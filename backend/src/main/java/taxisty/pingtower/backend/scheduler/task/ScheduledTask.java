@@ -3,6 +3,8 @@ package taxisty.pingtower.backend.scheduler.task;
 import taxisty.pingtower.backend.storage.model.CheckResult;
 import taxisty.pingtower.backend.storage.model.MonitoredService;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Interface for all scheduled monitoring tasks.
  * Implementations should handle specific monitoring operations like HTTP checks.
@@ -17,6 +19,18 @@ public interface ScheduledTask {
      */
     CheckResult execute(MonitoredService service);
     
+    /**
+     * Executes the monitoring task without blocking the calling thread.
+     * The default implementation runs the blocking {@link #execute(MonitoredService)}
+     * on the caller; network-bound tasks should override it with a non-blocking pipeline.
+     * 
+     * @param service The monitored service to check
+     * @return Future completed with the outcome of the monitoring check, never exceptionally
+     */
+    default CompletableFuture<CheckResult> executeAsync(MonitoredService service) {
+        return CompletableFuture.completedFuture(execute(service));
+    }
+    
     /**
      * Returns the task type identifier.
      * 
@@ -0,0 +1,29 @@
+package taxisty.pingtower.backend.scheduler.wheel;
+
+/**
+ * Entry of a {@link TimingWheel}. Nodes are linked directly into the wheel slots,
+ * so scheduling and cancelling a node never allocates or searches.
+ * Subclasses carry the payload of the timer.
+ */
+public class TimerNode {
+
+    TimerNode prev;
+    TimerNode next;
+    int level = -1;
+    int slot;
+    long deadlineTick;
+
+    /**
+     * Whether the node is currently linked into a wheel.
+     */
+    public boolean isScheduled() {
+        return level >= 0;
+    }
+
+    /**
+     * Gets the tick at which the node expires.
+     */
+    public long getDeadlineTick() {
+        return deadlineTick;
+    }
+}
@@ -0,0 +1,184 @@
+package taxisty.pingtower.backend.scheduler.wheel;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel with O(1) schedule and cancel.
+ * Level 0 has one slot per tick; every higher level covers {@code wheelSize} slots of the
+ * level below. When the lower levels wrap around, the matching slot of the next level is
+ * cascaded down, so a node is touched at most once per level before it expires.
+ * Deadlines beyond the top level are parked in its farthest slot and re-placed when reached.
+ * Not thread-safe; the owner serializes access.
+ *
+ * @param <T> Node type
+ */
+public class TimingWheel<T extends TimerNode> {
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final int bitsPerLevel;
+    private final int mask;
+    private final int levels;
+    private final TimerNode[][] slots;
+
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis Duration of one tick
+     * @param wheelSize Slots per level, a power of two
+     * @param levels Number of levels
+     * @param startMillis Epoch millis of tick 0
+     */
+    public TimingWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two: " + wheelSize);
+        }
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.bitsPerLevel = Integer.numberOfTrailingZeros(wheelSize);
+        this.mask = wheelSize - 1;
+        this.levels = levels;
+        this.slots = new TimerNode[levels][wheelSize];
+        // Tick 0 is the one starting at startMillis
+        this.currentTick = 0;
+    }
+
+    /**
+     * Converts epoch millis to the tick containing it.
+     */
+    public long toTick(long epochMillis) {
+        return Math.floorDiv(epochMillis - startMillis, tickMillis);
+    }
+
+    /**
+     * Converts a tick to the epoch millis at which it starts.
+     */
+    public long toMillis(long tick) {
+        return startMillis + tick * tickMillis;
+    }
+
+    /**
+     * Gets the last tick that has been processed.
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Schedules a node to expire at the tick containing the given time.
+     * Deadlines that are already due expire on the next tick. A node that is
+     * already scheduled is moved.
+     */
+    public void schedule(T node, long deadlineMillis) {
+        if (node.isScheduled()) {
+            cancel(node);
+        }
+        node.deadlineTick = Math.max(toTick(deadlineMillis), currentTick + 1);
+        place(node);
+        size++;
+    }
+
+    /**
+     * Removes a node from the wheel. Does nothing if the node is not scheduled.
+     */
+    public void cancel(T node) {
+        if (!node.isScheduled()) {
+            return;
+        }
+        unlink(node);
+        size--;
+    }
+
+    /**
+     * Processes every tick up to the one containing the given time and hands each
+     * expired node to the consumer. Expired nodes are unlinked before they are
+     * passed on, so the consumer may schedule them again.
+     */
+    @SuppressWarnings("unchecked")
+    public void advanceTo(long nowMillis, Consumer<T> expired) {
+        long targetTick = toTick(nowMillis);
+        while (currentTick < targetTick) {
+            long tick = ++currentTick;
+
+            // Cascade from the top so nodes can fall through several levels in one tick
+            for (int level = levels - 1; level > 0; level--) {
+                if ((tick & ((1L << (bitsPerLevel * level)) - 1)) == 0) {
+                    TimerNode node = detachSlot(level, (int) ((tick >>> (bitsPerLevel * level)) & mask));
+                    while (node != null) {
+                        TimerNode next = node.next;
+                        node.prev = null;
+                        node.next = null;
+                        if (node.deadlineTick <= tick) {
+                            node.level = -1;
+                            size--;
+                            expired.accept((T) node);
+                        } else {
+                            place(node);
+                        }
+                        node = next;
+                    }
+                }
+            }
+
+            TimerNode node = detachSlot(0, (int) (tick & mask));
+            while (node != null) {
+                TimerNode next = node.next;
+                node.prev = null;
+                node.next = null;
+                node.level = -1;
+                size--;
+                expired.accept((T) node);
+                node = next;
+            }
+        }
+    }
+
+    private void place(TimerNode node) {
+        long delta = node.deadlineTick - currentTick;
+        int level = 0;
+        while (level < levels - 1 && delta >= (1L << (bitsPerLevel * (level + 1)))) {
+            level++;
+        }
+        long slotTick = node.deadlineTick;
+        long span = 1L << (bitsPerLevel * levels);
+        if (delta >= span) {
+            // Beyond the wheel horizon: park in the farthest top-level slot
+            slotTick = currentTick + span - 1;
+        }
+        int slot = (int) ((slotTick >>> (bitsPerLevel * level)) & mask);
+
+        node.level = level;
+        node.slot = slot;
+        node.prev = null;
+        node.next = slots[level][slot];
+        if (node.next != null) {
+            node.next.prev = node;
+        }
+        slots[level][slot] = node;
+    }
+
+    private void unlink(TimerNode node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            slots[node.level][node.slot] = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        node.level = -1;
+    }
+
+    private TimerNode detachSlot(int level, int slot) {
+        TimerNode head = slots[level][slot];
+        slots[level][slot] = null;
+        return head;
+    }
+}
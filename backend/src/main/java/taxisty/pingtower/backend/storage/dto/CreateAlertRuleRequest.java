@@ -9,7 +9,7 @@ public record CreateAlertRuleRequest(
         String name,
         String description,
         int failureThreshold,
-        int warningThreshold,
-        long responseTimeThresholdMs,
+        Integer warningThreshold,
+        Long responseTimeThresholdMs,
         String severity
 ) {}
\ No newline at end of file
@@ -28,11 +28,12 @@ public class AlertRule {
     @Column(name = "failure_threshold")
     private int failureThreshold = 3;
     
+    // Optional thresholds: null when the rule does not use them
     @Column(name = "warning_threshold")
-    private int warningThreshold = 1;
+    private Integer warningThreshold;
     
     @Column(name = "response_time_threshold_ms")
-    private long responseTimeThresholdMs = 5000;
+    private Long responseTimeThresholdMs;
     
     @Column(name = "is_enabled")
     private boolean isEnabled = true;
@@ -52,8 +53,8 @@ public class AlertRule {
     public AlertRule() {}
     
     public AlertRule(Long id, Long serviceId, String name, String description, 
-                    int failureThreshold, int warningThreshold, 
-                    long responseTimeThresholdMs, boolean isEnabled, 
+                    int failureThreshold, Integer warningThreshold, 
+                    Long responseTimeThresholdMs, boolean isEnabled, 
                     String severity, Long userId, LocalDateTime createdAt, 
                     LocalDateTime updatedAt) {
         this.id = id;
@@ -97,11 +98,11 @@ public class AlertRule {
     public int getFailureThreshold() { return failureThreshold; }
     public void setFailureThreshold(int failureThreshold) { this.failureThreshold = failureThreshold; }
     
-    public int getWarningThreshold() { return warningThreshold; }
-    public void setWarningThreshold(int warningThreshold) { this.warningThreshold = warningThreshold; }
+    public Integer getWarningThreshold() { return warningThreshold; }
+    public void setWarningThreshold(Integer warningThreshold) { this.warningThreshold = warningThreshold; }
     
-    public long getResponseTimeThresholdMs() { return responseTimeThresholdMs; }
-    public void setResponseTimeThresholdMs(long responseTimeThresholdMs) { this.responseTimeThresholdMs = responseTimeThresholdMs; }
+    public Long getResponseTimeThresholdMs() { return responseTimeThresholdMs; }
+    public void setResponseTimeThresholdMs(Long responseTimeThresholdMs) { this.responseTimeThresholdMs = responseTimeThresholdMs; }
     
     public boolean isEnabled() { return isEnabled; }
     public void setIsEnabled(boolean isEnabled) { this.isEnabled = isEnabled; }
@@ -124,8 +125,8 @@ public class AlertRule {
     public String name() { return name; }
     public String description() { return description; }
     public int failureThreshold() { return failureThreshold; }
-    public int warningThreshold() { return warningThreshold; }
-    public long responseTimeThresholdMs() { return responseTimeThresholdMs; }
+    public Integer warningThreshold() { return warningThreshold; }
+    public Long responseTimeThresholdMs() { return responseTimeThresholdMs; }
     public String severity() { return severity; }
     public Long userId() { return userId; }
     public LocalDateTime createdAt() { return createdAt; }
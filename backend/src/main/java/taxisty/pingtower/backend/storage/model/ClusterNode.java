@@ -0,0 +1,47 @@
+package taxisty.pingtower.backend.storage.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Backend node taking part in clustered check execution.
+ * A node is considered alive while its heartbeat is recent.
+ */
+@Entity
+@Table(name = "cluster_node")
+public class ClusterNode {
+
+    @Id
+    @Column(name = "node_id", length = 100)
+    private String nodeId;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "last_heartbeat", nullable = false)
+    private LocalDateTime lastHeartbeat;
+
+    public ClusterNode() {}
+
+    public ClusterNode(String nodeId, LocalDateTime startedAt, LocalDateTime lastHeartbeat) {
+        this.nodeId = nodeId;
+        this.startedAt = startedAt;
+        this.lastHeartbeat = lastHeartbeat;
+    }
+
+    // Getters and Setters
+    public String getNodeId() { return nodeId; }
+    public void setNodeId(String nodeId) { this.nodeId = nodeId; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getLastHeartbeat() { return lastHeartbeat; }
+    public void setLastHeartbeat(LocalDateTime lastHeartbeat) { this.lastHeartbeat = lastHeartbeat; }
+
+    // Record-like accessor methods
+    public String nodeId() { return nodeId; }
+    public LocalDateTime startedAt() { return startedAt; }
+    public LocalDateTime lastHeartbeat() { return lastHeartbeat; }
+}
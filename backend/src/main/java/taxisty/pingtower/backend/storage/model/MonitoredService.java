@@ -76,6 +76,12 @@ public class MonitoredService {
     @Column(name = "expected_status_code")
     private Integer expectedStatusCode = 200;
     
+    @Column(name = "follow_redirects")
+    private Boolean followRedirects = false;
+    
+    @Column(name = "cold_connection_probe")
+    private Boolean coldConnectionProbe = false;
+    
     @Column(name = "user_id", nullable = false)
     private Long userId;
     
@@ -167,6 +173,12 @@ public class MonitoredService {
     public Integer getExpectedStatusCode() { return expectedStatusCode; }
     public void setExpectedStatusCode(Integer expectedStatusCode) { this.expectedStatusCode = expectedStatusCode; }
     
+    public boolean isFollowRedirects() { return Boolean.TRUE.equals(followRedirects); }
+    public void setFollowRedirects(Boolean followRedirects) { this.followRedirects = followRedirects; }
+    
+    public boolean isColdConnectionProbe() { return Boolean.TRUE.equals(coldConnectionProbe); }
+    public void setColdConnectionProbe(Boolean coldConnectionProbe) { this.coldConnectionProbe = coldConnectionProbe; }
+    
     public String getServiceType() { return serviceType; }
     public void setServiceType(String serviceType) { this.serviceType = serviceType; }
     
@@ -9,7 +9,10 @@ import java.time.LocalDateTime;
  * Maintains audit trail for notification reliability and debugging.
  */
 @Entity
-@Table(name = "notification_delivery")
+@Table(name = "notification_delivery", indexes = {
+        @Index(name = "idx_notification_delivery_alert_id", columnList = "alert_id"),
+        @Index(name = "idx_notification_delivery_channel_id", columnList = "channel_id")
+})
 public class NotificationDelivery {
     
     @Id
@@ -52,6 +52,19 @@ public class ServiceMetrics {
     @Column(name = "aggregation_period", length = 50)
     private String aggregationPeriod;
     
+    // Response time percentiles of successful checks; null where they were not computed
+    @Column(name = "p50_response_time_ms")
+    private Long p50ResponseTimeMs;
+    
+    @Column(name = "p90_response_time_ms")
+    private Long p90ResponseTimeMs;
+    
+    @Column(name = "p95_response_time_ms")
+    private Long p95ResponseTimeMs;
+    
+    @Column(name = "p99_response_time_ms")
+    private Long p99ResponseTimeMs;
+    
     public ServiceMetrics() {}
     
     public ServiceMetrics(Long id, Long serviceId, LocalDateTime periodStart, 
@@ -74,6 +87,23 @@ public class ServiceMetrics {
         this.aggregationPeriod = aggregationPeriod;
     }
     
+    public ServiceMetrics(Long id, Long serviceId, LocalDateTime periodStart,
+                         LocalDateTime periodEnd, double uptimePercentage,
+                         long averageResponseTimeMs, long maxResponseTimeMs,
+                         long minResponseTimeMs, int totalChecks,
+                         int successfulChecks, int failedChecks,
+                         String aggregationPeriod, Long p50ResponseTimeMs,
+                         Long p90ResponseTimeMs, Long p95ResponseTimeMs,
+                         Long p99ResponseTimeMs) {
+        this(id, serviceId, periodStart, periodEnd, uptimePercentage, averageResponseTimeMs,
+                maxResponseTimeMs, minResponseTimeMs, totalChecks, successfulChecks, failedChecks,
+                aggregationPeriod);
+        this.p50ResponseTimeMs = p50ResponseTimeMs;
+        this.p90ResponseTimeMs = p90ResponseTimeMs;
+        this.p95ResponseTimeMs = p95ResponseTimeMs;
+        this.p99ResponseTimeMs = p99ResponseTimeMs;
+    }
+    
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -111,6 +141,18 @@ public class ServiceMetrics {
     public String getAggregationPeriod() { return aggregationPeriod; }
     public void setAggregationPeriod(String aggregationPeriod) { this.aggregationPeriod = aggregationPeriod; }
     
+    public Long getP50ResponseTimeMs() { return p50ResponseTimeMs; }
+    public void setP50ResponseTimeMs(Long p50ResponseTimeMs) { this.p50ResponseTimeMs = p50ResponseTimeMs; }
+    
+    public Long getP90ResponseTimeMs() { return p90ResponseTimeMs; }
+    public void setP90ResponseTimeMs(Long p90ResponseTimeMs) { this.p90ResponseTimeMs = p90ResponseTimeMs; }
+    
+    public Long getP95ResponseTimeMs() { return p95ResponseTimeMs; }
+    public void setP95ResponseTimeMs(Long p95ResponseTimeMs) { this.p95ResponseTimeMs = p95ResponseTimeMs; }
+    
+    public Long getP99ResponseTimeMs() { return p99ResponseTimeMs; }
+    public void setP99ResponseTimeMs(Long p99ResponseTimeMs) { this.p99ResponseTimeMs = p99ResponseTimeMs; }
+    
     // Record-like accessor methods
     public Long id() { return id; }
     public Long serviceId() { return serviceId; }
@@ -124,4 +166,8 @@ public class ServiceMetrics {
     public int successfulChecks() { return successfulChecks; }
     public int failedChecks() { return failedChecks; }
     public String aggregationPeriod() { return aggregationPeriod; }
+    public Long p50ResponseTimeMs() { return p50ResponseTimeMs; }
+    public Long p90ResponseTimeMs() { return p90ResponseTimeMs; }
+    public Long p95ResponseTimeMs() { return p95ResponseTimeMs; }
+    public Long p99ResponseTimeMs() { return p99ResponseTimeMs; }
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+package taxisty.pingtower.backend.storage.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Current state of a monitored service: its latest check result, the length of the current
+ * run of successes or failures and when the status last changed.
+ * Upserted with every ingested batch, so dashboards read one row per service.
+ */
+@Entity
+@Table(name = "service_state")
+public class ServiceState {
+
+    @Id
+    @Column(name = "service_id")
+    private Long serviceId;
+
+    @Column(name = "last_check_id")
+    private Long lastCheckId;
+
+    @Column(name = "last_check_time", nullable = false)
+    private LocalDateTime lastCheckTime;
+
+    @Column(name = "last_successful", nullable = false)
+    private boolean lastSuccessful;
+
+    @Column(name = "last_response_code")
+    private int lastResponseCode;
+
+    @Column(name = "last_response_time_ms")
+    private long lastResponseTimeMs;
+
+    @Column(name = "last_error_message", columnDefinition = "TEXT")
+    private String lastErrorMessage;
+
+    @Column(name = "consecutive_successes", nullable = false)
+    private int consecutiveSuccesses;
+
+    @Column(name = "consecutive_failures", nullable = false)
+    private int consecutiveFailures;
+
+    // Check time of the first result of the current run
+    @Column(name = "status_changed_at")
+    private LocalDateTime statusChangedAt;
+
+    public ServiceState() {}
+
+    public ServiceState(Long serviceId) {
+        this.serviceId = serviceId;
+    }
+
+    /**
+     * Advances the state by a check result. Results older than the latest one are ignored.
+     */
+    public void apply(CheckResult result) {
+        if (lastCheckTime != null && result.getCheckTime().isBefore(lastCheckTime)) {
+            return;
+        }
+        boolean successful = result.isSuccessful();
+        if (lastCheckTime == null || successful != lastSuccessful) {
+            statusChangedAt = result.getCheckTime();
+            consecutiveSuccesses = 0;
+            consecutiveFailures = 0;
+        }
+        if (successful) {
+            consecutiveSuccesses++;
+        } else {
+            consecutiveFailures++;
+        }
+        lastCheckId = result.getId();
+        lastCheckTime = result.getCheckTime();
+        lastSuccessful = successful;
+        lastResponseCode = result.getResponseCode();
+        lastResponseTimeMs = result.getResponseTimeMs();
+        lastErrorMessage = result.getErrorMessage();
+    }
+
+    // Getters and Setters
+    public Long getServiceId() { return serviceId; }
+    public void setServiceId(Long serviceId) { this.serviceId = serviceId; }
+
+    public Long getLastCheckId() { return lastCheckId; }
+    public void setLastCheckId(Long lastCheckId) { this.lastCheckId = lastCheckId; }
+
+    public LocalDateTime getLastCheckTime() { return lastCheckTime; }
+    public void setLastCheckTime(LocalDateTime lastCheckTime) { this.lastCheckTime = lastCheckTime; }
+
+    public boolean isLastSuccessful() { return lastSuccessful; }
+    public void setLastSuccessful(boolean lastSuccessful) { this.lastSuccessful = lastSuccessful; }
+
+    public int getLastResponseCode() { return lastResponseCode; }
+    public void setLastResponseCode(int lastResponseCode) { this.lastResponseCode = lastResponseCode; }
+
+    public long getLastResponseTimeMs() { return lastResponseTimeMs; }
+    public void setLastResponseTimeMs(long lastResponseTimeMs) { this.lastResponseTimeMs = lastResponseTimeMs; }
+
+    public String getLastErrorMessage() { return lastErrorMessage; }
+    public void setLastErrorMessage(String lastErrorMessage) { this.lastErrorMessage = lastErrorMessage; }
+
+    public int getConsecutiveSuccesses() { return consecutiveSuccesses; }
+    public void setConsecutiveSuccesses(int consecutiveSuccesses) { this.consecutiveSuccesses = consecutiveSuccesses; }
+
+    public int getConsecutiveFailures() { return consecutiveFailures; }
+    public void setConsecutiveFailures(int consecutiveFailures) { this.consecutiveFailures = consecutiveFailures; }
+
+    public LocalDateTime getStatusChangedAt() { return statusChangedAt; }
+    public void setStatusChangedAt(LocalDateTime statusChangedAt) { this.statusChangedAt = statusChangedAt; }
+
+    /**
+     * UP or DOWN after the latest check
+     */
+    public String getStatus() { return lastSuccessful ? "UP" : "DOWN"; }
+}
@@ -0,0 +1,47 @@
+package taxisty.pingtower.backend.storage.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease on one shard of the monitored services.
+ * Only the node holding an unexpired lease executes checks of services in the shard.
+ */
+@Entity
+@Table(name = "shard_lease")
+public class ShardLease {
+
+    @Id
+    @Column(name = "shard_id")
+    private Integer shardId;
+
+    @Column(name = "owner_node_id", length = 100)
+    private String ownerNodeId;
+
+    @Column(name = "lease_expires_at", nullable = false)
+    private LocalDateTime leaseExpiresAt;
+
+    public ShardLease() {}
+
+    public ShardLease(Integer shardId, String ownerNodeId, LocalDateTime leaseExpiresAt) {
+        this.shardId = shardId;
+        this.ownerNodeId = ownerNodeId;
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    // Getters and Setters
+    public Integer getShardId() { return shardId; }
+    public void setShardId(Integer shardId) { this.shardId = shardId; }
+
+    public String getOwnerNodeId() { return ownerNodeId; }
+    public void setOwnerNodeId(String ownerNodeId) { this.ownerNodeId = ownerNodeId; }
+
+    public LocalDateTime getLeaseExpiresAt() { return leaseExpiresAt; }
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) { this.leaseExpiresAt = leaseExpiresAt; }
+
+    // Record-like accessor methods
+    public Integer shardId() { return shardId; }
+    public String ownerNodeId() { return ownerNodeId; }
+    public LocalDateTime leaseExpiresAt() { return leaseExpiresAt; }
+}
@@ -0,0 +1,202 @@
+package taxisty.pingtower.backend.monitoring.alerting;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import taxisty.pingtower.backend.monitoring.ingest.CheckResultIngestPipeline;
+import taxisty.pingtower.backend.monitoring.repository.AlertRepository;
+import taxisty.pingtower.backend.monitoring.repository.AlertRuleRepository;
+import taxisty.pingtower.backend.monitoring.repository.CheckResultRepository;
+import taxisty.pingtower.backend.monitoring.repository.MonitoredServiceRepository;
+import taxisty.pingtower.backend.notifications.service.NotificationService;
+import taxisty.pingtower.backend.scheduler.service.CheckOwnership;
+import taxisty.pingtower.backend.storage.model.Alert;
+import taxisty.pingtower.backend.storage.model.CheckResult;
+import taxisty.pingtower.backend.storage.model.MonitoredService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AlertEngineTest {
+
+    private static final long SERVICE_ID = 1L;
+
+    private final MonitoredServiceRepository serviceRepository = mock(MonitoredServiceRepository.class);
+    private final CheckResultRepository checkResultRepository = mock(CheckResultRepository.class);
+    private final AlertRepository alertRepository = mock(AlertRepository.class);
+    private final NotificationService notificationService = mock(NotificationService.class);
+    private final MonitoredService service = new MonitoredService();
+    private final List<Alert> saved = new ArrayList<>();
+    private final LocalDateTime now = LocalDateTime.now();
+    private final Set<Long> owned = ConcurrentHashMap.newKeySet();
+    private final List<Consumer<LongPredicate>> ownershipListeners = new ArrayList<>();
+    private final AlertEngine engine = new AlertEngine(new AlertRuleIndex(mock(AlertRuleRepository.class)),
+            serviceRepository, checkResultRepository, alertRepository, notificationService,
+            mock(PlatformTransactionManager.class), mock(CheckResultIngestPipeline.class), new CheckOwnership() {
+                @Override
+                public boolean owns(long serviceId) {
+                    return owned.contains(serviceId);
+                }
+
+                @Override
+                public void addOwnershipChangeListener(Consumer<LongPredicate> listener) {
+                    ownershipListeners.add(listener);
+                }
+            });
+
+    AlertEngineTest() {
+        owned.add(SERVICE_ID);
+        engine.start();
+        service.setId(SERVICE_ID);
+        service.setName("api");
+        service.setUrl("https://api.example.com");
+        when(serviceRepository.findById(SERVICE_ID)).thenReturn(Optional.of(service));
+        when(alertRepository.save(any())).thenAnswer(invocation -> {
+            saved.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+    }
+
+    @Test
+    void restartedEngineDoesNotRepeatTheAlertOfAnOngoingIncident() {
+        service.setAlive(false);
+        persistedFailures(4);
+        when(alertRepository.findUnresolvedByServiceId(SERVICE_ID)).thenReturn(List.of(
+                ruleAlert("MEDIUM"), statusAlert()));
+
+        // The fifth failure raises HIGH, above the MEDIUM already alerted before the restart
+        engine.evaluate(List.of(result(false, 0)));
+        // Further failures below CRITICAL raise nothing new
+        engine.evaluate(List.of(result(false, 1)));
+
+        assertThat(saved).extracting(Alert::getSeverity).containsExactly("HIGH");
+    }
+
+    @Test
+    void incidentAlertsBelowTheAlertedSeverityAreNotRepeated() {
+        service.setAlive(false);
+        persistedFailures(3);
+        when(alertRepository.findUnresolvedByServiceId(SERVICE_ID)).thenReturn(List.of(ruleAlert("MEDIUM")));
+
+        engine.evaluate(List.of(result(false, 0)));
+
+        assertThat(saved).isEmpty();
+        verify(serviceRepository, never()).updateAlive(anyLong(), anyBoolean());
+    }
+
+    @Test
+    void recoveryUsesThePersistedPreviousResult() {
+        service.setAlive(false);
+        persistedFailures(2);
+        when(checkResultRepository.findFirstByServiceIdAndCheckTimeBeforeOrderByCheckTimeDesc(eq(SERVICE_ID), any()))
+                .thenReturn(Optional.of(new CheckResult(null, SERVICE_ID, now.minusMinutes(1), false, 500, 10L,
+                        null, "down", false, null, "test")));
+        Alert open = ruleAlert("MEDIUM");
+        when(alertRepository.findUnresolvedByServiceId(SERVICE_ID)).thenReturn(List.of(open));
+
+        engine.evaluate(List.of(result(true, 0)));
+
+        verify(serviceRepository).updateAlive(SERVICE_ID, true);
+        assertThat(saved).extracting(alert -> alert.getMetadata().get("type"))
+                .containsExactly("STATUS_CHANGE", "RECOVERY");
+        // The success ended the incident and resolved its rule alert
+        assertThat(open.isResolved()).isTrue();
+        verify(alertRepository).saveAll(List.of(open));
+    }
+
+    @Test
+    void windowIsOnlyAdvancedOnceTheWritesCommit() {
+        when(alertRepository.findUnresolvedByServiceId(SERVICE_ID)).thenReturn(List.of());
+        when(serviceRepository.updateAlive(SERVICE_ID, false))
+                .thenThrow(new QueryTimeoutException("database unavailable"))
+                .thenReturn(1);
+
+        engine.evaluate(List.of(result(false, 0)));
+        engine.evaluate(List.of(result(false, 1)));
+
+        // The status change of the first failure was rolled back, so the second one writes it again
+        verify(serviceRepository, times(2)).updateAlive(SERVICE_ID, false);
+        ArgumentCaptor<Alert> sent = ArgumentCaptor.forClass(Alert.class);
+        verify(notificationService).sendAlert(sent.capture());
+        assertThat(sent.getValue().getMetadata()).containsEntry("newStatus", "DOWN");
+    }
+
+    @Test
+    void windowsAreSeededAgainAfterAnOwnershipChange() {
+        when(alertRepository.findUnresolvedByServiceId(SERVICE_ID)).thenReturn(List.of());
+        engine.evaluate(List.of(result(true, 0)));
+        engine.evaluate(List.of(result(true, 1)));
+        verify(serviceRepository, times(1)).findById(SERVICE_ID);
+
+        // Meanwhile another node took the service over and recorded it as down
+        ownershipListeners.forEach(listener -> listener.accept(serviceId -> serviceId == SERVICE_ID));
+        service.setAlive(false);
+        engine.evaluate(List.of(result(false, 2)));
+
+        verify(serviceRepository, times(2)).findById(SERVICE_ID);
+        // The persisted status was already DOWN, so the failure is not a status change
+        verify(serviceRepository, never()).updateAlive(anyLong(), anyBoolean());
+    }
+
+    @Test
+    void windowsOfServicesOwnedElsewhereAreNotKept() {
+        owned.remove(SERVICE_ID);
+        when(alertRepository.findUnresolvedByServiceId(SERVICE_ID)).thenReturn(List.of());
+
+        // A manual check run here; every result is evaluated against the persisted state
+        engine.evaluate(List.of(result(true, 0)));
+        engine.evaluate(List.of(result(true, 1)));
+
+        verify(serviceRepository, times(2)).findById(SERVICE_ID);
+    }
+
+    private void persistedFailures(int count) {
+        List<CheckResult> failures = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            failures.add(new CheckResult(null, SERVICE_ID, now.minusMinutes(i), false, 500, 10L, null, "down",
+                    false, null, "test"));
+        }
+        when(checkResultRepository.findRecentFailuresByServiceId(eq(SERVICE_ID), any(LocalDateTime.class)))
+                .thenReturn(failures);
+    }
+
+    private CheckResult result(boolean successful, int seconds) {
+        return new CheckResult(null, SERVICE_ID, now.plusSeconds(seconds), successful, successful ? 200 : 500, 10L,
+                null, successful ? null : "down", false, null, "test");
+    }
+
+    private static Alert ruleAlert(String severity) {
+        Alert alert = new Alert();
+        alert.setServiceId(SERVICE_ID);
+        alert.setSeverity(severity);
+        alert.setMetadata(Map.of("rule", "default"));
+        return alert;
+    }
+
+    private static Alert statusAlert() {
+        Alert alert = new Alert();
+        alert.setServiceId(SERVICE_ID);
+        alert.setSeverity("HIGH");
+        alert.setMetadata(Map.of("type", "STATUS_CHANGE"));
+        return alert;
+    }
+}
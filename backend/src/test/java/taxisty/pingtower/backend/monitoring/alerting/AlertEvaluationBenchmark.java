@@ -0,0 +1,149 @@
+package taxisty.pingtower.backend.monitoring.alerting;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import taxisty.pingtower.backend.monitoring.ingest.CheckResultIngestPipeline;
+import taxisty.pingtower.backend.monitoring.repository.AlertRepository;
+import taxisty.pingtower.backend.monitoring.repository.AlertRuleRepository;
+import taxisty.pingtower.backend.monitoring.repository.CheckResultRepository;
+import taxisty.pingtower.backend.monitoring.repository.MonitoredServiceRepository;
+import taxisty.pingtower.backend.notifications.service.NotificationService;
+import taxisty.pingtower.backend.storage.model.AlertRule;
+import taxisty.pingtower.backend.storage.model.CheckResult;
+import taxisty.pingtower.backend.storage.model.MonitoredService;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Alert evaluations per second for {@value #SERVICES} services with one to three rules each.
+ * <p>
+ * The first measurement runs committed batches of healthy results through {@link AlertEngine#evaluate},
+ * with windows already seeded, so no repository is touched. The second one drives
+ * {@link ServiceAlertWindow} and {@link CompiledAlertRule} directly with one failure in seven, which
+ * would otherwise raise alerts and write them.
+ */
+@Tag("benchmark")
+class AlertEvaluationBenchmark {
+
+    private static final int SERVICES = 5000;
+    private static final int BATCH_SIZE = 1000;
+    private static final int EVALUATIONS = 2_000_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void evaluationsPerSecond() {
+        AlertRuleRepository ruleRepository = mock(AlertRuleRepository.class);
+        when(ruleRepository.findAllEnabled()).thenReturn(rules());
+        AlertRuleIndex index = new AlertRuleIndex(ruleRepository);
+        index.reload();
+
+        MonitoredServiceRepository serviceRepository = mock(MonitoredServiceRepository.class);
+        MonitoredService service = new MonitoredService();
+        when(serviceRepository.findById(anyLong())).thenReturn(Optional.of(service));
+        AlertEngine engine = new AlertEngine(index, serviceRepository, mock(CheckResultRepository.class),
+                mock(AlertRepository.class), mock(NotificationService.class),
+                mock(PlatformTransactionManager.class), mock(CheckResultIngestPipeline.class), serviceId -> true);
+
+        List<List<CheckResult>> batches = healthyBatches();
+        // Seeds every window
+        batches.forEach(engine::evaluate);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            long evaluated = 0;
+            while (evaluated < EVALUATIONS) {
+                for (List<CheckResult> batch : batches) {
+                    engine.evaluate(batch);
+                    evaluated += batch.size();
+                }
+            }
+            double engineRate = evaluated / ((System.nanoTime() - start) / 1e9);
+
+            long allocatedBefore = allocatedBytes();
+            start = System.nanoTime();
+            int fired = evaluateWindows(index);
+            double windowRate = EVALUATIONS / ((System.nanoTime() - start) / 1e9);
+            long allocated = allocatedBytes() - allocatedBefore;
+
+            System.out.printf("round %d: AlertEngine.evaluate %.2fM evaluations/s | "
+                            + "window and rules %.2fM evaluations/s, %d fired, %.2f bytes/evaluation%n",
+                    round, engineRate / 1e6, windowRate / 1e6, fired, (double) allocated / EVALUATIONS);
+            assertThat(fired).isPositive();
+        }
+    }
+
+    private static int evaluateWindows(AlertRuleIndex index) {
+        ServiceAlertWindow[] windows = new ServiceAlertWindow[SERVICES];
+        // Boxed once, as the service ids of check results are
+        Long[] serviceIds = new Long[SERVICES];
+        for (int i = 0; i < SERVICES; i++) {
+            windows[i] = new ServiceAlertWindow(true, true, CompiledAlertRule.NONE, 0);
+            serviceIds[i] = (long) i;
+        }
+        int fired = 0;
+        for (int i = 0; i < EVALUATIONS; i++) {
+            int service = i % SERVICES;
+            long minute = i / SERVICES / 4;
+            boolean successful = i % 7 != 0;
+            ServiceAlertWindow window = windows[service];
+            if (!successful) {
+                window.recordFailure(minute);
+            }
+            int failures = window.failuresWithin(minute, 30);
+            int level = CompiledAlertRule.NONE;
+            for (CompiledAlertRule rule : index.rulesFor(serviceIds[service])) {
+                level = Math.max(level, rule.evaluate(successful, 100 + i % 400, failures));
+            }
+            if (level > CompiledAlertRule.NONE) {
+                fired++;
+            }
+        }
+        return fired;
+    }
+
+    private static List<AlertRule> rules() {
+        List<AlertRule> rules = new ArrayList<>();
+        long id = 1;
+        for (long service = 0; service < SERVICES; service++) {
+            for (int i = 0; i <= service % 3; i++) {
+                AlertRule rule = new AlertRule();
+                rule.setId(id++);
+                rule.setServiceId(service);
+                rule.setName("rule-" + i);
+                rule.setFailureThreshold(3 + i);
+                rule.setWarningThreshold(i == 0 ? null : 1);
+                rule.setResponseTimeThresholdMs(i == 2 ? 5000L : null);
+                rules.add(rule);
+            }
+        }
+        return rules;
+    }
+
+    private static List<List<CheckResult>> healthyBatches() {
+        LocalDateTime now = LocalDateTime.now();
+        List<List<CheckResult>> batches = new ArrayList<>();
+        for (int from = 0; from < SERVICES; from += BATCH_SIZE) {
+            List<CheckResult> batch = new ArrayList<>(BATCH_SIZE);
+            for (long service = from; service < from + BATCH_SIZE; service++) {
+                batch.add(new CheckResult(null, service, now, true, 200, 100 + service % 400, null, null,
+                        true, null, null));
+            }
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
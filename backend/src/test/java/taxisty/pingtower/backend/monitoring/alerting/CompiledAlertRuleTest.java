@@ -0,0 +1,57 @@
+package taxisty.pingtower.backend.monitoring.alerting;
+
+import org.junit.jupiter.api.Test;
+import taxisty.pingtower.backend.storage.model.AlertRule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompiledAlertRuleTest {
+
+    @Test
+    void unsetThresholdsNeverFire() {
+        AlertRule rule = rule(5);
+
+        CompiledAlertRule compiled = CompiledAlertRule.compile(rule);
+
+        // Neither a first failure nor a 30 second response fires without warning and latency thresholds
+        assertThat(compiled.evaluate(false, 100, 1)).isEqualTo(CompiledAlertRule.NONE);
+        assertThat(compiled.evaluate(true, 30_000, 0)).isEqualTo(CompiledAlertRule.NONE);
+        assertThat(compiled.evaluate(false, 100, 5)).isEqualTo(CompiledAlertRule.HIGH);
+    }
+
+    @Test
+    void setThresholdsRaiseWarningsCappedAtMedium() {
+        AlertRule rule = rule(5);
+        rule.setSeverity("CRITICAL");
+        rule.setWarningThreshold(2);
+        rule.setResponseTimeThresholdMs(1000L);
+
+        CompiledAlertRule compiled = CompiledAlertRule.compile(rule);
+
+        assertThat(compiled.evaluate(false, 100, 1)).isEqualTo(CompiledAlertRule.NONE);
+        assertThat(compiled.evaluate(false, 100, 2)).isEqualTo(CompiledAlertRule.MEDIUM);
+        assertThat(compiled.evaluate(true, 1000, 0)).isEqualTo(CompiledAlertRule.MEDIUM);
+        assertThat(compiled.evaluate(false, 100, 5)).isEqualTo(CompiledAlertRule.CRITICAL);
+    }
+
+    @Test
+    void builtInRuleEscalatesWithTheFailureCount() {
+        CompiledAlertRule rule = CompiledAlertRule.DEFAULT;
+
+        assertThat(rule.evaluate(true, 60_000, 0)).isEqualTo(CompiledAlertRule.NONE);
+        assertThat(rule.evaluate(false, 100, 2)).isEqualTo(CompiledAlertRule.NONE);
+        assertThat(rule.evaluate(false, 20_000, 2)).isEqualTo(CompiledAlertRule.LOW);
+        assertThat(rule.evaluate(false, 100, 3)).isEqualTo(CompiledAlertRule.MEDIUM);
+        assertThat(rule.evaluate(false, 100, 5)).isEqualTo(CompiledAlertRule.HIGH);
+        assertThat(rule.evaluate(false, 100, 10)).isEqualTo(CompiledAlertRule.CRITICAL);
+    }
+
+    private static AlertRule rule(int failureThreshold) {
+        AlertRule rule = new AlertRule();
+        rule.setId(1L);
+        rule.setServiceId(1L);
+        rule.setName("api");
+        rule.setFailureThreshold(failureThreshold);
+        return rule;
+    }
+}
@@ -0,0 +1,56 @@
+package taxisty.pingtower.backend.monitoring.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClickHouseConfigTest {
+
+    private final MonitoringProperties properties = new MonitoringProperties();
+    private ClickHouseConfig config;
+
+    @AfterEach
+    void close() {
+        config.destroy();
+    }
+
+    @Test
+    void ingestAndAnalyticsGetSeparateBoundedPools() {
+        properties.getClickhouse().setUrl("jdbc:clickhouse://127.0.0.1:1/monitoring");
+        properties.getClickhouse().setIngestPoolSize(2);
+        properties.getClickhouse().setAnalyticsPoolSize(8);
+        properties.getClickhouse().setQueryTimeoutSeconds(30);
+        properties.getClickhouse().setIngestQueryTimeoutSeconds(60);
+        config = new ClickHouseConfig(properties, new SimpleMeterRegistry());
+
+        JdbcTemplate analytics = config.clickHouseJdbcTemplate();
+        JdbcTemplate ingest = config.clickHouseIngestJdbcTemplate();
+
+        HikariDataSource analyticsPool = (HikariDataSource) analytics.getDataSource();
+        HikariDataSource ingestPool = (HikariDataSource) ingest.getDataSource();
+        assertThat(analyticsPool).isNotSameAs(ingestPool);
+        assertThat(analyticsPool.getPoolName()).isEqualTo("clickhouse-analytics");
+        assertThat(analyticsPool.getMaximumPoolSize()).isEqualTo(8);
+        assertThat(ingestPool.getPoolName()).isEqualTo("clickhouse-ingest");
+        assertThat(ingestPool.getMaximumPoolSize()).isEqualTo(2);
+        assertThat(analytics.getQueryTimeout()).isEqualTo(30);
+        assertThat(ingest.getQueryTimeout()).isEqualTo(60);
+    }
+
+    @Test
+    void poolsAreClosedOnShutdown() {
+        properties.getClickhouse().setUrl("jdbc:clickhouse://127.0.0.1:1/monitoring");
+        config = new ClickHouseConfig(properties, new SimpleMeterRegistry());
+        HikariDataSource analyticsPool = (HikariDataSource) config.clickHouseJdbcTemplate().getDataSource();
+        HikariDataSource ingestPool = (HikariDataSource) config.clickHouseIngestJdbcTemplate().getDataSource();
+
+        config.destroy();
+
+        assertThat(analyticsPool.isClosed()).isTrue();
+        assertThat(ingestPool.isClosed()).isTrue();
+    }
+}
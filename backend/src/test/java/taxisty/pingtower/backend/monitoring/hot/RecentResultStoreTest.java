@@ -0,0 +1,168 @@
+package taxisty.pingtower.backend.monitoring.hot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import taxisty.pingtower.backend.monitoring.config.MonitoringProperties;
+import taxisty.pingtower.backend.monitoring.ingest.CheckResultIngestPipeline;
+import taxisty.pingtower.backend.monitoring.repository.ServiceStateRepository;
+import taxisty.pingtower.backend.scheduler.service.CheckOwnership;
+import taxisty.pingtower.backend.storage.model.CheckResult;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RecentResultStoreTest {
+
+    private static final int CAPACITY = ResultRing.INITIAL_SLOTS;
+
+    private final LocalDateTime start = LocalDateTime.now().plusSeconds(1).truncatedTo(ChronoUnit.MILLIS);
+    private final Set<Long> owned = new HashSet<>(Set.of(1L, 2L));
+    private final List<Consumer<LongPredicate>> ownershipListeners = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ServiceStateRepository serviceStateRepository = mock(ServiceStateRepository.class);
+    private boolean clustered;
+
+    @Test
+    void windowsAreServedOnlyWhileTheRingHoldsAllOfThem() {
+        RecentResultStore store = store(Long.MAX_VALUE);
+        for (int i = 0; i < CAPACITY + 4; i++) {
+            store.record(List.of(result(1L, i, null)));
+        }
+
+        assertThat(store.findBetween(1L, at(0), at(100))).isEmpty();
+        assertThat(store.findBetween(1L, at(3), at(100))).isEmpty();
+        assertThat(store.findBetween(1L, at(4), at(100))).hasValueSatisfying(results -> {
+            assertThat(results).hasSize(CAPACITY);
+            assertThat(results.get(0).getCheckTime()).isEqualTo(at(CAPACITY + 3));
+        });
+        assertThat(store.findLatest(1L)).hasValueSatisfying(
+                latest -> assertThat(latest.getCheckTime()).isEqualTo(at(CAPACITY + 3)));
+    }
+
+    @Test
+    void servicesOwnedElsewhereAreNotTracked() {
+        RecentResultStore store = store(Long.MAX_VALUE);
+
+        store.record(List.of(result(1L, 0, null), result(3L, 0, null)));
+
+        assertThat(store.findLatest(1L)).isPresent();
+        assertThat(store.findLatest(3L)).isEmpty();
+        assertThat(store.findBetween(3L, at(0), at(100))).isEmpty();
+    }
+
+    @Test
+    void ringsAreDroppedWhenTheirServicesChangeOwner() {
+        RecentResultStore store = store(Long.MAX_VALUE);
+        store.record(List.of(result(1L, 0, null), result(2L, 0, null)));
+        assertThat(store.findLatest(1L)).isPresent();
+
+        // Service 1 moves to another node and back; results probed there never reached this ring
+        owned.remove(1L);
+        ownershipListeners.forEach(listener -> listener.accept(serviceId -> serviceId == 1L));
+        assertThat(store.findLatest(1L)).isEmpty();
+        owned.add(1L);
+        ownershipListeners.forEach(listener -> listener.accept(serviceId -> serviceId == 1L));
+        store.record(List.of(result(1L, 5, null)));
+
+        assertThat(store.findLatest(1L)).hasValueSatisfying(
+                latest -> assertThat(latest.getCheckTime()).isEqualTo(at(5)));
+        assertThat(store.findBetween(2L, at(0), at(100))).hasValueSatisfying(
+                results -> assertThat(results).hasSize(1));
+    }
+
+    @Test
+    void resultsCommittedOnAnotherNodeMakeTheRingMiss() {
+        clustered = true;
+        RecentResultStore store = store(Long.MAX_VALUE);
+        store.record(List.of(result(1L, 0, null), result(1L, 1, null)));
+        when(serviceStateRepository.findLastCheckTime(1L)).thenReturn(Optional.of(at(1)));
+        assertThat(store.findBetween(1L, at(0), at(100))).hasValueSatisfying(
+                results -> assertThat(results).hasSize(2));
+
+        // A manual check of service 1 ran and committed on a node that does not own it
+        when(serviceStateRepository.findLastCheckTime(1L)).thenReturn(Optional.of(at(2)));
+
+        assertThat(store.findBetween(1L, at(0), at(100))).isEmpty();
+        assertThat(store.findLatest(1L)).isEmpty();
+        store.record(List.of(result(1L, 3, null)));
+        when(serviceStateRepository.findLastCheckTime(1L)).thenReturn(Optional.of(at(3)));
+        assertThat(store.findLatest(1L)).hasValueSatisfying(
+                latest -> assertThat(latest.getCheckTime()).isEqualTo(at(3)));
+    }
+
+    @Test
+    void errorMessagesAreChargedToTheBudget() {
+        long ringBytes = (long) CAPACITY * ResultRing.BYTES_PER_SLOT;
+        String error = "timeout 10";
+        RecentResultStore store = store(ringBytes + ResultRing.BYTES_PER_ERROR + 2L * error.length());
+
+        store.record(List.of(result(1L, 0, error)));
+        assertThat(allocatedBytes()).isEqualTo(ringBytes + ResultRing.BYTES_PER_ERROR + 2L * error.length());
+        assertThat(store.findLatest(1L)).hasValueSatisfying(
+                latest -> assertThat(latest.getErrorMessage()).isEqualTo(error));
+
+        // No room for a second message: it is dropped and no window containing it is served
+        store.record(List.of(result(1L, 1, "connection refused")));
+        assertThat(store.findLatest(1L)).isEmpty();
+        assertThat(store.findBetween(1L, at(1), at(100))).isEmpty();
+
+        store.record(List.of(result(1L, 2, null)));
+        assertThat(store.findLatest(1L)).hasValueSatisfying(latest -> assertThat(latest.isSuccessful()).isTrue());
+        assertThat(store.findBetween(1L, at(2), at(100))).hasValueSatisfying(
+                results -> assertThat(results).hasSize(1));
+
+        store.evict(1L);
+        assertThat(allocatedBytes()).isZero();
+    }
+
+    private RecentResultStore store(long maxBytes) {
+        MonitoringProperties properties = new MonitoringProperties();
+        properties.getHotTier().setEnabled(true);
+        properties.getHotTier().setCapacityPerService(CAPACITY);
+        properties.getHotTier().setMaxBytes(maxBytes);
+        CheckOwnership ownership = new CheckOwnership() {
+            @Override
+            public boolean owns(long serviceId) {
+                return owned.contains(serviceId);
+            }
+
+            @Override
+            public void addOwnershipChangeListener(Consumer<LongPredicate> listener) {
+                ownershipListeners.add(listener);
+            }
+
+            @Override
+            public boolean isClustered() {
+                return clustered;
+            }
+        };
+        RecentResultStore store = new RecentResultStore(properties, mock(CheckResultIngestPipeline.class),
+                ownership, serviceStateRepository, meterRegistry);
+        store.start();
+        return store;
+    }
+
+    private double allocatedBytes() {
+        return meterRegistry.get("pingtower.hottier.bytes").gauge().value();
+    }
+
+    private CheckResult result(Long serviceId, int second, String error) {
+        return new CheckResult(null, serviceId, at(second), error == null, error == null ? 200 : 0, 100,
+                null, error, true, null, null);
+    }
+
+    private LocalDateTime at(int second) {
+        return start.plusSeconds(second);
+    }
+}
@@ -0,0 +1,214 @@
+package taxisty.pingtower.backend.monitoring.ingest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import taxisty.pingtower.backend.monitoring.config.MonitoringProperties;
+import taxisty.pingtower.backend.monitoring.repository.CheckResultRepository;
+import taxisty.pingtower.backend.monitoring.repository.ClickHouseRepository;
+import taxisty.pingtower.backend.monitoring.repository.ServiceStateRepository;
+import taxisty.pingtower.backend.storage.model.CheckResult;
+import taxisty.pingtower.backend.storage.model.ServiceState;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CheckResultIngestPipelineTest {
+
+    private final CheckResultRepository checkResultRepository = mock(CheckResultRepository.class);
+    private final ClickHouseRepository clickHouseRepository = mock(ClickHouseRepository.class);
+    private final ServiceStateRepository serviceStateRepository = mock(ServiceStateRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<CheckResult> committed = new CopyOnWriteArrayList<>();
+    private final CheckResultIngestPipeline pipeline;
+
+    CheckResultIngestPipelineTest() {
+        MonitoringProperties properties = new MonitoringProperties();
+        properties.getIngest().setQueueCapacity(4);
+        properties.getIngest().setBatchSize(10);
+        properties.getIngest().setOfferTimeoutMillis(10);
+        properties.getIngest().setLingerMillis(100);
+        properties.getIngest().setRetryInitialMillis(10);
+        properties.getIngest().setRetryMaxMillis(40);
+        pipeline = new CheckResultIngestPipeline(checkResultRepository, clickHouseRepository, serviceStateRepository,
+                mock(PlatformTransactionManager.class), properties, meterRegistry);
+        pipeline.addCommitListener(committed::addAll);
+    }
+
+    @AfterEach
+    void stop() {
+        pipeline.stop();
+    }
+
+    @Test
+    void failedPostgresWritesAreRetriedUntilTheySucceed() {
+        AtomicInteger attempts = new AtomicInteger();
+        when(checkResultRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<CheckResult> batch = invocation.getArgument(0);
+            batch.forEach(result -> result.setId(100L + attempts.get()));
+            if (attempts.incrementAndGet() <= 3) {
+                throw new QueryTimeoutException("database unavailable");
+            }
+            return batch;
+        });
+        pipeline.start();
+        CheckResult result = result(1L);
+
+        pipeline.submit(result);
+
+        await().until(() -> committed.contains(result));
+        assertThat(attempts).hasValue(4);
+        assertThat(committed).hasSize(1);
+        verify(clickHouseRepository).saveCheckResults(List.of(result));
+        assertThat(meterRegistry.counter("pingtower.ingest.failures", "store", "postgres").count()).isEqualTo(3);
+        assertThat(meterRegistry.counter("pingtower.ingest.dropped").count()).isZero();
+    }
+
+    @Test
+    void rolledBackIdsAreClearedBeforeTheRetry() {
+        AtomicInteger attempts = new AtomicInteger();
+        List<Long> idsSeen = new CopyOnWriteArrayList<>();
+        when(checkResultRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<CheckResult> batch = invocation.getArgument(0);
+            idsSeen.add(batch.get(0).getId());
+            batch.get(0).setId(7L);
+            if (attempts.incrementAndGet() == 1) {
+                throw new QueryTimeoutException("database unavailable");
+            }
+            return batch;
+        });
+        pipeline.start();
+
+        pipeline.submit(result(1L));
+
+        await().until(() -> committed.size() == 1);
+        assertThat(idsSeen).containsExactly(null, null);
+    }
+
+    @Test
+    void batchRejectedForItsDataIsWrittenResultByResult() {
+        CheckResult bad = result(2L);
+        when(checkResultRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<CheckResult> batch = invocation.getArgument(0);
+            if (batch.contains(bad)) {
+                throw new DataIntegrityViolationException("value too long");
+            }
+            return batch;
+        });
+        pipeline.start();
+        CheckResult first = result(1L);
+        CheckResult last = result(3L);
+
+        pipeline.submit(first);
+        pipeline.submit(bad);
+        pipeline.submit(last);
+
+        await().until(() -> committed.size() == 2);
+        assertThat(committed).containsExactlyInAnyOrder(first, last);
+        await().until(() -> meterRegistry.counter("pingtower.ingest.dropped").count() == 1);
+    }
+
+    @Test
+    void stoppedPipelineGivesUpAfterOneAttempt() {
+        when(checkResultRepository.saveAll(any())).thenThrow(new QueryTimeoutException("database unavailable"));
+
+        pipeline.submit(result(1L));
+
+        verify(checkResultRepository, timeout(1000)).saveAll(any());
+        verify(clickHouseRepository, never()).saveCheckResults(any());
+        assertThat(committed).isEmpty();
+        assertThat(meterRegistry.counter("pingtower.ingest.dropped").count()).isEqualTo(1);
+    }
+
+    @Test
+    void fullQueueMakesTheCallerWaitForTheWriter() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> writerThreads = new CopyOnWriteArrayList<>();
+        when(checkResultRepository.saveAll(any())).thenAnswer(invocation -> {
+            writerThreads.add(Thread.currentThread().getName());
+            release.await();
+            return invocation.getArgument(0);
+        });
+        pipeline.start();
+
+        pipeline.submit(result(1L));
+        await().until(() -> writerThreads.size() == 1);
+
+        // The writer is blocked, the next four results fill the queue and the last has to wait
+        Thread probe = Thread.ofPlatform().name("probe").start(() -> {
+            for (long serviceId = 2; serviceId <= 6; serviceId++) {
+                pipeline.submit(result(serviceId));
+            }
+        });
+        await().until(() -> meterRegistry.counter("pingtower.ingest.backpressure").count() == 1);
+        assertThat(probe.isAlive()).isTrue();
+
+        release.countDown();
+        probe.join(5000);
+        await().until(() -> committed.size() == 6);
+        assertThat(writerThreads).containsOnly("ingest-writer");
+    }
+
+    @Test
+    void serviceStatesAreUpsertedOncePerServiceInCheckTimeOrder() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(checkResultRepository.saveAll(any())).thenAnswer(invocation -> {
+            release.await();
+            return invocation.getArgument(0);
+        });
+        List<ServiceState> upserted = new CopyOnWriteArrayList<>();
+        List<Boolean> continuesRun = new CopyOnWriteArrayList<>();
+        when(serviceStateRepository.upsert(any(), anyBoolean())).thenAnswer(invocation -> {
+            upserted.add(invocation.getArgument(0));
+            continuesRun.add(invocation.getArgument(1));
+            return 1;
+        });
+        pipeline.start();
+        pipeline.submit(result(9L));
+        await().until(() -> pipeline.getQueueSize() == 0);
+
+        // Queued while the writer is blocked, so they form the next batch
+        LocalDateTime now = LocalDateTime.now();
+        pipeline.submit(result(1L, now.minusSeconds(10), true));
+        pipeline.submit(result(2L, now, true));
+        pipeline.submit(result(1L, now.minusSeconds(30), false));
+        pipeline.submit(result(1L, now.minusSeconds(20), true));
+        release.countDown();
+
+        await().until(() -> upserted.size() == 3);
+        ServiceState first = upserted.get(1);
+        assertThat(first.getServiceId()).isEqualTo(1L);
+        assertThat(first.isLastSuccessful()).isTrue();
+        assertThat(first.getLastCheckTime()).isEqualTo(now.minusSeconds(10));
+        assertThat(first.getConsecutiveSuccesses()).isEqualTo(2);
+        assertThat(first.getStatusChangedAt()).isEqualTo(now.minusSeconds(20));
+        assertThat(upserted.get(2).getServiceId()).isEqualTo(2L);
+        // The run of service 1 started within the batch, the single result of service 2 may continue one
+        assertThat(continuesRun).containsExactly(true, false, true);
+    }
+
+    private static CheckResult result(long serviceId) {
+        return result(serviceId, LocalDateTime.now(), true);
+    }
+
+    private static CheckResult result(long serviceId, LocalDateTime checkTime, boolean successful) {
+        return new CheckResult(null, serviceId, checkTime, successful, successful ? 200 : 500, 15L, null,
+                successful ? null : "down", false, null, "test");
+    }
+}
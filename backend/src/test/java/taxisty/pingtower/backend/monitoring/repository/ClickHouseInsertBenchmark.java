@@ -0,0 +1,110 @@
+package taxisty.pingtower.backend.monitoring.repository;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import taxisty.pingtower.backend.monitoring.config.MonitoringProperties;
+import taxisty.pingtower.backend.storage.model.CheckResult;
+
+import java.net.InetSocketAddress;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rows per second of {@link ClickHouseRepositoryImpl#saveCheckResults} with one row per insert
+ * against {@value #BATCH_SIZE} rows per RowBinary insert.
+ * <p>
+ * The server is a local HTTP stub that accepts every insert, so this measures the client side and
+ * the round trips only; part creation on a real ClickHouse server comes on top of it.
+ */
+@Tag("benchmark")
+class ClickHouseInsertBenchmark {
+
+    private static final int ROWS = 10_000;
+    private static final int SINGLE_ROW_INSERTS = 2000;
+    private static final int BATCH_SIZE = 1000;
+    private static final int ROUNDS = 3;
+
+    private static final AtomicLong requests = new AtomicLong();
+    private static final AtomicLong requestBytes = new AtomicLong();
+    private static HttpServer server;
+    private static ClickHouseRepositoryImpl repository;
+    private static List<CheckResult> rows;
+
+    @BeforeAll
+    static void startStub() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.createContext("/", exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            requests.incrementAndGet();
+            requestBytes.addAndGet(body.length);
+            exchange.getResponseHeaders().add("X-ClickHouse-Summary", "{\"written_rows\":\"1\"}");
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+
+        String url = "jdbc:clickhouse://127.0.0.1:" + server.getAddress().getPort()
+                + "/monitoring?compress=0&server_time_zone=UTC&server_version=24.3";
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(url, "default", ""));
+        MonitoringProperties properties = new MonitoringProperties();
+        properties.getSpool().setEnabled(false);
+        repository = new ClickHouseRepositoryImpl(jdbcTemplate, jdbcTemplate, properties, new SimpleMeterRegistry());
+
+        rows = new ArrayList<>(ROWS);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < ROWS; i++) {
+            boolean ok = i % 7 != 0;
+            rows.add(new CheckResult((long) i, (long) (i % 500), now, ok, 200, 120 + i % 50, "ok",
+                    ok ? null : "timeout", true, now.plusDays(30), "eu-1"));
+        }
+    }
+
+    @AfterAll
+    static void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    void singleRowInsertsAgainstRowBinaryBatches() {
+        double singleRate = 0;
+        double batchRate = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            requests.set(0);
+            requestBytes.set(0);
+            long start = System.nanoTime();
+            for (CheckResult row : rows.subList(0, SINGLE_ROW_INSERTS)) {
+                repository.saveCheckResults(List.of(row));
+            }
+            singleRate = SINGLE_ROW_INSERTS / ((System.nanoTime() - start) / 1e9);
+            long singleRequests = requests.get();
+
+            requests.set(0);
+            requestBytes.set(0);
+            start = System.nanoTime();
+            for (int i = 0; i < ROWS; i += BATCH_SIZE) {
+                repository.saveCheckResults(rows.subList(i, i + BATCH_SIZE));
+            }
+            batchRate = ROWS / ((System.nanoTime() - start) / 1e9);
+
+            System.out.printf("round %d: one row per insert %.0f rows/s (%d requests) | "
+                            + "batch=%d %.0f rows/s (%d requests, %d bytes/row)%n",
+                    round, singleRate, singleRequests, BATCH_SIZE, batchRate, requests.get(),
+                    requestBytes.get() / ROWS);
+            assertThat(singleRequests).isEqualTo(SINGLE_ROW_INSERTS);
+            assertThat(requests.get()).isEqualTo(ROWS / BATCH_SIZE);
+        }
+        assertThat(batchRate).isGreaterThan(singleRate);
+    }
+}
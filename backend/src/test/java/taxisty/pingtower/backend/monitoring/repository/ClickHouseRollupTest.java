@@ -0,0 +1,129 @@
+package taxisty.pingtower.backend.monitoring.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import taxisty.pingtower.backend.monitoring.config.MonitoringProperties;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ClickHouseRollupTest {
+
+    private static final Pattern CUTOFF = Pattern.compile("check_time (>=|<) (toDateTime\\(\\d+\\))");
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ClickHouseRepositoryImpl repository;
+
+    ClickHouseRollupTest() {
+        MonitoringProperties properties = new MonitoringProperties();
+        properties.getSpool().setEnabled(false);
+        repository = new ClickHouseRepositoryImpl(jdbcTemplate, jdbcTemplate, properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void newViewAndBackfillSplitTheRowsAtOneCutoff() {
+        when(jdbcTemplate.queryForObject(startsWith("EXISTS TABLE"), eq(Integer.class))).thenReturn(0);
+
+        repository.initializeTables();
+
+        ArgumentCaptor<String> statements = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, atLeastOnce()).execute(statements.capture());
+        for (String rollup : List.of("check_rollup_1m", "check_rollup_1h", "check_rollup_1d")) {
+            String view = single(statements.getAllValues(), "CREATE MATERIALIZED VIEW " + rollup + "_mv ");
+            String backfill = single(statements.getAllValues(), "INSERT INTO " + rollup + " ");
+            Matcher viewCutoff = CUTOFF.matcher(view);
+            Matcher backfillCutoff = CUTOFF.matcher(backfill);
+            assertThat(viewCutoff.find()).isTrue();
+            assertThat(backfillCutoff.find()).isTrue();
+            assertThat(viewCutoff.group(1)).isEqualTo(">=");
+            assertThat(backfillCutoff.group(1)).isEqualTo("<");
+            assertThat(backfillCutoff.group(2)).isEqualTo(viewCutoff.group(2));
+        }
+    }
+
+    @Test
+    void nodeThatLosesTheRaceToCreateTheViewDoesNotBackfill() {
+        when(jdbcTemplate.queryForObject(startsWith("EXISTS TABLE"), eq(Integer.class))).thenReturn(0, 1);
+        doThrow(new DataAccessResourceFailureException("Table check_rollup_1m_mv already exists"))
+                .when(jdbcTemplate).execute(startsWith("CREATE MATERIALIZED VIEW check_rollup_1m_mv "));
+
+        repository.initializeTables();
+
+        verify(jdbcTemplate, never()).execute(startsWith("INSERT INTO check_rollup_1m "));
+    }
+
+    @Test
+    void existingViewsAreNotBackfilledAgain() {
+        when(jdbcTemplate.queryForObject(startsWith("EXISTS TABLE"), eq(Integer.class))).thenReturn(1);
+        when(jdbcTemplate.queryForObject(contains("system.columns"), eq(Integer.class), anyString())).thenReturn(1);
+
+        repository.initializeTables();
+
+        verify(jdbcTemplate, never()).execute(startsWith("CREATE MATERIALIZED VIEW"));
+        verify(jdbcTemplate, never()).execute(startsWith("INSERT INTO"));
+        verify(jdbcTemplate, never()).execute(startsWith("DROP"));
+    }
+
+    @Test
+    void viewsWithoutPercentilesGetTheirQuerySwappedInPlace() {
+        when(jdbcTemplate.queryForObject(startsWith("EXISTS TABLE"), eq(Integer.class))).thenReturn(1);
+        when(jdbcTemplate.queryForObject(contains("system.columns"), eq(Integer.class), anyString())).thenReturn(0);
+
+        repository.initializeTables();
+
+        verify(jdbcTemplate).execute(startsWith("ALTER TABLE check_rollup_1h_mv MODIFY QUERY SELECT"));
+        verify(jdbcTemplate, never()).execute(startsWith("DROP"));
+        verify(jdbcTemplate, never()).execute(startsWith("CREATE MATERIALIZED VIEW"));
+        verify(jdbcTemplate, never()).execute(startsWith("INSERT INTO"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void periodsWithoutARollupAreReadFromStoredMetrics() {
+        LocalDateTime end = LocalDateTime.now();
+
+        repository.getServiceMetrics(1L, end.minusDays(7), end, "weekly");
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(sql.capture(), any(RowMapper.class), eq(1L), any(), any(), eq("weekly"));
+        assertThat(sql.getValue()).contains("FROM monitoring.service_metrics_ts");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rollupPeriodsAreMergedFromTheRollups() {
+        LocalDateTime end = LocalDateTime.now();
+
+        repository.getServiceMetrics(1L, end.minusDays(1), end, "6h");
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(sql.capture(), any(RowMapper.class), eq("6h"), eq(1L), any(), any());
+        assertThat(sql.getValue()).contains("FROM monitoring.check_rollup_1h")
+                .contains("toStartOfInterval(bucket, INTERVAL 6 HOUR)");
+    }
+
+    private static String single(List<String> statements, String prefix) {
+        List<String> matching = statements.stream().filter(sql -> sql.startsWith(prefix)).toList();
+        assertThat(matching).as(prefix).hasSize(1);
+        return matching.get(0);
+    }
+}
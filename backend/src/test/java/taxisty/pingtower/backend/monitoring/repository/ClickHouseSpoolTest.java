@@ -0,0 +1,148 @@
+package taxisty.pingtower.backend.monitoring.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClickHouseSpoolTest {
+
+    private static final long HOUR = 3_600_000;
+
+    @TempDir
+    Path directory;
+
+    private final List<Insert> inserts = new ArrayList<>();
+    private final List<ClickHouseSpool> spools = new ArrayList<>();
+    private boolean failing;
+
+    @AfterEach
+    void stop() {
+        spools.forEach(ClickHouseSpool::stop);
+    }
+
+    @Test
+    void spooledBatchesAreReplayedAsOneInsertPerTable() throws Exception {
+        ClickHouseSpool spool = open(directory, 1024 * 1024);
+        spool.append(ClickHouseSpool.CHECK_RESULTS, bytes("a"), 1);
+        spool.append(ClickHouseSpool.CHECK_RESULTS, bytes("bb"), 2);
+        spool.append(ClickHouseSpool.SERVICE_METRICS, bytes("c"), 1);
+        assertThat(spool.hasBacklog()).isTrue();
+        assertThat(spool.getDepthRows()).isEqualTo(4);
+
+        spool.replay();
+
+        assertThat(inserts).extracting(Insert::rows).containsExactly("abb", "c");
+        assertThat(inserts).extracting(Insert::kind)
+                .containsExactly(ClickHouseSpool.CHECK_RESULTS, ClickHouseSpool.SERVICE_METRICS);
+        assertThat(spool.hasBacklog()).isFalse();
+        assertThat(spool.getDepthRows()).isZero();
+    }
+
+    @Test
+    void failedReplayIsRetriedWithTheSameTokenAfterARestart() throws Exception {
+        ClickHouseSpool spool = open(directory, 1024 * 1024);
+        spool.append(ClickHouseSpool.CHECK_RESULTS, bytes("a"), 1);
+        failing = true;
+        assertThatThrownBy(spool::replay).isInstanceOf(IOException.class);
+        spool.stop();
+
+        failing = false;
+        ClickHouseSpool reopened = open(directory, 1024 * 1024);
+        reopened.append(ClickHouseSpool.CHECK_RESULTS, bytes("b"), 1);
+        reopened.replay();
+
+        assertThat(reopened.getSpoolId()).isEqualTo(spool.getSpoolId());
+        // The range recorded before the failure is replayed unchanged, the new batch after it
+        assertThat(inserts).extracting(Insert::rows).containsExactly("a", "a", "b");
+        assertThat(inserts.get(1).token()).isEqualTo(inserts.get(0).token());
+        assertThat(inserts.get(2).token()).isNotEqualTo(inserts.get(1).token());
+    }
+
+    @Test
+    void tokensDifferBetweenSpoolsAndAfterTheDirectoryIsWiped() throws Exception {
+        Path other = Files.createDirectory(directory.resolve("other"));
+        ClickHouseSpool first = open(directory.resolve("first"), 1024 * 1024);
+        ClickHouseSpool second = open(other, 1024 * 1024);
+        first.append(ClickHouseSpool.CHECK_RESULTS, bytes("a"), 1);
+        second.append(ClickHouseSpool.CHECK_RESULTS, bytes("a"), 1);
+        first.replay();
+        second.replay();
+
+        assertThat(inserts).hasSize(2);
+        assertThat(inserts.get(0).token()).isNotEqualTo(inserts.get(1).token());
+
+        second.stop();
+        try (Stream<Path> files = Files.list(other)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        ClickHouseSpool wiped = open(other, 1024 * 1024);
+        wiped.append(ClickHouseSpool.CHECK_RESULTS, bytes("a"), 1);
+        wiped.replay();
+
+        assertThat(wiped.getSpoolId()).isNotEqualTo(second.getSpoolId());
+        assertThat(inserts.get(2).token()).isNotEqualTo(inserts.get(1).token());
+    }
+
+    @Test
+    void fullSpoolRejectsBatches() throws Exception {
+        ClickHouseSpool spool = open(directory, 40);
+
+        assertThat(spool.append(ClickHouseSpool.CHECK_RESULTS, new byte[20], 3)).isTrue();
+        assertThat(spool.append(ClickHouseSpool.CHECK_RESULTS, new byte[20], 5)).isFalse();
+        assertThat(spool.getDepthRows()).isEqualTo(3);
+        assertThat(spool.getDroppedRows()).isEqualTo(5);
+    }
+
+    @Test
+    void tornTailIsTruncatedOnRecovery() throws Exception {
+        ClickHouseSpool spool = open(directory, 1024 * 1024);
+        spool.append(ClickHouseSpool.CHECK_RESULTS, bytes("a"), 1);
+        spool.stop();
+        try (Stream<Path> files = Files.list(directory)) {
+            Path segment = files.filter(file -> file.getFileName().toString().startsWith("segment-"))
+                    .findFirst().orElseThrow();
+            // Header of a record whose payload never made it to disk
+            Files.write(segment, new byte[] {0, 0, 0, 50, 0, 0}, StandardOpenOption.APPEND);
+        }
+
+        ClickHouseSpool reopened = open(directory, 1024 * 1024);
+        assertThat(reopened.getDepthRows()).isEqualTo(1);
+        reopened.append(ClickHouseSpool.CHECK_RESULTS, bytes("b"), 1);
+        reopened.replay();
+
+        assertThat(inserts).extracting(Insert::rows).containsExactly("ab");
+    }
+
+    private ClickHouseSpool open(Path dir, long maxBytes) throws IOException {
+        ClickHouseSpool spool = new ClickHouseSpool(dir, 1024, maxBytes, 1024 * 1024, HOUR,
+                (kind, rows, token) -> {
+                    inserts.add(new Insert(kind, new String(rows), token));
+                    if (failing) {
+                        throw new IOException("ClickHouse unavailable");
+                    }
+                });
+        spools.add(spool);
+        spool.start();
+        return spool;
+    }
+
+    private static byte[] bytes(String rows) {
+        return rows.getBytes();
+    }
+
+    private record Insert(byte kind, String rows, String token) {
+    }
+}
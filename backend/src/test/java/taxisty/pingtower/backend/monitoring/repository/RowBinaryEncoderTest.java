@@ -0,0 +1,68 @@
+package taxisty.pingtower.backend.monitoring.repository;
+
+import com.clickhouse.data.ClickHouseInputStream;
+import com.clickhouse.data.format.BinaryStreamUtils;
+import org.junit.jupiter.api.Test;
+import taxisty.pingtower.backend.storage.model.CheckResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.TimeZone;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RowBinaryEncoderTest {
+
+    private static final LocalDateTime CHECK_TIME = LocalDateTime.of(2025, 3, 1, 12, 30, 15);
+
+    @Test
+    void checkResultColumnsAreWrittenInTableOrder() throws Exception {
+        CheckResult result = new CheckResult(42L, 7L, CHECK_TIME, true, 204, 1500L, "body", "slow",
+                true, CHECK_TIME.plusDays(30), "eu-1");
+
+        ClickHouseInputStream in = encode(result);
+
+        assertThat(BinaryStreamUtils.readUnsignedInt64(in)).isEqualTo(BigInteger.valueOf(42));
+        assertThat(BinaryStreamUtils.readUnsignedInt64(in)).isEqualTo(BigInteger.valueOf(7));
+        assertThat(BinaryStreamUtils.readDateTime32(in, TimeZone.getDefault())).isEqualTo(CHECK_TIME);
+        assertThat(BinaryStreamUtils.readUnsignedInt8(in)).isEqualTo((short) 1);
+        assertThat(BinaryStreamUtils.readUnsignedInt16(in)).isEqualTo(204);
+        assertThat(BinaryStreamUtils.readUnsignedInt32(in)).isEqualTo(1500L);
+        assertThat(in.readUnicodeString()).isEqualTo("body");
+        assertThat(in.readUnicodeString()).isEqualTo("slow");
+        assertThat(BinaryStreamUtils.readUnsignedInt8(in)).isEqualTo((short) 1);
+        assertThat(BinaryStreamUtils.readNull(in)).isFalse();
+        assertThat(BinaryStreamUtils.readDateTime32(in, TimeZone.getDefault())).isEqualTo(CHECK_TIME.plusDays(30));
+        assertThat(in.readUnicodeString()).isEqualTo("eu-1");
+        assertThat(in.read()).isEqualTo(-1);
+    }
+
+    @Test
+    void missingValuesAndOutOfRangeNumbersAreNormalized() throws Exception {
+        CheckResult result = new CheckResult(null, 7L, CHECK_TIME, false, -1, -5L, null, null,
+                false, null, null);
+
+        ClickHouseInputStream in = encode(result);
+
+        assertThat(BinaryStreamUtils.readUnsignedInt64(in)).isEqualTo(BigInteger.ZERO);
+        BinaryStreamUtils.readUnsignedInt64(in);
+        BinaryStreamUtils.readDateTime32(in, TimeZone.getDefault());
+        assertThat(BinaryStreamUtils.readUnsignedInt8(in)).isEqualTo((short) 0);
+        assertThat(BinaryStreamUtils.readUnsignedInt16(in)).isZero();
+        assertThat(BinaryStreamUtils.readUnsignedInt32(in)).isZero();
+        assertThat(in.readUnicodeString()).isEmpty();
+        assertThat(in.readUnicodeString()).isEmpty();
+        assertThat(BinaryStreamUtils.readUnsignedInt8(in)).isEqualTo((short) 0);
+        assertThat(BinaryStreamUtils.readNull(in)).isTrue();
+        assertThat(in.readUnicodeString()).isEmpty();
+        assertThat(in.read()).isEqualTo(-1);
+    }
+
+    private static ClickHouseInputStream encode(CheckResult result) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RowBinaryEncoder.writeCheckResult(out, result);
+        return ClickHouseInputStream.of(new ByteArrayInputStream(out.toByteArray()));
+    }
+}
@@ -0,0 +1,121 @@
+package taxisty.pingtower.backend.monitoring.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import taxisty.pingtower.backend.storage.model.CheckResult;
+import taxisty.pingtower.backend.storage.model.ServiceState;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class ServiceStateRepositoryTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:latest"));
+
+    @Autowired
+    private ServiceStateRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+    @AfterEach
+    void clear() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void batchesOfOneStatusExtendTheStoredRun() {
+        upsert(1L, true, 0, 1);
+        upsert(1L, true, 2, 3);
+
+        ServiceState state = repository.findById(1L).orElseThrow();
+        assertThat(state.getConsecutiveSuccesses()).isEqualTo(4);
+        assertThat(state.getStatusChangedAt()).isEqualTo(start);
+        assertThat(state.getLastCheckTime()).isEqualTo(start.plusSeconds(3));
+    }
+
+    @Test
+    void statusChangeStartsANewRun() {
+        upsert(1L, true, 0, 1);
+        upsert(1L, false, 2);
+
+        ServiceState state = repository.findById(1L).orElseThrow();
+        assertThat(state.isLastSuccessful()).isFalse();
+        assertThat(state.getConsecutiveFailures()).isEqualTo(1);
+        assertThat(state.getConsecutiveSuccesses()).isZero();
+        assertThat(state.getStatusChangedAt()).isEqualTo(start.plusSeconds(2));
+    }
+
+    @Test
+    void olderStatesAreIgnored() {
+        upsert(1L, true, 5);
+
+        assertThat(upsert(1L, false, 1)).isZero();
+
+        ServiceState state = repository.findById(1L).orElseThrow();
+        assertThat(state.isLastSuccessful()).isTrue();
+        assertThat(state.getLastCheckTime()).isEqualTo(start.plusSeconds(5));
+    }
+
+    @Test
+    void concurrentWritersOfANewServiceDoNotCollide() throws Exception {
+        int writers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        CountDownLatch ready = new CountDownLatch(writers);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            int second = i;
+            futures.add(executor.submit(() -> {
+                ready.countDown();
+                ready.await();
+                return upsert(1L, true, second);
+            }));
+        }
+        for (Future<Integer> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        ServiceState state = repository.findById(1L).orElseThrow();
+        assertThat(state.getLastCheckTime()).isEqualTo(start.plusSeconds(writers - 1));
+        assertThat(repository.count()).isEqualTo(1);
+    }
+
+    private int upsert(long serviceId, boolean successful, int... seconds) {
+        ServiceState state = new ServiceState(serviceId);
+        for (int second : seconds) {
+            state.apply(new CheckResult(null, serviceId, start.plusSeconds(second), successful,
+                    successful ? 200 : 500, 10L, null, successful ? null : "down", false, null, "test"));
+        }
+        Integer updated = new TransactionTemplate(transactionManager).execute(status -> repository.upsert(state, true));
+        return updated;
+    }
+}
@@ -0,0 +1,70 @@
+package taxisty.pingtower.backend.monitoring.service;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import taxisty.pingtower.backend.monitoring.config.MonitoringProperties;
+import taxisty.pingtower.backend.monitoring.repository.CheckResultRepository;
+import taxisty.pingtower.backend.monitoring.repository.ClickHouseRepository;
+import taxisty.pingtower.backend.storage.model.CheckResult;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DataSynchronizationServiceTest {
+
+    private final LocalDateTime weekAgo = LocalDateTime.now().minusDays(8);
+    private final CheckResultRepository checkResultRepository = mock(CheckResultRepository.class);
+    private final ClickHouseRepository clickHouseRepository = mock(ClickHouseRepository.class);
+    private final DataSynchronizationService service = new DataSynchronizationService(
+            checkResultRepository, clickHouseRepository, new MonitoringProperties());
+
+    @Test
+    void migrationInsertsOnlyResultsMissingFromClickHouse() {
+        when(checkResultRepository.findOlderThan(any())).thenReturn(List.of(result(1L), result(2L), result(3L)));
+        when(clickHouseRepository.getCheckResultIds(any(), any())).thenReturn(Set.of(1L, 3L));
+
+        service.migrateOldCheckResults();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CheckResult>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(clickHouseRepository).saveCheckResults(inserted.capture());
+        assertThat(inserted.getValue()).extracting(CheckResult::getId).containsExactly(2L);
+        verify(checkResultRepository).deleteByCheckTimeBefore(any());
+    }
+
+    @Test
+    void resultsAlreadyInClickHouseAreOnlyDeleted() {
+        when(checkResultRepository.findOlderThan(any())).thenReturn(List.of(result(1L), result(2L)));
+        when(clickHouseRepository.getCheckResultIds(any(), any())).thenReturn(Set.of(1L, 2L));
+
+        service.migrateOldCheckResults();
+
+        verify(clickHouseRepository, never()).saveCheckResults(anyList());
+        verify(checkResultRepository).deleteByCheckTimeBefore(any());
+    }
+
+    @Test
+    void failedLookupKeepsTheResultsInPostgres() {
+        when(checkResultRepository.findOlderThan(any())).thenReturn(List.of(result(1L)));
+        when(clickHouseRepository.getCheckResultIds(any(), any())).thenThrow(new IllegalStateException("down"));
+
+        service.scheduledDataMigration();
+
+        verify(clickHouseRepository, never()).saveCheckResults(anyList());
+        verify(checkResultRepository, never()).deleteByCheckTimeBefore(any());
+    }
+
+    private CheckResult result(Long id) {
+        return new CheckResult(id, 1L, weekAgo.minusMinutes(id), true, 200, 100,
+                null, null, true, null, null);
+    }
+}
@@ -0,0 +1,143 @@
+package taxisty.pingtower.backend.notifications.breaker;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import taxisty.pingtower.backend.notifications.config.NotificationProperties;
+import taxisty.pingtower.backend.notifications.providers.ChannelProvider.DeliveryResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerRegistryTest {
+
+    private static final String HOST = "WEBHOOK:hooks.example.com";
+    private static final DeliveryResult SENT = new DeliveryResult(true, 200, null, null);
+    private static final DeliveryResult DOWN = new DeliveryResult(false, 503, "unavailable", null);
+    private static final long OPEN_MILLIS = 1000;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CircuitBreakerRegistry breakers;
+
+    @BeforeEach
+    void setUp() {
+        NotificationProperties properties = new NotificationProperties();
+        properties.getBreaker().setFailureThreshold(2);
+        properties.getBreaker().setOpenMillis(OPEN_MILLIS);
+        properties.getBreaker().setMaxOpenMillis(4 * OPEN_MILLIS);
+        properties.getBreaker().setSlowCallMillis(500);
+        properties.getDispatch().setSendTimeoutMillis(5000);
+        breakers = new CircuitBreakerRegistry(properties, meterRegistry);
+        breakers.start();
+    }
+
+    @Test
+    void consecutiveFailuresOpenTheBreaker() {
+        fail(0);
+        assertThat(breakers.acquire(HOST, 1)).isZero();
+        fail(2);
+
+        assertThat(state()).isEqualTo("OPEN");
+        assertThat(breakers.acquire(HOST, 3)).isEqualTo(OPEN_MILLIS - 1);
+        assertThat(meterRegistry.get("pingtower.notifications.breaker.open").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectionsAndThrottlingLeaveTheBreakerAlone() {
+        breakers.record(HOST, new DeliveryResult(false, 400, "bad", null), 0, 10, 10);
+        breakers.record(HOST, new DeliveryResult(false, 429, "slow down", 5L), 0, 10, 10);
+        breakers.record(HOST, new DeliveryResult(false, 404, "gone", null), 0, 10, 10);
+
+        assertThat(breakers.states()).isEmpty();
+    }
+
+    @Test
+    void slowSuccessesCountAsFailures() {
+        breakers.record(HOST, SENT, 0, 600, 600);
+        breakers.record(HOST, SENT, 600, 600, 1200);
+
+        assertThat(state()).isEqualTo("OPEN");
+    }
+
+    @Test
+    void successfulProbeClosesTheBreaker() {
+        openAt(10);
+        long probe = 10 + OPEN_MILLIS;
+
+        assertThat(breakers.acquire(HOST, probe)).isZero();
+        assertThat(state()).isEqualTo("HALF_OPEN");
+        assertThat(breakers.acquire(HOST, probe + 1)).isPositive();
+        breakers.record(HOST, SENT, probe + 1, 10, probe + 11);
+
+        assertThat(state()).isEqualTo("CLOSED");
+        assertThat(breakers.acquire(HOST, probe + 12)).isZero();
+        assertThat(breakers.transitionCounts()).containsEntry("OPEN", 1L)
+                .containsEntry("HALF_OPEN", 1L)
+                .containsEntry("CLOSED", 1L);
+    }
+
+    @Test
+    void successOfASendStartedBeforeTheBreakerOpenedDoesNotCloseIt() {
+        openAt(10);
+        long probe = 10 + OPEN_MILLIS;
+        assertThat(breakers.acquire(HOST, probe)).isZero();
+
+        // Under way since before the breaker opened, it completes while the probe is out
+        breakers.record(HOST, SENT, 5, probe, probe + 5);
+
+        assertThat(state()).isEqualTo("HALF_OPEN");
+        breakers.record(HOST, DOWN, probe, 10, probe + 10);
+        assertThat(state()).isEqualTo("OPEN");
+    }
+
+    @Test
+    void lateFailureDoesNotReopenAHalfOpenBreaker() {
+        openAt(10);
+        long probe = 10 + OPEN_MILLIS;
+        assertThat(breakers.acquire(HOST, probe)).isZero();
+
+        breakers.record(HOST, DOWN, 9, probe, probe + 1);
+        assertThat(state()).isEqualTo("HALF_OPEN");
+
+        breakers.record(HOST, SENT, probe, 10, probe + 10);
+        assertThat(state()).isEqualTo("CLOSED");
+    }
+
+    @Test
+    void failedProbeDoublesTheOpenPeriodUpToTheMaximum() {
+        openAt(0);
+        long now = OPEN_MILLIS;
+        long expected = OPEN_MILLIS;
+        for (int i = 0; i < 4; i++) {
+            assertThat(breakers.acquire(HOST, now)).isZero();
+            breakers.record(HOST, DOWN, now, 10, now + 10);
+            expected = Math.min(expected * 2, 4 * OPEN_MILLIS);
+            assertThat(breakers.acquire(HOST, now + 10)).isEqualTo(expected);
+            now += 10 + expected;
+        }
+    }
+
+    @Test
+    void releasedProbeLetsTheNextSendProbe() {
+        openAt(0);
+        assertThat(breakers.acquire(HOST, OPEN_MILLIS)).isZero();
+        assertThat(breakers.acquire(HOST, OPEN_MILLIS + 1)).isPositive();
+
+        breakers.release(HOST);
+
+        assertThat(breakers.acquire(HOST, OPEN_MILLIS + 2)).isZero();
+    }
+
+    private void openAt(long now) {
+        fail(now - 1);
+        fail(now);
+        assertThat(state()).isEqualTo("OPEN");
+    }
+
+    private void fail(long now) {
+        breakers.record(HOST, DOWN, now, 0, now);
+    }
+
+    private String state() {
+        return breakers.states().get(0).state();
+    }
+}
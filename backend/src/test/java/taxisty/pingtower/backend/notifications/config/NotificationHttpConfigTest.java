@@ -0,0 +1,83 @@
+package taxisty.pingtower.backend.notifications.config;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NotificationHttpConfigTest {
+
+    private final NotificationHttpConfig config = new NotificationHttpConfig();
+    private final NotificationProperties properties = new NotificationProperties();
+    private final Set<String> clientPorts = ConcurrentHashMap.newKeySet();
+    private HttpServer server;
+    private ConnectionProvider connectionProvider;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            clientPorts.add(String.valueOf(exchange.getRemoteAddress().getPort()));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        if (connectionProvider != null) {
+            connectionProvider.dispose();
+        }
+    }
+
+    @Test
+    void sequentialRequestsReusePooledConnections() {
+        connectionProvider = config.notificationConnectionProvider(properties);
+        WebClient client = config.notificationWebClient(WebClient.builder(), connectionProvider, properties);
+
+        for (int i = 0; i < 10; i++) {
+            client.post().uri("http://127.0.0.1:" + server.getAddress().getPort() + "/hook")
+                    .retrieve().toBodilessEntity().block(Duration.ofSeconds(5));
+        }
+
+        // A connection goes back to the pool just after its response completes, so the next request
+        // may occasionally open a second one; without pooling every request would open its own
+        assertThat(clientPorts).hasSizeLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void hostOverridesReplaceThePerHostLimit() {
+        properties.getHttp().setMaxConnectionsPerHost(7);
+        properties.getHttp().setHostMaxConnections(Map.of("hooks.example.com:8443", 3));
+
+        connectionProvider = config.notificationConnectionProvider(properties);
+
+        assertThat(connectionProvider.maxConnections()).isEqualTo(7);
+        Map<SocketAddress, Integer> perHost = connectionProvider.maxConnectionsPerHost();
+        assertThat(perHost).containsEntry(InetSocketAddress.createUnresolved("hooks.example.com", 8443), 3);
+    }
+
+    @Test
+    void hostOverrideWithoutPortIsRejected() {
+        properties.getHttp().setHostMaxConnections(Map.of("hooks.example.com", 3));
+
+        assertThatThrownBy(() -> config.notificationConnectionProvider(properties))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("host:port");
+    }
+}
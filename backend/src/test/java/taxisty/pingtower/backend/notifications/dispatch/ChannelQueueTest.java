@@ -0,0 +1,126 @@
+package taxisty.pingtower.backend.notifications.dispatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import taxisty.pingtower.backend.notifications.config.NotificationProperties;
+import taxisty.pingtower.backend.notifications.model.ChannelType;
+import taxisty.pingtower.backend.notifications.providers.ChannelProvider;
+import taxisty.pingtower.backend.notifications.providers.ChannelProvider.DeliveryResult;
+import taxisty.pingtower.backend.storage.model.Alert;
+import taxisty.pingtower.backend.storage.model.NotificationChannel;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class ChannelQueueTest {
+
+    private static final DeliveryResult SENT = new DeliveryResult(true, 200, null, null);
+
+    private final List<DeliveryResult> results = new CopyOnWriteArrayList<>();
+    private ChannelQueue queue;
+
+    @AfterEach
+    void stop() {
+        if (queue != null) {
+            queue.stop();
+        }
+    }
+
+    @Test
+    void oneWorkerKeepsUpToMaxInFlightSendsOpen() {
+        List<Sinks.One<DeliveryResult>> pending = new CopyOnWriteArrayList<>();
+        queue = start(new NotificationProperties.Channel(100, 1, 3), Duration.ofSeconds(30), alert -> {
+            Sinks.One<DeliveryResult> sink = Sinks.one();
+            pending.add(sink);
+            return sink.asMono();
+        });
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(queue.offer(delivery(i))).isTrue();
+        }
+
+        await().until(() -> pending.size() == 3);
+        assertThat(queue.inFlight()).isEqualTo(3);
+        assertThat(queue.size()).isEqualTo(2);
+
+        pending.get(0).tryEmitValue(SENT);
+        await().until(() -> pending.size() == 4);
+        assertThat(results).containsExactly(SENT);
+    }
+
+    @Test
+    void sendsThatHangOrThrowCompleteAsFailures() {
+        queue = start(new NotificationProperties.Channel(100, 1, 4), Duration.ofMillis(100), alert -> {
+            if (alert.getId() == 0) {
+                return Mono.never();
+            }
+            throw new IllegalStateException("bad configuration");
+        });
+
+        queue.offer(delivery(0));
+        queue.offer(delivery(1));
+
+        await().until(() -> results.size() == 2);
+        assertThat(results).noneMatch(DeliveryResult::success);
+        assertThat(results).extracting(DeliveryResult::error)
+                .anyMatch(error -> error.contains("bad configuration"))
+                .anyMatch(error -> error.contains("Timeout"));
+        await().until(() -> queue.inFlight() == 0);
+    }
+
+    @Test
+    void fullQueueRefusesDeliveriesAndStopHandsBackTheQueued() {
+        queue = start(new NotificationProperties.Channel(2, 1, 1), Duration.ofSeconds(30), alert -> Mono.never());
+        queue.offer(delivery(0));
+        await().until(() -> queue.inFlight() == 1);
+
+        assertThat(queue.offer(delivery(1))).isTrue();
+        assertThat(queue.offer(delivery(2))).isTrue();
+        assertThat(queue.offer(delivery(3))).isFalse();
+        assertThat(queue.remainingCapacity()).isZero();
+
+        List<ChannelQueue.Delivery> remaining = queue.stop();
+        queue = null;
+        assertThat(remaining).extracting(delivery -> delivery.alert().getId()).containsExactly(1L, 2L);
+    }
+
+    private ChannelQueue start(NotificationProperties.Channel settings, Duration sendTimeout,
+                               Function<Alert, Mono<DeliveryResult>> send) {
+        ChannelProvider provider = new ChannelProvider() {
+            @Override
+            public String type() {
+                return "WEBHOOK";
+            }
+
+            @Override
+            public DeliveryResult send(Alert alert, NotificationChannel channel) {
+                return sendAsync(alert, channel).block();
+            }
+
+            @Override
+            public Mono<DeliveryResult> sendAsync(Alert alert, NotificationChannel channel) {
+                return send.apply(alert);
+            }
+        };
+        ChannelQueue created = new ChannelQueue(ChannelType.WEBHOOK, provider, settings, sendTimeout,
+                (delivery, attempt) -> delivery.onResult().accept(attempt.result()));
+        created.start();
+        return created;
+    }
+
+    private ChannelQueue.Delivery delivery(long alertId) {
+        Alert alert = new Alert();
+        alert.setId(alertId);
+        NotificationChannel channel = new NotificationChannel();
+        channel.setId(1L);
+        channel.setType("WEBHOOK");
+        return new ChannelQueue.Delivery(alert, channel, 1, System.nanoTime(), results::add);
+    }
+}
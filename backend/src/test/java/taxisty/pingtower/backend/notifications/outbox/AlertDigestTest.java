@@ -0,0 +1,38 @@
+package taxisty.pingtower.backend.notifications.outbox;
+
+import org.junit.jupiter.api.Test;
+import taxisty.pingtower.backend.storage.model.Alert;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AlertDigestTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    @Test
+    void digestHasItsOwnIdAndListsItsAlerts() {
+        List<Alert> alerts = List.of(alert(3L, "LOW", NOW.plusSeconds(5)), alert(4L, "CRITICAL", NOW));
+
+        Alert digest = AlertDigest.of(alerts);
+        Alert next = AlertDigest.of(alerts);
+
+        assertThat(digest.id()).isNull();
+        assertThat(digest.metadata())
+                .containsEntry("digest", "true")
+                .containsEntry("alertCount", "2")
+                .containsEntry("alertIds", "3,4")
+                .containsKey("digestId");
+        assertThat(next.metadata().get("digestId")).isNotEqualTo(digest.metadata().get("digestId"));
+        assertThat(digest.severity()).isEqualTo("CRITICAL");
+        assertThat(digest.triggeredAt()).isEqualTo(NOW);
+        assertThat(digest.message()).isEqualTo("2 alerts:\n[LOW] down 3\n[CRITICAL] down 4");
+    }
+
+    private static Alert alert(long id, String severity, LocalDateTime triggeredAt) {
+        return new Alert(id, null, 1L, "down " + id, severity, false, triggeredAt, null, Map.of());
+    }
+}
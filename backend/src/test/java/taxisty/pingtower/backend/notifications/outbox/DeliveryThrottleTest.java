@@ -0,0 +1,51 @@
+package taxisty.pingtower.backend.notifications.outbox;
+
+import org.junit.jupiter.api.Test;
+import taxisty.pingtower.backend.notifications.config.NotificationProperties;
+import taxisty.pingtower.backend.notifications.model.ChannelType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeliveryThrottleTest {
+
+    private static final long NOW = 1_000_000;
+
+    @Test
+    void everyMessageOfASendTakesAToken() {
+        DeliveryThrottle throttle = throttle(10, 5);
+
+        assertThat(throttle.acquire(1L, ChannelType.TELEGRAM, "bot", 3, 1, NOW)).isZero();
+        // Two tokens left; three more messages need another one, refilled at 10/s
+        assertThat(throttle.acquire(1L, ChannelType.TELEGRAM, "bot", 3, 1, NOW)).isEqualTo(100);
+        assertThat(throttle.acquire(1L, ChannelType.TELEGRAM, "bot", 2, 1, NOW)).isZero();
+    }
+
+    @Test
+    void sendLargerThanTheBurstGoesOnceTheBucketIsFull() {
+        DeliveryThrottle throttle = throttle(10, 5);
+
+        assertThat(throttle.acquire(1L, ChannelType.TELEGRAM, "bot", 8, 1, NOW)).isZero();
+        // Three tokens in debt: the next message waits for four
+        assertThat(throttle.acquire(1L, ChannelType.TELEGRAM, "bot", 1, 1, NOW)).isEqualTo(400);
+    }
+
+    @Test
+    void batchedAlertsTakeTheirShareOfAToken() {
+        DeliveryThrottle throttle = throttle(10, 1);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(throttle.acquire(1L, ChannelType.WEBHOOK, "host", 1, 4, NOW)).isZero();
+        }
+        assertThat(throttle.acquire(1L, ChannelType.WEBHOOK, "host", 1, 4, NOW)).isPositive();
+    }
+
+    private static DeliveryThrottle throttle(double ratePerSecond, int burst) {
+        NotificationProperties.RateLimit rateLimit = new NotificationProperties().getRateLimit();
+        for (NotificationProperties.Bucket bucket : new NotificationProperties.Bucket[] {
+                rateLimit.getChannel(), rateLimit.getTelegram(), rateLimit.getWebhook()}) {
+            bucket.setRatePerSecond(ratePerSecond);
+            bucket.setBurst(burst);
+        }
+        return new DeliveryThrottle(rateLimit, new NotificationProperties.Digest());
+    }
+}
@@ -0,0 +1,201 @@
+package taxisty.pingtower.backend.notifications.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import taxisty.pingtower.backend.monitoring.repository.AlertRepository;
+import taxisty.pingtower.backend.monitoring.repository.MonitoredServiceRepository;
+import taxisty.pingtower.backend.monitoring.repository.NotificationChannelRepository;
+import taxisty.pingtower.backend.monitoring.repository.NotificationOutboxRepository;
+import taxisty.pingtower.backend.notifications.breaker.CircuitBreakerRegistry;
+import taxisty.pingtower.backend.notifications.config.NotificationProperties;
+import taxisty.pingtower.backend.notifications.dispatch.NotificationDispatcher;
+import taxisty.pingtower.backend.notifications.repo.NotificationChannelStore;
+import taxisty.pingtower.backend.notifications.routing.ChannelRoutingIndex;
+import taxisty.pingtower.backend.storage.model.Alert;
+import taxisty.pingtower.backend.storage.model.NotificationChannel;
+import taxisty.pingtower.backend.storage.model.NotificationOutbox;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTest {
+
+    private static final String TELEGRAM_CONFIG = "{\"botToken\":\"123:secret\",\"chatId\":\"42\"}";
+
+    private final NotificationOutboxRepository outboxRepository = mock(NotificationOutboxRepository.class);
+    private final AlertRepository alertRepository = mock(AlertRepository.class);
+    private final NotificationDispatcher dispatcher = mock(NotificationDispatcher.class);
+    private final NotificationChannelRepository channelRepository = mock(NotificationChannelRepository.class);
+    private final NotificationChannelStore channels = new NotificationChannelStore(channelRepository);
+    private final MonitoredServiceRepository serviceRepository = mock(MonitoredServiceRepository.class);
+    private final Alert alert = new Alert(7L, null, 1L, "down", "HIGH", false, LocalDateTime.now(), null, Map.of());
+    private final Alert other = new Alert(8L, null, 1L, "slow", "LOW", false, LocalDateTime.now(), null, Map.of());
+    private final NotificationProperties properties = new NotificationProperties();
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        properties.getOutbox().setPollIntervalMillis(10);
+        AtomicLong ids = new AtomicLong();
+        when(channelRepository.save(any())).thenAnswer(invocation -> {
+            NotificationChannel channel = invocation.getArgument(0);
+            channel.setId(ids.incrementAndGet());
+            return channel;
+        });
+        // Both alerts are about service 1 of user 1
+        when(serviceRepository.findUserIdById(1L)).thenReturn(Optional.of(1L));
+        when(dispatcher.remainingCapacity()).thenReturn(100);
+        when(dispatcher.destinationOf(any())).thenReturn("bot");
+        when(dispatcher.endpointOf(any())).thenReturn("chat");
+        when(dispatcher.eventsPerRequestOf(any())).thenReturn(1);
+        when(dispatcher.messageCountOf(any(), any())).thenReturn(1);
+        when(dispatcher.dispatch(any(), any(), anyInt(), any())).thenReturn(true);
+        when(alertRepository.findAllById(anyIterable())).thenReturn(List.of(alert, other));
+    }
+
+    @AfterEach
+    void stop() {
+        if (relay != null) {
+            relay.stop();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rowsKeepOnlyTheChannelId() {
+        relay = relay();
+        NotificationChannel channel = channels.createChannel(1L, "TELEGRAM", "ops", TELEGRAM_CONFIG, true, false);
+
+        relay.enqueue(alert, List.of(channel));
+
+        ArgumentCaptor<List<NotificationOutbox>> rows = ArgumentCaptor.forClass(List.class);
+        verify(outboxRepository).saveAll(rows.capture());
+        assertThat(rows.getValue()).singleElement().satisfies(row -> {
+            assertThat(row.getAlertId()).isEqualTo(7L);
+            assertThat(row.getChannelId()).isEqualTo(channel.id());
+        });
+    }
+
+    @Test
+    void channelIsLookedUpWhenTheRowIsSent() {
+        NotificationChannel channel = channels.createChannel(1L, "TELEGRAM", "ops", TELEGRAM_CONFIG, true, false);
+        NotificationOutbox row = row(1L, channel.id());
+        when(outboxRepository.findDueForUpdate(any(), any())).thenReturn(List.of(row)).thenReturn(List.of());
+        when(outboxRepository.findAllById(anyIterable())).thenReturn(List.of(row));
+
+        relay = relay();
+        relay.start();
+
+        verify(dispatcher, timeout(5000)).dispatch(eq(alert), eq(channel), eq(1), any());
+    }
+
+    @Test
+    void rowsOfAMissingOrDisabledChannelAreDead() {
+        NotificationChannel disabled = channels.createChannel(1L, "TELEGRAM", "ops", TELEGRAM_CONFIG, false, false);
+        NotificationOutbox missing = row(1L, 999L);
+        NotificationOutbox off = row(2L, disabled.id());
+        when(outboxRepository.findDueForUpdate(any(), any())).thenReturn(List.of(missing, off)).thenReturn(List.of());
+        when(outboxRepository.findAllById(anyIterable())).thenReturn(List.of(missing, off));
+
+        relay = relay();
+        relay.start();
+
+        await().until(() -> NotificationOutbox.DEAD.equals(missing.getStatus())
+                && NotificationOutbox.DEAD.equals(off.getStatus()));
+        assertThat(missing.getLastHttpCode()).isEqualTo(404);
+        verify(dispatcher, never()).dispatch(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void rowsOfAChannelThatChangedOwnerAreDead() {
+        NotificationChannel foreign = channels.createChannel(2L, "TELEGRAM", "ops", TELEGRAM_CONFIG, true, false);
+        NotificationOutbox row = row(1L, foreign.id());
+        when(outboxRepository.findDueForUpdate(any(), any())).thenReturn(List.of(row)).thenReturn(List.of());
+        when(outboxRepository.findAllById(anyIterable())).thenReturn(List.of(row));
+
+        relay = relay();
+        relay.start();
+
+        await().until(() -> NotificationOutbox.DEAD.equals(row.getStatus()));
+        assertThat(row.getLastHttpCode()).isEqualTo(403);
+        verify(dispatcher, never()).dispatch(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void rowsStillQueuedKeepTheirLeaseAndAreNotSentTwice() throws InterruptedException {
+        properties.getOutbox().setLeaseMillis(100);
+        NotificationChannel channel = channels.createChannel(1L, "TELEGRAM", "ops", TELEGRAM_CONFIG, true, false);
+        NotificationOutbox row = row(1L, channel.id());
+        // The dispatcher never reports an outcome, so the row stays due whenever its lease lapses
+        when(outboxRepository.findDueForUpdate(any(), any())).thenReturn(List.of(row));
+
+        relay = relay();
+        relay.start();
+
+        verify(outboxRepository, timeout(5000).atLeast(2)).extendLease(anyCollection(), any());
+        Thread.sleep(300);
+        verify(dispatcher, times(1)).dispatch(any(), any(), anyInt(), any());
+        assertThat(row.getAttemptCount()).isEqualTo(1);
+    }
+
+    @Test
+    void digestsCoalesceTelegramAlertsButNotWebhookEvents() {
+        properties.getDigest().setEnabled(true);
+        NotificationChannel telegram = channels.createChannel(1L, "TELEGRAM", "ops", TELEGRAM_CONFIG, true, false);
+        NotificationChannel webhook = channels.createChannel(1L, "WEBHOOK", "hook", "{\"url\":\"http://hook\"}", true, false);
+        List<NotificationOutbox> rows = List.of(row(1L, telegram.id(), alert), row(2L, telegram.id(), other),
+                row(3L, webhook.id(), alert), row(4L, webhook.id(), other));
+        when(outboxRepository.findDueForUpdate(any(), any())).thenReturn(rows).thenReturn(List.of());
+        when(outboxRepository.findAllById(anyIterable())).thenReturn(rows);
+
+        relay = relay();
+        relay.start();
+
+        ArgumentCaptor<Alert> digest = ArgumentCaptor.forClass(Alert.class);
+        verify(dispatcher, timeout(5000)).dispatch(digest.capture(), eq(telegram), eq(1), any());
+        assertThat(digest.getValue().id()).isNull();
+        assertThat(digest.getValue().metadata()).containsEntry("alertIds", "7,8");
+        verify(dispatcher, timeout(5000)).dispatch(eq(alert), eq(webhook), eq(1), any());
+        verify(dispatcher, timeout(5000)).dispatch(eq(other), eq(webhook), eq(1), any());
+    }
+
+    private OutboxRelay relay() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ChannelRoutingIndex routing = new ChannelRoutingIndex(channels, serviceRepository, new ObjectMapper());
+        return new OutboxRelay(outboxRepository, alertRepository, channels, routing, dispatcher,
+                new CircuitBreakerRegistry(properties, meterRegistry), mock(PlatformTransactionManager.class),
+                properties, meterRegistry);
+    }
+
+    private NotificationOutbox row(long id, long channelId) {
+        return row(id, channelId, alert);
+    }
+
+    private NotificationOutbox row(long id, long channelId, Alert alert) {
+        NotificationOutbox row = new NotificationOutbox(alert.id(), channelId, LocalDateTime.now());
+        row.setId(id);
+        return row;
+    }
+}
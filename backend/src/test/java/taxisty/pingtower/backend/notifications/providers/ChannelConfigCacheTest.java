@@ -0,0 +1,78 @@
+package taxisty.pingtower.backend.notifications.providers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import taxisty.pingtower.backend.storage.model.NotificationChannel;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChannelConfigCacheTest {
+
+    private final AtomicInteger parsed = new AtomicInteger();
+    private final ChannelConfigCache<String> cache = new ChannelConfigCache<>(new ObjectMapper(), cfg -> {
+        parsed.incrementAndGet();
+        String url = cfg.path("url").asText(null);
+        if (url == null) {
+            throw new IllegalArgumentException("Missing field: url");
+        }
+        return url;
+    });
+
+    @Test
+    void configurationIsParsedOncePerChannel() throws Exception {
+        NotificationChannel channel = channel(1L, "{\"url\":\"http://a\"}");
+
+        assertThat(cache.get(channel)).isEqualTo("http://a");
+        assertThat(cache.get(channel)).isEqualTo("http://a");
+        assertThat(parsed).hasValue(1);
+    }
+
+    @Test
+    void changedConfigurationIsParsedAgainWithoutEviction() throws Exception {
+        cache.get(channel(1L, "{\"url\":\"http://a\"}"));
+
+        assertThat(cache.get(channel(1L, "{\"url\":\"http://b\"}"))).isEqualTo("http://b");
+        assertThat(parsed).hasValue(2);
+    }
+
+    @Test
+    void evictedChannelIsParsedAgain() throws Exception {
+        NotificationChannel channel = channel(1L, "{\"url\":\"http://a\"}");
+        cache.get(channel);
+
+        cache.evict(1L);
+        cache.get(channel);
+
+        assertThat(parsed).hasValue(2);
+    }
+
+    @Test
+    void invalidConfigurationFailsOnEveryCall() {
+        NotificationChannel missingUrl = channel(1L, "{}");
+
+        assertThatThrownBy(() -> cache.get(missingUrl)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> cache.get(missingUrl)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(parsed).hasValue(2);
+        assertThatThrownBy(() -> cache.get(channel(2L, "[1]")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("JSON object");
+        assertThatThrownBy(() -> cache.get(channel(3L, null))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void channelsWithoutIdAreNotCached() throws Exception {
+        NotificationChannel unsaved = channel(null, "{\"url\":\"http://a\"}");
+
+        cache.get(unsaved);
+        cache.get(unsaved);
+
+        assertThat(parsed).hasValue(2);
+    }
+
+    private static NotificationChannel channel(Long id, String configuration) {
+        return new NotificationChannel(id, 1L, "WEBHOOK", "hook", configuration, true, false, null, null);
+    }
+}
@@ -0,0 +1,181 @@
+package taxisty.pingtower.backend.notifications.providers;
+
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import taxisty.pingtower.backend.notifications.config.NotificationProperties;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class SmtpTransportPoolTest {
+
+    private final NotificationProperties.Smtp settings = new NotificationProperties.Smtp();
+    private FakeSmtpServer smtp;
+    private SmtpTransportPool pool;
+    private SmtpTransportPool.Server server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtp = new FakeSmtpServer();
+        settings.setTimeoutMillis(5000);
+        pool = new SmtpTransportPool(settings);
+        server = new SmtpTransportPool.Server("127.0.0.1", smtp.port(), null, null, false, false);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        pool.closeAll();
+        smtp.close();
+    }
+
+    @Test
+    void consecutiveSendsShareOneConnection() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            pool.send(server, message("ops@example.com"));
+        }
+
+        assertThat(smtp.connections).hasValue(1);
+        assertThat(smtp.messages).hasValue(5);
+    }
+
+    @Test
+    void connectionThatFailedASendIsNotReused() throws Exception {
+        pool.send(server, message("ops@example.com"));
+
+        assertThatThrownBy(() -> pool.send(server, message("rejected@example.com")))
+                .isInstanceOf(MessagingException.class);
+        pool.send(server, message("ops@example.com"));
+
+        assertThat(smtp.connections).hasValue(2);
+        assertThat(smtp.messages).hasValue(2);
+    }
+
+    @Test
+    void idleConnectionsAreClosedAfterTheIdleTimeout() throws Exception {
+        settings.setIdleTimeoutMillis(60_000);
+        pool.send(server, message("ops@example.com"));
+
+        pool.evictIdle(System.currentTimeMillis());
+        assertThat(smtp.quits).hasValue(0);
+
+        pool.evictIdle(System.currentTimeMillis() + 120_000);
+        await().until(() -> smtp.quits.get() == 1);
+        pool.send(server, message("ops@example.com"));
+        assertThat(smtp.connections).hasValue(2);
+    }
+
+    @Test
+    void connectionsBeyondMaxIdleAreClosed() throws Exception {
+        settings.setMaxIdlePerServer(0);
+
+        pool.send(server, message("ops@example.com"));
+        pool.send(server, message("ops@example.com"));
+
+        assertThat(smtp.connections).hasValue(2);
+        await().until(() -> smtp.quits.get() == 2);
+    }
+
+    private MimeMessage message(String to) throws MessagingException {
+        MimeMessage message = new MimeMessage(pool.session(server));
+        message.setFrom(new InternetAddress("pingtower@example.com"));
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress(to));
+        message.setSubject("Service down");
+        message.setText("down");
+        return message;
+    }
+
+    /**
+     * Just enough SMTP to deliver plain messages; rejects recipients starting with "rejected"
+     */
+    private static final class FakeSmtpServer implements AutoCloseable {
+
+        final AtomicInteger connections = new AtomicInteger();
+        final AtomicInteger messages = new AtomicInteger();
+        final AtomicInteger quits = new AtomicInteger();
+        private final ServerSocket socket = new ServerSocket(0);
+        private final List<Socket> clients = new CopyOnWriteArrayList<>();
+
+        FakeSmtpServer() throws IOException {
+            Thread.ofVirtual().start(this::accept);
+        }
+
+        int port() {
+            return socket.getLocalPort();
+        }
+
+        private void accept() {
+            while (!socket.isClosed()) {
+                try {
+                    Socket client = socket.accept();
+                    clients.add(client);
+                    connections.incrementAndGet();
+                    Thread.ofVirtual().start(() -> serve(client));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(Socket client) {
+            try (client;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+                 PrintWriter out = new PrintWriter(client.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+                reply(out, "220 fake ESMTP");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.toUpperCase();
+                    if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                        reply(out, "250 fake");
+                    } else if (command.startsWith("RCPT") && command.contains("<REJECTED")) {
+                        reply(out, "550 no such user");
+                    } else if (command.startsWith("DATA")) {
+                        reply(out, "354 go ahead");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // message body
+                        }
+                        messages.incrementAndGet();
+                        reply(out, "250 queued");
+                    } else if (command.startsWith("QUIT")) {
+                        quits.incrementAndGet();
+                        reply(out, "221 bye");
+                        return;
+                    } else {
+                        reply(out, "250 ok");
+                    }
+                }
+            } catch (IOException e) {
+                // client went away
+            }
+        }
+
+        private static void reply(PrintWriter out, String line) {
+            out.print(line + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+            for (Socket client : clients) {
+                client.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package taxisty.pingtower.backend.notifications.providers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import taxisty.pingtower.backend.storage.model.Alert;
+import taxisty.pingtower.backend.storage.model.NotificationChannel;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TelegramProviderTest {
+
+    @Test
+    void escapeLeavesNoRawControlCharacters() {
+        String escaped = TelegramProvider.escape("a\"b\\c\nd\re\tf\bg\fh\u0000i\u001bj\u007fk");
+
+        assertThat(escaped).isEqualTo("a\\\"b\\\\c\\nd\\re\\tf\\bg\\fh\\u0000i\\u001bj\\u007fk");
+        assertThat(escaped.chars()).noneMatch(c -> c < 0x20 || c == 0x7f);
+    }
+
+    @Test
+    void escapedTextIsValidJson() throws Exception {
+        String text = "line\u0001\u0002 \"quoted\"\n";
+
+        String json = "{\"text\":\"" + TelegramProvider.escape(text) + "\"}";
+
+        assertThat(new ObjectMapper().readTree(json).get("text").asText()).isEqualTo(text);
+    }
+
+    @Test
+    void splitKeepsWholeLinesWithinTheLimit() {
+        String text = "first line\n".repeat(10);
+
+        List<String> parts = TelegramProvider.splitTelegram(text, 32);
+
+        assertThat(String.join("", parts)).isEqualTo(text);
+        assertThat(parts).allSatisfy(part -> {
+            assertThat(part.getBytes(StandardCharsets.UTF_8).length).isLessThanOrEqualTo(32);
+            assertThat(part).endsWith("\n");
+        });
+    }
+
+    @Test
+    void longAlertsCountOneMessagePerChunk() {
+        TelegramProvider provider = new TelegramProvider(new ObjectMapper(), WebClient.create());
+        NotificationChannel channel = new NotificationChannel(1L, 1L, "TELEGRAM", "ops",
+                "{\"botToken\":\"123:abc\",\"chatId\":\"42\"}", true, false, null, null);
+
+        assertThat(provider.messageCount(alert("short"), channel)).isEqualTo(1);
+        // The header line, then 5000 bytes without a line break in two chunks
+        assertThat(provider.messageCount(alert("x".repeat(5000)), channel)).isEqualTo(3);
+    }
+
+    private static Alert alert(String message) {
+        return new Alert(1L, null, 1L, message, "HIGH", false, null, null, Map.of());
+    }
+}
@@ -0,0 +1,89 @@
+package taxisty.pingtower.backend.notifications.providers;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import taxisty.pingtower.backend.notifications.providers.ChannelProvider.DeliveryResult;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class WebhookBatcherTest {
+
+    private static final DeliveryResult SENT = new DeliveryResult(true, 200, null, null);
+
+    private final List<List<Object>> requests = new CopyOnWriteArrayList<>();
+
+    @Test
+    void fullBatchIsSentAtOnceAndEveryEventGetsItsResult() {
+        WebhookBatcher batcher = batcher(3, 60_000);
+
+        Mono<DeliveryResult> first = batcher.add("a");
+        Mono<DeliveryResult> second = batcher.add("b");
+        assertThat(requests).isEmpty();
+        Mono<DeliveryResult> third = batcher.add("c");
+
+        assertThat(requests).containsExactly(List.of("a", "b", "c"));
+        assertThat(first.block(Duration.ofSeconds(1))).isEqualTo(SENT);
+        assertThat(second.block(Duration.ofSeconds(1))).isEqualTo(SENT);
+        assertThat(third.block(Duration.ofSeconds(1))).isEqualTo(SENT);
+    }
+
+    @Test
+    void partialBatchIsSentAfterTheLinger() {
+        WebhookBatcher batcher = batcher(10, 50);
+
+        DeliveryResult result = batcher.add("a").block(Duration.ofSeconds(5));
+
+        assertThat(result).isEqualTo(SENT);
+        assertThat(requests).containsExactly(List.of("a"));
+    }
+
+    @Test
+    void cancelledEventLeavesTheOpenBatch() {
+        WebhookBatcher batcher = batcher(10, 200);
+
+        // The dispatcher's timeout cancels the subscription while the batch is still open
+        Disposable timedOut = batcher.add("a").subscribe();
+        batcher.add("b").subscribe();
+        timedOut.dispose();
+
+        await().until(() -> requests.size() == 1);
+        assertThat(requests).containsExactly(List.of("b"));
+    }
+
+    @Test
+    void batchOfOnlyCancelledEventsIsNotSent() throws InterruptedException {
+        WebhookBatcher batcher = batcher(10, 50);
+
+        batcher.add("a").subscribe().dispose();
+        Thread.sleep(200);
+
+        assertThat(requests).isEmpty();
+        assertThat(batcher.isIdleSince(System.currentTimeMillis() + 1)).isTrue();
+    }
+
+    @Test
+    void batcherIsIdleOnlyWhenEmptyAndUnused() {
+        WebhookBatcher batcher = batcher(2, 60_000);
+        long before = System.currentTimeMillis();
+
+        batcher.add("a");
+        assertThat(batcher.isIdleSince(System.currentTimeMillis() + 1)).isFalse();
+        batcher.add("b");
+
+        assertThat(batcher.isIdleSince(before)).isFalse();
+        assertThat(batcher.isIdleSince(System.currentTimeMillis() + 1)).isTrue();
+    }
+
+    private WebhookBatcher batcher(int maxEvents, long lingerMillis) {
+        return new WebhookBatcher(maxEvents, lingerMillis, events -> {
+            requests.add(List.copyOf(events));
+            return Mono.just(SENT);
+        });
+    }
+}
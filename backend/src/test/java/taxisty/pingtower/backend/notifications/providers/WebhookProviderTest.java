@@ -0,0 +1,100 @@
+package taxisty.pingtower.backend.notifications.providers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import taxisty.pingtower.backend.notifications.providers.ChannelProvider.DeliveryResult;
+import taxisty.pingtower.backend.storage.model.Alert;
+import taxisty.pingtower.backend.storage.model.NotificationChannel;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebhookProviderTest {
+
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private WebhookProvider provider;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            bodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        provider = new WebhookProvider(new ObjectMapper().findAndRegisterModules(), WebClient.create());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void batchedEventsGoOutAsOneArray() {
+        NotificationChannel channel = channel(1L, 2);
+
+        DeliveryResult first = provider.sendAsync(alert(1L), channel)
+                .zipWith(provider.sendAsync(alert(2L), channel), (a, b) -> a)
+                .block(Duration.ofSeconds(5));
+
+        assertThat(first.success()).isTrue();
+        assertThat(bodies).singleElement().satisfies(body -> {
+            assertThat(body).startsWith("[");
+            assertThat(body).contains("\"eventId\":1", "\"eventId\":2");
+        });
+    }
+
+    @Test
+    void batchersStillBufferingAreKept() {
+        provider.sendAsync(alert(1L), channel(1L, 2)).subscribe();
+        provider.sendAsync(alert(2L), channel(2L, 3)).subscribe();
+        assertThat(provider.batcherCount()).isEqualTo(2);
+
+        long now = System.currentTimeMillis();
+        provider.evictIdleBatchers(now);
+        assertThat(provider.batcherCount()).isEqualTo(2);
+
+        // Still buffering: the events wait for the linger, which outlasts the idle timeout here
+        provider.evictIdleBatchers(now + TimeUnit.MINUTES.toMillis(10));
+        assertThat(provider.batcherCount()).isEqualTo(2);
+    }
+
+    @Test
+    void batchersThatSentEverythingAreDroppedAfterTheIdleTimeout() {
+        NotificationChannel channel = channel(1L, 2);
+        provider.sendAsync(alert(1L), channel)
+                .zipWith(provider.sendAsync(alert(2L), channel))
+                .block(Duration.ofSeconds(5));
+
+        provider.evictIdleBatchers(System.currentTimeMillis());
+        assertThat(provider.batcherCount()).isEqualTo(1);
+
+        provider.evictIdleBatchers(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(10));
+        assertThat(provider.batcherCount()).isZero();
+    }
+
+    private NotificationChannel channel(long id, int batchSize) {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/hook/" + id;
+        String configuration = "{\"url\":\"" + url + "\",\"batchSize\":" + batchSize + ",\"batchLingerMillis\":10000}";
+        return new NotificationChannel(id, 1L, "WEBHOOK", "hook", configuration, true, false, null, null);
+    }
+
+    private static Alert alert(long id) {
+        return new Alert(id, null, 1L, "down", "HIGH", false, null, null, Map.of());
+    }
+}
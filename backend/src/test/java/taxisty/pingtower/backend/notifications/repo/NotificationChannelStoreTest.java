@@ -0,0 +1,84 @@
+package taxisty.pingtower.backend.notifications.repo;
+
+import org.junit.jupiter.api.Test;
+import taxisty.pingtower.backend.monitoring.repository.NotificationChannelRepository;
+import taxisty.pingtower.backend.storage.model.NotificationChannel;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationChannelStoreTest {
+
+    private final NotificationChannelRepository channelRepository = mock(NotificationChannelRepository.class);
+    private final NotificationChannelStore store = new NotificationChannelStore(channelRepository);
+    private final List<NotificationChannel> notified = new CopyOnWriteArrayList<>();
+
+    @Test
+    void channelsKeepTheIdsOfTheTableAcrossRestarts() {
+        NotificationChannel stored = channel(42L, true);
+        when(channelRepository.findAll()).thenReturn(List.of(stored));
+
+        store.load();
+
+        assertThat(store.getChannel(42L)).isSameAs(stored);
+        assertThat(store.listChannels()).containsExactly(stored);
+    }
+
+    @Test
+    void createdChannelsGetTheirIdFromTheTable() {
+        when(channelRepository.save(any())).thenAnswer(invocation -> {
+            NotificationChannel channel = invocation.getArgument(0);
+            channel.setId(7L);
+            return channel;
+        });
+        store.addChannelListener(notified::add);
+
+        NotificationChannel created = store.createChannel(1L, "TELEGRAM", "ops", "{}", true, false);
+
+        assertThat(created.id()).isEqualTo(7L);
+        assertThat(store.getChannel(7L)).isSameAs(created);
+        assertThat(notified).containsExactly(created);
+    }
+
+    @Test
+    void channelMissingFromTheCacheIsReadFromTheTableOnce() {
+        NotificationChannel elsewhere = channel(5L, true);
+        when(channelRepository.findById(5L)).thenReturn(Optional.of(elsewhere));
+        store.addChannelListener(notified::add);
+
+        assertThat(store.getChannel(5L)).isSameAs(elsewhere);
+        assertThat(store.getChannel(5L)).isSameAs(elsewhere);
+        assertThat(store.getChannel(6L)).isNull();
+
+        verify(channelRepository, times(1)).findById(5L);
+        assertThat(notified).containsExactly(elsewhere);
+    }
+
+    @Test
+    void deletedChannelIsGoneAndListenersSeeItDisabled() {
+        when(channelRepository.findAll()).thenReturn(List.of(channel(3L, true)));
+        store.load();
+        store.addChannelListener(notified::add);
+
+        store.deleteChannel(3L);
+
+        verify(channelRepository).deleteById(3L);
+        assertThat(store.getChannel(3L)).isNull();
+        assertThat(notified).singleElement().satisfies(channel -> {
+            assertThat(channel.id()).isEqualTo(3L);
+            assertThat(channel.isEnabled()).isFalse();
+        });
+    }
+
+    private static NotificationChannel channel(long id, boolean enabled) {
+        return new NotificationChannel(id, 1L, "TELEGRAM", "ops", "{}", enabled, false, null, null);
+    }
+}
@@ -0,0 +1,170 @@
+package taxisty.pingtower.backend.notifications.repo;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import taxisty.pingtower.backend.monitoring.repository.NotificationDeliveryRepository;
+import taxisty.pingtower.backend.notifications.config.NotificationProperties;
+import taxisty.pingtower.backend.notifications.repo.NotificationDeliveryLog.Filter;
+import taxisty.pingtower.backend.notifications.repo.NotificationDeliveryLog.Page;
+import taxisty.pingtower.backend.storage.model.NotificationDelivery;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class NotificationDeliveryLogTest {
+
+    private static final Filter ALL = new Filter(null, null, null);
+
+    private final NotificationDeliveryRepository repository = mock(NotificationDeliveryRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private NotificationDeliveryLog log;
+
+    @AfterEach
+    void stop() {
+        if (log != null) {
+            log.stop();
+        }
+    }
+
+    @Test
+    void pagesGoFromNewestToOldestAlongTheCursor() {
+        log = log(100, false);
+        for (int i = 1; i <= 5; i++) {
+            append(i, 1, "SENT");
+        }
+
+        Page first = log.page(ALL, null, 2);
+        Page second = log.page(ALL, first.nextCursor(), 2);
+        Page last = log.page(ALL, second.nextCursor(), 2);
+
+        assertThat(ids(first)).containsExactly(5L, 4L);
+        assertThat(ids(second)).containsExactly(3L, 2L);
+        assertThat(ids(last)).containsExactly(1L);
+        assertThat(last.nextCursor()).isNull();
+    }
+
+    @Test
+    void filtersFollowTheirKeysAndCheckTheOtherFields() {
+        log = log(100, false);
+        append(1, 10, "SENT");
+        append(2, 10, "FAILED");
+        append(1, 20, "FAILED");
+        append(1, 10, "failed");
+
+        assertThat(ids(log.page(new Filter(1L, null, null), null, 10))).containsExactly(4L, 3L, 1L);
+        assertThat(ids(log.page(new Filter(null, 10L, null), null, 10))).containsExactly(4L, 2L, 1L);
+        assertThat(ids(log.page(new Filter(null, null, "Failed"), null, 10))).containsExactly(4L, 3L, 2L);
+        assertThat(ids(log.page(new Filter(1L, 10L, "FAILED"), null, 10))).containsExactly(4L);
+
+        Page first = log.page(new Filter(1L, null, null), null, 2);
+        assertThat(ids(log.page(new Filter(1L, null, null), first.nextCursor(), 2))).containsExactly(1L);
+    }
+
+    @Test
+    void fullRingOverwritesTheOldestAttempts() {
+        log = log(3, false);
+        log.start();
+        for (int i = 1; i <= 5; i++) {
+            append(i % 2, 1, "SENT");
+        }
+
+        assertThat(log.size()).isEqualTo(3);
+        assertThat(meterRegistry.get("pingtower.notifications.deliveries.retained").gauge().value()).isEqualTo(3);
+        assertThat(ids(log.page(ALL, null, 10))).containsExactly(5L, 4L, 3L);
+        // Alert 1 had attempts 1, 3 and 5; the chain ends where it reaches the overwritten one
+        assertThat(ids(log.page(new Filter(1L, null, null), null, 10))).containsExactly(5L, 3L);
+        assertThat(ids(log.page(new Filter(0L, null, null), null, 10))).containsExactly(4L);
+    }
+
+    @Test
+    void cursorOfAnOverwrittenAttemptEndsThePaging() {
+        log = log(3, false);
+        for (int i = 1; i <= 3; i++) {
+            append(1, 1, "SENT");
+        }
+        Page first = log.page(ALL, null, 1);
+        Page filtered = log.page(new Filter(1L, null, null), null, 2);
+        assertThat(first.nextCursor()).isEqualTo(3L);
+        assertThat(filtered.nextCursor()).isEqualTo(2L);
+
+        // Three more attempts overwrite everything the cursors point at or before
+        for (int i = 1; i <= 3; i++) {
+            append(2, 2, "SENT");
+        }
+
+        Page afterAll = log.page(ALL, first.nextCursor(), 10);
+        Page afterFiltered = log.page(new Filter(1L, null, null), filtered.nextCursor(), 10);
+        assertThat(afterAll.items()).isEmpty();
+        assertThat(afterAll.nextCursor()).isNull();
+        assertThat(afterFiltered.items()).isEmpty();
+        assertThat(afterFiltered.nextCursor()).isNull();
+    }
+
+    @Test
+    void cursorOfAnAttemptStillHeldSkipsOverwrittenNeighbours() {
+        log = log(4, false);
+        for (int i = 1; i <= 4; i++) {
+            append(1, 1, "SENT");
+        }
+        Page first = log.page(ALL, null, 2);
+        append(1, 1, "SENT");
+
+        // Attempt 1 is gone, so only attempt 2 is left after the cursor
+        Page next = log.page(ALL, first.nextCursor(), 10);
+        assertThat(ids(next)).containsExactly(2L);
+        assertThat(next.nextCursor()).isNull();
+    }
+
+    @Test
+    void sweepDropsKeysWhoseLatestAttemptWasOverwritten() {
+        log = log(2, false);
+        append(1, 1, "SENT");
+        append(2, 1, "SENT");
+        append(2, 1, "SENT");
+
+        log.sweep();
+
+        assertThat(log.page(new Filter(1L, null, null), null, 10).items()).isEmpty();
+        assertThat(ids(log.page(new Filter(2L, null, null), null, 10))).containsExactly(3L, 2L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void persistedAttemptsAreCopiesWrittenByTheWriter() {
+        log = log(100, true);
+        log.start();
+        append(1, 1, "SENT");
+        append(2, 1, "FAILED");
+
+        log.stop();
+
+        ArgumentCaptor<List<NotificationDelivery>> rows = ArgumentCaptor.forClass(List.class);
+        verify(repository, atLeastOnce()).saveAll(rows.capture());
+        List<NotificationDelivery> saved = rows.getAllValues().stream().flatMap(List::stream).toList();
+        assertThat(saved).extracting(NotificationDelivery::alertId).containsExactly(1L, 2L);
+        assertThat(saved).extracting(NotificationDelivery::id).containsOnlyNulls();
+        assertThat(ids(log.page(ALL, null, 10))).containsExactly(2L, 1L);
+    }
+
+    private NotificationDeliveryLog log(int capacity, boolean persist) {
+        NotificationProperties properties = new NotificationProperties();
+        properties.getDeliveryLog().setCapacity(capacity);
+        properties.getDeliveryLog().setPersist(persist);
+        return new NotificationDeliveryLog(properties, repository, mock(PlatformTransactionManager.class), meterRegistry);
+    }
+
+    private void append(long alertId, long channelId, String status) {
+        log.append(new NotificationDelivery(null, alertId, channelId, status, "TELEGRAM", 1, null, null, null));
+    }
+
+    private static List<Long> ids(Page page) {
+        return page.items().stream().map(NotificationDelivery::id).toList();
+    }
+}
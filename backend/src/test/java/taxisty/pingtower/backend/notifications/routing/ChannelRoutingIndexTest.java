@@ -0,0 +1,154 @@
+package taxisty.pingtower.backend.notifications.routing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import taxisty.pingtower.backend.monitoring.repository.MonitoredServiceRepository;
+import taxisty.pingtower.backend.monitoring.repository.NotificationChannelRepository;
+import taxisty.pingtower.backend.notifications.repo.NotificationChannelStore;
+import taxisty.pingtower.backend.storage.model.Alert;
+import taxisty.pingtower.backend.storage.model.MonitoredService;
+import taxisty.pingtower.backend.storage.model.NotificationChannel;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChannelRoutingIndexTest {
+
+    private static final long ALICE = 1L;
+    private static final long BOB = 2L;
+
+    private final NotificationChannelRepository channelRepository = mock(NotificationChannelRepository.class);
+    private final NotificationChannelStore channels = new NotificationChannelStore(channelRepository);
+    private final MonitoredServiceRepository serviceRepository = mock(MonitoredServiceRepository.class);
+    private ChannelRoutingIndex index;
+
+    @BeforeEach
+    void setUp() {
+        AtomicLong ids = new AtomicLong();
+        when(channelRepository.save(any())).thenAnswer(invocation -> {
+            NotificationChannel channel = invocation.getArgument(0);
+            if (channel.getId() == null) {
+                channel.setId(ids.incrementAndGet());
+            }
+            return channel;
+        });
+        index = new ChannelRoutingIndex(channels, serviceRepository, new ObjectMapper());
+        index.start();
+        owner(10L, ALICE);
+        owner(20L, BOB);
+        owner(30L, null);
+    }
+
+    @Test
+    void alertsGoToTheChannelsOfTheServiceOwner() {
+        NotificationChannel alice = channel(ALICE, "{}", true, false);
+        channel(BOB, "{}", true, false);
+
+        assertThat(index.targets(alert(10L, "HIGH"))).containsExactly(alice);
+    }
+
+    @Test
+    void defaultChannelsOfAUserNeverReceiveOtherUsersAlerts() {
+        NotificationChannel aliceDefault = channel(ALICE, "{}", true, true);
+        NotificationChannel shared = channel(null, "{}", true, true);
+        channel(BOB, "{}", false, false);
+
+        assertThat(index.targets(alert(10L, "HIGH"))).containsExactly(aliceDefault);
+        // Bob has no enabled channel and service 30 has no owner: only the shared default
+        assertThat(index.targets(alert(20L, "HIGH"))).containsExactly(shared);
+        assertThat(index.targets(alert(30L, "HIGH"))).containsExactly(shared);
+        assertThat(index.targets(alert(null, "HIGH"))).containsExactly(shared);
+    }
+
+    @Test
+    void channelsWithoutUserAreRoutedOnlyIfDefault() {
+        channel(null, "{}", true, false);
+
+        assertThat(index.targets(alert(30L, "HIGH"))).isEmpty();
+    }
+
+    @Test
+    void channelsStoredBeforeStartAreIndexed() {
+        NotificationChannel early = channels.createChannel(ALICE, "TELEGRAM", "early", "{}", true, false);
+        ChannelRoutingIndex late = new ChannelRoutingIndex(channels, serviceRepository, new ObjectMapper());
+        late.start();
+        NotificationChannel later = channel(ALICE, "{}", true, false);
+
+        assertThat(late.targets(alert(10L, "HIGH"))).containsExactlyInAnyOrder(early, later);
+    }
+
+    @Test
+    void minSeverityFiltersOpenAlertsOnly() {
+        NotificationChannel critical = channel(ALICE, "{\"minSeverity\":\"CRITICAL\"}", true, false);
+        NotificationChannel all = channel(ALICE, "{}", true, false);
+
+        assertThat(index.targets(alert(10L, "HIGH"))).containsExactly(all);
+        assertThat(index.targets(alert(10L, "CRITICAL"))).containsExactly(critical, all);
+        Alert resolved = alert(10L, "HIGH");
+        resolved.setIsResolved(true);
+        assertThat(index.targets(resolved)).containsExactly(critical, all);
+    }
+
+    @Test
+    void ownersAreLoadedOnceAndUpdatedBySavedServices() {
+        NotificationChannel alice = channel(ALICE, "{}", true, false);
+        NotificationChannel bob = channel(BOB, "{}", true, false);
+
+        index.targets(alert(10L, "HIGH"));
+        index.targets(alert(10L, "HIGH"));
+        verify(serviceRepository, times(1)).findUserIdById(10L);
+
+        MonitoredService moved = new MonitoredService();
+        moved.setId(10L);
+        moved.setUserId(BOB);
+        index.onServiceSaved(moved);
+        assertThat(index.targets(alert(10L, "HIGH"))).containsExactly(bob);
+
+        index.onServiceDeleted(10L);
+        assertThat(index.targets(alert(10L, "HIGH"))).containsExactly(alice);
+    }
+
+    @Test
+    void deletedChannelsAreNoLongerRouted() {
+        NotificationChannel gone = channel(ALICE, "{}", true, false);
+        NotificationChannel kept = channel(ALICE, "{}", true, false);
+
+        channels.deleteChannel(gone.id());
+
+        assertThat(index.targets(alert(10L, "HIGH"))).containsExactly(kept);
+    }
+
+    @Test
+    void channelsMayReceiveOnlyTheirOwnersAlertsOrBeSharedDefaults() {
+        NotificationChannel alice = channel(ALICE, "{}", true, false);
+        NotificationChannel shared = channel(null, "{}", true, true);
+        NotificationChannel unrouted = channel(null, "{}", true, false);
+
+        assertThat(index.mayReceive(alert(10L, "HIGH"), alice)).isTrue();
+        assertThat(index.mayReceive(alert(20L, "HIGH"), alice)).isFalse();
+        assertThat(index.mayReceive(alert(30L, "HIGH"), alice)).isFalse();
+        assertThat(index.mayReceive(alert(20L, "HIGH"), shared)).isTrue();
+        assertThat(index.mayReceive(alert(20L, "HIGH"), unrouted)).isFalse();
+    }
+
+    private void owner(long serviceId, Long userId) {
+        when(serviceRepository.findUserIdById(serviceId)).thenReturn(Optional.ofNullable(userId));
+    }
+
+    private NotificationChannel channel(Long userId, String configuration, boolean enabled, boolean isDefault) {
+        return channels.createChannel(userId, "TELEGRAM", "channel", configuration, enabled, isDefault);
+    }
+
+    private static Alert alert(Long serviceId, String severity) {
+        return new Alert(1L, null, serviceId, "down", severity, false, null, null, Map.of());
+    }
+}
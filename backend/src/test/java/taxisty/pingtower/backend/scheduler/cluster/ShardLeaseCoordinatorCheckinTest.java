@@ -0,0 +1,103 @@
+package taxisty.pingtower.backend.scheduler.cluster;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import taxisty.pingtower.backend.monitoring.repository.ClusterNodeRepository;
+import taxisty.pingtower.backend.monitoring.repository.ShardLeaseRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongPredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Check-in logic against mocked repositories; the multi-node behaviour is covered by
+ * {@link ShardLeaseCoordinatorTest}.
+ */
+class ShardLeaseCoordinatorCheckinTest {
+
+    private static final int SHARDS = 8;
+    private static final long CHECKIN_MILLIS = 1000;
+
+    private final ClusterNodeRepository nodeRepository = mock(ClusterNodeRepository.class);
+    private final ShardLeaseRepository leaseRepository = mock(ShardLeaseRepository.class);
+    private final ShardLeaseCoordinator coordinator = new ShardLeaseCoordinator("node-a", SHARDS, CHECKIN_MILLIS,
+            nodeRepository, leaseRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+    @Test
+    void checkinLeavesTimeKeepingToTheDatabase() {
+        when(nodeRepository.findLiveNodeIds(anyLong())).thenReturn(List.of("node-a"));
+        when(leaseRepository.tryAcquire(anyInt(), anyString(), anyLong())).thenReturn(1);
+
+        coordinator.checkin();
+
+        verify(nodeRepository).heartbeat("node-a");
+        verify(nodeRepository).findLiveNodeIds(3 * CHECKIN_MILLIS);
+        verify(nodeRepository).deleteStale(30 * CHECKIN_MILLIS);
+        verify(leaseRepository).tryAcquire(0, "node-a", 3 * CHECKIN_MILLIS);
+        assertThat(coordinator.getOwnedShardCount()).isEqualTo(SHARDS);
+        for (long serviceId = 1; serviceId <= 100; serviceId++) {
+            assertThat(coordinator.owns(serviceId)).isTrue();
+        }
+    }
+
+    @Test
+    void shardsHeldByOthersAreNotOwned() {
+        when(nodeRepository.findLiveNodeIds(anyLong())).thenReturn(List.of("node-a"));
+        when(leaseRepository.tryAcquire(anyInt(), anyString(), anyLong())).thenReturn(0);
+        when(leaseRepository.tryAcquire(eq(3), anyString(), anyLong())).thenReturn(1);
+
+        coordinator.checkin();
+
+        assertThat(coordinator.getOwnedShardCount()).isEqualTo(1);
+        for (long serviceId = 1; serviceId <= 100; serviceId++) {
+            assertThat(coordinator.owns(serviceId)).isEqualTo(coordinator.shardOf(serviceId) == 3);
+        }
+    }
+
+    @Test
+    void shardsAreSplitBetweenLiveNodes() {
+        when(nodeRepository.findLiveNodeIds(anyLong())).thenReturn(List.of("node-a", "node-b"));
+        when(leaseRepository.tryAcquire(anyInt(), anyString(), anyLong())).thenReturn(1);
+        ShardLeaseCoordinator other = new ShardLeaseCoordinator("node-b", SHARDS, CHECKIN_MILLIS,
+                nodeRepository, leaseRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+        coordinator.checkin();
+        other.checkin();
+
+        assertThat(coordinator.getLiveNodeCount()).isEqualTo(2);
+        assertThat(coordinator.getOwnedShardCount() + other.getOwnedShardCount()).isEqualTo(SHARDS);
+        for (long serviceId = 1; serviceId <= 100; serviceId++) {
+            assertThat(coordinator.owns(serviceId)).isNotEqualTo(other.owns(serviceId));
+        }
+    }
+
+    @Test
+    void listenersLearnWhichServicesGainedOrLostTheirOwner() {
+        List<LongPredicate> changes = new ArrayList<>();
+        coordinator.addOwnershipChangeListener(changes::add);
+        when(nodeRepository.findLiveNodeIds(anyLong())).thenReturn(List.of("node-a"));
+        when(leaseRepository.tryAcquire(anyInt(), anyString(), anyLong())).thenReturn(1);
+
+        coordinator.checkin();
+        coordinator.checkin();
+        when(leaseRepository.tryAcquire(eq(3), anyString(), anyLong())).thenReturn(0);
+        coordinator.checkin();
+
+        // Nothing changed on the second check-in
+        assertThat(changes).hasSize(2);
+        for (long serviceId = 1; serviceId <= 100; serviceId++) {
+            assertThat(changes.get(0).test(serviceId)).isTrue();
+            assertThat(changes.get(1).test(serviceId)).isEqualTo(coordinator.shardOf(serviceId) == 3);
+        }
+    }
+}
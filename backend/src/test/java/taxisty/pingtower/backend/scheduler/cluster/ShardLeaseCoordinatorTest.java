@@ -0,0 +1,134 @@
+package taxisty.pingtower.backend.scheduler.cluster;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import taxisty.pingtower.backend.monitoring.repository.ClusterNodeRepository;
+import taxisty.pingtower.backend.monitoring.repository.ShardLeaseRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Several coordinators in one JVM sharing a Postgres database, as several backend nodes would.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class ShardLeaseCoordinatorTest {
+
+    private static final int SHARDS = 16;
+    private static final long CHECKIN_MILLIS = 200;
+    private static final Duration SETTLE = Duration.ofSeconds(10);
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:latest"));
+
+    @Autowired
+    private ClusterNodeRepository nodeRepository;
+
+    @Autowired
+    private ShardLeaseRepository leaseRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<ShardLeaseCoordinator> nodes = new ArrayList<>();
+
+    @AfterEach
+    void stopNodes() {
+        nodes.forEach(ShardLeaseCoordinator::stop);
+        leaseRepository.deleteAll();
+        nodeRepository.deleteAll();
+    }
+
+    @Test
+    void joiningNodeTakesOverItsShare() {
+        ShardLeaseCoordinator first = start("node-a");
+        await().atMost(SETTLE).until(() -> first.getOwnedShardCount() == SHARDS);
+
+        ShardLeaseCoordinator second = start("node-b");
+        await().atMost(SETTLE).until(() -> second.getOwnedShardCount() > 0
+                && first.getOwnedShardCount() + second.getOwnedShardCount() == SHARDS);
+
+        assertThat(first.getLiveNodeCount()).isEqualTo(2);
+        assertThat(first.getOwnedShardCount()).isPositive();
+        assertEachServiceOwnedOnce(first, second);
+    }
+
+    @Test
+    void leavingNodeHandsItsShardsOver() {
+        ShardLeaseCoordinator a = start("node-a");
+        ShardLeaseCoordinator b = start("node-b");
+        ShardLeaseCoordinator c = start("node-c");
+        await().atMost(SETTLE).until(() -> ownedShards(a, b, c) == SHARDS && c.getOwnedShardCount() > 0);
+
+        c.stop();
+
+        assertThat(c.getOwnedShardCount()).isZero();
+        assertThat(nodeRepository.existsById("node-c")).isFalse();
+        await().atMost(SETTLE).until(() -> ownedShards(a, b) == SHARDS);
+        assertEachServiceOwnedOnce(a, b);
+    }
+
+    @Test
+    void shardsOfANodeThatStopsCheckingInAreTakenOverAfterTheLeaseExpires() {
+        ShardLeaseCoordinator survivor = start("node-a");
+        await().atMost(SETTLE).until(() -> survivor.getOwnedShardCount() == SHARDS);
+
+        // Checks in until it holds its share and then goes silent, like a node that crashed
+        ShardLeaseCoordinator silent = coordinator("node-b");
+        await().atMost(SETTLE).pollInterval(Duration.ofMillis(CHECKIN_MILLIS / 2)).until(() -> {
+            silent.checkin();
+            return silent.getOwnedShardCount() > 0 && ownedShards(survivor, silent) == SHARDS;
+        });
+        assertEachServiceOwnedOnce(survivor, silent);
+
+        await().atMost(SETTLE).until(() -> survivor.getOwnedShardCount() == SHARDS);
+        assertThat(silent.getOwnedShardCount()).isZero();
+        assertThat(survivor.getLiveNodeCount()).isEqualTo(1);
+    }
+
+    private ShardLeaseCoordinator start(String nodeId) {
+        ShardLeaseCoordinator node = coordinator(nodeId);
+        nodes.add(node);
+        node.start();
+        return node;
+    }
+
+    private ShardLeaseCoordinator coordinator(String nodeId) {
+        return new ShardLeaseCoordinator(nodeId, SHARDS, CHECKIN_MILLIS, nodeRepository, leaseRepository,
+                new TransactionTemplate(transactionManager));
+    }
+
+    private static int ownedShards(ShardLeaseCoordinator... nodes) {
+        return Arrays.stream(nodes).mapToInt(ShardLeaseCoordinator::getOwnedShardCount).sum();
+    }
+
+    private static void assertEachServiceOwnedOnce(ShardLeaseCoordinator... nodes) {
+        for (long serviceId = 1; serviceId <= 1000; serviceId++) {
+            long id = serviceId;
+            assertThat(Arrays.stream(nodes).filter(node -> node.owns(id)).count())
+                    .as("owners of service %d", id)
+                    .isLessThanOrEqualTo(1);
+        }
+    }
+}
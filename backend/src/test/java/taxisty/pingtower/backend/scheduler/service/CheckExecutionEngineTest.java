@@ -0,0 +1,130 @@
+package taxisty.pingtower.backend.scheduler.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import taxisty.pingtower.backend.scheduler.config.SchedulerProperties;
+import taxisty.pingtower.backend.scheduler.task.TaskExecutionContext;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CheckExecutionEngineTest {
+
+    private final MonitoringExecutorService executorService = mock(MonitoringExecutorService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Map<Long, CompletableFuture<Void>> checks = new ConcurrentHashMap<>();
+    private CheckExecutionEngine engine;
+
+    @AfterEach
+    void tearDown() {
+        checks.values().forEach(check -> check.complete(null));
+        if (engine != null) {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    void nextCheckOfAServiceIsSkippedUntilThePreviousCompletes() {
+        engine = engine(10, 10, serviceId -> true);
+
+        assertThat(engine.submit(1L, context(1L))).isTrue();
+        await().until(() -> engine.getInFlightCount() == 1);
+        assertThat(engine.submit(1L, context(1L))).isFalse();
+        assertThat(skipped("overlap")).isEqualTo(1);
+
+        check(1L).complete(null);
+        await().until(() -> engine.getInFlightCount() == 0);
+        assertThat(engine.submit(1L, context(1L))).isTrue();
+    }
+
+    @Test
+    void checksBeyondTheInFlightLimitWaitForAPermit() {
+        engine = engine(1, 10, serviceId -> true);
+
+        engine.submit(1L, context(1L));
+        engine.submit(2L, context(2L));
+        await().until(() -> engine.getInFlightCount() == 1 && engine.getQueuedCount() == 1);
+        verify(executorService, never()).executeMonitoringAsync(eq(2L), any(), any());
+
+        check(1L).complete(null);
+
+        verify(executorService, timeout(5000)).executeMonitoringAsync(eq(2L), any(), any());
+        await().until(() -> engine.getQueuedCount() == 0);
+        assertThat(meterRegistry.get("pingtower.checks.in.flight").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void checksBeyondTheQueueLimitAreRejected() {
+        engine = engine(1, 1, serviceId -> true);
+
+        engine.submit(1L, context(1L));
+        await().until(() -> engine.getInFlightCount() == 1);
+        assertThat(engine.submit(2L, context(2L))).isTrue();
+        assertThat(engine.submit(3L, context(3L))).isFalse();
+
+        assertThat(skipped("queue_full")).isEqualTo(1);
+        // A rejected service is not left marked as pending
+        check(1L).complete(null);
+        await().until(() -> engine.getInFlightCount() == 1 && engine.getQueuedCount() == 0);
+        assertThat(engine.submit(3L, context(3L))).isTrue();
+    }
+
+    @Test
+    void checksOfServicesOwnedElsewhereRunOnlyWhenRequestedManually() {
+        engine = engine(10, 10, serviceId -> false);
+
+        assertThat(engine.submit(1L, context(1L))).isFalse();
+        assertThat(skipped("not_owner")).isEqualTo(1);
+
+        assertThat(engine.submitManual(1L, context(1L))).isTrue();
+        verify(executorService, timeout(5000)).executeMonitoringAsync(eq(1L), any(), any());
+    }
+
+    @Test
+    void checkThatFailsToStartReleasesItsPermit() {
+        engine = engine(1, 10, serviceId -> true);
+        when(executorService.executeMonitoringAsync(eq(1L), any(), any()))
+                .thenThrow(new IllegalStateException("no task"));
+
+        engine.submit(1L, context(1L));
+        engine.submit(2L, context(2L));
+
+        verify(executorService, timeout(5000)).executeMonitoringAsync(eq(2L), any(), any());
+        await().until(() -> engine.getInFlightCount() == 1 && engine.getQueuedCount() == 0);
+    }
+
+    private CheckExecutionEngine engine(int maxInFlight, int maxQueued, CheckOwnership ownership) {
+        when(executorService.executeMonitoringAsync(anyLong(), any(), any()))
+                .thenAnswer(invocation -> check(invocation.getArgument(0)));
+        SchedulerProperties properties = new SchedulerProperties();
+        properties.setMaxInFlightChecks(maxInFlight);
+        properties.setMaxQueuedChecks(maxQueued);
+        return new CheckExecutionEngine(executorService, ownership, properties, meterRegistry);
+    }
+
+    private CompletableFuture<Void> check(long serviceId) {
+        return checks.computeIfAbsent(serviceId, id -> new CompletableFuture<>());
+    }
+
+    private double skipped(String reason) {
+        return meterRegistry.get("pingtower.checks.skipped").tag("reason", reason).counter().count();
+    }
+
+    private static TaskExecutionContext context(long serviceId) {
+        return TaskExecutionContext.createInitial(serviceId, "HTTP", LocalDateTime.now());
+    }
+}
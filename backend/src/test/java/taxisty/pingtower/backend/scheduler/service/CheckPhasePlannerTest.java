@@ -0,0 +1,62 @@
+package taxisty.pingtower.backend.scheduler.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.IntSummaryStatistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CheckPhasePlannerTest {
+
+    private final CheckPhasePlanner planner = new CheckPhasePlanner();
+
+    @Test
+    void phaseIsStableAndInsideTheInterval() {
+        for (long id = 1; id <= 1000; id++) {
+            long phase = planner.phaseSeconds(id, 300);
+            assertThat(phase).isBetween(0L, 299L);
+            assertThat(planner.phaseSeconds(id, 300)).isEqualTo(phase);
+        }
+        assertThat(planner.phaseSeconds(7, 1)).isZero();
+    }
+
+    @Test
+    void firstFireIsTheNextTimeAtThePhase() {
+        long id = 42;
+        long phaseMillis = planner.phaseSeconds(id, 60) * 1000;
+        long intervalStart = 1_700_000_040_000L - Math.floorMod(1_700_000_040_000L, 60_000L);
+
+        long beforePhase = intervalStart + phaseMillis - 1;
+        assertThat(planner.planFirstFire(id, 60, beforePhase)).isEqualTo(intervalStart + phaseMillis);
+
+        long afterPhase = intervalStart + phaseMillis + 1;
+        assertThat(planner.planFirstFire(id, 60, afterPhase)).isEqualTo(intervalStart + phaseMillis + 60_000);
+    }
+
+    @Test
+    void consecutiveIdsAreSpreadEvenlyOverTheInterval() {
+        long now = 1_700_000_000_000L;
+        for (long id = 1; id <= 3000; id++) {
+            planner.planFirstFire(id, 300, now);
+        }
+
+        int[] perSecond = planner.plannedChecksPerSecond(now, 300);
+        IntSummaryStatistics stats = Arrays.stream(perSecond).summaryStatistics();
+        assertThat(stats.getSum()).isEqualTo(3000);
+        // Ten checks per second on average; no second gets a burst
+        assertThat(stats.getMax()).isLessThanOrEqualTo(12);
+        assertThat(stats.getMin()).isGreaterThanOrEqualTo(8);
+    }
+
+    @Test
+    void releasedServicesAreNoLongerPlanned() {
+        planner.planFirstFire(1, 60, 0);
+        planner.planFirstFire(2, 60, 0);
+        planner.release(1);
+
+        assertThat(planner.plannedServiceCount()).isEqualTo(1);
+        planner.releaseAll();
+        assertThat(planner.plannedServiceCount()).isZero();
+    }
+}
@@ -0,0 +1,89 @@
+package taxisty.pingtower.backend.scheduler.service;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import taxisty.pingtower.backend.storage.model.CheckSchedule;
+import taxisty.pingtower.backend.storage.model.MonitoredService;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SchedulerServiceTest {
+
+    private final SchedulerBackend backend = mock(SchedulerBackend.class);
+    private final CheckPhasePlanner planner = mock(CheckPhasePlanner.class);
+    private final SchedulerService schedulerService = new SchedulerService(backend, planner);
+
+    @Test
+    void newServiceIsCheckedRightAwayWhenItsPhaseIsFarOff() throws Exception {
+        long inTenMinutes = System.currentTimeMillis() + 600_000;
+        when(planner.planFirstFire(eq(1L), anyLong(), anyLong())).thenReturn(inTenMinutes);
+        when(backend.triggerNow(1L)).thenReturn(true);
+
+        schedulerService.scheduleService(service(1L, true));
+
+        ArgumentCaptor<CheckSchedule> schedule = ArgumentCaptor.forClass(CheckSchedule.class);
+        verify(backend).schedule(any(), schedule.capture());
+        // The periodic checks keep the phase
+        assertThat(schedule.getValue().nextRunTime()).isAfter(LocalDateTime.now().plusMinutes(9));
+        verify(backend).triggerNow(1L);
+    }
+
+    @Test
+    void newServiceWaitsForAPhaseThatIsAboutToCome() throws Exception {
+        when(planner.planFirstFire(eq(2L), anyLong(), anyLong())).thenReturn(System.currentTimeMillis() + 1000);
+
+        schedulerService.scheduleService(service(2L, true));
+
+        verify(backend).schedule(any(), any());
+        verify(backend, never()).triggerNow(any());
+    }
+
+    @Test
+    void rescheduledServiceIsCheckedRightAway() throws Exception {
+        when(planner.planFirstFire(eq(3L), anyLong(), anyLong())).thenReturn(System.currentTimeMillis() + 600_000);
+        when(backend.triggerNow(3L)).thenReturn(true);
+
+        schedulerService.rescheduleService(service(3L, true));
+
+        verify(backend).unschedule(3L);
+        verify(backend).triggerNow(3L);
+    }
+
+    @Test
+    void inactiveServiceIsNeitherScheduledNorChecked() throws Exception {
+        schedulerService.scheduleService(service(4L, false));
+
+        verify(backend, never()).schedule(any(), any());
+        verify(backend, never()).triggerNow(any());
+    }
+
+    @Test
+    void servicesScheduledAtStartupKeepTheirPhase() throws Exception {
+        when(planner.planFirstFire(eq(5L), anyLong(), anyLong())).thenReturn(System.currentTimeMillis() + 600_000);
+        CheckSchedule schedule = new CheckSchedule();
+        schedule.setIntervalSeconds(900);
+        schedule.setIsEnabled(true);
+        schedule.setTimezone("UTC");
+
+        schedulerService.scheduleMonitoring(service(5L, true), schedule);
+
+        verify(backend).schedule(any(), any());
+        verify(backend, never()).triggerNow(any());
+    }
+
+    private static MonitoredService service(long id, boolean active) {
+        MonitoredService service = new MonitoredService(id, "service-" + id, null, "http://localhost/" + id, "GET",
+                null, "200", null, false, active, 1L, null, null);
+        service.setCheckIntervalMinutes(15);
+        return service;
+    }
+}
@@ -0,0 +1,94 @@
+package taxisty.pingtower.backend.scheduler.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import taxisty.pingtower.backend.scheduler.config.SchedulerProperties;
+import taxisty.pingtower.backend.storage.model.CheckSchedule;
+import taxisty.pingtower.backend.storage.model.MonitoredService;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class TimingWheelSchedulerBackendTest {
+
+    private final CheckExecutionEngine engine = mock(CheckExecutionEngine.class);
+    private TimingWheelSchedulerBackend backend;
+
+    @BeforeEach
+    void start() {
+        SchedulerProperties properties = new SchedulerProperties();
+        properties.setWheelTickMillis(10);
+        backend = new TimingWheelSchedulerBackend(engine, properties, new SimpleMeterRegistry());
+        backend.start();
+    }
+
+    @AfterEach
+    void stop() {
+        backend.stop();
+    }
+
+    @Test
+    void firesAtTheFirstRunTimeAndThenEveryInterval() throws Exception {
+        backend.schedule(service(1L), schedule(1, LocalDateTime.now().plusNanos(200_000_000)));
+
+        assertThat(backend.isScheduled(1L)).isTrue();
+        assertThat(backend.getScheduledCount()).isEqualTo(1);
+        verify(engine, after(100).never()).submit(eq(1L), any());
+        verify(engine, timeout(1000).times(1)).submit(eq(1L), any());
+        verify(engine, timeout(2000).times(2)).submit(eq(1L), any());
+    }
+
+    @Test
+    void unscheduledServicesStopFiring() throws Exception {
+        backend.schedule(service(2L), schedule(1, LocalDateTime.now().plusSeconds(1)));
+
+        assertThat(backend.unschedule(2L)).isTrue();
+        assertThat(backend.unschedule(2L)).isFalse();
+        assertThat(backend.isScheduled(2L)).isFalse();
+        assertThat(backend.getNextExecutionTime(2L)).isNull();
+        verify(engine, after(1500).never()).submit(eq(2L), any());
+    }
+
+    @Test
+    void reschedulingReplacesThePreviousSchedule() throws Exception {
+        backend.schedule(service(3L), schedule(60, LocalDateTime.now().plusSeconds(60)));
+        backend.schedule(service(3L), schedule(60, LocalDateTime.now().plusNanos(100_000_000)));
+
+        assertThat(backend.getScheduledCount()).isEqualTo(1);
+        verify(engine, timeout(1000).times(1)).submit(eq(3L), any());
+    }
+
+    @Test
+    void triggerNowRunsAManualCheckOnlyForScheduledServices() throws Exception {
+        assertThat(backend.triggerNow(4L)).isFalse();
+        backend.schedule(service(4L), schedule(60, LocalDateTime.now().plusSeconds(60)));
+
+        assertThat(backend.triggerNow(4L)).isTrue();
+        verify(engine).submitManual(eq(4L), any());
+        verify(engine, never()).submit(eq(4L), any());
+    }
+
+    private static MonitoredService service(long id) {
+        return new MonitoredService(id, "service-" + id, null, "http://localhost/" + id, "GET", null,
+                "200", null, false, true, 1L, null, null);
+    }
+
+    private static CheckSchedule schedule(int intervalSeconds, LocalDateTime firstRun) {
+        CheckSchedule schedule = new CheckSchedule();
+        schedule.setIntervalSeconds(intervalSeconds);
+        schedule.setIsEnabled(true);
+        schedule.setTimezone("UTC");
+        schedule.setNextRunTime(firstRun);
+        return schedule;
+    }
+}
@@ -0,0 +1,131 @@
+package taxisty.pingtower.backend.scheduler.task;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import taxisty.pingtower.backend.scheduler.config.SchedulerProperties;
+import taxisty.pingtower.backend.storage.model.CheckResult;
+import taxisty.pingtower.backend.storage.model.MonitoredService;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks per second against a local endpoint with {@value #LATENCY_MILLIS} ms latency: the old
+ * model of ten threads each blocking on a probe, against {@link HttpMonitoringTask#executeAsync}
+ * with up to {@value #MAX_IN_FLIGHT} probes on the wire.
+ */
+@Tag("benchmark")
+class HttpProbeThroughputBenchmark {
+
+    private static final int LATENCY_MILLIS = 200;
+    private static final int CHECKS = 2000;
+    private static final int BLOCKING_THREADS = 10;
+    private static final int MAX_IN_FLIGHT = 1000;
+
+    private static HttpServer server;
+    private static ExecutorService serverExecutor;
+    private static HttpMonitoringTask task;
+    private static MonitoredService service;
+
+    @BeforeAll
+    static void startServer() throws Exception {
+        serverExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        server.setExecutor(serverExecutor);
+        server.createContext("/", exchange -> {
+            try {
+                Thread.sleep(LATENCY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "ok".getBytes();
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        task = new HttpMonitoringTask(new ProbeClientRegistry(new SchedulerProperties(), new SimpleMeterRegistry()));
+        service = new MonitoredService(1L, "bench", null,
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/", "GET", null,
+                "200", null, false, true, 1L, null, null);
+        // Warm up connections and the JIT
+        runAsync(200);
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void blockingThreadsAgainstSendAsync() throws Exception {
+        long blockingStart = System.nanoTime();
+        int blockingOk = runBlocking(CHECKS);
+        double blockingSeconds = (System.nanoTime() - blockingStart) / 1e9;
+
+        long asyncStart = System.nanoTime();
+        int asyncOk = runAsync(CHECKS);
+        double asyncSeconds = (System.nanoTime() - asyncStart) / 1e9;
+
+        System.out.printf("%d checks, %d ms latency%n", CHECKS, LATENCY_MILLIS);
+        System.out.printf("  %d blocking threads: %.1f s, %.0f checks/s%n",
+                BLOCKING_THREADS, blockingSeconds, CHECKS / blockingSeconds);
+        System.out.printf("  sendAsync, %d in flight: %.1f s, %.0f checks/s%n",
+                MAX_IN_FLIGHT, asyncSeconds, CHECKS / asyncSeconds);
+
+        assertThat(blockingOk).isEqualTo(CHECKS);
+        assertThat(asyncOk).isEqualTo(CHECKS);
+        assertThat(asyncSeconds).isLessThan(blockingSeconds);
+    }
+
+    private static int runBlocking(int checks) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(BLOCKING_THREADS);
+        try {
+            List<Future<CheckResult>> results = new ArrayList<>(checks);
+            for (int i = 0; i < checks; i++) {
+                results.add(pool.submit(() -> task.execute(service)));
+            }
+            int ok = 0;
+            for (Future<CheckResult> result : results) {
+                if (result.get().isSuccessful()) {
+                    ok++;
+                }
+            }
+            return ok;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static int runAsync(int checks) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        AtomicInteger ok = new AtomicInteger();
+        List<CompletableFuture<?>> results = new ArrayList<>(checks);
+        for (int i = 0; i < checks; i++) {
+            inFlight.acquire();
+            results.add(task.executeAsync(service).whenComplete((result, error) -> {
+                if (result != null && result.isSuccessful()) {
+                    ok.incrementAndGet();
+                }
+                inFlight.release();
+            }));
+        }
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).join();
+        return ok.get();
+    }
+}
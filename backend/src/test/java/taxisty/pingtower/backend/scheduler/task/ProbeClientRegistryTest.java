@@ -0,0 +1,142 @@
+package taxisty.pingtower.backend.scheduler.task;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import taxisty.pingtower.backend.scheduler.config.SchedulerProperties;
+import taxisty.pingtower.backend.storage.model.MonitoredService;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProbeClientRegistryTest {
+
+    private final SchedulerProperties properties = new SchedulerProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private HttpServer server;
+    private ProbeClientRegistry registry;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        properties.setDefaultTimeoutSeconds(30);
+        properties.setProbeHttpVersion("HTTP_1_1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        if (registry != null) {
+            registry.shutdown();
+        }
+    }
+
+    @Test
+    void servicesInTheSameTimeoutClassShareOneClient() {
+        registry = new ProbeClientRegistry(properties, meterRegistry);
+
+        ProbeClientProfile three = registry.profileFor(service(3, false));
+        ProbeClientProfile five = registry.profileFor(service(5, false));
+        ProbeClientProfile seven = registry.profileFor(service(7, false));
+
+        assertThat(three).isEqualTo(five);
+        assertThat(three.connectTimeout()).isEqualTo(Duration.ofSeconds(5));
+        assertThat(seven.connectTimeout()).isEqualTo(Duration.ofSeconds(10));
+        assertThat(registry.client(three)).isSameAs(registry.client(five));
+        assertThat(registry.client(seven)).isNotSameAs(registry.client(three));
+        assertThat(meterRegistry.get("pingtower.probe.clients").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void requestTimeoutKeepsTheExactValueAndFallsBackToTheDefault() {
+        registry = new ProbeClientRegistry(properties, meterRegistry);
+
+        assertThat(registry.requestTimeout(service(7, false))).isEqualTo(Duration.ofSeconds(7));
+        assertThat(registry.requestTimeout(service(null, false))).isEqualTo(Duration.ofSeconds(30));
+        assertThat(registry.profileFor(service(null, false)).connectTimeout()).isEqualTo(Duration.ofSeconds(30));
+        assertThat(ProbeClientProfile.timeoutClass(1000)).isEqualTo(Duration.ofSeconds(300));
+    }
+
+    @Test
+    void redirectPolicyAndProxySplitTheProfiles() {
+        properties.setProbeProxyHost("proxy.internal");
+        properties.setProbeProxyPort(3128);
+        registry = new ProbeClientRegistry(properties, meterRegistry);
+
+        MonitoredService following = service(5, false);
+        following.setFollowRedirects(true);
+        ProbeClientProfile profile = registry.profileFor(following);
+
+        assertThat(profile.redirect()).isEqualTo(HttpClient.Redirect.NORMAL);
+        assertThat(registry.profileFor(service(5, false)).redirect()).isEqualTo(HttpClient.Redirect.NEVER);
+        assertThat(profile.proxy()).isEqualTo(InetSocketAddress.createUnresolved("proxy.internal", 3128));
+        assertThat(profile.version()).isEqualTo(HttpClient.Version.HTTP_1_1);
+    }
+
+    @Test
+    void unknownHttpVersionFallsBackToHttp2() {
+        properties.setProbeHttpVersion("HTTP_9");
+        registry = new ProbeClientRegistry(properties, meterRegistry);
+
+        assertThat(registry.profileFor(service(5, false)).version()).isEqualTo(HttpClient.Version.HTTP_2);
+    }
+
+    @Test
+    void sharedClientReusesItsConnections() throws Exception {
+        registry = new ProbeClientRegistry(properties, meterRegistry);
+
+        send(service(5, false), 10);
+
+        // The connection returns to the pool just after the response, so the next probe may
+        // occasionally open a second one; without sharing every probe would open its own
+        assertThat(clientPorts).hasSizeLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void coldConnectionProbesOpenAConnectionEveryTime() throws Exception {
+        registry = new ProbeClientRegistry(properties, meterRegistry);
+
+        send(service(5, true), 5);
+
+        assertThat(clientPorts).hasSize(5);
+        assertThat(meterRegistry.get("pingtower.probe.clients").gauge().value()).isZero();
+    }
+
+    private void send(MonitoredService service, int times) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(
+                        URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/health"))
+                .timeout(registry.requestTimeout(service))
+                .build();
+        for (int i = 0; i < times; i++) {
+            HttpResponse<Void> response = registry.sendAsync(service, request, HttpResponse.BodyHandlers.discarding())
+                    .get(5, TimeUnit.SECONDS);
+            assertThat(response.statusCode()).isEqualTo(200);
+        }
+    }
+
+    private static MonitoredService service(Integer timeoutSeconds, boolean coldConnectionProbe) {
+        MonitoredService service = new MonitoredService();
+        service.setTimeoutSeconds(timeoutSeconds);
+        service.setColdConnectionProbe(coldConnectionProbe);
+        return service;
+    }
+}
@@ -0,0 +1,168 @@
+package taxisty.pingtower.backend.scheduler.wheel;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    private static final long TICK = 10;
+    // 8 slots and 3 levels: level 0 covers 8 ticks, level 1 64 and level 2 512
+    private final TimingWheel<Node> wheel = new TimingWheel<>(TICK, 8, 3, 0);
+    private final List<Node> fired = new ArrayList<>();
+
+    @Test
+    void firesNodeAtItsDeadlineTick() {
+        Node node = new Node(1);
+        wheel.schedule(node, 5 * TICK);
+
+        wheel.advanceTo(4 * TICK, this::fire);
+        assertThat(fired).isEmpty();
+        assertThat(node.isScheduled()).isTrue();
+
+        wheel.advanceTo(5 * TICK, this::fire);
+        assertThat(fired).containsExactly(node);
+        assertThat(node.isScheduled()).isFalse();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cascadesNodesFromHigherLevels() {
+        Node level1 = new Node(1);
+        Node level2 = new Node(2);
+        wheel.schedule(level1, 20 * TICK);
+        wheel.schedule(level2, 300 * TICK);
+
+        wheel.advanceTo(19 * TICK, this::fire);
+        assertThat(fired).isEmpty();
+        wheel.advanceTo(20 * TICK, this::fire);
+        assertThat(fired).containsExactly(level1);
+
+        wheel.advanceTo(299 * TICK, this::fire);
+        assertThat(fired).containsExactly(level1);
+        wheel.advanceTo(300 * TICK, this::fire);
+        assertThat(fired).containsExactly(level1, level2);
+    }
+
+    @Test
+    void firesDeadlinesBeyondTheHorizonOnTime() {
+        Node node = new Node(1);
+        wheel.schedule(node, 2000 * TICK);
+
+        wheel.advanceTo(1999 * TICK, this::fire);
+        assertThat(fired).isEmpty();
+        assertThat(node.isScheduled()).isTrue();
+
+        wheel.advanceTo(2000 * TICK, this::fire);
+        assertThat(fired).containsExactly(node);
+    }
+
+    @Test
+    void firesDueDeadlinesOnTheNextTick() {
+        wheel.advanceTo(10 * TICK, this::fire);
+        Node node = new Node(1);
+        wheel.schedule(node, 3 * TICK);
+
+        assertThat(node.getDeadlineTick()).isEqualTo(11);
+        wheel.advanceTo(11 * TICK, this::fire);
+        assertThat(fired).containsExactly(node);
+    }
+
+    @Test
+    void cancelledNodesDoNotFire() {
+        Node kept = new Node(1);
+        Node cancelled = new Node(2);
+        wheel.schedule(kept, 100 * TICK);
+        wheel.schedule(cancelled, 100 * TICK);
+
+        wheel.cancel(cancelled);
+        assertThat(cancelled.isScheduled()).isFalse();
+        assertThat(wheel.size()).isEqualTo(1);
+        // Cancelling again is a no-op
+        wheel.cancel(cancelled);
+        assertThat(wheel.size()).isEqualTo(1);
+
+        wheel.advanceTo(200 * TICK, this::fire);
+        assertThat(fired).containsExactly(kept);
+    }
+
+    @Test
+    void schedulingAScheduledNodeMovesIt() {
+        Node node = new Node(1);
+        wheel.schedule(node, 100 * TICK);
+        wheel.schedule(node, 10 * TICK);
+
+        assertThat(wheel.size()).isEqualTo(1);
+        wheel.advanceTo(10 * TICK, this::fire);
+        assertThat(fired).containsExactly(node);
+        wheel.advanceTo(200 * TICK, this::fire);
+        assertThat(fired).containsExactly(node);
+    }
+
+    @Test
+    void expiredNodesMayBeRescheduledFromTheConsumer() {
+        Node node = new Node(1);
+        wheel.schedule(node, 7 * TICK);
+
+        List<Long> fireTicks = new ArrayList<>();
+        wheel.advanceTo(100 * TICK, expired -> {
+            fireTicks.add(wheel.getCurrentTick());
+            wheel.schedule(expired, wheel.toMillis(wheel.getCurrentTick()) + 30 * TICK);
+        });
+
+        assertThat(fireTicks).containsExactly(7L, 37L, 67L, 97L);
+        assertThat(node.isScheduled()).isTrue();
+    }
+
+    @Test
+    void everyNodeFiresExactlyOnceAtItsDeadline() {
+        Random random = new Random(42);
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Node node = new Node(i);
+            node.expectedTick = 1 + random.nextInt(3000);
+            wheel.schedule(node, node.expectedTick * TICK);
+            nodes.add(node);
+        }
+        // Cancel every tenth node
+        for (int i = 0; i < nodes.size(); i += 10) {
+            wheel.cancel(nodes.get(i));
+        }
+
+        // Advance in uneven steps so several ticks are processed per call
+        long now = 0;
+        while (now < 3100 * TICK) {
+            now += (1 + random.nextInt(50)) * TICK;
+            wheel.advanceTo(now, node -> {
+                assertThat(wheel.getCurrentTick()).isEqualTo(node.expectedTick);
+                fire(node);
+            });
+        }
+
+        assertThat(fired).hasSize(4500);
+        assertThat(fired).doesNotHaveDuplicates();
+        assertThat(wheel.size()).isZero();
+    }
+
+    private void fire(Node node) {
+        fired.add(node);
+    }
+
+    private static final class Node extends TimerNode {
+        final int id;
+        long expectedTick;
+
+        Node(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public String toString() {
+            return "Node" + id;
+        }
+    }
+}